@@ -83,7 +83,21 @@ public class ConfiguredServices implements IDisposable {
         secure3dProviders = new HashMap<Secure3dVersion, ISecure3dProvider>();
     }
 
+    // copy that can be reconfigured while the original keeps serving requests
+    ConfiguredServices(ConfiguredServices other) {
+        gatewayConnector = other.gatewayConnector;
+        recurringConnector = other.recurringConnector;
+        reportingService = other.reportingService;
+        deviceInterface = other.deviceInterface;
+        deviceController = other.deviceController;
+        tableServiceConnector = other.tableServiceConnector;
+        payrollConnector = other.payrollConnector;
+        secure3dProviders = new HashMap<Secure3dVersion, ISecure3dProvider>(other.secure3dProviders);
+        billingProvider = other.billingProvider;
+    }
+
     public void dispose() {
-        deviceController.dispose();
+        if(deviceController != null)
+            deviceController.dispose();
     }
 }
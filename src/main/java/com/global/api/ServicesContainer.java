@@ -12,37 +12,44 @@ import com.global.api.terminals.abstractions.IDisposable;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class ServicesContainer implements IDisposable {
-    private ConcurrentHashMap<String, ConfiguredServices> configurations;
-    private static ServicesContainer instance;
+    // each configuration is replaced by a new copy when it changes, so readers never see one half configured
+    private final ConcurrentHashMap<String, ConfiguredServices> configurations;
+    private final Object updateLock = new Object();
 
     public IDeviceInterface getDeviceInterface(String configName) throws ApiException {
-        if(configurations.containsKey(configName))
-            return configurations.get(configName).getDeviceInterface();
+        ConfiguredServices cs = configurations.get(configName);
+        if(cs != null)
+            return cs.getDeviceInterface();
         throw new ApiException("The specified configuration has not been configured for terminal interaction.");
     }
     public DeviceController getDeviceController(String configName) throws ApiException {
-        if(configurations.containsKey(configName))
-            return configurations.get(configName).getDeviceController();
+        ConfiguredServices cs = configurations.get(configName);
+        if(cs != null)
+            return cs.getDeviceController();
         throw new ApiException("The specified configuration has not been configured for terminal interaction.");
     }
     public IPaymentGateway getGateway(String configName) throws ApiException {
-        if(configurations.containsKey(configName))
-            return configurations.get(configName).getGatewayConnector();
+        ConfiguredServices cs = configurations.get(configName);
+        if(cs != null)
+            return cs.getGatewayConnector();
         throw new ApiException("The specified configuration has not been configured for card processing.");
     }
     public PayrollConnector getPayroll(String configName) throws ApiException {
-        if(configurations.containsKey(configName))
-            return configurations.get(configName).getPayrollConnector();
+        ConfiguredServices cs = configurations.get(configName);
+        if(cs != null)
+            return cs.getPayrollConnector();
         throw new ApiException("The specified configuration has not been configured for payroll.");
     }
     public IRecurringGateway getRecurring(String configName) throws ApiException {
-        if(configurations.containsKey(configName))
-            return configurations.get(configName).getRecurringConnector();
+        ConfiguredServices cs = configurations.get(configName);
+        if(cs != null)
+            return cs.getRecurringConnector();
         throw new ApiException("The specified configuration has not been configured for recurring processing.");
     }
     public ISecure3dProvider getSecure3d(String configName, Secure3dVersion version) throws ApiException {
-        if(configurations.containsKey(configName)) {
-            ISecure3dProvider provider = configurations.get(configName).getSecure3dProvider(version);
+        ConfiguredServices cs = configurations.get(configName);
+        if(cs != null) {
+            ISecure3dProvider provider = cs.getSecure3dProvider(version);
             if(provider != null) {
                 return provider;
             }
@@ -51,22 +58,27 @@ public class ServicesContainer implements IDisposable {
         throw new ConfigurationException("Secure 3d is not configured on the connector");
     }
     public TableServiceConnector getTableService(String configName) throws ApiException {
-        if(configurations.containsKey(configName))
-            return configurations.get(configName).getTableServiceConnector();
+        ConfiguredServices cs = configurations.get(configName);
+        if(cs != null)
+            return cs.getTableServiceConnector();
         throw new ApiException("The specified configuration has not been configured for payroll.");
     }
     public IBillingProvider getBillingClient(String configName) throws ApiException {
-        if (configurations.containsKey(configName)) {
-            return configurations.get(configName).getBillingProvider();
+        ConfiguredServices cs = configurations.get(configName);
+        if (cs != null) {
+            return cs.getBillingProvider();
         }
 
         throw new ConfigurationException("The specified configuration has not been configured for gateway processing.");
     }
 
+    // created when the class is first used, which the class loader makes thread safe
+    private static class InstanceHolder {
+        private static final ServicesContainer instance = new ServicesContainer();
+    }
+
     public static ServicesContainer getInstance() {
-        if(instance == null)
-            instance = new ServicesContainer();
-        return instance;
+        return InstanceHolder.instance;
     }
 
     public static void configure(ServicesConfig config) throws ConfigurationException {
@@ -75,67 +87,53 @@ public class ServicesContainer implements IDisposable {
     public static void configure(ServicesConfig config, String configName) throws ConfigurationException {
         config.validate();
 
-        // configure devices
-        configureService(config.getDeviceConnectionConfig(), configName);
-
-        // configure table service
-        configureService(config.getTableServiceConfig(), configName);
-
-        // configure payroll
-        configureService(config.getPayrollConfig(), configName);
-
-        // configure gateways
-        configureService(config.getGatewayConfig(), configName);
-
-        ConfiguredServices cs = new ConfiguredServices();
-
-        // configure devices
-        if(config.getDeviceConnectionConfig() != null) {
-
-        }
+        // devices, table service, payroll and then gateways, a missing one removes what was configured before it
+        getInstance().update(configName,
+                config.getDeviceConnectionConfig(),
+                config.getTableServiceConfig(),
+                config.getPayrollConfig(),
+                config.getGatewayConfig());
     }
 
     public static <T extends Configuration> void configureService(T config) throws ConfigurationException {
         configureService(config, "default");
     }
     public static <T extends Configuration> void configureService(T config, String configName) throws ConfigurationException {
-        if(config == null) {
-            getInstance().removeConfiguration(configName);
-            return;
-        }
-
-        if(!config.isValidated()) {
-            config.validate();
-        }
-
-        ConfiguredServices cs = getInstance().getConfiguration(configName);
-        config.configureContainer(cs);
-
-        getInstance().addConfiguration(configName, cs);
+        getInstance().update(configName, config);
     }
 
     private ServicesContainer() {
         configurations = new ConcurrentHashMap<>();
     }
 
-    private ConfiguredServices getConfiguration(String configName) {
-        if(configurations.containsKey(configName))
-            return configurations.get(configName);
-        return new ConfiguredServices();
-    }
-
-    private void addConfiguration(String configName, ConfiguredServices cs) throws ConfigurationException {
-        System.out.println(String.format("[Add Configuration] - %s", configName));
-        if(configurations.containsKey(configName)) {
-            configurations.remove(configName);
+    private void update(String configName, Configuration... configs) throws ConfigurationException {
+        for(Configuration config: configs) {
+            if(config != null && !config.isValidated()) {
+                config.validate();
+            }
         }
-        configurations.put(configName, cs);
-    }
 
-    private void removeConfiguration(String configName) throws ConfigurationException {
-        System.out.println(String.format("[Remove Configuration] - %s", configName));
-        if(configurations.containsKey(configName)) {
-            configurations.remove(configName);
+        synchronized (updateLock) {
+            ConfiguredServices current = configurations.get(configName);
+            ConfiguredServices cs = current != null ? new ConfiguredServices(current) : null;
+
+            for(Configuration config: configs) {
+                if(config == null) {
+                    cs = null;
+                }
+                else {
+                    if(cs == null) {
+                        cs = new ConfiguredServices();
+                    }
+                    config.configureContainer(cs);
+                }
+            }
+
+            // requests already holding the previous services finish with them
+            if(cs != null) {
+                configurations.put(configName, cs);
+            }
+            else configurations.remove(configName);
         }
     }
 
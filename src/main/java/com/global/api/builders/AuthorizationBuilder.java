@@ -6,6 +6,7 @@ import com.global.api.entities.billing.Bill;
 import com.global.api.entities.enums.*;
 import com.global.api.entities.exceptions.ApiException;
 import com.global.api.entities.exceptions.UnsupportedTransactionException;
+import com.global.api.gateways.IAsyncPaymentGateway;
 import com.global.api.gateways.IPaymentGateway;
 
 import com.global.api.network.entities.nts.*;
@@ -22,6 +23,9 @@ import lombok.var;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class AuthorizationBuilder extends TransactionBuilder<Transaction> {
     private AccountType accountType;
@@ -850,6 +854,28 @@ public class AuthorizationBuilder extends TransactionBuilder<Transaction> {
         return client.processAuthorization(this);
     }
 
+    // sent through the gateway's non-blocking path when it has one, otherwise the gateway call runs on the executor
+    @Override
+    public CompletableFuture<Transaction> executeAsync(final String configName, final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                super.execute(configName);
+                return ServicesContainer.getInstance().getGateway(configName);
+            } catch (ApiException exc) {
+                throw new CompletionException(exc);
+            }
+        }, executor).thenCompose(client -> {
+            if (client instanceof IAsyncPaymentGateway) {
+                return ((IAsyncPaymentGateway) client).processAuthorizationAsync(this, executor);
+            }
+            try {
+                return CompletableFuture.completedFuture(client.processAuthorization(this));
+            } catch (ApiException exc) {
+                throw new CompletionException(exc);
+            }
+        });
+    }
+
     public String serialize() throws ApiException {
         return serialize("default");
     }
@@ -3,6 +3,10 @@ package com.global.api.builders;
 import com.global.api.builders.validations.Validations;
 import com.global.api.entities.exceptions.ApiException;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 public abstract class BaseBuilder<TResult> {
     protected Validations validations;
 
@@ -26,5 +30,21 @@ public abstract class BaseBuilder<TResult> {
         return null;
     }
 
+    public CompletableFuture<TResult> executeAsync(Executor executor) {
+        return executeAsync("default", executor);
+    }
+    // Runs execute(configName) on the given executor; an ApiException completes the future exceptionally
+    // wrapped in a CompletionException. Authorization and management builders override this to send through
+    // an IAsyncPaymentGateway, which holds no thread while the request is in flight.
+    public CompletableFuture<TResult> executeAsync(final String configName, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute(configName);
+            } catch (ApiException exc) {
+                throw new CompletionException(exc);
+            }
+        }, executor);
+    }
+
     public abstract void setupValidations();
 }
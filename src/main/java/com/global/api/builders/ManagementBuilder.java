@@ -5,6 +5,7 @@ import com.global.api.entities.*;
 import com.global.api.entities.enums.*;
 import com.global.api.entities.billing.Bill;
 import com.global.api.entities.exceptions.ApiException;
+import com.global.api.gateways.IAsyncPaymentGateway;
 import com.global.api.gateways.IPaymentGateway;
 import com.global.api.network.entities.*;
 import com.global.api.network.entities.nts.*;
@@ -16,6 +17,9 @@ import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class ManagementBuilder extends TransactionBuilder<Transaction> {
     @Getter private AccountType accountType;
@@ -631,6 +635,28 @@ public class ManagementBuilder extends TransactionBuilder<Transaction> {
         return gateway.manageTransaction(this);
     }
 
+    // sent through the gateway's non-blocking path when it has one, otherwise the gateway call runs on the executor
+    @Override
+    public CompletableFuture<Transaction> executeAsync(final String configName, final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                super.execute(configName);
+                return ServicesContainer.getInstance().getGateway(configName);
+            } catch (ApiException exc) {
+                throw new CompletionException(exc);
+            }
+        }, executor).thenCompose(gateway -> {
+            if (gateway instanceof IAsyncPaymentGateway) {
+                return ((IAsyncPaymentGateway) gateway).manageTransactionAsync(this, executor);
+            }
+            try {
+                return CompletableFuture.completedFuture(gateway.manageTransaction(this));
+            } catch (ApiException exc) {
+                throw new CompletionException(exc);
+            }
+        });
+    }
+
     @Override
     public void setupValidations() {
         this.validations.of(EnumSet.of(TransactionType.Capture, TransactionType.Edit, TransactionType.Hold, TransactionType.Release))
@@ -1,7 +1,9 @@
 package com.global.api.builders;
 
 import com.global.api.entities.enums.*;
+import com.global.api.entities.gpApi.PagedResult;
 import com.global.api.entities.reporting.DataServiceCriteria;
+import com.global.api.entities.reporting.PagedResultIterable;
 import com.global.api.entities.reporting.SearchCriteria;
 import com.global.api.entities.reporting.SearchCriteriaBuilder;
 import lombok.Getter;
@@ -104,6 +106,16 @@ public class TransactionReportBuilder<TResult> extends ReportBuilder<TResult> {
         return this;
     }
 
+    // every row of a paged report, fetching the next page while the current one is consumed
+    public <T> PagedResultIterable<T> iteratePages() {
+        return iteratePages("default");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> PagedResultIterable<T> iteratePages(String configName) {
+        return new PagedResultIterable<T>((TransactionReportBuilder<? extends PagedResult<T>>) this, configName);
+    }
+
     public TransactionReportBuilder<TResult> WithSettlementDisputeId(String value) {
         getSearchBuilder().setSettlementDisputeId(value);
         return this;
@@ -0,0 +1,121 @@
+package com.global.api.entities.reporting;
+
+import com.global.api.builders.TransactionReportBuilder;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.UnsupportedTransactionException;
+import com.global.api.entities.gpApi.PagedResult;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Walks every page of a paged report, starting at the builder's page. While one page is being consumed the
+ * next one is already being fetched, so only two pages are held in memory at a time. A failed request
+ * surfaces from hasNext/next as a CompletionException wrapping the ApiException.
+ */
+public class PagedResultIterable<T> implements Iterable<T> {
+    private static final ExecutorService defaultExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "PagedResultIterable");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final TransactionReportBuilder<? extends PagedResult<T>> builder;
+    private final String configName;
+    private final Executor executor;
+    private final int startPage;
+
+    public PagedResultIterable(TransactionReportBuilder<? extends PagedResult<T>> builder) {
+        this(builder, "default");
+    }
+    public PagedResultIterable(TransactionReportBuilder<? extends PagedResult<T>> builder, String configName) {
+        this(builder, configName, defaultExecutor);
+    }
+    public PagedResultIterable(TransactionReportBuilder<? extends PagedResult<T>> builder, String configName, Executor executor) {
+        this.builder = builder;
+        this.configName = configName;
+        this.executor = executor;
+        this.startPage = builder.getPage();
+    }
+
+    public Iterator<T> iterator() {
+        return new PageIterator();
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<PagedResult<T>> fetch(final int page) {
+        return CompletableFuture.supplyAsync(new Supplier<PagedResult<T>>() {
+            public PagedResult<T> get() {
+                try {
+                    Object result;
+                    synchronized (builder) {
+                        // the caller's builder is left on the page it was set to
+                        int originalPage = builder.getPage();
+                        builder.setPage(page);
+                        try {
+                            result = builder.execute(configName);
+                        }
+                        finally {
+                            builder.setPage(originalPage);
+                        }
+                    }
+
+                    if (!(result instanceof PagedResult)) {
+                        throw new UnsupportedTransactionException(String.format("The %s report is not paged.", builder.getReportType()));
+                    }
+                    return (PagedResult<T>) result;
+                } catch (ApiException exc) {
+                    throw new CompletionException(exc);
+                }
+            }
+        }, executor);
+    }
+
+    private class PageIterator implements Iterator<T> {
+        private int page = startPage;
+        private Iterator<T> current = Collections.<T>emptyIterator();
+        private CompletableFuture<PagedResult<T>> next = fetch(startPage);
+
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (next == null) {
+                    return false;
+                }
+
+                PagedResult<T> result = next.join();
+
+                // a short page is the last one, the total count is not reliable for every report
+                if (result.getResults().isEmpty() || result.getResults().size() < builder.getPageSize()) {
+                    next = null;
+                }
+                else next = fetch(++page);
+
+                current = result.getResults().iterator();
+            }
+            return true;
+        }
+
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
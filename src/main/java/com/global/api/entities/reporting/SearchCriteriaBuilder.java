@@ -126,6 +126,14 @@ public class SearchCriteriaBuilder<TResult> {
         return _reportBuilder.execute(configName);
     }
 
+    public <T> PagedResultIterable<T> iteratePages() {
+        return _reportBuilder.iteratePages();
+    }
+
+    public <T> PagedResultIterable<T> iteratePages(String configName) {
+        return _reportBuilder.iteratePages(configName);
+    }
+
     public <T> SearchCriteriaBuilder<TResult> and(SearchCriteria criteria, T value) {
         String criteriaValue = criteria.toString();
         if (criteriaValue != null) {
@@ -0,0 +1,930 @@
+package com.global.api.gateways;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Non-blocking HTTP/1.1 transport. One selector thread connects, runs TLS through an SSLEngine, writes the requests
+ * and parses the responses of every connection, so a request in flight does not hold a thread. The futures returned by
+ * sendAsync complete on that thread; anything done with a response belongs on an executor, as Gateway.sendRequestAsync
+ * does.
+ *
+ * <p>Connections are kept alive per route (scheme, host and port) with at most maxConnectionsPerRoute open at once,
+ * further requests wait for a free connection without blocking. A request is written at most once and never retried.
+ * Requests through a proxy are sent by a PooledHttpTransport on the calling thread.</p>
+ */
+@Accessors(chain = true)
+@Getter
+@Setter
+public class AsyncHttpTransport implements IHttpTransport {
+    private static final long SELECT_TIMEOUT = 1000;
+    private static final int MAX_LINE_LENGTH = 65536;
+
+    // upper bound of connections open at the same time to a single route
+    private int maxConnectionsPerRoute = 50;
+    // how long an idle connection is kept before being closed (ms)
+    private int maxIdleTime = 30000;
+    // how long a request waits for a free connection when the route is at capacity (ms)
+    private int connectionRequestTimeout = 30000;
+    // longest wait for the next bytes of a response (ms), 0 waits indefinitely
+    private int readTimeout = 0;
+    // defaults to the context of SSLSocketFactoryEx.getShared(), either way engines get its protocols and cipher suites
+    private SSLContext sslContext;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile SSLSocketFactoryEx socketFactory;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // routes and connections are only touched by the loop thread
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private final Map<String, Route> routes = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int openConnections;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Selector selector;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Thread thread;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private PooledHttpTransport proxyTransport;
+
+    public HttpTransportResponse send(HttpTransportRequest request) throws IOException {
+        if (isProxied(request)) {
+            return getProxyTransport().send(request);
+        }
+
+        try {
+            return sendAsync(request).get();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a response from " + request.getUrl() + ".");
+        } catch (ExecutionException exc) {
+            Throwable cause = exc.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpTransportResponse> sendAsync(HttpTransportRequest request) {
+        if (isProxied(request)) {
+            try {
+                return getProxyTransport().sendAsync(request);
+            } catch (IOException exc) {
+                CompletableFuture<HttpTransportResponse> rvalue = new CompletableFuture<>();
+                rvalue.completeExceptionally(exc);
+                return rvalue;
+            }
+        }
+
+        final Exchange exchange = new Exchange(request);
+        try {
+            URL url = request.getUrl();
+            boolean secure = "https".equalsIgnoreCase(url.getProtocol());
+            if (!secure && !"http".equalsIgnoreCase(url.getProtocol())) {
+                throw new IOException("Unsupported protocol: " + url.getProtocol());
+            }
+            int port = url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+
+            // resolved by the caller so the loop never waits on DNS
+            InetSocketAddress address = new InetSocketAddress(url.getHost(), port);
+            if (address.isUnresolved()) {
+                throw new UnknownHostException(url.getHost());
+            }
+
+            exchange.routeKey = url.getProtocol().toLowerCase() + "://" + url.getHost() + ":" + port;
+            exchange.address = address;
+            exchange.socketFactory = secure ? getSocketFactory() : null;
+            exchange.requestBytes = HttpMessages.encodeRequest(request);
+
+            execute(new Runnable() {
+                public void run() {
+                    dispatch(exchange);
+                }
+            });
+        } catch (IOException | RuntimeException exc) {
+            exchange.future.completeExceptionally(exc);
+        }
+        return exchange.future;
+    }
+
+    public synchronized int getOpenConnectionCount() {
+        return openConnections;
+    }
+
+    /**
+     * Closes every connection. Requests in flight or waiting for a connection fail with an IOException.
+     */
+    public void shutdown() {
+        execute(new Runnable() {
+            public void run() {
+                IOException cause = new IOException("The transport was shut down.");
+                for (Route route : routes.values()) {
+                    Exchange exchange;
+                    while ((exchange = route.waiting.poll()) != null) {
+                        exchange.future.completeExceptionally(cause);
+                    }
+                }
+                for (Connection connection : snapshot()) {
+                    connection.close(cause);
+                }
+            }
+        });
+        if (proxyTransport != null) {
+            proxyTransport.shutdown();
+        }
+    }
+
+    private static boolean isProxied(HttpTransportRequest request) {
+        Proxy proxy = request.getProxy();
+        return proxy != null && proxy.type() != Proxy.Type.DIRECT;
+    }
+
+    public AsyncHttpTransport setSslContext(SSLContext sslContext) {
+        this.sslContext = sslContext;
+        socketFactory = null;
+        return this;
+    }
+
+    private synchronized PooledHttpTransport getProxyTransport() throws IOException {
+        if (proxyTransport == null) {
+            proxyTransport = new PooledHttpTransport()
+                    .setMaxConnectionsPerRoute(maxConnectionsPerRoute)
+                    .setMaxIdleTime(maxIdleTime)
+                    .setConnectionRequestTimeout(connectionRequestTimeout)
+                    .setReadTimeout(readTimeout);
+            if (sslContext != null) {
+                proxyTransport.setSslSocketFactory(getSocketFactory());
+            }
+        }
+        return proxyTransport;
+    }
+
+    private SSLSocketFactoryEx getSocketFactory() throws IOException {
+        SSLSocketFactoryEx factory = socketFactory;
+        if (factory == null) {
+            try {
+                factory = sslContext != null ? new SSLSocketFactoryEx(sslContext) : SSLSocketFactoryEx.getShared();
+            } catch (GeneralSecurityException exc) {
+                throw new IOException("Unable to initialize the SSL context.", exc);
+            }
+            socketFactory = factory;
+        }
+        return factory;
+    }
+
+    private synchronized void execute(Runnable task) {
+        tasks.add(task);
+        if (thread == null) {
+            try {
+                selector = Selector.open();
+            } catch (IOException exc) {
+                tasks.clear();
+                throw new IllegalStateException("Unable to open a selector.", exc);
+            }
+
+            final Selector loopSelector = selector;
+            thread = new Thread("HTTP event loop") {
+                public void run() {
+                    runLoop(loopSelector);
+                }
+            };
+            thread.setDaemon(true);
+            thread.start();
+        }
+        selector.wakeup();
+    }
+
+    private void runLoop(Selector loopSelector) {
+        try {
+            long timeout = SELECT_TIMEOUT;
+            while (true) {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                synchronized (this) {
+                    if (openConnections == 0 && tasks.isEmpty()) {
+                        thread = null;
+                        selector = null;
+                        return;
+                    }
+                }
+
+                loopSelector.select(timeout);
+
+                Iterator<SelectionKey> keys = loopSelector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (key.isValid()) {
+                        ((Connection) key.attachment()).handle(key.readyOps());
+                    }
+                }
+
+                timeout = checkDeadlines(System.currentTimeMillis());
+            }
+        } catch (IOException exc) {
+            // the selector itself failed, nothing in flight can complete
+            for (Connection connection : snapshot()) {
+                connection.close(exc);
+            }
+            for (Route route : routes.values()) {
+                Exchange exchange;
+                while ((exchange = route.waiting.poll()) != null) {
+                    exchange.future.completeExceptionally(exc);
+                }
+            }
+            synchronized (this) {
+                thread = null;
+                selector = null;
+            }
+        } finally {
+            try {
+                loopSelector.close();
+            } catch (IOException exc) {
+                // Eating the close exception
+            }
+        }
+    }
+
+    // fails whatever has waited too long, returns how long the loop may sleep
+    private long checkDeadlines(long now) {
+        long next = now + SELECT_TIMEOUT;
+        for (Route route : routes.values()) {
+            Iterator<Exchange> waiting = route.waiting.iterator();
+            while (waiting.hasNext()) {
+                Exchange exchange = waiting.next();
+                if (exchange.future.isDone()) {
+                    waiting.remove();
+                } else if (now >= exchange.waitDeadline) {
+                    waiting.remove();
+                    exchange.future.completeExceptionally(new IOException("Timeout waiting for a connection to " + route.key + "."));
+                } else {
+                    next = Math.min(next, exchange.waitDeadline);
+                }
+            }
+        }
+        for (Connection connection : snapshot()) {
+            next = Math.min(next, connection.checkDeadlines(now));
+        }
+        return Math.max(1, next - now);
+    }
+
+    private List<Connection> snapshot() {
+        List<Connection> rvalue = new ArrayList<>();
+        for (Route route : routes.values()) {
+            rvalue.addAll(route.connections);
+        }
+        return rvalue;
+    }
+
+    private void dispatch(Exchange exchange) {
+        if (exchange.future.isDone()) {
+            return;
+        }
+
+        Route route = routes.get(exchange.routeKey);
+        if (route == null) {
+            route = new Route(exchange.routeKey);
+            routes.put(route.key, route);
+        }
+
+        long now = System.currentTimeMillis();
+        Connection connection;
+        while ((connection = route.idle.pollFirst()) != null) {
+            if (now < connection.expiresAt) {
+                connection.start(exchange);
+                return;
+            }
+            connection.close(null);
+        }
+
+        if (route.connections.size() < maxConnectionsPerRoute) {
+            open(route, exchange);
+        } else {
+            exchange.waitDeadline = connectionRequestTimeout > 0 ? now + connectionRequestTimeout : Long.MAX_VALUE;
+            route.waiting.add(exchange);
+        }
+    }
+
+    private void open(Route route, Exchange exchange) {
+        SocketChannel channel = null;
+        Connection connection = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.setOption(StandardSocketOptions.SO_KEEPALIVE, true);
+
+            connection = new Connection(route, channel, exchange.socketFactory);
+            route.connections.add(connection);
+            synchronized (this) {
+                openConnections++;
+            }
+            connection.key = channel.register(selector, SelectionKey.OP_CONNECT, connection);
+            connection.exchange = exchange;
+            int connectTimeout = exchange.request.getTimeout();
+            connection.connectDeadline = connectTimeout > 0 ? System.currentTimeMillis() + connectTimeout : Long.MAX_VALUE;
+
+            if (channel.connect(exchange.address)) {
+                connection.connected();
+            }
+        } catch (IOException | RuntimeException exc) {
+            if (connection != null) {
+                connection.close(exc);
+            } else {
+                closeQuietly(channel);
+                exchange.future.completeExceptionally(exc);
+            }
+        }
+    }
+
+    // hands a connection slot that just came free to the longest waiting request
+    private Exchange nextWaiting(Route route) {
+        Exchange exchange;
+        while ((exchange = route.waiting.poll()) != null) {
+            if (!exchange.future.isDone()) {
+                return exchange;
+            }
+        }
+        return null;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException exc) {
+            // nothing more can be done with this channel
+        }
+    }
+
+    private static class Exchange {
+        private final HttpTransportRequest request;
+        private final CompletableFuture<HttpTransportResponse> future = new CompletableFuture<>();
+        private String routeKey;
+        private InetSocketAddress address;
+        private SSLSocketFactoryEx socketFactory;
+        private byte[] requestBytes;
+        private long waitDeadline;
+
+        Exchange(HttpTransportRequest request) {
+            this.request = request;
+        }
+    }
+
+    private static class Route {
+        private final String key;
+        private final List<Connection> connections = new ArrayList<>();
+        private final ArrayDeque<Connection> idle = new ArrayDeque<>();
+        private final ArrayDeque<Exchange> waiting = new ArrayDeque<>();
+
+        Route(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * A connection owned by the loop thread, carrying one exchange at a time.
+     */
+    private class Connection {
+        private final Route route;
+        private final SocketChannel channel;
+        private final SSLSocketFactoryEx socketFactory;
+        private SelectionKey key;
+        private boolean connecting = true;
+        private boolean closed;
+
+        private SSLEngine engine;
+        private ByteBuffer netIn;
+        private ByteBuffer netOut;
+        private ByteBuffer appIn;
+
+        private Exchange exchange;
+        private ByteBuffer appOut;
+        private ResponseParser parser;
+
+        private long connectDeadline = Long.MAX_VALUE;
+        private long readDeadline = Long.MAX_VALUE;
+        private long expiresAt = Long.MAX_VALUE;
+
+        Connection(Route route, SocketChannel channel, SSLSocketFactoryEx socketFactory) {
+            this.route = route;
+            this.channel = channel;
+            this.socketFactory = socketFactory;
+        }
+
+        void handle(int readyOps) {
+            try {
+                if ((readyOps & SelectionKey.OP_CONNECT) != 0) {
+                    if (channel.finishConnect()) {
+                        connected();
+                    }
+                } else {
+                    pump();
+                }
+            } catch (IOException | RuntimeException exc) {
+                close(exc);
+            }
+        }
+
+        void connected() throws IOException {
+            connecting = false;
+            if (socketFactory != null) {
+                URL url = exchange.request.getUrl();
+                engine = socketFactory.createSSLEngine(url.getHost(), exchange.address.getPort());
+
+                // engines do not verify the host name unless asked to
+                SSLParameters parameters = engine.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                engine.setSSLParameters(parameters);
+
+                netIn = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+                netOut = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+                appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+                engine.beginHandshake();
+            } else {
+                // nothing more to wait for before the request
+                connectDeadline = Long.MAX_VALUE;
+                appIn = ByteBuffer.allocate(8192);
+            }
+            start(exchange);
+            pump();
+        }
+
+        void start(Exchange next) {
+            exchange = next;
+            appOut = ByteBuffer.wrap(next.requestBytes);
+            parser = new ResponseParser(next.request);
+            expiresAt = Long.MAX_VALUE;
+            touch();
+            updateInterest();
+        }
+
+        // the time the loop must look at this connection again
+        long checkDeadlines(long now) {
+            if (now >= connectDeadline) {
+                close(new SocketTimeoutException("Connect timed out."));
+            } else if (exchange != null && now >= readDeadline) {
+                close(new SocketTimeoutException("Read timed out."));
+            } else if (exchange == null && now >= expiresAt) {
+                close(null);
+            }
+            if (closed) {
+                return Long.MAX_VALUE;
+            }
+            return Math.min(connectDeadline, exchange != null ? readDeadline : expiresAt);
+        }
+
+        void close(Exception cause) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (key != null) {
+                key.cancel();
+            }
+            closeQuietly(channel);
+            route.connections.remove(this);
+            route.idle.remove(this);
+            synchronized (AsyncHttpTransport.this) {
+                openConnections--;
+            }
+
+            if (exchange != null) {
+                exchange.future.completeExceptionally(cause != null ? cause : new EOFException("Connection closed before a response was received."));
+                exchange = null;
+            }
+
+            // the slot this connection held can go to a waiting request
+            Exchange next = nextWaiting(route);
+            if (next != null) {
+                open(route, next);
+            }
+        }
+
+        private void touch() {
+            readDeadline = readTimeout > 0 ? System.currentTimeMillis() + readTimeout : Long.MAX_VALUE;
+        }
+
+        private void pump() throws IOException {
+            if (engine != null) {
+                pumpTls();
+            } else {
+                if (appOut != null && appOut.hasRemaining()) {
+                    channel.write(appOut);
+                }
+                int read;
+                while (!closed && (read = channel.read(appIn)) != 0) {
+                    if (read == -1) {
+                        endOfStream();
+                        return;
+                    }
+                    appIn.flip();
+                    consume();
+                    appIn.clear();
+                }
+            }
+            if (!closed) {
+                updateInterest();
+            }
+        }
+
+        private void pumpTls() throws IOException {
+            boolean progress;
+            do {
+                progress = false;
+
+                // handshake records and the request
+                if (flushNetOut()) {
+                    SSLEngineResult.HandshakeStatus status = engine.getHandshakeStatus();
+                    if (status == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                        // certificate checks, short enough to run on the loop
+                        Runnable task;
+                        while ((task = engine.getDelegatedTask()) != null) {
+                            task.run();
+                        }
+                        progress = true;
+                        continue;
+                    }
+                    if (status == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING) {
+                        connectDeadline = Long.MAX_VALUE;
+                    }
+                    boolean hasRequest = appOut != null && appOut.hasRemaining();
+                    if (status == SSLEngineResult.HandshakeStatus.NEED_WRAP || (status == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING && hasRequest)) {
+                        SSLEngineResult result = engine.wrap(hasRequest ? appOut : ByteBuffer.allocate(0), netOut);
+                        if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                            throw new SSLException("The TLS session was closed.");
+                        }
+                        if (result.bytesProduced() > 0 || result.bytesConsumed() > 0) {
+                            progress = true;
+                            continue;
+                        }
+                    }
+                }
+
+                int read = channel.read(netIn);
+                if (read == -1) {
+                    endOfStream();
+                    return;
+                }
+                progress |= read > 0;
+
+                netIn.flip();
+                try {
+                    while (netIn.hasRemaining() && !closed) {
+                        SSLEngineResult result = engine.unwrap(netIn, appIn);
+                        if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                            ByteBuffer larger = ByteBuffer.allocate(appIn.capacity() + engine.getSession().getApplicationBufferSize());
+                            appIn.flip();
+                            larger.put(appIn);
+                            appIn = larger;
+                            continue;
+                        }
+                        if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                            if (netIn.limit() == netIn.capacity()) {
+                                ByteBuffer larger = ByteBuffer.allocate(netIn.capacity() + engine.getSession().getPacketBufferSize());
+                                larger.put(netIn);
+                                larger.flip();
+                                netIn = larger;
+                            }
+                            break;
+                        }
+                        if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                            endOfStream();
+                            return;
+                        }
+
+                        if (appIn.position() > 0) {
+                            appIn.flip();
+                            consume();
+                            appIn.clear();
+                        }
+                        if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                            break;
+                        }
+                        progress = true;
+                        if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK
+                                || result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                            break;
+                        }
+                    }
+                } finally {
+                    netIn.compact();
+                }
+            } while (progress && !closed);
+        }
+
+        // writes any pending TLS records, false when the socket cannot take them all yet
+        private boolean flushNetOut() throws IOException {
+            if (netOut.position() == 0) {
+                return true;
+            }
+            netOut.flip();
+            try {
+                channel.write(netOut);
+                return !netOut.hasRemaining();
+            } finally {
+                netOut.compact();
+            }
+        }
+
+        private void consume() throws IOException {
+            if (exchange == null) {
+                // unsolicited data on an idle connection, it cannot be trusted with another request
+                close(null);
+                return;
+            }
+
+            touch();
+            parser.feed(appIn);
+            if (parser.isComplete()) {
+                complete(!appIn.hasRemaining());
+            }
+        }
+
+        private void endOfStream() throws IOException {
+            if (exchange != null && parser.endOfStream()) {
+                complete(false);
+            }
+            close(null);
+        }
+
+        private void complete(boolean reusable) {
+            Exchange done = exchange;
+            HttpTransportResponse response = parser.getResponse();
+            reusable &= parser.isKeepAlive() && !closed;
+            exchange = null;
+            parser = null;
+            appOut = null;
+            readDeadline = Long.MAX_VALUE;
+
+            if (reusable) {
+                release(HttpMessages.getKeepAliveTimeout(response.getHeader("Keep-Alive"), maxIdleTime));
+            } else {
+                close(null);
+            }
+            done.future.complete(response);
+        }
+
+        private void release(long keepAliveTimeout) {
+            Exchange next = nextWaiting(route);
+            if (next != null) {
+                start(next);
+            } else {
+                expiresAt = System.currentTimeMillis() + keepAliveTimeout;
+                route.idle.offerFirst(this);
+                updateInterest();
+            }
+        }
+
+        private void updateInterest() {
+            if (closed || key == null || !key.isValid()) {
+                return;
+            }
+            if (connecting) {
+                key.interestOps(SelectionKey.OP_CONNECT);
+                return;
+            }
+
+            // always reading, an idle connection has to notice when the server closes it
+            int ops = SelectionKey.OP_READ;
+            if (engine != null) {
+                if (netOut.position() > 0 || engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP
+                        || (engine.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING && appOut != null && appOut.hasRemaining())) {
+                    ops |= SelectionKey.OP_WRITE;
+                }
+            } else if (appOut != null && appOut.hasRemaining()) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Incremental response parser, fed whatever bytes have arrived.
+     */
+    private static class ResponseParser {
+        private static final int STATUS_LINE = 0;
+        private static final int HEADERS = 1;
+        private static final int BODY = 2;
+        private static final int CHUNK_SIZE = 3;
+        private static final int CHUNK_DATA = 4;
+        private static final int CHUNK_END = 5;
+        private static final int TRAILERS = 6;
+        private static final int UNTIL_CLOSE = 7;
+        private static final int COMPLETE = 8;
+
+        private final HttpTransportRequest request;
+        private final HttpTransportResponse response = new HttpTransportResponse();
+        private final StringBuilder line = new StringBuilder();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private String statusLine;
+        private int state = STATUS_LINE;
+        private long remaining;
+        private boolean keepAlive;
+
+        ResponseParser(HttpTransportRequest request) {
+            this.request = request;
+        }
+
+        HttpTransportResponse getResponse() {
+            return response;
+        }
+
+        boolean isComplete() {
+            return state == COMPLETE;
+        }
+
+        boolean isKeepAlive() {
+            return keepAlive;
+        }
+
+        // consumes bytes up to the end of the response, anything after it is left in the buffer
+        void feed(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining() && state != COMPLETE) {
+                switch (state) {
+                    case BODY:
+                    case CHUNK_DATA:
+                        int length = (int) Math.min(remaining, buffer.remaining());
+                        body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+                        buffer.position(buffer.position() + length);
+                        remaining -= length;
+                        if (remaining == 0) {
+                            if (state == BODY) {
+                                complete();
+                            } else {
+                                state = CHUNK_END;
+                            }
+                        }
+                        break;
+                    case UNTIL_CLOSE:
+                        HttpsUrlConnectionTransport.checkResponseSize((long) body.size() + buffer.remaining(), request.getMaxResponseSize());
+                        body.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                        buffer.position(buffer.limit());
+                        break;
+                    default:
+                        String text = readLine(buffer);
+                        if (text != null) {
+                            onLine(text);
+                        }
+                        break;
+                }
+            }
+        }
+
+        // true when the end of the connection completes the response
+        boolean endOfStream() {
+            if (state == UNTIL_CLOSE) {
+                complete();
+                return true;
+            }
+            return false;
+        }
+
+        private String readLine(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                char c = (char) (buffer.get() & 0xFF);
+                if (c == '\n') {
+                    int length = line.length();
+                    if (length > 0 && line.charAt(length - 1) == '\r') {
+                        line.setLength(length - 1);
+                    }
+                    String rvalue = line.toString();
+                    line.setLength(0);
+                    return rvalue;
+                }
+                if (line.length() >= MAX_LINE_LENGTH) {
+                    throw new IOException("Response line exceeds " + MAX_LINE_LENGTH + " characters.");
+                }
+                line.append(c);
+            }
+            return null;
+        }
+
+        private void onLine(String text) throws IOException {
+            switch (state) {
+                case STATUS_LINE:
+                    HttpMessages.parseStatusLine(text, response);
+                    response.getHeaders().clear();
+                    statusLine = text;
+                    state = HEADERS;
+                    break;
+                case HEADERS:
+                    if (text.isEmpty()) {
+                        onHeadersComplete();
+                    } else {
+                        HttpMessages.parseHeader(text, response.getHeaders());
+                    }
+                    break;
+                case CHUNK_SIZE:
+                    int size = HttpMessages.parseChunkSize(text);
+                    if (size == 0) {
+                        state = TRAILERS;
+                    } else {
+                        HttpsUrlConnectionTransport.checkResponseSize((long) body.size() + size, request.getMaxResponseSize());
+                        remaining = size;
+                        state = CHUNK_DATA;
+                    }
+                    break;
+                case CHUNK_END:
+                    state = CHUNK_SIZE;
+                    break;
+                case TRAILERS:
+                    if (text.isEmpty()) {
+                        complete();
+                    }
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected parser state " + state + ".");
+            }
+        }
+
+        private void onHeadersComplete() throws IOException {
+            int status = response.getStatusCode();
+            if (status >= 100 && status < 200) {
+                // interim response, the real one follows
+                state = STATUS_LINE;
+                return;
+            }
+
+            keepAlive = HttpMessages.isKeepAlive(statusLine, response);
+            String contentLength = response.getHeader("Content-Length");
+            if (HttpMessages.hasNoBody(request, response)) {
+                complete();
+            } else if (HttpMessages.isChunked(response)) {
+                state = CHUNK_SIZE;
+            } else if (contentLength != null) {
+                try {
+                    remaining = Long.parseLong(contentLength.trim());
+                } catch (NumberFormatException exc) {
+                    throw new IOException("Invalid Content-Length: " + contentLength);
+                }
+                HttpsUrlConnectionTransport.checkResponseSize(remaining, request.getMaxResponseSize());
+                if (remaining == 0) {
+                    complete();
+                } else {
+                    state = BODY;
+                }
+            } else {
+                // the body is delimited by the end of the connection
+                keepAlive = false;
+                state = UNTIL_CLOSE;
+            }
+        }
+
+        private void complete() {
+            response.setBody(body.toByteArray());
+            state = COMPLETE;
+        }
+    }
+}
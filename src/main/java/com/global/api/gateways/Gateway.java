@@ -2,7 +2,6 @@ package com.global.api.gateways;
 
 import com.global.api.entities.exceptions.GatewayException;
 import com.global.api.logging.IRequestLogger;
-import com.global.api.utils.IOUtils;
 import com.global.api.utils.StringUtils;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -10,28 +9,43 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.apache.http.entity.mime.MultipartEntity;
 
-import javax.net.ssl.HttpsURLConnection;
 import java.io.*;
-import java.lang.reflect.Field;
-import java.net.HttpURLConnection;
 import java.net.Proxy;
 import java.net.URL;
 import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 public abstract class Gateway {
+    public static final long DEFAULT_MAX_RESPONSE_SIZE = 64L * 1024 * 1024;
+
     private String contentType;
     private boolean enableLogging;
     private IRequestLogger requestLogger;
-    private StringBuilder logEntry = new StringBuilder();
     private final String lSChar = System.getProperty("line.separator");
-    protected HashMap<String, String> headers;
-    protected HashMap<String, String> dynamicHeaders;
+    // shared by every request on this connector, anything specific to one call is passed to sendRequest.
+    // both are read-only snapshots, setHeader and setHeaders publish a new one instead of changing them in place
+    protected volatile HashMap<String, String> headers;
+    protected volatile HashMap<String, String> dynamicHeaders;
     protected int timeout;
     protected String serviceUrl;
     protected Proxy proxy;
+    protected IHttpTransport httpTransport;
+    // largest response body accepted, after decompression, 0 for no limit
+    protected long maxResponseSize = DEFAULT_MAX_RESPONSE_SIZE;
 
     // ----------------------------------------------------------------------
     // TODO: Remove if it is not more useful
@@ -54,7 +68,19 @@ public abstract class Gateway {
         return headers;
     }
     public void setHeaders(HashMap<String, String> headers) {
-        this.headers = headers;
+        this.headers = new HeaderSnapshot(headers);
+    }
+    protected synchronized void setHeader(String name, String value) {
+        HashMap<String, String> updated = new HashMap<>(headers);
+        if (value != null) {
+            updated.put(name, value);
+        } else {
+            updated.remove(name);
+        }
+        headers = new HeaderSnapshot(updated);
+    }
+    protected void setDynamicHeaders(Map<String, String> dynamicHeaders) {
+        this.dynamicHeaders = new HeaderSnapshot(dynamicHeaders);
     }
     public int getTimeout() {
         return timeout;
@@ -68,6 +94,18 @@ public abstract class Gateway {
     public void setServiceUrl(String serviceUrl) {
         this.serviceUrl = serviceUrl;
     }
+    public IHttpTransport getHttpTransport() {
+        return httpTransport != null ? httpTransport : HttpsUrlConnectionTransport.getDefault();
+    }
+    public void setHttpTransport(IHttpTransport httpTransport) {
+        this.httpTransport = httpTransport;
+    }
+    public long getMaxResponseSize() {
+        return maxResponseSize;
+    }
+    public void setMaxResponseSize(long maxResponseSize) {
+        this.maxResponseSize = maxResponseSize;
+    }
     public Proxy getProxy() {
         return this.proxy;
     }
@@ -75,8 +113,8 @@ public abstract class Gateway {
         this.proxy = proxy;
     }
     public Gateway(String contentType) {
-        headers = new HashMap<>();
-        dynamicHeaders = new HashMap<>();
+        headers = new HeaderSnapshot(null);
+        dynamicHeaders = new HeaderSnapshot(null);
         this.contentType = contentType;
     }
 
@@ -87,172 +125,269 @@ public abstract class Gateway {
         return sendRequest(verb, endpoint, data, null);
     }
     protected GatewayResponse sendRequest(String verb, String endpoint, String data, HashMap<String, String> queryStringParams) throws GatewayException {
-        HttpsURLConnection conn = null;
+        return sendRequest(verb, endpoint, data, queryStringParams, null);
+    }
+    protected GatewayResponse sendRequest(String verb, String endpoint, String data, HashMap<String, String> queryStringParams, Map<String, String> requestHeaders) throws GatewayException {
+        StringBuilder logEntry = new StringBuilder();
+        HttpTransportResponse transportResponse = null;
         try{
-            String queryString = buildQueryString(queryStringParams);
-            if (proxy != null) {
-                conn = (HttpsURLConnection) new URL((serviceUrl + endpoint + queryString).trim()).openConnection(proxy);
-            } else {
-                conn = (HttpsURLConnection) new URL((serviceUrl + endpoint + queryString).trim()).openConnection();
-            }
-            conn.setSSLSocketFactory(new SSLSocketFactoryEx());
-            conn.setConnectTimeout(timeout);
-            conn.setDoInput(true);
-            // ----------------------------------------------------------------------
-            // Fix: Supports PATCH requests in HttpsURLConnection on JAVA & Android
-            // ----------------------------------------------------------------------
-            if ("PATCH".equalsIgnoreCase(verb)) {
-                setRequestMethod(conn, verb);
-            } else {
-                conn.setRequestMethod(verb);
-            }
-            // ----------------------------------------------------------------------
+            HttpTransportRequest request = buildRequest(verb, endpoint, data, queryStringParams, requestHeaders, logEntry);
+            transportResponse = getHttpTransport().send(request);
+            return toGatewayResponse(request, transportResponse, logEntry);
+        }
+        catch(Exception exc) {
+            throw toGatewayException(exc, transportResponse, logEntry);
+        }
+    }
 
-            // If Content-Type is added for some GP-API endpoints we get a 502: Bad gateway error
-            if (!contentTypeNotAllowedEndpoints(verb, endpoint)) {
-                conn.addRequestProperty("Content-Type", String.format("%s; charset=UTF-8", contentType));
-            }
+    /**
+     * Sends the request without waiting on the response. With a non-blocking transport no thread is held while the
+     * request is in flight, the response is decoded and logged on the executor.
+     */
+    protected CompletableFuture<GatewayResponse> sendRequestAsync(String verb, String endpoint, String data, HashMap<String, String> queryStringParams, Map<String, String> requestHeaders, Executor executor) {
+        final StringBuilder logEntry = new StringBuilder();
+        final CompletableFuture<GatewayResponse> rvalue = new CompletableFuture<>();
 
-            for (Map.Entry<String, String> header: headers.entrySet()) {
-                conn.addRequestProperty(header.getKey(), header.getValue());
-            }
+        final HttpTransportRequest request;
+        try {
+            request = buildRequest(verb, endpoint, data, queryStringParams, requestHeaders, logEntry);
+        }
+        catch(Exception exc) {
+            rvalue.completeExceptionally(toGatewayException(exc, null, logEntry));
+            return rvalue;
+        }
 
-            if (dynamicHeaders != null) {
-                for (Map.Entry<String, String> dynamicHeader : dynamicHeaders.entrySet()) {
-                    conn.addRequestProperty(dynamicHeader.getKey(), dynamicHeader.getValue());
-                }
+        getHttpTransport().sendAsync(request).whenCompleteAsync((transportResponse, failure) -> {
+            if (failure != null) {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                rvalue.completeExceptionally(toGatewayException(cause instanceof Exception ? (Exception) cause : new IOException(cause), null, logEntry));
+                return;
             }
-
-            if (this.enableLogging || this.requestLogger != null) {
-                logEntry.append("================================================================================").append(lSChar);
-                logEntry.append("Endpoint:       ").append(endpoint).append(lSChar);
-                logEntry.append("Verb:           ").append(verb).append(lSChar);
-                logEntry.append("Headers:        ").append(conn.getRequestProperties()).append(lSChar);
-                logEntry.append("Proxy:          ").append((proxy != null) ? proxy.toString() : "none").append(lSChar);
+            try {
+                rvalue.complete(toGatewayResponse(request, transportResponse, logEntry));
             }
+            catch(Exception exc) {
+                rvalue.completeExceptionally(toGatewayException(exc, transportResponse, logEntry));
+            }
+        }, executor);
+        return rvalue;
+    }
 
-            if (!verb.equals("GET")) {
-                byte[] request = data.getBytes();
-
-                conn.setDoOutput(true);
-                conn.addRequestProperty("Content-Length", String.valueOf(request.length));
-
-                if (this.enableLogging || this.requestLogger != null) {
-                    if (acceptJson()) {
-                        if (!StringUtils.isNullOrEmpty(data)) {
-                            logEntry.append("Request Body: ").append(lSChar).append(toPrettyJson(data)).append(lSChar).append(lSChar);
-                        }
-                    } else {
-                        logEntry.append("Request Body: ").append(StringUtils.mask(data)).append(lSChar).append(lSChar);
-                    }
+    private HttpTransportRequest buildRequest(String verb, String endpoint, String data, HashMap<String, String> queryStringParams, Map<String, String> requestHeaders, StringBuilder logEntry) throws IOException {
+        String queryString = buildQueryString(queryStringParams);
+        HttpTransportRequest request = new HttpTransportRequest()
+                .setVerb(verb)
+                .setUrl(new URL((serviceUrl + endpoint + queryString).trim()))
+                .setTimeout(timeout)
+                .setMaxResponseSize(maxResponseSize)
+                .setProxy(proxy);
+
+        // If Content-Type is added for some GP-API endpoints we get a 502: Bad gateway error
+        if (!contentTypeNotAllowedEndpoints(verb, endpoint)) {
+            request.addHeader("Content-Type", String.format("%s; charset=UTF-8", contentType));
+        }
 
-                    outputLogging(true);
-                }
+        for (Map.Entry<String, String> header: headers.entrySet()) {
+            request.addHeader(header.getKey(), header.getValue());
+        }
 
-                DataOutputStream requestStream = new DataOutputStream(conn.getOutputStream());
-                requestStream.write(request);
-                requestStream.flush();
-                requestStream.close();
+        if (requestHeaders != null) {
+            for (Map.Entry<String, String> header: requestHeaders.entrySet()) {
+                request.addHeader(header.getKey(), header.getValue());
             }
-            else if (this.enableLogging || this.requestLogger != null) {
-                logEntry.append("Request Params: ").append(queryString).append(lSChar);
+        }
+
+        if (dynamicHeaders != null) {
+            for (Map.Entry<String, String> dynamicHeader : dynamicHeaders.entrySet()) {
+                request.addHeader(dynamicHeader.getKey(), dynamicHeader.getValue());
             }
+        }
 
-            InputStream responseStream = conn.getInputStream();
+        if (this.enableLogging || this.requestLogger != null) {
+            logEntry.append("================================================================================").append(lSChar);
+            logEntry.append("Endpoint:       ").append(endpoint).append(lSChar);
+            logEntry.append("Verb:           ").append(verb).append(lSChar);
+            logEntry.append("Headers:        ").append(request.getHeaders()).append(lSChar);
+            logEntry.append("Proxy:          ").append((proxy != null) ? proxy.toString() : "none").append(lSChar);
+        }
 
-            String rawResponse = getRawResponse(responseStream);
+        if (!verb.equals("GET")) {
+            request.setBody(data != null ? data.getBytes(StandardCharsets.UTF_8) : new byte[0]);
 
-            responseStream.close();
             if (this.enableLogging || this.requestLogger != null) {
-                if (acceptJson()) {
-                    logEntry.append("--------------------------------------------------------------------------------").append(lSChar);
-                    logEntry.append("Response Code: ").append(conn.getResponseCode()).append(" ").append(conn.getResponseMessage()).append(lSChar);
-                    logEntry.append("Response: ").append(toPrettyJson(rawResponse)).append(lSChar);
-                    logEntry.append("================================================================================").append(lSChar);
+                if (acceptJson(request)) {
+                    if (!StringUtils.isNullOrEmpty(data)) {
+                        logEntry.append("Request Body: ").append(lSChar).append(StringUtils.mask(toPrettyJson(data))).append(lSChar).append(lSChar);
+                    }
                 } else {
-                    logEntry.append(rawResponse).append(lSChar);
+                    logEntry.append("Request Body: ").append(StringUtils.mask(data)).append(lSChar).append(lSChar);
                 }
 
-                outputLogging(false);
+                outputLogging(logEntry, true);
             }
+        }
+        else if (this.enableLogging || this.requestLogger != null) {
+            logEntry.append("Request Params: ").append(queryString).append(lSChar);
+        }
+        return request;
+    }
 
-            GatewayResponse response = new GatewayResponse();
-            response.setStatusCode(conn.getResponseCode());
-            response.setRawResponse(rawResponse);
-            return response;
+    private GatewayResponse toGatewayResponse(HttpTransportRequest request, HttpTransportResponse transportResponse, StringBuilder logEntry) throws IOException {
+        if (transportResponse.getStatusCode() >= 400) {
+            throw new IOException(String.format("Server returned HTTP response code: %s for URL: %s", transportResponse.getStatusCode(), request.getUrl()));
         }
-        catch(Exception exc) {
-            if (this.enableLogging || this.requestLogger != null) {
+
+        String rawResponse = getRawResponse(transportResponse);
+
+        if (this.enableLogging || this.requestLogger != null) {
+            if (acceptJson(request)) {
                 logEntry.append("--------------------------------------------------------------------------------").append(lSChar);
-                logEntry.append(exc.getMessage()).append(lSChar);
+                logEntry.append("Response Code: ").append(transportResponse.getStatusCode()).append(" ").append(transportResponse.getStatusMessage()).append(lSChar);
+                logEntry.append("Response: ").append(StringUtils.mask(toPrettyJson(rawResponse))).append(lSChar);
                 logEntry.append("================================================================================").append(lSChar);
+            } else {
+                logEntry.append(StringUtils.mask(rawResponse)).append(lSChar);
+            }
 
-                outputLogging(false);
+            outputLogging(logEntry, false);
+        }
+
+        GatewayResponse response = new GatewayResponse();
+        response.setStatusCode(transportResponse.getStatusCode());
+        response.setRawResponse(rawResponse);
+        return response;
+    }
+
+    private GatewayException toGatewayException(Exception exc, HttpTransportResponse transportResponse, StringBuilder logEntry) {
+        if (this.enableLogging || this.requestLogger != null) {
+            logEntry.append("--------------------------------------------------------------------------------").append(lSChar);
+            logEntry.append(exc.getMessage()).append(lSChar);
+            logEntry.append("================================================================================").append(lSChar);
+
+            outputLogging(logEntry, false);
+        }
+
+        if (transportResponse == null) {    // Legacy GatewayException
+            return new GatewayException("Error occurred while communicating with gateway.", exc);
+        }
+        try {
+            return new GatewayException("Error occurred while communicating with gateway.", exc, String.valueOf(transportResponse.getStatusCode()), getRawResponse(transportResponse));
+        } catch (IOException e) {   // Legacy GatewayException
+            return new GatewayException("Error occurred while communicating with gateway.", exc);
+        }
+    }
+
+    public String getRawResponse(InputStream responseStream) throws IOException {
+        // no headers to go by, a gzip body is recognized by its magic number
+        BufferedInputStream stream = new BufferedInputStream(responseStream);
+        stream.mark(2);
+        int first = stream.read();
+        int second = stream.read();
+        stream.reset();
+
+        InputStream content = first == 0x1f && second == 0x8b ? new GZIPInputStream(stream) : stream;
+        return readBody(content, StandardCharsets.UTF_8);
+    }
+
+    // decodes the body as described by the response headers, a compressed body is inflated while it is read
+    protected String getRawResponse(HttpTransportResponse response) throws IOException {
+        byte[] body = response.getBody();
+        if (body == null || body.length == 0) {
+            return "";
+        }
+
+        Charset charset = getCharset(response.getHeader("Content-Type"));
+        String contentEncoding = response.getHeader("Content-Encoding");
+        if (StringUtils.isNullOrEmpty(contentEncoding) || contentEncoding.trim().equalsIgnoreCase("identity")) {
+            if (body.length > 1 && body[0] == (byte) 0x1f && body[1] == (byte) 0x8b) {
+                // gzip sent without the header
+                return readBody(new GZIPInputStream(new ByteArrayInputStream(body)), charset);
             }
+            if (maxResponseSize > 0 && body.length > maxResponseSize) {
+                throw new IOException(String.format("Response body exceeds the maximum of %s bytes.", maxResponseSize));
+            }
+            return new String(body, charset);
+        }
 
-            try {
-                assert conn != null;
-                throw new GatewayException("Error occurred while communicating with gateway.", exc, String.valueOf(conn.getResponseCode()), getRawResponse(conn.getErrorStream()));
-            } catch (IOException e) {   // Legacy GatewayException
-                throw new GatewayException("Error occurred while communicating with gateway.", exc);
+        String encoding = contentEncoding.trim().toLowerCase();
+        if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+            return readBody(new GZIPInputStream(new ByteArrayInputStream(body)), charset);
+        }
+        if (encoding.equals("deflate")) {
+            // deflate should be zlib wrapped, some servers send the raw stream
+            boolean zlib = body.length > 1 && (body[0] & 0x0f) == 8 && (((body[0] & 0xff) << 8) | (body[1] & 0xff)) % 31 == 0;
+            return readBody(new InflaterInputStream(new ByteArrayInputStream(body), new Inflater(!zlib)), charset);
+        }
+        throw new IOException(String.format("Unsupported Content-Encoding: %s", contentEncoding));
+    }
+
+    private String readBody(InputStream stream, Charset charset) throws IOException {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+                if (maxResponseSize > 0 && buffer.size() > maxResponseSize) {
+                    throw new IOException(String.format("Response body exceeds the maximum of %s bytes.", maxResponseSize));
+                }
             }
+            return buffer.toString(charset.name());
+        } finally {
+            stream.close();
         }
     }
 
-    public String getRawResponse(InputStream responseStream) throws IOException {
-        String rawResponse;
-        if (acceptGzipEncoding()) {
-            // Decompress GZIP response
-            GZIPInputStream gzis = new GZIPInputStream(responseStream);
-            InputStreamReader reader = new InputStreamReader(gzis);
-            BufferedReader in = new BufferedReader(reader);
-
-            StringBuilder decompressedResponse = new StringBuilder();
-            String line;
-            while ((line = in.readLine()) != null) {
-                decompressedResponse.append(line);
+    private static Charset getCharset(String contentType) {
+        if (contentType != null) {
+            for (String parameter : contentType.split(";")) {
+                String[] pair = parameter.trim().split("=", 2);
+                if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                    try {
+                        return Charset.forName(pair[1].trim().replace("\"", ""));
+                    } catch (IllegalArgumentException exc) {
+                        // unknown charset, fall back to UTF-8
+                    }
+                }
             }
-            rawResponse = decompressedResponse.toString();
-        } else {
-            rawResponse = IOUtils.readFully(responseStream);
         }
-        return rawResponse;
+        return StandardCharsets.UTF_8;
     }
 
     protected GatewayResponse sendRequest(String endpoint, MultipartEntity content) throws GatewayException {
-        HttpsURLConnection conn;
+        StringBuilder logEntry = new StringBuilder();
         try{
-            conn = (HttpsURLConnection)new URL((serviceUrl + endpoint).trim()).openConnection();
-            conn.setSSLSocketFactory(new SSLSocketFactoryEx());
-            conn.setConnectTimeout(timeout);
-            conn.setDoInput(true);
-            conn.setDoOutput(true);
-            conn.setRequestMethod("POST");
-            conn.addRequestProperty("Content-Type", content.getContentType().getValue());
-            conn.addRequestProperty("Content-Length", String.valueOf(content.getContentLength()));
-
-            OutputStream out = conn.getOutputStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            content.writeTo(body);
+
+            HttpTransportRequest request = new HttpTransportRequest()
+                    .setVerb("POST")
+                    .setUrl(new URL((serviceUrl + endpoint).trim()))
+                    .setTimeout(timeout)
+                    .setMaxResponseSize(maxResponseSize)
+                    .addHeader("Content-Type", content.getContentType().getValue())
+                    .setBody(body.toByteArray());
+
 			if (this.enableLogging || this.requestLogger != null) {
                 logEntry.append("================================================================================").append(lSChar);
                 logEntry.append("Request: ").append(content).append(lSChar);
 
-                outputLogging(true);
+                outputLogging(logEntry, true);
             }
-            content.writeTo(out);
-            out.flush();
-            out.close();
 
-            InputStream responseStream = conn.getInputStream();
-            String rawResponse = IOUtils.readFully(responseStream);
-            responseStream.close();
+            HttpTransportResponse transportResponse = getHttpTransport().send(request);
+            if (transportResponse.getStatusCode() >= 400) {
+                throw new IOException(String.format("Server returned HTTP response code: %s for URL: %s", transportResponse.getStatusCode(), request.getUrl()));
+            }
+            String rawResponse = getRawResponse(transportResponse);
             if (this.enableLogging || this.requestLogger != null) {
                 logEntry.append(content).append(lSChar);
 
-                outputLogging(false);
+                outputLogging(logEntry, false);
             }
 
             GatewayResponse response = new GatewayResponse();
-            response.setStatusCode(conn.getResponseCode());
+            response.setStatusCode(transportResponse.getStatusCode());
             response.setRawResponse(rawResponse);
             return response;
         }
@@ -277,42 +412,9 @@ public abstract class Gateway {
         return sb.toString();
     }
 
-    private void setRequestMethod(final HttpURLConnection c, final String value) {
-        try {
-            Object target = c;
-            final Field delegate = getField(c.getClass(), "delegate");
-            if (delegate != null) {
-                delegate.setAccessible(true);
-                target = delegate.get(c);
-            }
-            final Field f = HttpURLConnection.class.getDeclaredField("method");
-            f.setAccessible(true);
-            f.set(target, value);
-        } catch (IllegalAccessException | NoSuchFieldException ex) {
-            throw new AssertionError(ex);
-        }
-    }
-
-    private Field getField(Class<?> clazz, String fieldName) {
-        Field field;
-        try {
-            field = clazz.getDeclaredField(fieldName);
-        } catch (NoSuchFieldException ex) {
-            field = null;
-        }
-        return field;
-    }
-
-    private boolean acceptJson() {
-        return
-                headers.containsKey("Accept") &&
-                headers.get("Accept").equalsIgnoreCase("application/json");
-    }
-
-    private boolean acceptGzipEncoding() {
-        return
-                headers.containsKey("Accept-Encoding") &&
-                headers.get("Accept-Encoding").equalsIgnoreCase("gzip");
+    private boolean acceptJson(HttpTransportRequest request) {
+        String accept = request.getHeaders().get("Accept");
+        return accept != null && accept.equalsIgnoreCase("application/json");
     }
 
     // For some reason, if Content-Type is added for some GP-API endpoints we get a 502: Bad gateway error
@@ -334,7 +436,7 @@ public abstract class Gateway {
                         );
     }
 
-    private void outputLogging(boolean isRequest) {
+    private void outputLogging(StringBuilder logEntry, boolean isRequest) {
         if (this.enableLogging) {
             System.out.print(logEntry);
         }
@@ -354,4 +456,39 @@ public abstract class Gateway {
         logEntry.delete(0, logEntry.length());
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Header map that cannot change once built, so requests can read it without a lock. Kept a HashMap for the
+     * getHeaders signature.
+     */
+    private static final class HeaderSnapshot extends HashMap<String, String> {
+        private final Map<String, String> view;
+
+        HeaderSnapshot(Map<String, String> source) {
+            super(source != null ? source : Collections.<String, String>emptyMap());
+            view = Collections.unmodifiableMap(source != null ? new HashMap<>(source) : Collections.<String, String>emptyMap());
+        }
+
+        @Override public Set<Map.Entry<String, String>> entrySet() { return view.entrySet(); }
+        @Override public Set<String> keySet() { return view.keySet(); }
+        @Override public Collection<String> values() { return view.values(); }
+
+        @Override public String put(String key, String value) { throw readOnly(); }
+        @Override public void putAll(Map<? extends String, ? extends String> m) { throw readOnly(); }
+        @Override public String remove(Object key) { throw readOnly(); }
+        @Override public void clear() { throw readOnly(); }
+        @Override public String putIfAbsent(String key, String value) { throw readOnly(); }
+        @Override public boolean remove(Object key, Object value) { throw readOnly(); }
+        @Override public boolean replace(String key, String oldValue, String newValue) { throw readOnly(); }
+        @Override public String replace(String key, String value) { throw readOnly(); }
+        @Override public void replaceAll(BiFunction<? super String, ? super String, ? extends String> function) { throw readOnly(); }
+        @Override public String computeIfAbsent(String key, Function<? super String, ? extends String> mappingFunction) { throw readOnly(); }
+        @Override public String computeIfPresent(String key, BiFunction<? super String, ? super String, ? extends String> remappingFunction) { throw readOnly(); }
+        @Override public String compute(String key, BiFunction<? super String, ? super String, ? extends String> remappingFunction) { throw readOnly(); }
+        @Override public String merge(String key, String value, BiFunction<? super String, ? super String, ? extends String> remappingFunction) { throw readOnly(); }
+
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("Connector headers are read-only, use setHeader or setHeaders.");
+        }
+    }
+}
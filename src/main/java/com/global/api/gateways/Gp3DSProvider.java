@@ -78,20 +78,16 @@ public class Gp3DSProvider extends RestGateway implements ISecure3dProvider {
             }
 
             String hash = GenerationUtils.generateHash(sharedSecret, timestamp, merchantId, hashValue);
-            setAuthHeader(hash);
-
-            String rawResponse = doTransaction("POST", "protocol-versions", request.toString());
+            String rawResponse = doTransaction("POST", "protocol-versions", request.toString(), null, getAuthHeaders(hash));
             return mapResponse(rawResponse);
         }
         else  if(transType.equals(TransactionType.VerifySignature)) {
             String hash = GenerationUtils.generateHash(sharedSecret, timestamp, merchantId, builder.getServerTransactionId());
-            setAuthHeader(hash);
-
             HashMap<String, String> queryValues = new HashMap<String, String>();
             queryValues.put("merchant_id", merchantId);
             queryValues.put("request_timestamp", timestamp);
 
-            String rawResponse = doTransaction("GET", String.format("authentications/%s", builder.getServerTransactionId()), request.toString(), queryValues);
+            String rawResponse = doTransaction("GET", String.format("authentications/%s", builder.getServerTransactionId()), request.toString(), queryValues, getAuthHeaders(hash));
             return mapResponse(rawResponse);
         }
         else if(transType.equals(TransactionType.InitiateAuthentication)) {
@@ -307,18 +303,19 @@ public class Gp3DSProvider extends RestGateway implements ISecure3dProvider {
             }
 
             String hash = GenerationUtils.generateHash(sharedSecret, timestamp, merchantId, hashValue, secureEcom.getServerTransactionId());
-            setAuthHeader(hash);
-
-            String rawResponse = doTransaction("POST", "authentications", request.toString());
+            String rawResponse = doTransaction("POST", "authentications", request.toString(), null, getAuthHeaders(hash));
             return mapResponse(rawResponse);
         }
 
         throw new ApiException(String.format("Unknown transaction type %s.", transType));
     }
 
-    private void setAuthHeader(String value) {
-        headers.put("Authorization", String.format("securehash %s", value));
-        headers.put("X-GP-Version", "2.2.0");
+    // the hash covers this request only, so the headers go with the request rather than on the connector
+    private HashMap<String, String> getAuthHeaders(String value) {
+        HashMap<String, String> authHeaders = new HashMap<String, String>();
+        authHeaders.put("Authorization", String.format("securehash %s", value));
+        authHeaders.put("X-GP-Version", "2.2.0");
+        return authHeaders;
     }
 
     private Transaction mapResponse(String rawResponse) {
@@ -16,6 +16,8 @@ import com.global.api.network.NetworkMessageHeader;
 import com.global.api.paymentMethods.AlternativePaymentMethod;
 import com.global.api.paymentMethods.TransactionReference;
 import com.global.api.serviceConfigs.GpApiConfig;
+import com.global.api.utils.FutureUtils;
+import com.global.api.utils.GpApiDateParser;
 import com.global.api.utils.JsonDoc;
 import com.global.api.utils.StringUtils;
 import lombok.Getter;
@@ -29,14 +31,17 @@ import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
-import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static com.global.api.utils.StringUtils.isNullOrEmpty;
 
-public class GpApiConnector extends RestGateway implements IPaymentGateway, IReportingService, ISecure3dProvider {
+public class GpApiConnector extends RestGateway implements IPaymentGateway, IAsyncPaymentGateway, IReportingService, ISecure3dProvider {
     public static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";  // Standard expected GP API DateTime format
     public static final String DATE_TIME_PATTERN_2 = "yyyy-MM-dd'T'HH:mm:ss.SSS";   // Slightly different GP API DateTime format
     public static final String DATE_TIME_PATTERN_3 = "yyyy-MM-dd'T'HH:mm:ss'Z'";    // Another slightly different GP API DateTime format. Appears in Paypal.
@@ -49,12 +54,16 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
     public static final DateTimeFormatter DATE_TIME_DTF_3 = DateTimeFormat.forPattern(DATE_TIME_PATTERN_3);
     public static final DateTimeFormatter DATE_TIME_DTF_4 = DateTimeFormat.forPattern(DATE_TIME_PATTERN_4);
     public static final DateTimeFormatter DATE_TIME_DTF_5 = DateTimeFormat.forPattern(DATE_TIME_PATTERN_5);
+    /**
+     * @deprecated SimpleDateFormat is not thread safe, use {@link GpApiDateParser} instead.
+     */
+    @Deprecated
     public static final SimpleDateFormat DATE_SDF = new SimpleDateFormat(DATE_PATTERN);
 
     private static final String GP_API_VERSION = "2021-03-22";
     private static final String IDEMPOTENCY_HEADER = "x-gp-idempotency";
 
-    private String accessToken;
+    private volatile String accessToken;
     @Getter GpApiConfig gpApiConfig; // Contains: appId, appKey, secondsToExpire, intervalToExpire, channel and language
 
     public String getMerchantUrl() {
@@ -73,16 +82,18 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
         gpApiConfig = config;
 
         setProxy(gpApiConfig.getProxy());
+        setHttpTransport(gpApiConfig.getHttpTransport());
+        setMaxResponseSize(gpApiConfig.getMaxResponseSize());
         setServiceUrl(gpApiConfig.getEnvironment().equals(Environment.PRODUCTION) ? ServiceEndpoints.GP_API_PRODUCTION.getValue() : ServiceEndpoints.GP_API_TEST.getValue());
 
         setEnableLogging(gpApiConfig.isEnableLogging());
 
-        headers.put(org.apache.http.HttpHeaders.ACCEPT, "application/json");
-        headers.put(org.apache.http.HttpHeaders.ACCEPT_ENCODING, "gzip");
-        headers.put("X-GP-Version", GP_API_VERSION);
-        headers.put("x-gp-sdk", "java;version=" + getReleaseVersion());
+        setHeader(org.apache.http.HttpHeaders.ACCEPT, "application/json");
+        setHeader(org.apache.http.HttpHeaders.ACCEPT_ENCODING, "gzip");
+        setHeader("X-GP-Version", GP_API_VERSION);
+        setHeader("x-gp-sdk", "java;version=" + getReleaseVersion());
 
-        dynamicHeaders = gpApiConfig.getDynamicHeaders();
+        setDynamicHeaders(gpApiConfig.getDynamicHeaders());
     }
 
     // Get the SDK release version
@@ -102,41 +113,78 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
     void signIn() throws GatewayException {
         AccessTokenInfo accessTokenInfo = gpApiConfig.getAccessTokenInfo();
 
+        // a token supplied with the configuration is used as is
         if (accessTokenInfo != null && !isNullOrEmpty(accessTokenInfo.getAccessToken())) {
-            accessToken = accessTokenInfo.getAccessToken();
+            setAccessToken(accessTokenInfo.getAccessToken());
             return;
         }
 
-        GpApiTokenResponse response = getAccessToken();
+        GpApiTokenResponse response = getTokenCache().getToken(getTokenCacheKey(), new GpApiTokenCache.TokenLoader() {
+            public GpApiTokenResponse load() throws GatewayException {
+                return getAccessToken();
+            }
+        });
+        setAccessToken(response.getToken());
 
-        accessToken = response.getToken();
-        headers.put("Authorization", String.format("Bearer %s", accessToken));
+        synchronized (gpApiConfig) {
+            accessTokenInfo = gpApiConfig.getAccessTokenInfo();
+            if (accessTokenInfo == null) {
+                accessTokenInfo = new AccessTokenInfo();
+            }
 
-        if (accessTokenInfo == null) {
-            accessTokenInfo = new AccessTokenInfo();
-        }
+            if (isNullOrEmpty(accessTokenInfo.getDataAccountName())) {
+                accessTokenInfo.setDataAccountName(response.getDataAccountName());
+            }
 
-        if (isNullOrEmpty(accessTokenInfo.getAccessToken())) {
-            accessTokenInfo.setAccessToken(response.getToken());
-        }
+            if (isNullOrEmpty(accessTokenInfo.getTokenizationAccountName())) {
+                accessTokenInfo.setTokenizationAccountName(response.getTokenizationAccountName());
+            }
 
-        if (isNullOrEmpty(accessTokenInfo.getDataAccountName())) {
-            accessTokenInfo.setDataAccountName(response.getDataAccountName());
-        }
+            if (isNullOrEmpty(accessTokenInfo.getTransactionProcessingAccountName())) {
+                accessTokenInfo.setTransactionProcessingAccountName(response.getTransactionProcessingAccountName());
+            }
 
-        if (isNullOrEmpty(accessTokenInfo.getTokenizationAccountName())) {
-            accessTokenInfo.setTokenizationAccountName(response.getTokenizationAccountName());
-        }
+            if (isNullOrEmpty(accessTokenInfo.getDisputeManagementAccountName())) {
+                accessTokenInfo.setDisputeManagementAccountName(response.getDisputeManagementAccountName());
+            }
 
-        if (isNullOrEmpty(accessTokenInfo.getTransactionProcessingAccountName())) {
-            accessTokenInfo.setTransactionProcessingAccountName(response.getTransactionProcessingAccountName());
+            gpApiConfig.setAccessTokenInfo(accessTokenInfo);
         }
+    }
 
-        if (isNullOrEmpty(accessTokenInfo.getDisputeManagementAccountName())) {
-            accessTokenInfo.setDisputeManagementAccountName(response.getDisputeManagementAccountName());
+    // sent with each request by getRequestHeaders, not kept in the shared headers
+    private void setAccessToken(String token) {
+        accessToken = token;
+    }
+
+    private HashMap<String, String> getRequestHeaders(String idempotencyKey) {
+        HashMap<String, String> requestHeaders = new HashMap<>();
+        if (!StringUtils.isNullOrEmpty(accessToken)) {
+            requestHeaders.put("Authorization", String.format("Bearer %s", accessToken));
         }
+        if (!StringUtils.isNullOrEmpty(idempotencyKey)) {
+            requestHeaders.put(IDEMPOTENCY_HEADER, idempotencyKey);
+        }
+        return requestHeaders;
+    }
+
+    private GpApiTokenCache getTokenCache() {
+        return gpApiConfig.getAccessTokenCache() != null ? gpApiConfig.getAccessTokenCache() : GpApiTokenCache.getShared();
+    }
 
-        gpApiConfig.setAccessTokenInfo(accessTokenInfo);
+    // a token is only valid for the environment, credentials and scope it was requested with
+    private String getTokenCacheKey() {
+        String[] permissions = gpApiConfig.getPermissions() != null ? gpApiConfig.getPermissions().clone() : new String[0];
+        Arrays.sort(permissions);
+
+        return String.join("|",
+                getServiceUrl(),
+                gpApiConfig.getAppId(),
+                gpApiConfig.getAppKey(),
+                String.valueOf(gpApiConfig.getMerchantId()),
+                String.join(",", permissions),
+                String.valueOf(gpApiConfig.getSecondsToExpire()),
+                String.valueOf(gpApiConfig.getIntervalToExpire()));
     }
 
     public GpApiRequest signOut() throws UnsupportedTransactionException {
@@ -158,22 +206,12 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
     }
 
     private String doTransactionWithIdempotencyKey(GpApiRequest.HttpMethod verb, String endpoint, String data, HashMap<String, String> queryStringParams, String idempotencyKey) throws GatewayException {
-        if (!StringUtils.isNullOrEmpty(idempotencyKey)) {
-            headers.put(IDEMPOTENCY_HEADER, idempotencyKey);
-        }
-        try {
-            return super.doTransaction(verb.getValue(), endpoint, data, queryStringParams);
-        } catch (GatewayException ex) {
-            throw ex;
-        } finally {
-            headers.remove(IDEMPOTENCY_HEADER);
-        }
+        return super.doTransaction(verb.getValue(), endpoint, data, queryStringParams, getRequestHeaders(idempotencyKey));
     }
 
     public String doTransaction(GpApiRequest.HttpMethod verb, String endpoint, String data, HashMap<String, String> queryStringParams, String idempotencyKey) throws GatewayException {
-        if (isNullOrEmpty(accessToken)) {
-            signIn();
-        }
+        // picks up a token renewed by the cache
+        signIn();
 
         try {
             return doTransactionWithIdempotencyKey(verb, endpoint, data, queryStringParams, idempotencyKey);
@@ -183,6 +221,7 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
                     !isNullOrEmpty(gpApiConfig.getAppId())              &&
                     !isNullOrEmpty(gpApiConfig.getAppKey())
             ) {
+                getTokenCache().invalidate(getTokenCacheKey(), accessToken);
                 signIn();
 
                 return doTransactionWithIdempotencyKey(verb, endpoint, data, queryStringParams, idempotencyKey);
@@ -192,6 +231,56 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
         }
     }
 
+    private CompletableFuture<String> doTransactionWithIdempotencyKeyAsync(GpApiRequest.HttpMethod verb, String endpoint, String data, HashMap<String, String> queryStringParams, String idempotencyKey, Executor executor) {
+        return super.doTransactionAsync(verb.getValue(), endpoint, data, queryStringParams, getRequestHeaders(idempotencyKey), executor);
+    }
+
+    // same token renewal and error mapping as doTransaction, the retry is sent from the executor
+    public CompletableFuture<String> doTransactionAsync(final GpApiRequest.HttpMethod verb, final String endpoint, final String data, final HashMap<String, String> queryStringParams, final String idempotencyKey, final Executor executor) {
+        try {
+            signIn();
+        } catch (GatewayException exc) {
+            return FutureUtils.failed(exc);
+        }
+
+        final CompletableFuture<String> rvalue = new CompletableFuture<>();
+        doTransactionWithIdempotencyKeyAsync(verb, endpoint, data, queryStringParams, idempotencyKey, executor).whenComplete((response, failure) -> {
+            if (failure == null) {
+                rvalue.complete(response);
+                return;
+            }
+
+            Throwable cause = FutureUtils.unwrap(failure);
+            try {
+                if (cause instanceof GatewayException) {
+                    GatewayException ex = (GatewayException) cause;
+                    if (
+                            "NOT_AUTHENTICATED".equals(ex.getResponseCode())    &&
+                            !isNullOrEmpty(gpApiConfig.getAppId())              &&
+                            !isNullOrEmpty(gpApiConfig.getAppKey())
+                    ) {
+                        getTokenCache().invalidate(getTokenCacheKey(), accessToken);
+                        signIn();
+
+                        doTransactionWithIdempotencyKeyAsync(verb, endpoint, data, queryStringParams, idempotencyKey, executor).whenComplete((retryResponse, retryFailure) -> {
+                            if (retryFailure == null) {
+                                rvalue.complete(retryResponse);
+                            } else {
+                                rvalue.completeExceptionally(FutureUtils.unwrap(retryFailure));
+                            }
+                        });
+                        return;
+                    }
+                    generateGpApiException(ex.getResponseCode(), ex.getResponseText());
+                }
+                rvalue.completeExceptionally(cause);
+            } catch (GatewayException exc) {
+                rvalue.completeExceptionally(exc);
+            }
+        });
+        return rvalue;
+    }
+
     @Override
     protected String handleResponse(GatewayResponse response) throws GatewayException {
         if (response.getStatusCode() != 200 && response.getStatusCode() != 204) {
@@ -238,6 +327,24 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
         return null;
     }
 
+    public CompletableFuture<Transaction> processAuthorizationAsync(AuthorizationBuilder builder, Executor executor) {
+        GpApiRequest request;
+        try {
+            if (isNullOrEmpty(accessToken)) {
+                signIn();
+            }
+            request = GpApiAuthorizationRequestBuilder.buildRequest(builder, this);
+        } catch (ApiException exc) {
+            return FutureUtils.failed(exc);
+        }
+
+        if (request == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean apm = builder.getPaymentMethod() instanceof AlternativePaymentMethod;
+        return mapResponseAsync(doTransactionAsync(request.getVerb(), request.getEndpoint(), request.getRequestBody(), request.getQueryStringParams(), builder.getIdempotencyKey(), executor), apm);
+    }
+
     public Transaction manageTransaction(ManagementBuilder builder) throws GatewayException {
         if (StringUtils.isNullOrEmpty(accessToken)) {
             signIn();
@@ -257,6 +364,34 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
         return null;
     }
 
+    public CompletableFuture<Transaction> manageTransactionAsync(ManagementBuilder builder, Executor executor) {
+        GpApiRequest request;
+        try {
+            if (StringUtils.isNullOrEmpty(accessToken)) {
+                signIn();
+            }
+            request = GpApiManagementRequestBuilder.buildRequest(builder, this);
+        } catch (ApiException exc) {
+            return FutureUtils.failed(exc);
+        }
+
+        if (request == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean apm = builder.getPaymentMethod() instanceof TransactionReference && builder.getPaymentMethod().getPaymentMethodType() == PaymentMethodType.APM;
+        return mapResponseAsync(doTransactionAsync(request.getVerb(), request.getEndpoint(), request.getRequestBody(), request.getQueryStringParams(), builder.getIdempotencyKey(), executor), apm);
+    }
+
+    private CompletableFuture<Transaction> mapResponseAsync(CompletableFuture<String> response, final boolean apm) {
+        return response.thenApply(rawResponse -> {
+            try {
+                return apm ? GpApiMapping.MapResponseAPM(rawResponse) : GpApiMapping.mapResponse(rawResponse);
+            } catch (ApiException exc) {
+                throw new CompletionException(exc);
+            }
+        });
+    }
+
     @SuppressWarnings("unchecked")
     public <T> T processReport(ReportBuilder<T> builder, Class<T> clazz) throws ApiException {
         if (StringUtils.isNullOrEmpty(accessToken)) {
@@ -321,7 +456,7 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
     }
 
     public static String getDateIfNotNull(Date obj) {
-        return (obj != null) ? DATE_SDF.format(obj) : "";
+        return (obj != null) ? GpApiDateParser.formatDate(obj) : "";
     }
 
     public static String getDateIfNotNull(DateTime obj) {
@@ -333,46 +468,11 @@ public class GpApiConnector extends RestGateway implements IPaymentGateway, IRep
     }
 
     public static Date parseGpApiDate(String dateValue) throws GatewayException {
-        try {
-            if (StringUtils.isNullOrEmpty(dateValue)) {
-                return null;
-            }
-            return GpApiConnector.DATE_SDF.parse(dateValue);
-        } catch (ParseException ex) {
-            throw new GatewayException("Date format is not supported.", ex);
-        }
+        return GpApiDateParser.parseDate(dateValue);
     }
 
     public static DateTime parseGpApiDateTime(String dateValue) throws GatewayException {
-        if (StringUtils.isNullOrEmpty(dateValue)) {
-            return null;
-        }
-
-        try {
-            return GpApiConnector.DATE_TIME_DTF.parseDateTime(dateValue);
-        } catch (IllegalArgumentException ex) {
-            // Some Date values are returned with these slightly different formats:
-            // yyyy-MM-dd'T'HH:mm:ss.SSS or yyyy-MM-dd'T'HH:mm:ss
-            // instead of expected: yyyy-MM-dd'T'HH:mm:ss.SSS'Z'
-            // Because the difference is not significant, they are supported too.
-            try {
-                return GpApiConnector.DATE_TIME_DTF_2.parseDateTime(dateValue);
-            } catch (IllegalArgumentException ex2) {
-                try {
-                    return GpApiConnector.DATE_TIME_DTF_3.parseDateTime(dateValue);
-                } catch (IllegalArgumentException ex3) {
-                    try {
-                        return GpApiConnector.DATE_TIME_DTF_4.parseDateTime(dateValue);
-                    } catch (IllegalArgumentException ex4) {
-                        try {
-                            return GpApiConnector.DATE_TIME_DTF_5.parseDateTime(dateValue);
-                        } catch (IllegalArgumentException ex5) {
-                            throw new GatewayException("DateTime format is not supported.", ex5);
-                        }
-                    }
-                }
-            }
-        }
+        return GpApiDateParser.parseDateTime(dateValue);
     }
     // --------------------------------------------------------------------------------
 
@@ -0,0 +1,183 @@
+package com.global.api.gateways;
+
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.entities.gpApi.GpApiTokenResponse;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Access tokens shared by every GP-API connector in the process, keyed by the credentials and scope they were
+ * requested with. A token is renewed in the background once it enters its refresh window, callers keep using
+ * the current token meanwhile. Concurrent requests for a missing or expired token wait on a single sign in.
+ */
+public class GpApiTokenCache {
+    private static volatile GpApiTokenCache shared;
+    private static final ExecutorService refreshExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "GpApiTokenCache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    public interface TokenLoader {
+        GpApiTokenResponse load() throws GatewayException;
+    }
+
+    // how long before expiry a token is renewed, capped at half the token's lifetime
+    @Getter @Setter @Accessors(chain = true)
+    private long refreshAheadMillis = 5 * 60 * 1000;
+
+    // a token is not handed out when it has less than this left, capped at a tenth of its lifetime
+    @Getter @Setter @Accessors(chain = true)
+    private long expirySkewMillis = 30 * 1000;
+
+    private final ConcurrentHashMap<String, CachedToken> tokens = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<CachedToken>> loads = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+
+    public static GpApiTokenCache getShared() {
+        if (shared == null) {
+            synchronized (GpApiTokenCache.class) {
+                if (shared == null) {
+                    shared = new GpApiTokenCache();
+                }
+            }
+        }
+        return shared;
+    }
+
+    public GpApiTokenResponse getToken(String key, TokenLoader loader) throws GatewayException {
+        CachedToken cached = tokens.get(key);
+        long now = System.currentTimeMillis();
+
+        if (cached != null && now < cached.usableUntil) {
+            hitCount.incrementAndGet();
+            if (now >= cached.refreshAt) {
+                refreshAhead(key, loader);
+            }
+            return cached.response;
+        }
+
+        missCount.incrementAndGet();
+        return load(key, loader).response;
+    }
+
+    // drops the token if it is still the cached one, e.g. after the gateway rejected it
+    public void invalidate(String key, String token) {
+        CachedToken cached = tokens.get(key);
+        if (cached != null && cached.response.getToken().equals(token)) {
+            tokens.remove(key, cached);
+        }
+    }
+
+    public void clear() {
+        tokens.clear();
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    // sign in requests made, whether for a miss or ahead of expiry
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    private CachedToken load(String key, TokenLoader loader) throws GatewayException {
+        CompletableFuture<CachedToken> load = new CompletableFuture<>();
+        CompletableFuture<CachedToken> existing = loads.putIfAbsent(key, load);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            refreshCount.incrementAndGet();
+            CachedToken cached = new CachedToken(loader.load());
+            tokens.put(key, cached);
+            load.complete(cached);
+            return cached;
+        } catch (GatewayException | RuntimeException exc) {
+            refreshFailureCount.incrementAndGet();
+            load.completeExceptionally(exc);
+            throw exc;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    private void refreshAhead(final String key, final TokenLoader loader) {
+        if (loads.containsKey(key)) {
+            return;
+        }
+
+        refreshExecutor.execute(new Runnable() {
+            public void run() {
+                // another caller may have renewed it already
+                CachedToken current = tokens.get(key);
+                if (current != null && System.currentTimeMillis() < current.refreshAt) {
+                    return;
+                }
+
+                try {
+                    load(key, loader);
+                } catch (GatewayException | RuntimeException exc) {
+                    // the current token stays in use, the next caller in the refresh window tries again
+                }
+            }
+        });
+    }
+
+    private static CachedToken await(CompletableFuture<CachedToken> load) throws GatewayException {
+        try {
+            return load.get();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new GatewayException("Interrupted while waiting for an access token.", exc);
+        } catch (ExecutionException exc) {
+            if (exc.getCause() instanceof GatewayException) {
+                throw (GatewayException) exc.getCause();
+            }
+            throw new GatewayException("Failed to get an access token.", exc);
+        }
+    }
+
+    private class CachedToken {
+        private final GpApiTokenResponse response;
+        private final long refreshAt;
+        private final long usableUntil;
+
+        private CachedToken(GpApiTokenResponse response) {
+            long now = System.currentTimeMillis();
+            long lifetime = response.getSecondsToExpire() * 1000L;
+
+            this.response = response;
+            this.refreshAt = now + lifetime - Math.min(refreshAheadMillis, lifetime / 2);
+            this.usableUntil = now + lifetime - Math.min(expirySkewMillis, lifetime / 10);
+        }
+    }
+}
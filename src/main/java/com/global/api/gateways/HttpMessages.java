@@ -0,0 +1,128 @@
+package com.global.api.gateways;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * HTTP/1.1 message framing shared by the pooled and the non-blocking transports.
+ */
+final class HttpMessages {
+    private HttpMessages() { }
+
+    // the request head and body as written to the connection
+    static byte[] encodeRequest(HttpTransportRequest request) {
+        URL url = request.getUrl();
+        String target = url.getFile();
+        if (target == null || target.isEmpty()) {
+            target = "/";
+        }
+
+        StringBuilder head = new StringBuilder();
+        head.append(request.getVerb()).append(" ").append(target).append(" HTTP/1.1\r\n");
+        head.append("Host: ").append(url.getHost());
+        if (url.getPort() != -1 && url.getPort() != url.getDefaultPort()) {
+            head.append(":").append(url.getPort());
+        }
+        head.append("\r\n");
+
+        boolean hasUserAgent = false;
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            String name = header.getKey();
+            if ("Host".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name) || "Connection".equalsIgnoreCase(name)) {
+                continue;
+            }
+            hasUserAgent |= "User-Agent".equalsIgnoreCase(name);
+            head.append(name).append(": ").append(header.getValue()).append("\r\n");
+        }
+        if (!hasUserAgent) {
+            head.append("User-Agent: Java/").append(System.getProperty("java.version")).append("\r\n");
+        }
+
+        byte[] body = request.getBody();
+        if (body != null) {
+            head.append("Content-Length: ").append(body.length).append("\r\n");
+        }
+        head.append("\r\n");
+
+        byte[] encodedHead = head.toString().getBytes(StandardCharsets.ISO_8859_1);
+        if (body == null) {
+            return encodedHead;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(encodedHead.length + body.length);
+        buffer.write(encodedHead, 0, encodedHead.length);
+        buffer.write(body, 0, body.length);
+        return buffer.toByteArray();
+    }
+
+    static void parseStatusLine(String statusLine, HttpTransportResponse response) throws IOException {
+        // HTTP/1.1 200 OK
+        int codeStart = statusLine.indexOf(' ');
+        if (!statusLine.startsWith("HTTP/") || codeStart == -1 || statusLine.length() < codeStart + 4) {
+            throw new IOException("Invalid HTTP status line: " + statusLine);
+        }
+        try {
+            response.setStatusCode(Integer.parseInt(statusLine.substring(codeStart + 1, codeStart + 4)));
+        } catch (NumberFormatException exc) {
+            throw new IOException("Invalid HTTP status line: " + statusLine);
+        }
+        response.setStatusMessage(statusLine.length() > codeStart + 5 ? statusLine.substring(codeStart + 5) : "");
+    }
+
+    static void parseHeader(String line, Map<String, String> headers) {
+        int separator = line.indexOf(':');
+        if (separator > 0) {
+            String name = line.substring(0, separator).trim();
+            String value = line.substring(separator + 1).trim();
+            String existing = headers.get(name);
+            headers.put(name, existing == null ? value : existing + ", " + value);
+        }
+    }
+
+    static int parseChunkSize(String sizeLine) throws IOException {
+        int extension = sizeLine.indexOf(';');
+        try {
+            return Integer.parseInt((extension == -1 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+        } catch (NumberFormatException exc) {
+            throw new IOException("Invalid chunk size: " + sizeLine);
+        }
+    }
+
+    static boolean isChunked(HttpTransportResponse response) {
+        String transferEncoding = response.getHeader("Transfer-Encoding");
+        return transferEncoding != null && transferEncoding.toLowerCase().contains("chunked");
+    }
+
+    // whether the response leaves no body to read, whatever its headers say
+    static boolean hasNoBody(HttpTransportRequest request, HttpTransportResponse response) {
+        int status = response.getStatusCode();
+        return "HEAD".equalsIgnoreCase(request.getVerb()) || status == 204 || status == 304;
+    }
+
+    static boolean isKeepAlive(String statusLine, HttpTransportResponse response) {
+        return statusLine.startsWith("HTTP/1.1")
+                ? !"close".equalsIgnoreCase(response.getHeader("Connection"))
+                : "keep-alive".equalsIgnoreCase(response.getHeader("Connection"));
+    }
+
+    static long getKeepAliveTimeout(String keepAlive, int maxIdleTime) {
+        // Keep-Alive: timeout=5, max=100
+        if (keepAlive != null) {
+            for (String parameter : keepAlive.split(",")) {
+                String[] pair = parameter.trim().split("=");
+                if (pair.length == 2 && "timeout".equalsIgnoreCase(pair[0].trim())) {
+                    try {
+                        // give up on the connection a little before the server does
+                        long serverTimeout = Long.parseLong(pair[1].trim()) * 1000 - 500;
+                        return Math.max(0, Math.min(serverTimeout, maxIdleTime));
+                    } catch (NumberFormatException exc) {
+                        break;
+                    }
+                }
+            }
+        }
+        return maxIdleTime;
+    }
+}
@@ -0,0 +1,29 @@
+package com.global.api.gateways;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.net.Proxy;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Accessors(chain = true)
+@Getter
+@Setter
+public class HttpTransportRequest {
+    private String verb;
+    private URL url;
+    private Map<String, String> headers = new LinkedHashMap<>();
+    private byte[] body;
+    private int timeout;
+    private Proxy proxy;
+    // largest response body the transport reads, 0 for no limit
+    private long maxResponseSize;
+
+    public HttpTransportRequest addHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+}
@@ -0,0 +1,22 @@
+package com.global.api.gateways;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+@Accessors(chain = true)
+@Getter
+@Setter
+public class HttpTransportResponse {
+    private int statusCode;
+    private String statusMessage;
+    private Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private byte[] body;
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+}
@@ -0,0 +1,132 @@
+package com.global.api.gateways;
+
+import javax.net.ssl.HttpsURLConnection;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.HttpURLConnection;
+import java.net.URLConnection;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Default transport built on HttpsURLConnection. All connections share one SSLSocketFactoryEx so the
+ * JDK keep-alive cache and TLS session cache can be reused between requests.
+ */
+public class HttpsUrlConnectionTransport implements IHttpTransport {
+    private static final HttpsUrlConnectionTransport defaultInstance = new HttpsUrlConnectionTransport();
+
+    public static HttpsUrlConnectionTransport getDefault() {
+        return defaultInstance;
+    }
+
+    public HttpTransportResponse send(HttpTransportRequest request) throws IOException {
+        URLConnection connection = request.getProxy() != null
+                ? request.getUrl().openConnection(request.getProxy())
+                : request.getUrl().openConnection();
+        HttpURLConnection conn = (HttpURLConnection) connection;
+
+        if (conn instanceof HttpsURLConnection) {
+            try {
+                ((HttpsURLConnection) conn).setSSLSocketFactory(SSLSocketFactoryEx.getShared());
+            } catch (GeneralSecurityException exc) {
+                throw new IOException("Unable to initialize the SSL context.", exc);
+            }
+        }
+        conn.setConnectTimeout(request.getTimeout());
+        conn.setDoInput(true);
+        // ----------------------------------------------------------------------
+        // Fix: Supports PATCH requests in HttpsURLConnection on JAVA & Android
+        // ----------------------------------------------------------------------
+        if ("PATCH".equalsIgnoreCase(request.getVerb())) {
+            setRequestMethod(conn, request.getVerb());
+        } else {
+            conn.setRequestMethod(request.getVerb());
+        }
+
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            conn.addRequestProperty(header.getKey(), header.getValue());
+        }
+
+        byte[] body = request.getBody();
+        if (body != null) {
+            conn.setDoOutput(true);
+            conn.addRequestProperty("Content-Length", String.valueOf(body.length));
+
+            OutputStream requestStream = conn.getOutputStream();
+            requestStream.write(body);
+            requestStream.flush();
+            requestStream.close();
+        }
+
+        HttpTransportResponse response = new HttpTransportResponse();
+        response.setStatusCode(conn.getResponseCode());
+        response.setStatusMessage(conn.getResponseMessage());
+        for (Map.Entry<String, List<String>> header : conn.getHeaderFields().entrySet()) {
+            if (header.getKey() != null && !header.getValue().isEmpty()) {
+                response.getHeaders().put(header.getKey(), header.getValue().get(0));
+            }
+        }
+
+        // the body must be drained completely for the connection to go back into the keep-alive cache
+        InputStream responseStream = response.getStatusCode() >= 400 ? conn.getErrorStream() : conn.getInputStream();
+        if (responseStream != null && request.getMaxResponseSize() > 0 && conn.getContentLengthLong() > request.getMaxResponseSize()) {
+            // not worth draining, drop the connection instead
+            conn.disconnect();
+            checkResponseSize(conn.getContentLengthLong(), request.getMaxResponseSize());
+        }
+        response.setBody(responseStream != null ? readAll(responseStream, request.getMaxResponseSize()) : new byte[0]);
+        return response;
+    }
+
+    // a maxSize of 0 or less means no limit
+    static void checkResponseSize(long size, long maxSize) throws IOException {
+        if (maxSize > 0 && size > maxSize) {
+            throw new IOException(String.format("Response body exceeds the maximum of %s bytes.", maxSize));
+        }
+    }
+
+    static byte[] readAll(InputStream stream, long maxSize) throws IOException {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int read;
+            while ((read = stream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, read);
+                checkResponseSize(buffer.size(), maxSize);
+            }
+            return buffer.toByteArray();
+        } finally {
+            stream.close();
+        }
+    }
+
+    private void setRequestMethod(final HttpURLConnection c, final String value) {
+        try {
+            Object target = c;
+            final Field delegate = getField(c.getClass(), "delegate");
+            if (delegate != null) {
+                delegate.setAccessible(true);
+                target = delegate.get(c);
+            }
+            final Field f = HttpURLConnection.class.getDeclaredField("method");
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (IllegalAccessException | NoSuchFieldException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    private Field getField(Class<?> clazz, String fieldName) {
+        Field field;
+        try {
+            field = clazz.getDeclaredField(fieldName);
+        } catch (NoSuchFieldException ex) {
+            field = null;
+        }
+        return field;
+    }
+}
@@ -0,0 +1,19 @@
+package com.global.api.gateways;
+
+import com.global.api.builders.AuthorizationBuilder;
+import com.global.api.builders.ManagementBuilder;
+import com.global.api.entities.Transaction;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A payment gateway that sends requests without holding a thread while they are in flight. The request is built on
+ * the calling thread and the response is mapped on the executor; the future fails with the ApiException the
+ * synchronous call would have thrown. No thread is held only when the connector's IHttpTransport has a non-blocking
+ * sendAsync, such as AsyncHttpTransport.
+ */
+public interface IAsyncPaymentGateway {
+    CompletableFuture<Transaction> processAuthorizationAsync(AuthorizationBuilder builder, Executor executor);
+    CompletableFuture<Transaction> manageTransactionAsync(ManagementBuilder builder, Executor executor);
+}
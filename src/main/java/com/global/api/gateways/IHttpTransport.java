@@ -0,0 +1,22 @@
+package com.global.api.gateways;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+public interface IHttpTransport {
+    HttpTransportResponse send(HttpTransportRequest request) throws IOException;
+
+    /**
+     * Sends the request without waiting on the response. Transports that have no non-blocking path send on the
+     * calling thread and return a completed future.
+     */
+    default CompletableFuture<HttpTransportResponse> sendAsync(HttpTransportRequest request) {
+        CompletableFuture<HttpTransportResponse> rvalue = new CompletableFuture<>();
+        try {
+            rvalue.complete(send(request));
+        } catch (IOException | RuntimeException exc) {
+            rvalue.completeExceptionally(exc);
+        }
+        return rvalue;
+    }
+}
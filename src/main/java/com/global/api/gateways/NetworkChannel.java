@@ -0,0 +1,170 @@
+package com.global.api.gateways;
+
+import com.global.api.entities.enums.Host;
+import com.global.api.utils.LengthPrefixedFrameDecoder;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * A long lived connection to one network host. Responses are read by a dedicated thread and handed to the
+ * waiting request by correlation id, so any number of correlated requests can be outstanding at once.
+ * Requests without a correlation id are serialized: only one of them may be in flight at a time.
+ */
+class NetworkChannel implements Runnable {
+    private final Host host;
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+    private final Function<byte[], String> responseCorrelator;
+
+    private final ConcurrentHashMap<String, CompletableFuture<byte[]>> pending = new ConcurrentHashMap<>();
+    private final Semaphore uncorrelatedPermit = new Semaphore(1, true);
+    private volatile CompletableFuture<byte[]> uncorrelatedPending;
+    private final Object writeLock = new Object();
+    private volatile boolean closed;
+    private volatile long lastActivity;
+
+    NetworkChannel(Host host, Socket socket, Function<byte[], String> responseCorrelator) throws IOException {
+        this.host = host;
+        this.socket = socket;
+        this.in = socket.getInputStream();
+        this.out = socket.getOutputStream();
+        this.responseCorrelator = responseCorrelator;
+        this.lastActivity = System.currentTimeMillis();
+
+        Thread reader = new Thread(this, "NetworkChannel-" + socket.getInetAddress().getHostName() + ":" + socket.getPort());
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    Host getHost() {
+        return host;
+    }
+
+    boolean isOpen() {
+        return !closed;
+    }
+
+    long getLastActivity() {
+        return lastActivity;
+    }
+
+    boolean hasPendingRequests() {
+        return !pending.isEmpty() || uncorrelatedPending != null;
+    }
+
+    // an uncorrelated request must hold the permit from before send until its response (or failure) is handled
+    Semaphore getUncorrelatedPermit() {
+        return uncorrelatedPermit;
+    }
+
+    CompletableFuture<byte[]> send(byte[] buffer, String correlationId) throws IOException {
+        if (closed) {
+            throw new IOException("The connection to the " + host + " host is closed.");
+        }
+
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        if (correlationId != null) {
+            if (pending.putIfAbsent(correlationId, response) != null) {
+                throw new IOException("A request with correlation id " + correlationId + " is already outstanding.");
+            }
+        } else {
+            uncorrelatedPending = response;
+        }
+
+        try {
+            synchronized (writeLock) {
+                out.write(buffer);
+                out.flush();
+            }
+            lastActivity = System.currentTimeMillis();
+        } catch (IOException exc) {
+            close(exc);
+            throw exc;
+        }
+        return response;
+    }
+
+    // stop waiting on a request that timed out, a late response for it is discarded
+    void abandon(String correlationId) {
+        if (correlationId != null) {
+            pending.remove(correlationId);
+        } else {
+            uncorrelatedPending = null;
+        }
+    }
+
+    public void run() {
+        LengthPrefixedFrameDecoder decoder = new LengthPrefixedFrameDecoder();
+        try {
+            while (!closed) {
+                byte[] message;
+                while ((message = decoder.nextFrame()) != null) {
+                    dispatch(message);
+                }
+
+                if (decoder.readFrom(in) == -1) {
+                    throw new EOFException();
+                }
+                lastActivity = System.currentTimeMillis();
+            }
+        } catch (EOFException exc) {
+            close(new IOException("The connection was closed by the " + host + " host.", exc));
+        } catch (IOException exc) {
+            close(exc);
+        }
+    }
+
+    private void dispatch(byte[] message) {
+        String correlationId = responseCorrelator.apply(message);
+
+        CompletableFuture<byte[]> response;
+        if (correlationId != null) {
+            response = pending.remove(correlationId);
+        } else {
+            response = uncorrelatedPending;
+            uncorrelatedPending = null;
+        }
+
+        if (response != null) {
+            response.complete(message);
+        }
+    }
+
+    void close() {
+        close(new IOException("The connection to the " + host + " host was closed."));
+    }
+
+    private void close(IOException cause) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // eat the close exception
+        }
+
+        for (String correlationId : pending.keySet()) {
+            CompletableFuture<byte[]> response = pending.remove(correlationId);
+            if (response != null) {
+                response.completeExceptionally(cause);
+            }
+        }
+        CompletableFuture<byte[]> response = uncorrelatedPending;
+        uncorrelatedPending = null;
+        if (response != null) {
+            response.completeExceptionally(cause);
+        }
+    }
+}
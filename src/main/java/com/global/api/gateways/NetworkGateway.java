@@ -8,6 +8,8 @@ import com.global.api.entities.exceptions.GatewayException;
 import com.global.api.entities.exceptions.GatewayTimeoutException;
 import com.global.api.gateways.events.*;
 import com.global.api.terminals.abstractions.IDeviceMessage;
+import com.global.api.terminals.abstractions.IDisposable;
+import com.global.api.utils.LengthPrefixedFrameDecoder;
 import com.global.api.utils.NtsUtils;
 import com.global.api.utils.StringUtils;
 import org.joda.time.DateTime;
@@ -16,14 +18,19 @@ import org.joda.time.DateTimeZone;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import java.io.*;
-import java.math.BigInteger;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.security.KeyManagementException;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.concurrent.*;
+import java.util.function.Function;
 
-public class NetworkGateway {
+public class NetworkGateway implements IDisposable {
     private SSLSocket client;
     private DataOutputStream out;
     private InputStream in;
@@ -39,6 +46,13 @@ public class NetworkGateway {
     private boolean enableLogging = false;
     private HashMap<Host, ArrayList<HostError>> simulatedHostErrors;
     private int timeout;
+    private boolean persistentConnection;
+    private int keepAliveInterval;
+
+    private static final int RESPONSE_TIMEOUT = 20000;
+    private final LengthPrefixedFrameDecoder frameDecoder = new LengthPrefixedFrameDecoder();
+    private final EnumMap<Host, NetworkChannel> channels = new EnumMap<>(Host.class);
+    private ScheduledExecutorService keepAliveScheduler;
 
     private String connectorName = "NetworkGateway";
     private IGatewayEventHandler gatewayEventHandler;
@@ -73,6 +87,18 @@ public class NetworkGateway {
     public void setTimeout(int timeout) {
         this.timeout = timeout;
     }
+    public boolean isPersistentConnection() {
+        return persistentConnection;
+    }
+    public void setPersistentConnection(boolean persistentConnection) {
+        this.persistentConnection = persistentConnection;
+    }
+    public int getKeepAliveInterval() {
+        return keepAliveInterval;
+    }
+    public void setKeepAliveInterval(int keepAliveInterval) {
+        this.keepAliveInterval = keepAliveInterval;
+    }
     protected boolean isEnableLogging() {
         return enableLogging;
     }
@@ -97,6 +123,24 @@ public class NetworkGateway {
 
     // establish connection
     private void connect(String endpoint, Integer port) throws GatewayComsException {
+        if(client == null || out == null || in == null || !client.isConnected()) {
+            if(client != null) {
+                disconnect();
+            }
+
+            client = openSocket(endpoint, port);
+            try {
+                out = new DataOutputStream(client.getOutputStream());
+                in = client.getInputStream();
+            }
+            catch(IOException exc) {
+                throw new GatewayComsException(exc);
+            }
+        }
+    }
+
+    // open a socket to the endpoint, failing over between the primary and secondary hosts
+    private SSLSocket openSocket(String endpoint, Integer port) throws GatewayComsException {
         currentHost = endpoint.equals(primaryEndpoint) ? Host.Primary : Host.Secondary;
 
         // create the connection event
@@ -108,62 +152,68 @@ public class NetworkGateway {
         raiseGatewayEvent(connectionEvent);
 
         DateTime connectionStarted = DateTime.now(DateTimeZone.UTC);
-        if(client == null || out == null || in == null || !client.isConnected()) {
-            if(client != null) {
-                disconnect();
-            }
-
-            try {
-                // connection started
-                connectionEvent.setConnectionStarted(connectionStarted);
+        SSLSocket socket = null;
+        try {
+            // connection started
+            connectionEvent.setConnectionStarted(connectionStarted);
 
-                // check for simulated connection error
-                if(!isForcedError(HostError.Connection)) {
-                    try {
-                        SSLSocketFactory factory = new SSLSocketFactoryEx();
-                        client = (SSLSocket) factory.createSocket();
-                        client.connect(new InetSocketAddress(endpoint, port), 5000);
-                        client.startHandshake();
+            // check for simulated connection error
+            if(!isForcedError(HostError.Connection)) {
+                try {
+                    SSLSocketFactory factory = getSocketFactory();
+                    socket = (SSLSocket) factory.createSocket();
+                    socket.connect(new InetSocketAddress(endpoint, port), 5000);
+                    socket.startHandshake();
 
-                        raiseGatewayEvent(new SslHandshakeEvent(connectorName, null));
-                    }
-                    catch(Exception exc) {
-                        raiseGatewayEvent(new SslHandshakeEvent(connectorName, exc));
-                        if(client != null && client.isConnected()) {
-                            disconnect();
-                        }
+                    raiseGatewayEvent(new SslHandshakeEvent(connectorName, null));
+                }
+                catch(Exception exc) {
+                    raiseGatewayEvent(new SslHandshakeEvent(connectorName, exc));
+                    if(socket != null && socket.isConnected()) {
+                        closeQuietly(socket);
                     }
                 }
+            }
 
-                if(client != null && client.isConnected()) {
-                    // connection completed
-                    raiseGatewayEvent(new ConnectionCompleteEvent(connectorName, connectionStarted, DateTime.now(DateTimeZone.UTC)));
+            if(socket != null && socket.isConnected() && !socket.isClosed()) {
+                // connection completed
+                raiseGatewayEvent(new ConnectionCompleteEvent(connectorName, connectionStarted, DateTime.now(DateTimeZone.UTC)));
 
-                    out = new DataOutputStream(client.getOutputStream());
-                    in = client.getInputStream();
-                    client.setKeepAlive(true);
-                    connectionFaults = 0;
-                }
-                else {
-                    // connection fail over
-                    raiseGatewayEvent(new FailOverEvent(connectorName, connectionStarted, DateTime.now(DateTimeZone.UTC)));
-
-                    if(connectionFaults++ != 3) {
-                        if(endpoint.equals(primaryEndpoint) && secondaryEndpoint != null) {
-                            connect(secondaryEndpoint, secondaryPort);
-                        }
-                        else {
-                            connect(primaryEndpoint, primaryPort);
-                        }
+                socket.setKeepAlive(true);
+                connectionFaults = 0;
+                return socket;
+            }
+            else {
+                // connection fail over
+                raiseGatewayEvent(new FailOverEvent(connectorName, connectionStarted, DateTime.now(DateTimeZone.UTC)));
+
+                if(connectionFaults++ != 3) {
+                    if(endpoint.equals(primaryEndpoint) && secondaryEndpoint != null) {
+                        return openSocket(secondaryEndpoint, secondaryPort);
                     }
                     else {
-                        throw new IOException("Failed to connect to primary or secondary processing endpoints.");
+                        return openSocket(primaryEndpoint, primaryPort);
                     }
                 }
+                else {
+                    throw new IOException("Failed to connect to primary or secondary processing endpoints.");
+                }
             }
-            catch(Exception exc) {
-                throw new GatewayComsException(exc);
-            }
+        }
+        catch(GatewayComsException exc) {
+            throw exc;
+        }
+        catch(Exception exc) {
+            throw new GatewayComsException(exc);
+        }
+    }
+
+    private void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        }
+        catch(IOException exc) {
+            // eat the close exception
         }
     }
 
@@ -187,6 +237,10 @@ public class NetworkGateway {
     }
 
     public byte[] send(IDeviceMessage message) throws GatewayTimeoutException, GatewayComsException {
+        if(persistentConnection) {
+            return sendPersistent(message);
+        }
+
         /*
         1) if the initial attempt to connect fails (on both hosts) a GatewayComsException is thrown
         2) if the send/receive fails, no exception is thrown (timeout flag is tripped) and fail over occurs
@@ -252,52 +306,227 @@ public class NetworkGateway {
         }
     }
 
-    private byte[] getGatewayResponse() throws IOException, GatewayTimeoutException {
-        byte[] buffer = new byte[2048];
+    /*
+    over long lived connections that stay open between requests
+    1) if the request could not be written, the connection is reopened (on the secondary host when there is one)
+       and the request is sent again
+    2) once the request was written it is never sent again, no response within the timeout or a connection lost
+       while waiting throws GatewayTimeoutException
+     */
+    private byte[] sendPersistent(IDeviceMessage message) throws GatewayTimeoutException, GatewayComsException {
+        byte[] buffer = message.getSendBuffer();
+        String correlationId = getCorrelationId(buffer, 2);
+        try {
+            NetworkChannel channel = getChannel(Host.Primary);
+            for(int i = 0; i < 2; i++) {
+                raiseGatewayEvent(new RequestSentEvent(connectorName));
+                DateTime requestSent = DateTime.now(DateTimeZone.UTC);
+                try {
+                    byte[] rvalue = sendOnChannel(channel, buffer, correlationId);
+                    if(isForcedError(HostError.Timeout)) {
+                        throw new GatewayTimeoutException();
+                    }
+                    raiseGatewayEvent(new ResponseReceivedEvent(connectorName, requestSent));
+                    return rvalue;
+                }
+                catch(IOException exc) {
+                    /* the request was not written, it is safe to send it again */
+                }
 
-        int bytesReceived = awaitResponse(in, buffer);
+                if(!channel.getHost().equals(Host.Secondary) && !StringUtils.isNullOrEmpty(secondaryEndpoint) && i < 1) {
+                    raiseGatewayEvent(new TimeoutEvent(connectorName, GatewayEventType.TimeoutFailOver));
+                    channel = getChannel(Host.Secondary);
+                }
+                else {
+                    channel = getChannel(channel.getHost());
+                }
+            }
 
-        if(bytesReceived > 0) {
-            byte[] rec_buffer = new byte[bytesReceived];
-            System.arraycopy(buffer, 0, rec_buffer, 0, bytesReceived);
-            return rec_buffer;
+            raiseGatewayEvent(new TimeoutEvent(connectorName, GatewayEventType.Timeout));
+            throw new GatewayComsException();
+        }
+        finally {
+            // remove simulated errors
+            if(simulatedHostErrors != null) {
+                simulatedHostErrors = null;
+            }
         }
-
-        return null;
     }
 
-    private int awaitResponse(InputStream in, byte[] buffer) throws GatewayTimeoutException, IOException {
-        long t = System.currentTimeMillis();
+    // an IOException means the request was not written, anything that goes wrong after that is a timeout
+    private byte[] sendOnChannel(NetworkChannel channel, byte[] buffer, String correlationId) throws IOException, GatewayTimeoutException {
+        if(isForcedError(HostError.SendFailure)) {
+            throw new IOException("Simulated IO Exception on request send.");
+        }
+
+        Semaphore permit = correlationId == null ? channel.getUncorrelatedPermit() : null;
+        try {
+            if(permit != null && !permit.tryAcquire(getResponseTimeout(), TimeUnit.MILLISECONDS)) {
+                throw new GatewayTimeoutException();
+            }
+        }
+        catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
 
-        int position = 0;
-        Integer messageLength = null;
-        do {
-            if(messageLength == null) {
-                byte[] lengthBuffer = new byte[2];
-                int length = in.read(lengthBuffer, 0, 2);
-                if(length == 2) {
-                    messageLength = new BigInteger(lengthBuffer).intValue() - 2;
+        try {
+            Future<byte[]> response = channel.send(buffer, correlationId);
+            try {
+                return response.get(getResponseTimeout(), TimeUnit.MILLISECONDS);
+            }
+            catch(TimeoutException exc) {
+                channel.abandon(correlationId);
+                if(correlationId == null) {
+                    // a late response could not be told apart from the next one
+                    channel.close();
                 }
+                throw new GatewayTimeoutException(exc);
+            }
+            catch(ExecutionException exc) {
+                // the connection was lost, the host may still have processed the request
+                throw new GatewayTimeoutException(exc.getCause() instanceof Exception ? (Exception) exc.getCause() : exc);
+            }
+            catch(InterruptedException exc) {
+                channel.abandon(correlationId);
+                Thread.currentThread().interrupt();
+                throw new GatewayTimeoutException(exc);
+            }
+        }
+        finally {
+            if(permit != null) {
+                permit.release();
+            }
+        }
+    }
+
+    private NetworkChannel getChannel(Host host) throws GatewayComsException {
+        synchronized (channels) {
+            NetworkChannel channel = channels.get(host);
+            if(channel != null && channel.isOpen()) {
+                return channel;
             }
 
-            if(messageLength != null) {
-                int currLength = in.read(buffer, position, messageLength);
-                if (currLength == messageLength) {
-                    return messageLength;
+            boolean usePrimary = host.equals(Host.Primary) ? !StringUtils.isNullOrEmpty(primaryEndpoint) : StringUtils.isNullOrEmpty(secondaryEndpoint);
+            SSLSocket socket = usePrimary ? openSocket(primaryEndpoint, primaryPort) : openSocket(secondaryEndpoint, secondaryPort);
+
+            // the socket may have failed over to the other host
+            channel = channels.get(currentHost);
+            if(channel != null && channel.isOpen()) {
+                closeQuietly(socket);
+                return channel;
+            }
+
+            try {
+                channel = new NetworkChannel(currentHost, socket, new Function<byte[], String>() {
+                    public String apply(byte[] response) {
+                        return getCorrelationId(response, 0);
+                    }
+                });
+            }
+            catch(IOException exc) {
+                closeQuietly(socket);
+                throw new GatewayComsException(exc);
+            }
+            channels.put(currentHost, channel);
+            startKeepAlive();
+            return channel;
+        }
+    }
+
+    /**
+     * Identifies the request a message belongs to so several requests can share a persistent connection.
+     * Messages without a correlation id are sent one at a time.
+     *
+     * @param buffer the request or response
+     * @param offset where the message header starts in the buffer, past any length prefix
+     */
+    protected String getCorrelationId(byte[] buffer, int offset) {
+        return null;
+    }
+
+    // how long to wait for the response to a request, in milliseconds
+    protected int getResponseTimeout() {
+        return RESPONSE_TIMEOUT;
+    }
+
+    protected SSLSocketFactory getSocketFactory() throws NoSuchAlgorithmException, KeyManagementException {
+        return SSLSocketFactoryEx.getShared();
+    }
+
+    // invoked every keepAliveInterval milliseconds while the persistent connection is idle
+    protected void keepAlive() throws ApiException {
+    }
+
+    private void startKeepAlive() {
+        if(keepAliveInterval <= 0 || keepAliveScheduler != null) {
+            return;
+        }
+
+        keepAliveScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, connectorName + "-keepalive");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        keepAliveScheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                NetworkChannel channel;
+                synchronized (channels) {
+                    channel = channels.get(Host.Primary);
                 }
-                else {
-                    position += currLength;
+                if(channel != null && channel.isOpen() && !channel.hasPendingRequests()
+                        && System.currentTimeMillis() - channel.getLastActivity() >= keepAliveInterval) {
+                    try {
+                        keepAlive();
+                    }
+                    catch(Exception exc) {
+                        // a failed keep alive closes the channel, the next request reconnects
+                    }
                 }
             }
+        }, keepAliveInterval, keepAliveInterval, TimeUnit.MILLISECONDS);
+    }
 
-            try {
-                Thread.sleep(50);
+    public void dispose() {
+        synchronized (channels) {
+            for(NetworkChannel channel : channels.values()) {
+                channel.close();
+            }
+            channels.clear();
+
+            if(keepAliveScheduler != null) {
+                keepAliveScheduler.shutdownNow();
+                keepAliveScheduler = null;
             }
-            catch(InterruptedException e) { break; }
         }
-        while((System.currentTimeMillis() - t) <= 20000);
+        disconnect();
+    }
 
-        throw new GatewayTimeoutException();
+    private byte[] getGatewayResponse() throws IOException, GatewayTimeoutException {
+        long deadline = System.currentTimeMillis() + getResponseTimeout();
+
+        frameDecoder.reset();
+        try {
+            byte[] frame;
+            while((frame = frameDecoder.nextFrame()) == null) {
+                // the socket timeout bounds each read by the time left
+                long remaining = deadline - System.currentTimeMillis();
+                if(remaining <= 0) {
+                    throw new GatewayTimeoutException();
+                }
+                client.setSoTimeout((int) remaining);
+
+                if(frameDecoder.readFrom(in) == -1) {
+                    throw new GatewayTimeoutException();
+                }
+            }
+            return frame;
+        }
+        catch(SocketTimeoutException exc) {
+            throw new GatewayTimeoutException(exc);
+        }
     }
 
     private void raiseGatewayEvent(final IGatewayEvent event) {
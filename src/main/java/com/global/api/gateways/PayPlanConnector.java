@@ -54,7 +54,7 @@ public class PayPlanConnector extends RestGateway implements IRecurringGateway {
         if(secretApiKey != null) {
             byte[] encoded = Base64.encodeBase64(secretApiKey.getBytes());
             String auth = String.format("Basic %s", new String(encoded));
-            headers.put("Authorization", auth);
+            setHeader("Authorization", auth);
         }
     }
     public boolean supportsRetrieval() { return true; }
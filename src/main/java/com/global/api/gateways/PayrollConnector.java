@@ -60,7 +60,7 @@ public class PayrollConnector extends RestGateway {
         // Build the basic request header
         String credentials = String.format("%s|%s", sessionToken, username);
         String basicAuth = Base64.encodeBase64String(credentials.getBytes());
-        headers.put("Authorization", String.format("Basic %s", basicAuth));
+        setHeader("Authorization", String.format("Basic %s", basicAuth));
     }
     public void signOut() throws ApiException {
         sendEncryptedRequest(SessionInfo.signOut(), SessionInfo.class);
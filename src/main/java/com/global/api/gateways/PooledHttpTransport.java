@@ -0,0 +1,419 @@
+package com.global.api.gateways;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP/1.1 transport keeping a bounded pool of persistent connections per route (scheme, host, port and proxy).
+ * Connections share one SSL context so new connections resume TLS sessions instead of doing a full handshake.
+ * Idle connections are evicted once they exceed maxIdleTime (or the server's keep-alive timeout) and are checked
+ * for staleness before being reused.
+ */
+@Accessors(chain = true)
+@Getter
+@Setter
+public class PooledHttpTransport implements IHttpTransport {
+    // upper bound of connections open at the same time to a single route, a change also resizes the routes in use
+    private int maxConnectionsPerRoute = 10;
+    // how long an idle connection is kept before being closed (ms)
+    private int maxIdleTime = 30000;
+    // how long to wait for a free connection when the route is at capacity (ms)
+    private int connectionRequestTimeout = 30000;
+    // socket read timeout (ms), 0 waits indefinitely
+    private int readTimeout = 0;
+    private SSLSocketFactory sslSocketFactory;
+
+    @Getter(lombok.AccessLevel.NONE)
+    @Setter(lombok.AccessLevel.NONE)
+    private final ConcurrentHashMap<String, Route> routes = new ConcurrentHashMap<>();
+
+    public HttpTransportResponse send(HttpTransportRequest request) throws IOException {
+        URL url = request.getUrl();
+        Route route = getRoute(url, request.getProxy());
+
+        try {
+            if (!route.permits.tryAcquire(connectionRequestTimeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timeout waiting for a connection to " + route.key + ".");
+            }
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection to " + route.key + ".");
+        }
+
+        try {
+            PooledConnection connection = leaseIdleConnection(route);
+            if (connection == null) {
+                connection = connect(url, request.getProxy(), request.getTimeout());
+            }
+
+            HttpTransportResponse response;
+            try {
+                response = connection.execute(request);
+            } catch (IOException exc) {
+                connection.close();
+                throw exc;
+            }
+
+            if (connection.isReusable()) {
+                route.idle.offerFirst(connection);
+            } else {
+                connection.close();
+            }
+            return response;
+        } finally {
+            route.permits.release();
+        }
+    }
+
+    /**
+     * Closes the idle connections that have outlived their keep-alive period.
+     */
+    public void closeExpiredConnections() {
+        long now = System.currentTimeMillis();
+        for (Route route : routes.values()) {
+            Iterator<PooledConnection> iterator = route.idle.iterator();
+            while (iterator.hasNext()) {
+                PooledConnection connection = iterator.next();
+                if (connection.isExpired(now) && route.idle.removeFirstOccurrence(connection)) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes every idle connection. Connections currently in use are closed when they are released.
+     */
+    public void shutdown() {
+        for (Route route : routes.values()) {
+            PooledConnection connection;
+            while ((connection = route.idle.pollFirst()) != null) {
+                connection.close();
+            }
+        }
+    }
+
+    public int getIdleConnectionCount() {
+        int count = 0;
+        for (Route route : routes.values()) {
+            count += route.idle.size();
+        }
+        return count;
+    }
+
+    public synchronized PooledHttpTransport setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        if (maxConnectionsPerRoute < 1) {
+            throw new IllegalArgumentException("maxConnectionsPerRoute must be at least 1.");
+        }
+
+        // requests over a lowered limit finish normally, new ones wait until the route is back under it
+        int change = maxConnectionsPerRoute - this.maxConnectionsPerRoute;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        for (Route route : routes.values()) {
+            route.permits.resize(change);
+        }
+        return this;
+    }
+
+    private Route getRoute(URL url, Proxy proxy) {
+        String key = url.getProtocol() + "://" + url.getHost() + ":" + getPort(url);
+        if (proxy != null && proxy.type() != Proxy.Type.DIRECT) {
+            key += " via " + proxy;
+        }
+
+        Route route = routes.get(key);
+        if (route == null) {
+            // under the same lock as setMaxConnectionsPerRoute so a new route is not sized with a stale limit
+            synchronized (this) {
+                route = routes.get(key);
+                if (route == null) {
+                    route = new Route(key, maxConnectionsPerRoute);
+                    routes.put(key, route);
+                }
+            }
+        }
+        return route;
+    }
+
+    private PooledConnection leaseIdleConnection(Route route) {
+        long now = System.currentTimeMillis();
+
+        PooledConnection connection;
+        while ((connection = route.idle.pollFirst()) != null) {
+            if (!connection.isExpired(now) && !connection.isStale()) {
+                return connection;
+            }
+            connection.close();
+        }
+        return null;
+    }
+
+    private PooledConnection connect(URL url, Proxy proxy, int connectTimeout) throws IOException {
+        String host = url.getHost();
+        int port = getPort(url);
+
+        Socket socket;
+        if (proxy != null && proxy.type() != Proxy.Type.DIRECT) {
+            socket = new Socket(proxy);
+            socket.connect(InetSocketAddress.createUnresolved(host, port), connectTimeout);
+        } else {
+            socket = new Socket();
+            socket.connect(new InetSocketAddress(host, port), connectTimeout);
+        }
+
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+
+            if ("https".equalsIgnoreCase(url.getProtocol())) {
+                SSLSocket sslSocket = (SSLSocket) getSocketFactory().createSocket(socket, host, port, true);
+
+                // raw SSL sockets do not verify the host name unless asked to
+                SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(parameters);
+                sslSocket.setSoTimeout(connectTimeout);
+                sslSocket.startHandshake();
+                socket = sslSocket;
+            }
+            socket.setSoTimeout(readTimeout);
+            return new PooledConnection(socket, maxIdleTime);
+        } catch (IOException exc) {
+            closeQuietly(socket);
+            throw exc;
+        }
+    }
+
+    private SSLSocketFactory getSocketFactory() throws IOException {
+        if (sslSocketFactory == null) {
+            try {
+                sslSocketFactory = SSLSocketFactoryEx.getShared();
+            } catch (GeneralSecurityException exc) {
+                throw new IOException("Unable to initialize the SSL context.", exc);
+            }
+        }
+        return sslSocketFactory;
+    }
+
+    private static int getPort(URL url) {
+        return url.getPort() != -1 ? url.getPort() : url.getDefaultPort();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing more can be done with this socket
+        }
+    }
+
+    private static class Route {
+        private final String key;
+        private final RoutePermits permits;
+        private final ConcurrentLinkedDeque<PooledConnection> idle = new ConcurrentLinkedDeque<>();
+
+        Route(String key, int maxConnections) {
+            this.key = key;
+            this.permits = new RoutePermits(maxConnections);
+        }
+    }
+
+    private static class RoutePermits extends Semaphore {
+        RoutePermits(int permits) {
+            super(permits, true);
+        }
+
+        // a reduction can leave fewer than zero available until connections in use are released
+        void resize(int change) {
+            if (change > 0) {
+                release(change);
+            } else if (change < 0) {
+                reducePermits(-change);
+            }
+        }
+    }
+
+    private static class PooledConnection {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final int maxIdleTime;
+        private boolean reusable;
+        private long expiresAt;
+
+        PooledConnection(Socket socket, int maxIdleTime) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream(), 8192);
+            this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+            this.maxIdleTime = maxIdleTime;
+        }
+
+        boolean isReusable() {
+            return reusable;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        // A server may close an idle connection at any time; probe the socket so a request is
+        // never written to a connection the other side has already given up on.
+        boolean isStale() {
+            int soTimeout = 0;
+            try {
+                soTimeout = socket.getSoTimeout();
+                socket.setSoTimeout(1);
+                // either end of stream or unsolicited data, neither can be reused
+                in.read();
+                return true;
+            } catch (SocketTimeoutException exc) {
+                return false;
+            } catch (IOException exc) {
+                return true;
+            } finally {
+                try {
+                    socket.setSoTimeout(soTimeout);
+                } catch (IOException e) {
+                    // the next request will fail and close the connection
+                }
+            }
+        }
+
+        HttpTransportResponse execute(HttpTransportRequest request) throws IOException {
+            reusable = false;
+            out.write(HttpMessages.encodeRequest(request));
+            out.flush();
+
+            HttpTransportResponse response = new HttpTransportResponse();
+            String statusLine;
+            do {
+                statusLine = readLine();
+                if (statusLine == null) {
+                    throw new EOFException("Connection closed before a response was received.");
+                }
+                HttpMessages.parseStatusLine(statusLine, response);
+                response.getHeaders().clear();
+                readHeaders(response.getHeaders());
+            } while (response.getStatusCode() >= 100 && response.getStatusCode() < 200);
+
+            boolean keepAlive = HttpMessages.isKeepAlive(statusLine, response);
+
+            String contentLength = response.getHeader("Content-Length");
+            if (HttpMessages.hasNoBody(request, response)) {
+                response.setBody(new byte[0]);
+            } else if (HttpMessages.isChunked(response)) {
+                response.setBody(readChunkedBody(request.getMaxResponseSize()));
+            } else if (contentLength != null) {
+                int length;
+                try {
+                    length = Integer.parseInt(contentLength.trim());
+                } catch (NumberFormatException exc) {
+                    throw new IOException("Invalid Content-Length: " + contentLength);
+                }
+                if (length < 0) {
+                    throw new IOException("Invalid Content-Length: " + contentLength);
+                }
+                HttpsUrlConnectionTransport.checkResponseSize(length, request.getMaxResponseSize());
+                response.setBody(readBody(length));
+            } else {
+                // the body is delimited by the end of the connection
+                response.setBody(HttpsUrlConnectionTransport.readAll(in, request.getMaxResponseSize()));
+                keepAlive = false;
+            }
+
+            if (keepAlive) {
+                reusable = true;
+                expiresAt = System.currentTimeMillis() + HttpMessages.getKeepAliveTimeout(response.getHeader("Keep-Alive"), maxIdleTime);
+            }
+            return response;
+        }
+
+        void close() {
+            reusable = false;
+            closeQuietly(socket);
+        }
+
+        private void readHeaders(Map<String, String> headers) throws IOException {
+            String line;
+            while ((line = readLine()) != null && !line.isEmpty()) {
+                HttpMessages.parseHeader(line, headers);
+            }
+            if (line == null) {
+                throw new EOFException("Connection closed while reading the response headers.");
+            }
+        }
+
+        private byte[] readChunkedBody(long maxSize) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            while (true) {
+                String sizeLine = readLine();
+                if (sizeLine == null) {
+                    throw new EOFException("Connection closed while reading a chunked response.");
+                }
+                int size = HttpMessages.parseChunkSize(sizeLine);
+                if (size == 0) {
+                    // skip trailers
+                    String trailer;
+                    while ((trailer = readLine()) != null && !trailer.isEmpty()) { }
+                    return buffer.toByteArray();
+                }
+                HttpsUrlConnectionTransport.checkResponseSize((long) buffer.size() + size, maxSize);
+                readFully(buffer, size);
+                readLine();
+            }
+        }
+
+        private byte[] readBody(int length) throws IOException {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(length);
+            readFully(buffer, length);
+            return buffer.toByteArray();
+        }
+
+        private void readFully(ByteArrayOutputStream buffer, int length) throws IOException {
+            byte[] chunk = new byte[Math.min(length, 8192)];
+            int remaining = length;
+            while (remaining > 0) {
+                int read = in.read(chunk, 0, Math.min(remaining, chunk.length));
+                if (read == -1) {
+                    throw new EOFException("Connection closed before the full response body was received.");
+                }
+                buffer.write(chunk, 0, read);
+                remaining -= read;
+            }
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    int length = line.length();
+                    if (length > 0 && line.charAt(length - 1) == '\r') {
+                        line.setLength(length - 1);
+                    }
+                    return line.toString();
+                }
+                line.append((char) b);
+            }
+            return line.length() > 0 ? line.toString() : null;
+        }
+    }
+}
@@ -14,6 +14,7 @@ import com.global.api.paymentMethods.*;
 import com.global.api.utils.Element;
 import com.global.api.utils.ElementTree;
 import com.global.api.utils.EnumUtils;
+import com.global.api.utils.FutureUtils;
 import com.global.api.utils.ReverseStringEnumMap;
 import com.global.api.utils.StringUtils;
 
@@ -24,8 +25,11 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
-public class PorticoConnector extends XmlGateway implements IPaymentGateway, IReportingService {
+public class PorticoConnector extends XmlGateway implements IPaymentGateway, IAsyncPaymentGateway, IReportingService {
     private int siteId;
     private int licenseId;
     private int deviceId;
@@ -63,6 +67,19 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway, IRe
     }
 
     public Transaction processAuthorization(AuthorizationBuilder builder) throws ApiException {
+        String response = doTransaction(buildAuthorizationRequest(builder));
+        return mapResponse(response, builder.getPaymentMethod());
+    }
+
+    public CompletableFuture<Transaction> processAuthorizationAsync(AuthorizationBuilder builder, Executor executor) {
+        try {
+            return mapResponseAsync(doTransactionAsync(buildAuthorizationRequest(builder), executor), builder.getPaymentMethod());
+        } catch (ApiException exc) {
+            return FutureUtils.failed(exc);
+        }
+    }
+
+    private String buildAuthorizationRequest(AuthorizationBuilder builder) throws ApiException {
         ElementTree et = new ElementTree();
         TransactionType type = builder.getTransactionType();
         TransactionModifier modifier = builder.getTransactionModifier();
@@ -451,8 +468,7 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway, IRe
 //            }
 //        }
 
-        String response = doTransaction(buildEnvelope(et, transaction, builder.getClientTransactionId()));
-        return mapResponse(response, builder.getPaymentMethod());
+        return buildEnvelope(et, transaction, builder.getClientTransactionId());
     }
 
     public String serializeRequest(AuthorizationBuilder builder) throws ApiException {
@@ -460,6 +476,19 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway, IRe
     }
 
     public Transaction manageTransaction(ManagementBuilder builder) throws ApiException {
+        String response = doTransaction(buildManagementRequest(builder));
+        return mapResponse(response, builder.getPaymentMethod());
+    }
+
+    public CompletableFuture<Transaction> manageTransactionAsync(ManagementBuilder builder, Executor executor) {
+        try {
+            return mapResponseAsync(doTransactionAsync(buildManagementRequest(builder), executor), builder.getPaymentMethod());
+        } catch (ApiException exc) {
+            return FutureUtils.failed(exc);
+        }
+    }
+
+    private String buildManagementRequest(ManagementBuilder builder) throws ApiException {
         ElementTree et = new ElementTree();
         TransactionType type = builder.getTransactionType();
         TransactionModifier modifier = builder.getTransactionModifier();
@@ -610,8 +639,7 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway, IRe
             }
         }
 
-        String response = doTransaction(buildEnvelope(et, transaction, builder.getClientTransactionId()));
-        return mapResponse(response, builder.getPaymentMethod());
+        return buildEnvelope(et, transaction, builder.getClientTransactionId());
     }
 
     public <TResult> TResult processReport(ReportBuilder<TResult> builder, Class<TResult> clazz) throws ApiException {
@@ -702,6 +730,16 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway, IRe
         return et.toString(envelope);
     }
 
+    private CompletableFuture<Transaction> mapResponseAsync(CompletableFuture<String> response, final IPaymentMethod paymentMethod) {
+        return response.thenApply(rawResponse -> {
+            try {
+                return mapResponse(rawResponse, paymentMethod);
+            } catch (ApiException exc) {
+                throw new CompletionException(exc);
+            }
+        });
+    }
+
     private Transaction mapResponse(String rawResponse, IPaymentMethod paymentMethod) throws ApiException {
         Transaction result = new Transaction();
 
@@ -1121,8 +1159,7 @@ public class PorticoConnector extends XmlGateway implements IPaymentGateway, IRe
             LodgingData lodgingData = new LodgingData();
 
             String advancedDepositType = root.getString("AdvancedDepositType");
-            ReverseStringEnumMap<AdvancedDepositType> map = new ReverseStringEnumMap<AdvancedDepositType>(AdvancedDepositType.class);
-            lodgingData.setAdvancedDepositType(map.get(advancedDepositType));
+            lodgingData.setAdvancedDepositType(ReverseStringEnumMap.parse(advancedDepositType, AdvancedDepositType.class));
             lodgingData.setLodgingDataEdit(root.getString("LodgingDataEdit"));
             summary.setLodgingData(lodgingData);
         }
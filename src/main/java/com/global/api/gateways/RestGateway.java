@@ -4,6 +4,10 @@ import com.global.api.entities.exceptions.GatewayException;
 import com.global.api.utils.JsonDoc;
 
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 public class RestGateway extends Gateway {
     public RestGateway() {
@@ -17,9 +21,21 @@ public class RestGateway extends Gateway {
         return doTransaction(verb, endpoint, data, null);
     }
     public String doTransaction(String verb, String endpoint, String data, HashMap<String, String> queryStringParams) throws GatewayException {
-        GatewayResponse response = sendRequest(verb, endpoint, data, queryStringParams);
+        return doTransaction(verb, endpoint, data, queryStringParams, null);
+    }
+    public String doTransaction(String verb, String endpoint, String data, HashMap<String, String> queryStringParams, Map<String, String> requestHeaders) throws GatewayException {
+        GatewayResponse response = sendRequest(verb, endpoint, data, queryStringParams, requestHeaders);
         return handleResponse(response);
     }
+    public CompletableFuture<String> doTransactionAsync(String verb, String endpoint, String data, HashMap<String, String> queryStringParams, Map<String, String> requestHeaders, Executor executor) {
+        return sendRequestAsync(verb, endpoint, data, queryStringParams, requestHeaders, executor).thenApply(response -> {
+            try {
+                return handleResponse(response);
+            } catch (GatewayException exc) {
+                throw new CompletionException(exc);
+            }
+        });
+    }
     protected String handleResponse(GatewayResponse response) throws GatewayException {
         if(response.getStatusCode() != 200 && response.getStatusCode() != 204) {
             JsonDoc parsed = JsonDoc.parse(response.getRawResponse());
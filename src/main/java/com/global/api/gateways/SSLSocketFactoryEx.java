@@ -14,6 +14,27 @@ import java.util.List;
 
 public class SSLSocketFactoryEx extends SSLSocketFactory
 {
+    private static volatile SSLSocketFactoryEx sharedInstance;
+
+    /**
+     * Returns a process-wide factory backed by a single SSLContext so that TLS sessions
+     * (and the keep-alive cache of HttpsURLConnection, which is keyed by factory) can be reused.
+     */
+    public static SSLSocketFactoryEx getShared() throws NoSuchAlgorithmException, KeyManagementException
+    {
+        SSLSocketFactoryEx instance = sharedInstance;
+        if(instance == null) {
+            synchronized (SSLSocketFactoryEx.class) {
+                instance = sharedInstance;
+                if(instance == null) {
+                    instance = new SSLSocketFactoryEx();
+                    sharedInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
     public SSLSocketFactoryEx() throws NoSuchAlgorithmException, KeyManagementException
     {
         initSSLSocketFactoryEx(null,null,null);
@@ -114,6 +135,20 @@ public class SSLSocketFactoryEx extends SSLSocketFactory
         return ss;
     }
 
+    /**
+     * Client engine for non-blocking connections, limited to the same protocols and cipher suites as the sockets.
+     */
+    public SSLEngine createSSLEngine(String host, int port)
+    {
+        SSLEngine engine = m_ctx.createSSLEngine(host, port);
+        engine.setUseClientMode(true);
+
+        engine.setEnabledProtocols(m_protocols);
+        engine.setEnabledCipherSuites(m_ciphers);
+
+        return engine;
+    }
+
     private void initSSLSocketFactoryEx(KeyManager[] km, TrustManager[] tm, SecureRandom random)
             throws NoSuchAlgorithmException, KeyManagementException
     {
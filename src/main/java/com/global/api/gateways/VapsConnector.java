@@ -25,14 +25,18 @@ import com.global.api.terminals.TerminalUtilities;
 import com.global.api.terminals.abstractions.IDeviceMessage;
 import com.global.api.utils.*;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class VapsConnector extends GatewayConnectorConfig {
     private AcceptorConfig acceptorConfig;
@@ -51,6 +55,7 @@ public class VapsConnector extends GatewayConnectorConfig {
     private LinkedList<Transaction> resentTransactions;
     private Transaction resentBatch;
     private NetworkProcessingFlag processingFlag;
+    private final AtomicLong correlationSequence = new AtomicLong();
 
     private boolean lrcFailure;
 
@@ -1143,6 +1148,11 @@ public class VapsConnector extends GatewayConnectorConfig {
         }
 
         // rest of the header
+        // over a persistent connection the host's echo of origin correlation 2 identifies the response
+        if(isPersistentConnection() && isEmpty(orgCorr2)) {
+            orgCorr2 = ByteBuffer.allocate(8).putLong(correlationSequence.incrementAndGet()).array();
+        }
+
         buffer.append(connectionType) // EH.10: Connection Type
                 .append(nodeIdentification) // EH.11: Node Identification
                 .append(orgCorr1) // EH.12: Origin Correlation 1 (2 Bytes)
@@ -1156,6 +1166,30 @@ public class VapsConnector extends GatewayConnectorConfig {
         return new DeviceMessage(buffer.toArray());
     }
     
+    @Override
+    protected String getCorrelationId(byte[] buffer, int offset) {
+        // EH.14: Origin Correlation 2 (8 bytes) follows the first 21 bytes of the header
+        int start = offset + 21;
+        if(!isPersistentConnection() || buffer.length < start + 8) {
+            return null;
+        }
+        return Hex.encodeHexString(Arrays.copyOfRange(buffer, start, start + 8));
+    }
+
+    @Override
+    protected void keepAlive() throws ApiException {
+        sendKeepAlive();
+    }
+
+    private boolean isEmpty(byte[] value) {
+        for(byte b : value) {
+            if(b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public NetworkMessageHeader sendKeepAlive() throws ApiException {
         IDeviceMessage keepAlive = buildMessage(new byte[0], new byte[2], new byte[8], true);
         byte[] responseBuffer = send(keepAlive);
@@ -1177,7 +1211,7 @@ public class VapsConnector extends GatewayConnectorConfig {
     private <T extends TransactionBuilder<Transaction>> Transaction sendRequest(NetworkMessage request, T builder, byte[] orgCorr1, byte[] orgCorr2) throws ApiException {
         byte[] sendBuffer = request.buildMessage();
         if(isEnableLogging()) {
-            System.out.println("Request Breakdown:\r\n" + request.toString());
+            System.out.println("Request Breakdown:\r\n" + StringUtils.mask(request.toString()));
         }
         IDeviceMessage message = buildMessage(sendBuffer, orgCorr1, orgCorr2, false);
         TransactionType transactionType = null;
@@ -1323,12 +1357,12 @@ public class VapsConnector extends GatewayConnectorConfig {
             // parse the message
             if(!header.getMessageType().equals(MessageType.NoMessage)) {
                 String messageTransactionIndicator = mr.readString(4);
-                NetworkMessage message = NetworkMessage.parse(mr.readBytes(buffer.length), Iso8583MessageType.CompleteMessage);
+                NetworkMessage message = NetworkMessage.parse(mr.sliceRemaining(), Iso8583MessageType.CompleteMessage);
                 message.setMessageTypeIndicator(messageTransactionIndicator);
 
                 // log out the breakdown
                 if(isEnableLogging()) {
-                    System.out.println("\r\nResponse Breakdown:\r\n" + message.toString());
+                    System.out.println("\r\nResponse Breakdown:\r\n" + StringUtils.mask(message.toString()));
                 }
 
                 DE3_ProcessingCode processingCode = message.getDataElement(DataElementId.DE_003, DE3_ProcessingCode.class);
@@ -1369,7 +1403,7 @@ public class VapsConnector extends GatewayConnectorConfig {
                 // EMV response
                 byte[] emvResponse = message.getByteArray(DataElementId.DE_055);
                 if(emvResponse != null){
-                    EmvData emvData = EmvUtils.parseTagData(StringUtils.hexFromBytes(emvResponse), isEnableLogging());
+                    EmvData emvData = EmvUtils.parseTagData(emvResponse, isEnableLogging());
                     result.setEmvIssuerResponse(emvData.getAcceptedTagData());
                 }
 
@@ -2679,9 +2713,10 @@ public class VapsConnector extends GatewayConnectorConfig {
 //        }
 
         // build final token
-        MessageWriter mw = new MessageWriter();
+        byte[] tokenBytes = token.getBytes();
+        MessageWriter mw = new MessageWriter(tokenBytes.length + 3);
         mw.add(ControlCodes.STX);
-        mw.addRange(token.getBytes());
+        mw.addRange(tokenBytes);
         mw.add(ControlCodes.ETX);
 
         // generate the CRC
@@ -2712,8 +2747,7 @@ public class VapsConnector extends GatewayConnectorConfig {
 
         mr = new MessageReader(decoded);
         String mti = mr.readString(4);
-        byte[] buffer = mr.readBytes(decoded.length);
-        NetworkMessage request = NetworkMessage.parse(buffer, Iso8583MessageType.CompleteMessage);
+        NetworkMessage request = NetworkMessage.parse(mr.sliceRemaining(), Iso8583MessageType.CompleteMessage);
         request.setMessageTypeIndicator(mti);
         return request;
     }
@@ -2,6 +2,10 @@ package com.global.api.gateways;
 
 import com.global.api.entities.exceptions.GatewayException;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
 public abstract class XmlGateway extends Gateway {
     public XmlGateway() {
         super("text/xml");
@@ -13,4 +17,12 @@ public abstract class XmlGateway extends Gateway {
             throw new GatewayException("Unexpected http status code [" + response.getStatusCode() + "]");
         return response.getRawResponse();
     }
+
+    public CompletableFuture<String> doTransactionAsync(String request, Executor executor) {
+        return sendRequestAsync("POST", "", request, null, null, executor).thenApply(response -> {
+            if(response.getStatusCode() != 200)
+                throw new CompletionException(new GatewayException("Unexpected http status code [" + response.getStatusCode() + "]"));
+            return response.getRawResponse();
+        });
+    }
 }
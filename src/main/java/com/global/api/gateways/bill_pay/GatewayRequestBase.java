@@ -27,7 +27,7 @@ public abstract class GatewayRequestBase extends XmlGateway {
     /// <param name="soapAction">The method name that is the target of the invocation</param>
     protected void setSOAPAction(String soapAction)
     {
-        this.headers.put("SOAPAction", "https://test.heartlandpaymentservices.net/BillingDataManagement/v3/BillingDataManagementService/IBillingDataManagementService/" + soapAction);
+        setHeader("SOAPAction", "https://test.heartlandpaymentservices.net/BillingDataManagement/v3/BillingDataManagementService/IBillingDataManagementService/" + soapAction);
     }
 
     /// <summary>
@@ -6,6 +6,7 @@ import com.global.api.entities.exceptions.ApiException;
 import com.global.api.entities.exceptions.GatewayException;
 import com.global.api.entities.gpApi.PagedResult;
 import com.global.api.entities.reporting.*;
+import com.global.api.utils.GpApiDateParser;
 import com.global.api.utils.JsonDoc;
 import com.global.api.utils.StringUtils;
 import lombok.var;
@@ -14,9 +15,6 @@ import sun.reflect.generics.reflectiveObjects.NotImplementedException;
 import java.util.ArrayList;
 import java.util.List;
 
-import static com.global.api.gateways.GpApiConnector.parseGpApiDate;
-import static com.global.api.gateways.GpApiConnector.parseGpApiDateTime;
-
 public class GpApiMapping {
 
     private static final String BATCH_CLOSE = "CLOSE";
@@ -198,8 +196,8 @@ public class GpApiMapping {
 
         summary.setTransactionId(doc.getString("id"));
         summary.setDepositReference(doc.getString("deposit_id"));
-        summary.setTransactionDate(parseGpApiDateTime(doc.getString("time_created")));
-        summary.setDepositDate(parseGpApiDate(doc.getString("deposit_time_created")));
+        summary.setTransactionDate(GpApiDateParser.parseDateTime(doc.getString("time_created")));
+        summary.setDepositDate(GpApiDateParser.parseDate(doc.getString("deposit_time_created")));
         summary.setTransactionStatus(doc.getString("status"));
         summary.setDepositStatus(doc.getString("deposit_status"));
         summary.setTransactionType(doc.getString("type"));
@@ -208,12 +206,12 @@ public class GpApiMapping {
         summary.setCurrency(doc.getString("currency"));
         summary.setReferenceNumber(doc.getString("reference"));
         summary.setClientTransactionId(doc.getString("reference"));
-        summary.setTransactionLocalDate(parseGpApiDateTime(doc.getString("time_created_reference")));
+        summary.setTransactionLocalDate(GpApiDateParser.parseDateTime(doc.getString("time_created_reference")));
         summary.setBatchSequenceNumber(doc.getString("batch_id"));
         summary.setCountry(doc.getString("country"));
         summary.setOriginalTransactionId(doc.getString("parent_resource_id"));
         summary.setDepositReference(doc.getString("deposit_id"));
-        summary.setDepositDate(parseGpApiDate(doc.getString("deposit_time_created")));
+        summary.setDepositDate(GpApiDateParser.parseDate(doc.getString("deposit_time_created")));
 
         if (doc.has("payment_method")) {
             final JsonDoc paymentMethod = doc.get("payment_method");
@@ -356,7 +354,7 @@ public class GpApiMapping {
         DepositSummary summary = new DepositSummary();
 
         summary.setDepositId(doc.getString("id"));
-        summary.setDepositDate(parseGpApiDate(doc.getString("time_created")));
+        summary.setDepositDate(GpApiDateParser.parseDate(doc.getString("time_created")));
         summary.setStatus(doc.getString("status"));
         summary.setType(doc.getString("funding_type"));
         summary.setAmount(doc.getAmount("amount"));
@@ -429,7 +427,7 @@ public class GpApiMapping {
         DisputeSummary summary = new DisputeSummary();
 
         summary.setCaseId(doc.getString("id"));
-        summary.setCaseIdTime(parseGpApiDateTime(doc.getString("time_created")));
+        summary.setCaseIdTime(GpApiDateParser.parseDateTime(doc.getString("time_created")));
         summary.setCaseStatus(doc.getString("status"));
         summary.setCaseStage(doc.getString("stage"));
         summary.setCaseAmount(doc.getAmount("amount"));
@@ -467,7 +465,7 @@ public class GpApiMapping {
 
         String timeToRespondBy = doc.getString("time_to_respond_by");
         if (!StringUtils.isNullOrEmpty(timeToRespondBy)) {
-            summary.setRespondByDate(parseGpApiDateTime(timeToRespondBy));
+            summary.setRespondByDate(GpApiDateParser.parseDateTime(timeToRespondBy));
         }
 
         if (doc.has("documents")) {
@@ -493,14 +491,14 @@ public class GpApiMapping {
     public static DisputeSummary mapSettlementDisputeSummary(JsonDoc doc) throws GatewayException {
         DisputeSummary summary = mapDisputeSummary(doc);
 
-        summary.setCaseIdTime(parseGpApiDateTime(doc.getString("stage_time_created")));
-        summary.setDepositDate(parseGpApiDate(doc.getString("deposit_time_created")));
+        summary.setCaseIdTime(GpApiDateParser.parseDateTime(doc.getString("stage_time_created")));
+        summary.setDepositDate(GpApiDateParser.parseDate(doc.getString("deposit_time_created")));
         summary.setDepositReference(doc.getString("deposit_id"));
 
         if (doc.has("transaction")) {
             JsonDoc transaction = doc.get("transaction");
 
-            summary.setTransactionTime(parseGpApiDateTime(transaction.getString("time_created")));
+            summary.setTransactionTime(GpApiDateParser.parseDateTime(transaction.getString("time_created")));
             summary.setTransactionType(transaction.getString("type"));
             summary.setTransactionAmount(transaction.getAmount("amount"));
             summary.setTransactionCurrency(transaction.getString("currency"));
@@ -665,7 +663,7 @@ public class GpApiMapping {
         StoredPaymentMethodSummary storedPaymentMethodSummary = new StoredPaymentMethodSummary();
 
         storedPaymentMethodSummary.setId(doc.getString("id"));
-        storedPaymentMethodSummary.setTimeCreated(parseGpApiDateTime(doc.getString("time_created")));
+        storedPaymentMethodSummary.setTimeCreated(GpApiDateParser.parseDateTime(doc.getString("time_created")));
         storedPaymentMethodSummary.setStatus(doc.getString("status"));
         storedPaymentMethodSummary.setReference(doc.getString("reference"));
         storedPaymentMethodSummary.setName(doc.getString("name"));
@@ -687,7 +685,7 @@ public class GpApiMapping {
 
         actionSummary.setId(doc.getString("id"));
         actionSummary.setType(doc.getString("type"));
-        actionSummary.setTimeCreated(parseGpApiDateTime(doc.getString("time_created")));
+        actionSummary.setTimeCreated(GpApiDateParser.parseDateTime(doc.getString("time_created")));
         actionSummary.setResource(doc.getString("resource"));
         actionSummary.setVersion(doc.getString("version"));
         actionSummary.setResourceId(doc.getString("resource_id"));
@@ -1,82 +1,100 @@
 package com.global.api.network;
 
 import com.global.api.network.enums.DataElementId;
-import com.global.api.utils.ReverseIntEnumMap;
-import com.global.api.utils.StringUtils;
-
-import java.math.BigInteger;
 
 public class Iso8583Bitmap {
-    private String binaryValue;
-    private int offset;
-    private int currIndex = -1;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final DataElementId[] dataElements = new DataElementId[256];
+    static {
+        for(DataElementId id: DataElementId.values()) {
+            dataElements[id.getValue()] = id;
+        }
+    }
 
-    private ReverseIntEnumMap<DataElementId> dataElementMap;
+    // bit 0 is the most significant bit of the first byte, the same order the bitmap is sent in
+    private final long[] words;
+    private final int length;
+    private final int offset;
+    private int currIndex = -1;
 
     public Iso8583Bitmap(byte[] bytes) {
         this(bytes, 0);
     }
     public Iso8583Bitmap(byte[] bytes, int offset) {
         this.offset = offset;
+        this.length = bytes.length;
 
-        StringBuilder sb = new StringBuilder();
-        for(byte b: bytes) {
-            sb.append(Integer.toBinaryString((b & 0xFF) + 0x100).substring(1));
+        words = new long[(bytes.length + 7) >>> 3];
+        for(int i = 0; i < bytes.length; i++) {
+            words[i >>> 3] |= (bytes[i] & 0xFFL) << (56 - ((i & 7) << 3));
         }
-
-        binaryValue = sb.toString();
-        dataElementMap = new ReverseIntEnumMap<DataElementId>(DataElementId.class);
     }
 
     public boolean isPresent(DataElementId element) {
-        return binaryValue.charAt(element.getValue() - offset) == '1';
+        int index = element.getValue() - offset;
+        if(index < 0 || index >= length << 3) {
+            return false;
+        }
+        return (words[index >>> 6] & (1L << (63 - (index & 63)))) != 0;
     }
 
     public DataElementId getNextDataElement() {
-        // get the next set value
-        char value;
-        do {
-            // return null if end of string
-            if(++currIndex >= binaryValue.length()) {
+        int bitLength = length << 3;
+        int from = currIndex + 1;
+        if(from >= bitLength) {
+            currIndex = bitLength;
+            return null;
+        }
+
+        // find the next set bit, skipping whole words of zeros
+        int wordIndex = from >>> 6;
+        long word = words[wordIndex] & (-1L >>> (from & 63));
+        while(word == 0) {
+            if(++wordIndex == words.length) {
+                currIndex = bitLength;
                 return null;
             }
+            word = words[wordIndex];
+        }
 
-            value = binaryValue.charAt(currIndex);
+        currIndex = (wordIndex << 6) + Long.numberOfLeadingZeros(word);
+        if(currIndex >= bitLength) {
+            return null;
         }
-        while (value == '0');
 
-        // return the enum value
-        return dataElementMap.get(currIndex + offset);
+        int value = currIndex + offset;
+        return value < dataElements.length ? dataElements[value] : null;
     }
 
     void setDataElement(DataElementId element) {
-        StringBuilder sb = new StringBuilder(binaryValue);
-        sb.setCharAt(element.getValue() - offset, '1');
-        binaryValue = sb.toString();
+        int index = element.getValue() - offset;
+        words[index >>> 6] |= 1L << (63 - (index & 63));
+    }
+
+    private int getByte(int index) {
+        return (int) (words[index >>> 3] >>> (56 - ((index & 7) << 3))) & 0xFF;
     }
 
     public String toBinaryString() {
-        return binaryValue;
+        char[] chars = new char[length << 3];
+        for(int i = 0; i < chars.length; i++) {
+            chars[i] = (words[i >>> 6] & (1L << (63 - (i & 63)))) != 0 ? '1' : '0';
+        }
+        return new String(chars);
     }
     public String toHexString() {
-        StringBuilder sb = new StringBuilder();
-
-        for(int i = 0; i < binaryValue.length(); i += 8) {
-            int decimal = Integer.parseInt(binaryValue.substring(i, i + 8), 2);
-            String hexValue = Integer.toString(decimal, 16);
-            sb.append(StringUtils.padLeft(hexValue, 2, '0'));
+        char[] chars = new char[length << 1];
+        for(int i = 0; i < length; i++) {
+            int value = getByte(i);
+            chars[i << 1] = HEX_DIGITS[value >>> 4];
+            chars[(i << 1) + 1] = HEX_DIGITS[value & 0x0F];
         }
-
-        return sb.toString();
+        return new String(chars);
     }
     public byte[] toByteArray() {
-        String s = toHexString();
-
-        byte[] b = new byte[s.length() / 2];
-        for (int i = 0; i < b.length; i++) {
-            int index = i * 2;
-            int v = Integer.parseInt(s.substring(index, index + 2), 16);
-            b[i] = (byte) v;
+        byte[] b = new byte[length];
+        for(int i = 0; i < length; i++) {
+            b[i] = (byte) getByte(i);
         }
         return b;
     }
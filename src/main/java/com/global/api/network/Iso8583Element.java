@@ -40,7 +40,7 @@ public class Iso8583Element {
             case LLLVAR: {
                 String length = StringUtils.padLeft(buffer.length, type.equals(DataElementType.LVAR) ? 1 : type.equals(DataElementType.LLVAR) ? 2 : 3, '0');
 
-                MessageWriter mw = new MessageWriter();
+                MessageWriter mw = new MessageWriter(length.length() + buffer.length);
                 mw.addRange(length.getBytes());
                 mw.addRange(buffer);
 
@@ -56,9 +56,6 @@ public class NetworkMessage {
     private void setBitmap(Iso8583Bitmap bitmap) {
         this.bitmap = bitmap;
     }
-    private void setFactory(Iso8583ElementFactory factory) {
-        this.factory = factory;
-    }
 
     public NetworkMessage() {
         this(Iso8583MessageType.CompleteMessage);
@@ -247,7 +244,9 @@ public class NetworkMessage {
         return parseMessage(bitmap, mr, messageType);
     }
     public static NetworkMessage parse(byte[] input, Iso8583MessageType messageType) {
-        MessageReader mr = new MessageReader(input);
+        return parse(new MessageReader(input), messageType);
+    }
+    public static NetworkMessage parse(MessageReader mr, Iso8583MessageType messageType) {
         Iso8583Bitmap bitmap = new Iso8583Bitmap(mr.readBytes(8));
 
         return parseMessage(bitmap, mr, messageType);
@@ -256,13 +255,10 @@ public class NetworkMessage {
         NetworkMessage message = new NetworkMessage(messageType);
         message.setBitmap(bitmap);
 
-        // initialize the factory
-        message.setFactory(Iso8583ElementFactory.getConfiguredFactory(mr, messageType));
-
         // read the primary bitmap
         DataElementId currentElement = bitmap.getNextDataElement();
         do {
-            message.elements.put(currentElement, message.factory.createElement(currentElement));
+            message.elements.put(currentElement, message.factory.createElement(currentElement, mr));
             currentElement = bitmap.getNextDataElement();
         }
         while(currentElement != null);
@@ -274,7 +270,7 @@ public class NetworkMessage {
 
             currentElement = secondaryMap.getNextDataElement();
             while(currentElement != null) {
-                message.elements.put(currentElement, message.factory.createElement(currentElement));
+                message.elements.put(currentElement, message.factory.createElement(currentElement, mr));
                 currentElement = secondaryMap.getNextDataElement();
             }
         }
@@ -19,6 +19,11 @@ public class GatewayConfig extends Configuration {
     // portico & gp-ecom
     private boolean enableLogging;
     protected IRequestLogger requestLogger;
+    // http transport shared by the connectors of this configuration, i.e. a PooledHttpTransport, or an
+    // AsyncHttpTransport so executeAsync holds no thread while a request is in flight
+    protected IHttpTransport httpTransport;
+    // largest response body accepted by the connectors of this configuration, 0 for no limit
+    protected long maxResponseSize = Gateway.DEFAULT_MAX_RESPONSE_SIZE;
 
 	// portico
     private int siteId;
@@ -193,6 +198,8 @@ public class GatewayConfig extends Configuration {
             gateway.setProxy(proxy);
             gateway.setHostedPaymentConfig(hostedPaymentConfig);
             gateway.setEnableLogging(enableLogging);
+            gateway.setHttpTransport(httpTransport);
+            gateway.setMaxResponseSize(maxResponseSize);
 
             services.setGatewayConnector(gateway);
             services.setRecurringConnector(gateway);
@@ -218,6 +225,8 @@ public class GatewayConfig extends Configuration {
                 secure3d2.setMethodNotificationUrl(methodNotificationUrl);
                 secure3d2.setChallengeNotificationUrl(challengeNotificationUrl);
                 secure3d2.setEnableLogging(enableLogging);
+                secure3d2.setHttpTransport(httpTransport);
+                secure3d2.setMaxResponseSize(maxResponseSize);
 
                 services.setSecure3dProvider(Secure3dVersion.TWO, secure3d2);
             }
@@ -243,12 +252,16 @@ public class GatewayConfig extends Configuration {
             gateway.setServiceUrl(serviceUrl + "/Hps.Exchange.PosGateway/PosGatewayService.asmx");
             gateway.setEnableLogging(enableLogging);
             gateway.setRequestLogger(requestLogger);
+            gateway.setHttpTransport(httpTransport);
+            gateway.setMaxResponseSize(maxResponseSize);
             services.setGatewayConnector(gateway);
 
             PayPlanConnector payplan = new PayPlanConnector();
             payplan.setEnableLogging(enableLogging);
             payplan.setSecretApiKey(secretApiKey);
             payplan.setTimeout(timeout);
+            payplan.setHttpTransport(httpTransport);
+            payplan.setMaxResponseSize(maxResponseSize);
             String payplanEndpoint = environment == Environment.TEST || serviceUrl.contains("cert.")
                     ? "/Portico.PayPlan.v2/"
                     : "/PayPlan.v2/";
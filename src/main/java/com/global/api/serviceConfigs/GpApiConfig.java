@@ -5,6 +5,7 @@ import com.global.api.entities.enums.*;
 import com.global.api.entities.exceptions.ConfigurationException;
 import com.global.api.entities.gpApi.entities.AccessTokenInfo;
 import com.global.api.gateways.GpApiConnector;
+import com.global.api.gateways.GpApiTokenCache;
 import com.global.api.utils.StringUtils;
 import lombok.Getter;
 import lombok.Setter;
@@ -51,6 +52,10 @@ public class GpApiConfig extends GatewayConfig {
     @Accessors(chain = true)
     private AccessTokenInfo accessTokenInfo;
 
+    // Where access tokens are cached, connectors share GpApiTokenCache.getShared() when not set
+    @Accessors(chain = true)
+    private GpApiTokenCache accessTokenCache;
+
     // 3DSecure challenge return url
     private String challengeNotificationUrl;
 
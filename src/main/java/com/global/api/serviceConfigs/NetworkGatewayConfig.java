@@ -31,6 +31,8 @@ public class NetworkGatewayConfig extends Configuration {
     private String terminalId;
     private String uniqueDeviceId;
     private Boolean persistentConnection = false;
+    // milliseconds of inactivity after which a persistent connection sends a keep alive, 0 disables it
+    private int keepAliveInterval;
 
     @Setter
     private Target target;
@@ -159,6 +161,12 @@ public class NetworkGatewayConfig extends Configuration {
     public void setPersistentConnection(Boolean persistentConnection) {
         this.persistentConnection = persistentConnection;
     }
+    public int getKeepAliveInterval() {
+        return keepAliveInterval;
+    }
+    public void setKeepAliveInterval(int keepAliveInterval) {
+        this.keepAliveInterval = keepAliveInterval;
+    }
 
     public void configureContainer(ConfiguredServices services) {
         //System.out.println("Target: " + target);
@@ -185,6 +193,8 @@ public class NetworkGatewayConfig extends Configuration {
         gateway.setTimeout(timeout);
         gateway.setEnableLogging(enableLogging);
         gateway.setSimulatedHostErrors(simulatedHostErrors);
+        gateway.setPersistentConnection(persistentConnection);
+        gateway.setKeepAliveInterval(keepAliveInterval);
 
         // other fields
         gateway.setCompanyId(companyId);
@@ -22,6 +22,7 @@ public class ConnectionConfig extends Configuration implements ITerminalConfigur
     private DeviceType deviceType;
     private IRequestIdProvider requestIdProvider;
     private IRequestLogger requestLogger;
+    private boolean persistentSession;
 
     public ConnectionModes getConnectionMode() {
         return connectionMode;
@@ -81,6 +82,13 @@ public class ConnectionConfig extends Configuration implements ITerminalConfigur
         this.requestLogger = requestLogger;
     }
     public IRequestLogger getRequestLogger() { return requestLogger; }
+    // keeps the device connection open between commands instead of connecting for each one
+    public boolean isPersistentSession() {
+        return persistentSession;
+    }
+    public void setPersistentSession(boolean persistentSession) {
+        this.persistentSession = persistentSession;
+    }
 
     public ConnectionConfig(){
         timeout = 30000;
@@ -27,4 +27,8 @@ public interface ITerminalConfiguration {
     void setDeviceType(DeviceType type);
     IRequestIdProvider getRequestIdProvider();
     void setRequestIdProvider(IRequestIdProvider requestIdProvider);
+    // configurations without the setting connect for each command, see ConnectionConfig.setPersistentSession
+    default boolean isPersistentSession() {
+        return false;
+    }
 }
@@ -168,7 +168,15 @@ public class HpaController extends DeviceController implements IDisposable {
     }
 
     public void dispose() {
-        _device.dispose();
-        _interface.disconnect();
+        // disposing the device closes its lane and comes back here to disconnect
+        IDeviceInterface device = _device;
+        if(device != null)
+            device.dispose();
+        else _interface.disconnect();
+    }
+
+    // called by the device once its lane is closed, so dispose only has to disconnect
+    void detachDevice() {
+        _device = null;
     }
 }
@@ -1,18 +1,19 @@
 package com.global.api.terminals.hpa;
 
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.io.InputStream;
 
-import com.global.api.utils.IOUtils;
-import com.global.api.utils.StringUtils;
-import org.apache.commons.codec.binary.Hex;
 import com.global.api.entities.enums.SendFileType;
 import com.global.api.entities.exceptions.ApiException;
 
 class HpaFileUpload {
-    private String hexData;
+    private static final char[] HEX_CHARS = "0123456789ABCDEF".toCharArray();
+
+    private File file;
     private String fileName;
     private int fileSize;
 
@@ -25,7 +26,7 @@ class HpaFileUpload {
 
     HpaFileUpload(SendFileType imageType, String filePath) throws ApiException {
         //File name
-        File file = new File(filePath);
+        file = new File(filePath);
         fileName = file.getName();
 
         switch(imageType) {
@@ -43,32 +44,68 @@ class HpaFileUpload {
                 throw new ApiException("Unknown Send file type");
             }
         }
-        
-        //File size
-        byte[] buffer;
+
+        //File size, the content is streamed in parts when it is sent
+        if (!file.isFile() || file.length() == 0) {
+            throw new ApiException("Buffer should not be empty.");
+        }
+        fileSize = (int) file.length();
+    }
+
+    // parts of at most maxDataLength hex characters, read from the file one at a time
+    FileParts getFileParts(int maxDataLength) throws ApiException {
         try {
-            FileInputStream input = new FileInputStream(file);
-            buffer = new byte[input.available()];
-            int bytesRead = input.read(buffer, 0, buffer.length);
+            return new FileParts(new FileInputStream(file), Math.max(maxDataLength / 2, 1));
         } catch (IOException e) {
-            throw new ApiException("Buffer should not be empty.");
+            throw new ApiException("Failed to read the file.", e);
         }
-        hexData = Hex.encodeHexString(buffer).toUpperCase();
-        fileSize = buffer.length;
     }
-    
-    LinkedList<String> getFileParts(int maxDataLength) {
-        if (StringUtils.isNullOrEmpty(hexData)) {
-            return null;
+
+    class FileParts implements Closeable {
+        private final InputStream input;
+        // both buffers are reused for every part
+        private final byte[] chunk;
+        private final char[] hexChunk;
+        private int bytesRead;
+
+        private FileParts(InputStream input, int chunkSize) {
+            this.input = input;
+            this.chunk = new byte[Math.min(chunkSize, fileSize)];
+            this.hexChunk = new char[chunk.length * 2];
         }
 
-        LinkedList<String> fileParts = new LinkedList<String>();
-        for (int i = 0; i < hexData.length(); i += maxDataLength) {
-            int remainingBytes = hexData.length() - i;
-            int endIndex = i + Math.min(maxDataLength, remainingBytes);
+        int getBytesRead() {
+            return bytesRead;
+        }
 
-            fileParts.add(hexData.substring(i, endIndex));
+        boolean hasNext() {
+            return bytesRead < fileSize;
+        }
+
+        String next() throws IOException {
+            int length = Math.min(chunk.length, fileSize - bytesRead);
+            for (int offset = 0; offset < length; ) {
+                int count = input.read(chunk, offset, length - offset);
+                if (count == -1) {
+                    throw new EOFException("The file is shorter than expected.");
+                }
+                offset += count;
+            }
+            bytesRead += length;
+
+            for (int i = 0; i < length; i++) {
+                hexChunk[2 * i] = HEX_CHARS[(chunk[i] & 0xF0) >>> 4];
+                hexChunk[2 * i + 1] = HEX_CHARS[chunk[i] & 0x0F];
+            }
+            return new String(hexChunk, 0, length * 2);
+        }
+
+        public void close() {
+            try {
+                input.close();
+            } catch (IOException e) {
+                // Eating the close exception
+            }
         }
-        return fileParts;
     }
 }
@@ -22,14 +22,15 @@ import com.global.api.terminals.hpa.responses.EODResponse;
 import com.global.api.terminals.hpa.responses.InitializeResponse;
 import com.global.api.terminals.hpa.responses.SAFResponse;
 import com.global.api.terminals.hpa.responses.SignatureResponse;
+import com.global.api.terminals.messaging.IFileUploadProgressInterface;
 import com.global.api.terminals.messaging.IMessageSentInterface;
 import com.global.api.terminals.pax.responses.SAFDeleteResponse;
 import com.global.api.terminals.pax.responses.SAFSummaryReport;
 import com.global.api.terminals.pax.responses.SAFUploadResponse;
 import com.global.api.utils.StringUtils;
 
+import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.LinkedList;
 
 public class HpaInterface implements IDeviceInterface {
     private HpaController _controller;
@@ -129,6 +130,10 @@ public class HpaInterface implements IDeviceInterface {
     }
     
     public IDeviceResponse sendFile(SendFileType imageType, String filePath) throws ApiException {
+        return sendFile(imageType, filePath, null);
+    }
+
+    public IDeviceResponse sendFile(SendFileType imageType, String filePath, IFileUploadProgressInterface onProgress) throws ApiException {
         if(filePath == null) {
             throw new ApiException("Filename is required for SendFile");
         }
@@ -144,25 +149,35 @@ public class HpaInterface implements IDeviceInterface {
 
         SipSendFileResponse response = _controller.sendAdminMessage(SipSendFileResponse.class, builder);
         if(response.getDeviceResponseCode().equals("00")) {
-            LinkedList<String> fileParts = fileUpload.getFileParts(response.getMaxDataSize() / 5);
-            String lastElement = fileParts.getLast();
-
-            for(String filePart: fileParts) {
-                final String multipleMessage = filePart.equals(lastElement) ? "0" : "1";
-
-                SipSendFileResponse dataResponse = _controller.sendAdminMessage(SipSendFileResponse.class,
-                        new HpaAdminBuilder(HpaMsgId.SEND_FILE.getValue()) {{
-                            setKeepAlive(multipleMessage.equals("1"));
-                            setAwaitResponse(multipleMessage.equals("0"));
-                        }}
-                        .set("FileData", filePart)
-                        .set("MultipleMessage", multipleMessage)
-                    );
-
-                if (dataResponse != null) {
-                    response = dataResponse;
+            HpaFileUpload.FileParts fileParts = fileUpload.getFileParts(response.getMaxDataSize() / 5);
+            try {
+                while(fileParts.hasNext()) {
+                    String filePart = fileParts.next();
+                    final String multipleMessage = fileParts.hasNext() ? "1" : "0";
+
+                    SipSendFileResponse dataResponse = _controller.sendAdminMessage(SipSendFileResponse.class,
+                            new HpaAdminBuilder(HpaMsgId.SEND_FILE.getValue()) {{
+                                setKeepAlive(multipleMessage.equals("1"));
+                                setAwaitResponse(multipleMessage.equals("0"));
+                            }}
+                            .set("FileData", filePart)
+                            .set("MultipleMessage", multipleMessage)
+                        );
+
+                    if (dataResponse != null) {
+                        response = dataResponse;
+                    }
+                    if (onProgress != null) {
+                        onProgress.progress(fileParts.getBytesRead(), fileUpload.getFileSize());
+                    }
                 }
             }
+            catch(IOException e) {
+                throw new ApiException("Failed to read the file.", e);
+            }
+            finally {
+                fileParts.close();
+            }
             return response;
         }
         else throw new ApiException(String.format("Failed to upload file: %s", response.getDeviceResponseText()));
@@ -288,6 +303,7 @@ public class HpaInterface implements IDeviceInterface {
         try { closeLane(); }
         catch(ApiException e) { /* NOM NOM */ }
         finally {
+            _controller.detachDevice();
             _controller.dispose();
         }
     }
@@ -0,0 +1,347 @@
+package com.global.api.terminals.hpa.interfaces;
+
+import com.global.api.terminals.abstractions.IDisposable;
+import com.global.api.terminals.messaging.IMessageReceivedInterface;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One selector thread reading every connected HPA device. Each connection keeps its own framing state, messages are
+ * two length bytes followed by the body and are handed to the connection's IMessageReceivedInterface on the loop
+ * thread. The thread starts with the first connection and stops when the last one is closed.
+ */
+public class HpaEventLoop implements IDisposable {
+    private static final long SELECT_TIMEOUT = 1000;
+    private static HpaEventLoop shared;
+
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    private final List<Connection> connections = new ArrayList<Connection>();
+    private Selector selector;
+    private Thread thread;
+
+    public static synchronized HpaEventLoop getShared() {
+        if(shared == null) {
+            shared = new HpaEventLoop();
+        }
+        return shared;
+    }
+
+    public synchronized Connection register(final SocketChannel channel, IMessageReceivedInterface onMessageReceived, int readTimeout) throws IOException {
+        channel.configureBlocking(false);
+
+        final Connection connection = new Connection(channel, onMessageReceived, readTimeout);
+        connections.add(connection);
+        start();
+
+        execute(new Runnable() {
+            public void run() {
+                try {
+                    connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                }
+                catch(ClosedChannelException exc) {
+                    connection.close();
+                }
+            }
+        });
+        return connection;
+    }
+
+    public int getConnectionCount() {
+        synchronized (this) {
+            return connections.size();
+        }
+    }
+
+    public void dispose() {
+        List<Connection> open;
+        synchronized (this) {
+            open = new ArrayList<Connection>(connections);
+        }
+        for(Connection connection: open) {
+            connection.close();
+        }
+    }
+
+    private void start() throws IOException {
+        if(thread != null) {
+            return;
+        }
+
+        selector = Selector.open();
+        final Selector loopSelector = selector;
+        thread = new Thread("HPA event loop") {
+            public void run() {
+                runLoop(loopSelector);
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private synchronized void execute(Runnable task) {
+        tasks.add(task);
+        if(selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    private void runLoop(Selector loopSelector) {
+        try {
+            while(true) {
+                Runnable task;
+                while((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                synchronized (this) {
+                    if(connections.isEmpty() && tasks.isEmpty()) {
+                        thread = null;
+                        selector = null;
+                        return;
+                    }
+                }
+
+                loopSelector.select(SELECT_TIMEOUT);
+
+                Iterator<SelectionKey> keys = loopSelector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    Connection connection = (Connection) key.attachment();
+                    if(!key.isValid()) {
+                        continue;
+                    }
+                    if(key.isReadable()) {
+                        connection.read();
+                    }
+                    if(key.isValid() && key.isWritable()) {
+                        connection.flush();
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                for(Connection connection: snapshot()) {
+                    connection.checkReadTimeout(now);
+                }
+            }
+        }
+        catch(IOException exc) {
+            // the selector itself failed, nothing can be read any more
+            dispose();
+            synchronized (this) {
+                thread = null;
+                selector = null;
+            }
+        }
+        finally {
+            try {
+                loopSelector.close();
+            }
+            catch(IOException exc) {
+                // Eating the close exception
+            }
+        }
+    }
+
+    private synchronized List<Connection> snapshot() {
+        return new ArrayList<Connection>(connections);
+    }
+
+    private synchronized void remove(Connection connection) {
+        connections.remove(connection);
+        if(selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * A device connection registered with the loop. Writes are made from the calling thread and finished by the loop
+     * when the socket buffer is full.
+     */
+    public class Connection {
+        private final SocketChannel channel;
+        private final IMessageReceivedInterface onMessageReceived;
+        private final int readTimeout;
+        private SelectionKey key;
+        private volatile boolean closed;
+
+        // framing state, only used by the loop thread
+        private ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+        private int messageLength = -1;
+        private long frameStarted;
+
+        private final Object writeLock = new Object();
+        private ByteBuffer pendingWrite;
+        private CountDownLatch writeComplete;
+
+        private Connection(SocketChannel channel, IMessageReceivedInterface onMessageReceived, int readTimeout) {
+            this.channel = channel;
+            this.onMessageReceived = onMessageReceived;
+            this.readTimeout = readTimeout;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        public void write(byte[] buffer) throws IOException {
+            // one message at a time so a partly written one is not interleaved with the next
+            synchronized (writeLock) {
+                writeMessage(buffer);
+            }
+        }
+
+        private void writeMessage(byte[] buffer) throws IOException {
+            CountDownLatch latch;
+            synchronized (this) {
+                if(closed) {
+                    throw new ClosedChannelException();
+                }
+
+                ByteBuffer data = ByteBuffer.wrap(buffer);
+                channel.write(data);
+                if(!data.hasRemaining()) {
+                    return;
+                }
+
+                // the socket buffer is full, the loop writes the rest when the device catches up
+                pendingWrite = data;
+                writeComplete = latch = new CountDownLatch(1);
+                execute(new Runnable() {
+                    public void run() {
+                        if(key != null && key.isValid()) {
+                            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        }
+                    }
+                });
+            }
+
+            try {
+                // no timeout configured, wait until the loop finishes the write or the connection closes
+                if(readTimeout <= 0) {
+                    latch.await();
+                }
+                else if(!latch.await(readTimeout, TimeUnit.MILLISECONDS)) {
+                    close();
+                    throw new SocketTimeoutException("Timed out writing to the device.");
+                }
+            }
+            catch(InterruptedException exc) {
+                Thread.currentThread().interrupt();
+                throw new IOException(exc.getMessage(), exc);
+            }
+
+            if(closed) {
+                throw new ClosedChannelException();
+            }
+        }
+
+        public void close() {
+            synchronized (this) {
+                if(closed) {
+                    return;
+                }
+                closed = true;
+
+                try {
+                    channel.close();
+                }
+                catch(IOException exc) {
+                    // Eating the close exception
+                }
+
+                if(writeComplete != null) {
+                    writeComplete.countDown();
+                }
+            }
+            remove(this);
+        }
+
+        private synchronized void flush() {
+            try {
+                if(pendingWrite != null) {
+                    channel.write(pendingWrite);
+                    if(pendingWrite.hasRemaining()) {
+                        return;
+                    }
+                    pendingWrite = null;
+                    writeComplete.countDown();
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            }
+            catch(IOException exc) {
+                close();
+            }
+        }
+
+        private void read() {
+            try {
+                if(channel.read(readBuffer) == -1) {
+                    close();
+                    return;
+                }
+            }
+            catch(IOException exc) {
+                close();
+                return;
+            }
+
+            readBuffer.flip();
+            while(true) {
+                if(messageLength < 0) {
+                    if(readBuffer.remaining() < 2) {
+                        break;
+                    }
+                    messageLength = readBuffer.getShort() & 0xFFFF;
+                    frameStarted = System.currentTimeMillis();
+                }
+
+                if(readBuffer.remaining() < messageLength) {
+                    break;
+                }
+
+                byte[] message = new byte[messageLength];
+                readBuffer.get(message);
+                messageLength = -1;
+
+                if(message.length > 0) {
+                    try {
+                        onMessageReceived.messageReceived(message);
+                    }
+                    catch(RuntimeException exc) {
+                        // a failing handler must not stop the loop for the other devices
+                    }
+                }
+            }
+            readBuffer.compact();
+
+            if(messageLength > readBuffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(messageLength);
+                readBuffer.flip();
+                larger.put(readBuffer);
+                readBuffer = larger;
+            }
+        }
+
+        // a message that stops arriving part way leaves the stream out of step, drop the connection
+        private void checkReadTimeout(long now) {
+            if(messageLength >= 0 && readTimeout > 0 && now - frameStarted > readTimeout) {
+                close();
+            }
+        }
+    }
+}
@@ -10,20 +10,17 @@ import com.global.api.utils.AutoResetEvent;
 import com.global.api.utils.Element;
 import com.global.api.utils.ElementTree;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.List;
 
 public class HpaTcpInterface implements IDeviceCommInterface {
-    private Socket client;
-    private DataOutputStream out;
-    private InputStream in;
+    private HpaEventLoop.Connection connection;
     private AutoResetEvent await;
     private ITerminalConfiguration settings;
-    private List<Byte> messageQueue;
+    private volatile List<Byte> messageQueue;
     private String lastConnectionError;
 
     private IMessageSentInterface onMessageSent;
@@ -60,89 +57,43 @@ public class HpaTcpInterface implements IDeviceCommInterface {
         };
     }
 
-    private void beginReceiveThread() {
-        Thread receiveThread = new Thread() {
-            public void run() {
-                while(true) {
-                    try {
-                        if(in.available() > 0) {
-                            do {
-                                int length = getLength();
-                                if (length > 0) {
-                                    byte[] buffer = new byte[8192];
-
-                                    boolean incomplete = true;
-                                    int offset = 0;
-                                    int tempLength = length;
-                                    do {
-                                        int bytesReceived = in.read(buffer, offset, tempLength);
-                                        if (bytesReceived != tempLength) {
-                                            offset += bytesReceived;
-                                            tempLength -= bytesReceived;
-                                            sleep(10);
-                                        } else incomplete = false;
-                                    }
-                                    while (incomplete);
-
-                                    byte[] readBuffer = new byte[length];
-                                    System.arraycopy(buffer, 0, readBuffer, 0, length);
-                                    onMessageReceived.messageReceived(readBuffer);
-                                }
-                                else break;
-                            }
-                            while(true);
-                        }
-                        sleep(300);
-                    } catch (Exception e) {
-                        // This never needs to fail
-                    }
-                }
-            }
-        };
-        receiveThread.start();
-    }
-
     public void connect() {
-        if(client == null) {
+        if(connection == null || connection.isClosed()) {
+            SocketChannel channel = null;
             try {
-                client = new Socket(settings.getIpAddress(), settings.getPort());
-
-                if(client.isConnected()) {
-                    out = new DataOutputStream(client.getOutputStream());
-                    in = client.getInputStream();
+                channel = SocketChannel.open();
+                channel.socket().setKeepAlive(true);
+                channel.socket().connect(new InetSocketAddress(settings.getIpAddress(), settings.getPort()), settings.getTimeout());
 
-                    beginReceiveThread();
-                }
+                connection = HpaEventLoop.getShared().register(channel, onMessageReceived, settings.getTimeout());
             }
             catch(IOException e) {
                 lastConnectionError = e.getMessage();
+                connection = null;
+                if(channel != null) {
+                    try {
+                        channel.close();
+                    }
+                    catch(IOException exc) {
+                        // Eating the close exception
+                    }
+                }
             }
         }
     }
 
     public void disconnect() {
-        try {
-            if (!client.isClosed()) {
-                in.close();
-                out.close();
-                client.close();
-            }
-            messageQueue = null;
-        }
-        catch(IOException e) {
-            // Eating the close exception
-        }
-        finally {
-            in = null;
-            out = null;
-            client = null;
+        if(connection != null) {
+            connection.close();
         }
+        connection = null;
+        messageQueue = null;
     }
 
-    public byte[] send(IDeviceMessage message) throws MessageException {
+    public synchronized byte[] send(IDeviceMessage message) throws MessageException {
         connect();
 
-        if(client == null || !client.isConnected()) {
+        if(connection == null) {
             throw new MessageException(String.format("Could not connect to the device. %s", lastConnectionError));
         }
 
@@ -151,9 +102,8 @@ public class HpaTcpInterface implements IDeviceCommInterface {
         try{
             byte[] buffer = message.getSendBuffer();
 
-            if(out != null) {
-                out.write(buffer, 0, buffer.length);
-                out.flush();
+            if(connection != null) {
+                connection.write(buffer);
 
                 if(message.isAwaitResponse()) {
                     await.waitOne(settings.getTimeout());
@@ -181,20 +131,6 @@ public class HpaTcpInterface implements IDeviceCommInterface {
         }
     }
 
-    private int getLength() {
-        try {
-            byte[] lengthBuffer = new byte[2];
-            int byteCount = in.read(lengthBuffer, 0, 2);
-
-            if(byteCount != 2)
-                return 0;
-            return (short)(((lengthBuffer[0] & 0xFF) << 8) | (lengthBuffer[1] & 0xFF));
-        }
-        catch(IOException e) {
-            return 0;
-        }
-    }
-
     private byte[] convertBytes(Byte[] buffer) {
         byte[] returnBuffer = new byte[buffer.length];
 
@@ -0,0 +1,5 @@
+package com.global.api.terminals.messaging;
+
+public interface IFileUploadProgressInterface {
+    void progress(int bytesSent, int fileSize);
+}
@@ -2,23 +2,37 @@ package com.global.api.terminals.pax.interfaces;
 
 import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.exceptions.MessageException;
-import com.global.api.terminals.TerminalUtilities;
 import com.global.api.terminals.abstractions.*;
 import com.global.api.terminals.messaging.IMessageSentInterface;
-import com.global.api.utils.EnumUtils;
+import com.global.api.utils.MessageWriter;
 
-import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 
+/**
+ * TCP transport for PAX devices. Reads block on the socket with a timeout and frames are decoded as the bytes arrive,
+ * so a response split over several packets is put back together. With a persistent session the connection is kept
+ * open between commands and reopened when the device has closed it.
+ */
 public class PaxTcpInterface implements IDeviceCommInterface {
+    private static final String TIMEOUT_ERROR = "Terminal did not respond in the given timeout.";
+    private static final int MAX_ATTEMPTS = 3;
+
     private Socket client;
-    private DataOutputStream out;
+    private OutputStream out;
     private InputStream in;
     private ITerminalConfiguration settings;
-    private int nakCount = 0;
+    private String lastConnectionError;
 
+    // reused across reads and frames on the current connection
+    private final byte[] readBuffer = new byte[4096];
+    private int readPosition;
+    private int readLimit;
+    private final MessageWriter frame = new MessageWriter(4096);
 
     private IMessageSentInterface onMessageSent;
 
@@ -34,116 +48,196 @@ public class PaxTcpInterface implements IDeviceCommInterface {
         if(client == null) {
             try {
                 client = new Socket(settings.getIpAddress(), settings.getPort());
-                if(client.isConnected()) {
-                    out = new DataOutputStream(client.getOutputStream());
-                    in = client.getInputStream();
-                    client.setKeepAlive(true);
-                }
-                else throw new IOException("Client failed to connect");
+                client.setKeepAlive(true);
+                client.setTcpNoDelay(true);
+                out = client.getOutputStream();
+                in = client.getInputStream();
+                readPosition = readLimit = 0;
             }
             catch(IOException exc) {
-                //TODO: Handle this exception
+                lastConnectionError = exc.getMessage();
+                client = null;
             }
         }
     }
 
     public void disconnect() {
         try {
-            if (!client.isClosed()) {
-                in.close();
-                out.close();
+            if (client != null && !client.isClosed()) {
                 client.close();
             }
-            client = null;
         } catch(IOException e) {
             // Eating the close exception
+        } finally {
+            client = null;
+            out = null;
+            in = null;
         }
     }
 
-    public byte[] send(IDeviceMessage message) throws MessageException {
-        connect();
-
+    public synchronized byte[] send(IDeviceMessage message) throws MessageException {
         byte[] buffer = message.getSendBuffer();
+        boolean success = false;
         try {
             if(onMessageSent != null)
                 onMessageSent.messageSent(message.toString());
 
-            for(int i = 0; i < 3; i++) {
-                out.write(buffer);
-
-                byte[] rvalue = getTerminalResponse();
-                if (rvalue != null) {
-                    byte lrc = rvalue[rvalue.length - 1]; // should be the lrc
-                    if (lrc != TerminalUtilities.calculateLRC(rvalue))
-                        sendControlCode(ControlCodes.NAK);
-                    else {
-                        sendControlCode(ControlCodes.ACK);
-                        return rvalue;
-                    }
-                }
-            }
-            throw new MessageException("Terminal did not respond in the given timeout.");
+            byte[] rvalue = exchange(buffer);
+            success = true;
+            return rvalue;
+        }
+        catch(MessageException exc) {
+            throw exc;
         }
         catch(Exception exc) {
             throw new MessageException(exc.getMessage(), exc);
         }
         finally {
+            // a session that failed mid exchange may have unread bytes, start the next command on a new one
+            if(!settings.isPersistentSession() || !success) {
+                disconnect();
+            }
+        }
+    }
+
+    private byte[] exchange(byte[] buffer) throws IOException, MessageException {
+        long deadline = System.currentTimeMillis() + settings.getTimeout();
+
+        // writing to a session the device has closed usually succeeds, only a read notices, so check before reusing it
+        if(client != null && isClosedByDevice()) {
             disconnect();
         }
+
+        for(int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            write(buffer);
+
+            byte[] rvalue = readResponse(deadline);
+            if(rvalue != null) {
+                return rvalue;
+            }
+            // the terminal rejected the request, send it again
+        }
+        throw new MessageException("Terminal rejected the message.");
     }
 
-    private void sendControlCode(ControlCodes code) throws MessageException {
+    private void write(byte[] buffer) throws IOException, MessageException {
+        boolean connected = client != null;
+        connect();
+
+        if(client == null) {
+            throw new MessageException(String.format("Unable to connect with device. %s", lastConnectionError));
+        }
+
         try {
-            if (code != ControlCodes.NAK) {
-                nakCount = 0;
-                out.write((int) code.getByte());
-            } else if (++nakCount == 3) {
-                sendControlCode(ControlCodes.EOT);
+            out.write(buffer);
+            out.flush();
+        }
+        catch(IOException exc) {
+            if(!connected) {
+                throw exc;
             }
-        } catch(IOException e) {
-            throw new MessageException("Failed to send control code.");
+            // the device reset the session, nothing was delivered so reconnect and send again
+            disconnect();
+            write(buffer);
         }
     }
 
-    private byte[] getTerminalResponse() throws MessageException {
+    // reads whatever is already waiting without blocking, anything left over from an earlier exchange is stale
+    private boolean isClosedByDevice() {
         try {
-            byte[] buffer = new byte[4096];
-            int bytesReceived = awaitResponse(in, buffer);
+            client.setSoTimeout(1);
+            while(true) {
+                if(in.read(readBuffer) == -1) {
+                    return true;
+                }
+                readPosition = readLimit = 0;
+            }
+        }
+        catch(SocketTimeoutException exc) {
+            return false;
+        }
+        catch(IOException exc) {
+            return true;
+        }
+    }
+
+    // returns the response frame, or null when the terminal NAKs the request
+    private byte[] readResponse(long deadline) throws IOException, MessageException {
+        int nakCount = 0;
 
-            if(bytesReceived > 0) {
-                byte[] rec_buffer = new byte[bytesReceived];
-                System.arraycopy(buffer, 0, rec_buffer, 0, bytesReceived);
+        while(true) {
+            byte code = readByte(deadline);
 
-                ControlCodes code = EnumUtils.parse(ControlCodes.class, rec_buffer[0]); // queue.readCode();
-                if (code.equals(ControlCodes.NAK))
-                    return null;
-                else if (code.equals(ControlCodes.EOT))
-                    throw new MessageException("Terminal returned EOT for the current message");
-                else if (code.equals(ControlCodes.ACK))
-                    return getTerminalResponse();
-                else if (code.equals(ControlCodes.STX)) {
-                    return rec_buffer;
-                } else throw new MessageException(String.format("Unknown message received: %s", code));
+            if(code == ControlCodes.ACK.getByte()) {
+                continue;
+            }
+            else if(code == ControlCodes.NAK.getByte()) {
+                return null;
+            }
+            else if(code == ControlCodes.EOT.getByte()) {
+                throw new MessageException("Terminal returned EOT for the current message");
+            }
+            else if(code != ControlCodes.STX.getByte()) {
+                throw new MessageException(String.format("Unknown message received: %s", code));
             }
 
-            return null;
-        }
-        catch(IOException exc) {
-            return null;
+            // STX ... ETX followed by the LRC of everything after the STX
+            frame.reset();
+            frame.add(code);
+            byte lrc = 0;
+            byte b;
+            do {
+                b = readByte(deadline);
+                frame.add(b);
+                lrc ^= b;
+            }
+            while(b != ControlCodes.ETX.getByte());
+            byte expected = readByte(deadline);
+            frame.add(expected);
+
+            if(lrc == expected) {
+                sendControlCode(ControlCodes.ACK);
+                return frame.toArray();
+            }
+
+            // ask the terminal to resend, up to three times
+            if(++nakCount == MAX_ATTEMPTS) {
+                sendControlCode(ControlCodes.EOT);
+                throw new MessageException("Terminal response failed the LRC check.");
+            }
+            sendControlCode(ControlCodes.NAK);
         }
     }
 
-    private int awaitResponse(InputStream in, byte[] buffer) throws IOException {
-        long t = System.currentTimeMillis();
-        do {
-            if(in.available() > 0) {
-                return in.read(buffer);
+    private byte readByte(long deadline) throws IOException, MessageException {
+        if(readPosition == readLimit) {
+            long remaining = deadline - System.currentTimeMillis();
+            if(remaining <= 0) {
+                throw new MessageException(TIMEOUT_ERROR);
             }
 
-            if (System.currentTimeMillis() - t >= settings.getTimeout())
-                break;
+            try {
+                client.setSoTimeout((int) Math.min(remaining, Integer.MAX_VALUE));
+                int bytesReceived = in.read(readBuffer);
+                if(bytesReceived == -1) {
+                    throw new EOFException("Connection closed by the device.");
+                }
+                readPosition = 0;
+                readLimit = bytesReceived;
+            }
+            catch(SocketTimeoutException exc) {
+                throw new MessageException(TIMEOUT_ERROR, exc);
+            }
+        }
+        return readBuffer[readPosition++];
+    }
+
+    private void sendControlCode(ControlCodes code) throws MessageException {
+        try {
+            out.write(code.getByte());
+            out.flush();
+        } catch(IOException e) {
+            throw new MessageException("Failed to send control code.");
         }
-        while(true);
-        throw new IOException("Terminal did not respond in the given timeout");
     }
-}
\ No newline at end of file
+}
@@ -348,7 +348,8 @@ public class UpaInterface implements IDeviceInterface {
     }
 
     public void dispose() {
-        // unused in UPA
+        // closes a persistent session
+        controller.dispose();
     }
 
     public void setOnMessageSent(IMessageSentInterface onMessageSent) {
@@ -1,15 +1,15 @@
 package com.global.api.terminals.upa.interfaces;
 
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
 import java.net.Socket;
-import java.net.SocketTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.exceptions.MessageException;
@@ -22,15 +22,24 @@ import com.global.api.terminals.upa.Entities.Constants;
 import com.global.api.utils.JsonDoc;
 import com.global.api.utils.MessageWriter;
 
+/**
+ * TCP transport for UPA devices. Frames from the device are decoded by a reader thread and matched to the command in
+ * flight by request id. With a persistent session the connection stays open between commands and is re-established
+ * when the device drops it, otherwise a connection is opened and closed for every command.
+ */
 public class UpaTcpInterface implements IDeviceCommInterface {
+    private static final String TIMEOUT_ERROR = "Terminal did not respond in the given timeout.";
+    private static final int READ_BUFFER_SIZE = 4096;
+
     private Socket client;
-    private DataOutputStream out;
-    private DataInputStream in;
+    private OutputStream out;
     private final ConnectionConfig settings;
     private IMessageSentInterface onMessageSent;
-    private MessageWriter data;
-    private String responseMessageString;
-    private boolean readyReceived;
+    private String lastConnectionError;
+
+    // the device handles one command at a time
+    private final Object sendLock = new Object();
+    private volatile PendingRequest pending;
 
     public void setMessageSentHandler(IMessageSentInterface onMessageSent) {
         this.onMessageSent = onMessageSent;
@@ -40,177 +49,210 @@ public class UpaTcpInterface implements IDeviceCommInterface {
         this.settings = settings;
     }
 
-    public void connect() {
+    public synchronized void connect() {
         if(client == null) {
             try {
-                client = new Socket(settings.getIpAddress(), settings.getPort());
-                if(client.isConnected()) {
-                    out = new DataOutputStream(client.getOutputStream());
-                    in = new DataInputStream(client.getInputStream());
-                    client.setKeepAlive(true);
-                    client.setSoTimeout(settings.getTimeout());
-                }
-                else throw new IOException("Client failed to connect");
+                Socket socket = new Socket(settings.getIpAddress(), settings.getPort());
+                socket.setKeepAlive(true);
+                socket.setTcpNoDelay(true);
+
+                client = socket;
+                out = socket.getOutputStream();
+                beginReceiveThread(socket, socket.getInputStream());
             }
             catch(IOException exc) {
-                // eat connection exception
+                lastConnectionError = exc.getMessage();
             }
         }
     }
 
     public void disconnect() {
-        try {
-            if (!client.isClosed()) {
-                in.close();
-                out.close();
-                client.close();
+        synchronized (this) {
+            if(client == null) {
+                return;
             }
+            closeQuietly(client);
             client = null;
+            out = null;
+        }
 
-        } catch(IOException e) {
-            // Eating the close exception
+        PendingRequest request = pending;
+        if(request != null) {
+            request.fail(new MessageException("Connection to the device was closed."));
         }
     }
 
     public byte[] send(IDeviceMessage message) throws MessageException {
-        connect();
-
-        if (client == null) {
-            throw new MessageException("Unable to connect with device.");
+        synchronized (sendLock) {
+            try {
+                return sendAndAwait(message.getSendBuffer());
+            }
+            finally {
+                if(!settings.isPersistentSession()) {
+                    disconnect();
+                    try {
+                        // a little padding so the device can release the connection before the next one
+                        Thread.sleep(250);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
         }
+    }
 
-        readyReceived = false;
-        byte[] sendBuffer = message.getSendBuffer();
+    private byte[] sendAndAwait(byte[] sendBuffer) throws MessageException {
+        PendingRequest request = new PendingRequest(getRequestId(sendBuffer));
+        pending = request;
 
         try {
-            if(onMessageSent != null) {
-                long currentMillis = System.currentTimeMillis();
-                Timestamp t = new Timestamp(currentMillis);
-                onMessageSent.messageSent(t + ":\n" + new String(sendBuffer, StandardCharsets.UTF_8));
-            }
+            logRequest(sendBuffer);
 
-            if(settings.getRequestLogger() != null) {
-                String formMsg = new String(sendBuffer, StandardCharsets.UTF_8);
-                settings.getRequestLogger().RequestSent(formMsg);
+            try {
+                write(sendBuffer);
             }
-
-            out.write(sendBuffer);
-            out.flush();
-            long timeOfSend = System.currentTimeMillis();
-
-            do {
-                getTerminalResponse();
-
-                if (System.currentTimeMillis() > timeOfSend + settings.getTimeout()) {
-                    throw new TimeoutException("Terminal did not respond in the given timeout.");
+            catch(IOException exc) {
+                if(!settings.isPersistentSession()) {
+                    throw exc;
                 }
+                // the device may have dropped an idle session, nothing was delivered so reconnect and send again
+                disconnect();
+                write(sendBuffer);
+            }
 
-                Thread.sleep(100);
-            } while (!readyReceived);
-
-            return responseMessageString.getBytes();
+            if(!request.await(settings.getTimeout())) {
+                throw new MessageException(TIMEOUT_ERROR);
+            }
+            if(request.error != null) {
+                throw new MessageException(request.error.getMessage(), request.error);
+            }
+            return request.response.getBytes(StandardCharsets.UTF_8);
         }
-        catch(Exception exc) {
+        catch(IOException exc) {
+            throw new MessageException(exc.getMessage(), exc);
+        }
+        catch(InterruptedException exc) {
+            Thread.currentThread().interrupt();
             throw new MessageException(exc.getMessage(), exc);
         }
         finally {
-            if (client != null) disconnect();
-            try {
-                // a little padding here
-                Thread.sleep(250);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+            pending = null;
         }
     }
 
-    private void getTerminalResponse() throws Exception {
-        try {
-            validateResponsePacket();
-            byte[] buffer = data.toArray();
-
-            if(buffer.length > 0) {
-                JsonDoc responseObj = JsonDoc.parse(
-                    new String(data.toArray(), StandardCharsets.UTF_8)
-                );
+    private synchronized void write(byte[] buffer) throws IOException {
+        connect();
 
-                String message = responseObj.getString("message");
+        if(client == null) {
+            throw new ConnectException(String.format("Unable to connect with device. %s", lastConnectionError));
+        }
 
-                if(settings.getRequestLogger() != null) {
-                    String formMsg = new String(buffer, StandardCharsets.UTF_8);
-                    settings.getRequestLogger().ResponseReceived(formMsg);
-                }
+        out.write(buffer);
+        out.flush();
+    }
 
-                switch (message) {
-                    case Constants.ACK_MESSAGE:
-                    case Constants.NAK_MESSAGE:
-                    case Constants.TIMEOUT_MESSAGE:
-                        break;
-                    case Constants.BUSY_MESSAGE:
-                        throw new Exception("Device is busy");
-                    case Constants.DATA_MESSAGE:
-                        responseMessageString = new String(buffer, StandardCharsets.UTF_8);
-                        String eval = responseObj.get("data").getString("response");
-                        if (eval.equals("Reboot")) {
-                            readyReceived = true; // since reboot doesn't return READY
+    private void beginReceiveThread(final Socket socket, final InputStream in) {
+        Thread receiveThread = new Thread(String.format("UPA reader %s:%d", settings.getIpAddress(), settings.getPort())) {
+            public void run() {
+                byte stx = ControlCodes.STX.getByte();
+                byte etx = ControlCodes.ETX.getByte();
+                byte lf = ControlCodes.LF.getByte();
+
+                // both buffers are reused for every frame received on this connection
+                byte[] buffer = new byte[READ_BUFFER_SIZE];
+                MessageWriter frame = new MessageWriter(READ_BUFFER_SIZE);
+                boolean inFrame = false;
+
+                try {
+                    int bytesReceived;
+                    while((bytesReceived = in.read(buffer)) != -1) {
+                        for(int i = 0; i < bytesReceived; i++) {
+                            byte b = buffer[i];
+                            if(b == stx) {
+                                frame.reset();
+                                inFrame = true;
+                            }
+                            else if(b == etx && inFrame) {
+                                inFrame = false;
+                                onFrameReceived(new String(frame.toArray(), StandardCharsets.UTF_8));
+                            }
+                            else if(inFrame && b != lf) {
+                                frame.add(b);
+                            }
                         }
-                        sendAckMessageToDevice();
-                        break;
-                    case Constants.READY_MESSAGE:
-                        readyReceived = true;
-                        break;
-                    default:
-                        throw new Exception("Message field value is unknown in API Response.");
+                    }
+                    throw new EOFException("Connection closed by the device.");
+                }
+                catch(IOException exc) {
+                    connectionLost(socket, exc);
                 }
             }
-        }
-        catch(IOException exc) {
-            throw new IOException(exc.getMessage(), exc);
-        }
+        };
+        receiveThread.setDaemon(true);
+        receiveThread.start();
     }
 
-    private void validateResponsePacket() throws IOException {
-        try {
-            byte[] buffer;
-            List<Byte> receive = new ArrayList<>();
-            data = new MessageWriter();
-
-            byte stx = ControlCodes.STX.getByte();
-            byte etx = ControlCodes.ETX.getByte();
-            byte lf = ControlCodes.LF.getByte();
-
-            do {
-                receive.add(in.readByte());
-            } while (in.available() > 0);
+    private void onFrameReceived(String frame) {
+        PendingRequest request = pending;
 
-            buffer = new byte[receive.size()];
-
-            for (int i = 0; i < buffer.length; i++) {
-                buffer[i] = receive.get(i);
+        try {
+            if(settings.getRequestLogger() != null) {
+                settings.getRequestLogger().ResponseReceived(frame);
             }
 
-            for (int i = 0; i < buffer.length; i++) {
-                if (i < 2) {
-                    if (buffer[i] != stx && buffer[i + 1] != lf) {
-                        throw new IOException("The bytes of the start response packet are not the expected bytes.");
-                    }
+            JsonDoc responseObj = JsonDoc.parse(frame);
+            String message = responseObj != null ? responseObj.getString("message") : null;
 
-                    i += 1;
-                    continue;
+            if(Constants.ACK_MESSAGE.equals(message) || Constants.NAK_MESSAGE.equals(message) || Constants.TIMEOUT_MESSAGE.equals(message)) {
+                return;
+            }
+            else if(Constants.BUSY_MESSAGE.equals(message)) {
+                if(request != null) {
+                    request.fail(new MessageException("Device is busy"));
                 }
-
-                if (buffer[i] == etx) {
-                    if ((buffer[i - 1] & buffer[i + 1]) != lf) {
-                        throw new IOException("The bytes of the end response packet are not the expected bytes.");
+            }
+            else if(Constants.DATA_MESSAGE.equals(message)) {
+                sendAckMessageToDevice();
+
+                JsonDoc data = responseObj.get("data");
+                // a response left over from a command that timed out is acknowledged and dropped
+                if(request != null && request.matches(data)) {
+                    request.response = frame;
+                    if(data != null && "Reboot".equals(data.getString("response"))) {
+                        request.complete(); // since reboot doesn't return READY
                     }
-
-                    break;
-                } else if (buffer[i] != lf) {
-                    data.add(buffer[i]);
                 }
             }
-        } catch (SocketTimeoutException e) {
-            client.setSoTimeout(0);
+            else if(Constants.READY_MESSAGE.equals(message)) {
+                if(request != null && request.response != null) {
+                    request.complete();
+                }
+            }
+            else if(request != null) {
+                request.fail(new MessageException("Message field value is unknown in API Response."));
+            }
+        }
+        catch(Exception exc) {
+            if(request != null) {
+                request.fail(exc);
+            }
+        }
+    }
+
+    private void connectionLost(Socket socket, IOException exc) {
+        synchronized (this) {
+            if(client != socket) {
+                // closed by disconnect
+                return;
+            }
+            closeQuietly(socket);
+            client = null;
+            out = null;
+        }
+
+        PendingRequest request = pending;
+        if(request != null) {
+            request.fail(exc);
         }
     }
 
@@ -222,22 +264,74 @@ public class UpaTcpInterface implements IDeviceCommInterface {
         IDeviceMessage message = TerminalUtilities.compileMessage(body);
         byte[] sendBuffer = message.getSendBuffer();
 
+        logRequest(sendBuffer);
+        write(sendBuffer);
+    }
+
+    private void logRequest(byte[] sendBuffer) throws IOException {
+        if(onMessageSent != null) {
+            long currentMillis = System.currentTimeMillis();
+            Timestamp t = new Timestamp(currentMillis);
+            onMessageSent.messageSent(t + ":\n" + new String(sendBuffer, StandardCharsets.UTF_8));
+        }
+
         if(settings.getRequestLogger() != null) {
             String formMsg = new String(sendBuffer, StandardCharsets.UTF_8);
             settings.getRequestLogger().RequestSent(formMsg);
         }
+    }
 
+    private static String getRequestId(byte[] sendBuffer) {
         try {
-            if(onMessageSent != null) {
-                long currentMillis = System.currentTimeMillis();
-                Timestamp t = new Timestamp(currentMillis);
-                onMessageSent.messageSent(t + ":\n" + new String(sendBuffer, StandardCharsets.UTF_8));
+            // the framing bytes are all control characters
+            JsonDoc request = JsonDoc.parse(new String(sendBuffer, StandardCharsets.UTF_8).trim());
+            if(request != null && request.has("data")) {
+                return request.get("data").getString("requestId");
             }
+        }
+        catch(Exception exc) {
+            // not a json message, responses are not correlated
+        }
+        return null;
+    }
 
-            out.write(sendBuffer);
-            out.flush();
-        } catch(IOException exc) {
-            throw new IOException(exc.getMessage(), exc);
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        }
+        catch(IOException exc) {
+            // Eating the close exception
+        }
+    }
+
+    private static class PendingRequest {
+        private final String requestId;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile String response;
+        private volatile Exception error;
+
+        private PendingRequest(String requestId) {
+            this.requestId = requestId;
+        }
+
+        private boolean matches(JsonDoc data) {
+            String responseId = data != null ? data.getString("requestId") : null;
+            return requestId == null || responseId == null || requestId.equals(responseId);
+        }
+
+        private boolean await(long timeout) throws InterruptedException {
+            return done.await(timeout, TimeUnit.MILLISECONDS);
+        }
+
+        private void complete() {
+            done.countDown();
+        }
+
+        private void fail(Exception exc) {
+            if(done.getCount() > 0) {
+                error = exc;
+                done.countDown();
+            }
         }
     }
 }
@@ -0,0 +1,319 @@
+package com.global.api.utils;
+
+import com.global.api.entities.exceptions.ConfigurationException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Digit trie of card number prefixes used to find the card brand, fleet ranges and ReadyLink BINs in one walk over
+ * the leading digits of a PAN. Spaces and dashes in the PAN are skipped. A table is immutable once built, adding
+ * entries returns a new table.
+ *
+ * <p>Supplementary tables are read one entry per line, blank lines and lines starting with # are ignored:</p>
+ * <pre>
+ * brand,Visa,4
+ * brand,MC,2221,2720
+ * fleet,Visa,448460,448611
+ * readylink,462766
+ * </pre>
+ * A range covers every number between the two bounds with the same number of digits, so {@code brand,Jcb,35000,35999}
+ * needs five digits to match while {@code brand,Jcb,35} matches on two.
+ */
+public class BinTable {
+    public static final String BRAND = "brand";
+    public static final String FLEET = "fleet";
+    public static final String READY_LINK = "readylink";
+
+    private final List<Entry> entries;
+    private final Set<String> cardTypes;
+    // built on the first lookup so chained with calls stay cheap
+    private volatile Node root;
+
+    public BinTable() {
+        this(new ArrayList<Entry>());
+    }
+
+    private BinTable(List<Entry> entries) {
+        this.entries = entries;
+        this.cardTypes = new LinkedHashSet<String>();
+        for(Entry entry: entries) {
+            if(entry.kind.equals(BRAND)) {
+                cardTypes.add(entry.cardType);
+            }
+        }
+    }
+
+    public BinTable withBrand(String cardType, String low, String high) {
+        return with(new Entry(BRAND, cardType, low, high));
+    }
+
+    public BinTable withFleetRange(String cardType, String low, String high) {
+        return with(new Entry(FLEET, cardType, low, high));
+    }
+
+    public BinTable withReadyLink(String low, String high) {
+        return with(new Entry(READY_LINK, null, low, high));
+    }
+
+    public BinTable load(Reader reader) throws ConfigurationException {
+        List<Entry> combined = new ArrayList<Entry>(entries);
+
+        BufferedReader lines = new BufferedReader(reader);
+        try {
+            String line;
+            int lineNumber = 0;
+            while((line = lines.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if(line.length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+                combined.add(parseLine(line, lineNumber));
+            }
+        }
+        catch(IOException exc) {
+            throw new ConfigurationException("Failed to read the BIN table.", exc);
+        }
+        return new BinTable(combined);
+    }
+
+    // brand names in the order they were added
+    public Set<String> getCardTypes() {
+        return Collections.unmodifiableSet(cardTypes);
+    }
+
+    // the brand of the longest matching prefix, null when no brand matches
+    public String findCardType(String pan) {
+        if(pan == null) {
+            return null;
+        }
+
+        int digits = countDigits(pan);
+        String rvalue = null;
+        Node node = root();
+        for(int i = 0; i < pan.length() && node != null; i++) {
+            char c = pan.charAt(i);
+            if(c == ' ' || c == '-') {
+                continue;
+            }
+            if(c < '0' || c > '9') {
+                break;
+            }
+
+            node = node.children[c - '0'];
+            if(node != null && node.brand != null && node.brand.length <= digits) {
+                rvalue = node.brand.cardType;
+            }
+        }
+        return rvalue;
+    }
+
+    public boolean isFleet(String cardType, String pan) {
+        if(pan == null || cardType == null) {
+            return false;
+        }
+
+        int digits = countDigits(pan);
+        Node node = root();
+        for(int i = 0; i < pan.length() && node != null; i++) {
+            char c = pan.charAt(i);
+            if(c == ' ' || c == '-') {
+                continue;
+            }
+            if(c < '0' || c > '9') {
+                break;
+            }
+
+            node = node.children[c - '0'];
+            if(node != null && node.fleet != null) {
+                for(Entry fleet: node.fleet) {
+                    if(fleet.length <= digits && fleet.cardType.equals(cardType)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean isReadyLink(String pan) {
+        if(pan == null) {
+            return false;
+        }
+
+        int digits = countDigits(pan);
+        Node node = root();
+        for(int i = 0; i < pan.length() && node != null; i++) {
+            char c = pan.charAt(i);
+            if(c == ' ' || c == '-') {
+                continue;
+            }
+            if(c < '0' || c > '9') {
+                break;
+            }
+
+            node = node.children[c - '0'];
+            if(node != null && node.readyLink != null && node.readyLink.length <= digits) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Node root() {
+        Node rvalue = root;
+        if(rvalue == null) {
+            rvalue = new Node();
+            for(Entry entry: entries) {
+                insert(rvalue, entry, entry.low, entry.high, 0);
+            }
+            root = rvalue;
+        }
+        return rvalue;
+    }
+
+    private BinTable with(Entry entry) {
+        List<Entry> combined = new ArrayList<Entry>(entries);
+        combined.add(entry);
+        return new BinTable(combined);
+    }
+
+    private static Entry parseLine(String line, int lineNumber) throws ConfigurationException {
+        String[] fields = line.split(",", -1);
+        for(int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+        }
+
+        try {
+            String kind = fields[0].toLowerCase();
+            if(kind.equals(READY_LINK) && (fields.length == 2 || fields.length == 3)) {
+                return new Entry(READY_LINK, null, fields[1], fields.length == 3 ? fields[2] : fields[1]);
+            }
+            else if((kind.equals(BRAND) || kind.equals(FLEET)) && (fields.length == 3 || fields.length == 4) && fields[1].length() > 0) {
+                return new Entry(kind, fields[1], fields[2], fields.length == 4 ? fields[3] : fields[2]);
+            }
+        }
+        catch(IllegalArgumentException exc) {
+            throw new ConfigurationException(String.format("Invalid BIN table entry on line %d: %s", lineNumber, exc.getMessage()));
+        }
+        throw new ConfigurationException(String.format("Invalid BIN table entry on line %d.", lineNumber));
+    }
+
+    private static int countDigits(String pan) {
+        int digits = 0;
+        for(int i = 0; i < pan.length(); i++) {
+            char c = pan.charAt(i);
+            if(c >= '0' && c <= '9') {
+                digits++;
+            }
+            else if(c != ' ' && c != '-') {
+                break;
+            }
+        }
+        return digits;
+    }
+
+    // marks the smallest set of prefixes covering low..high
+    private static void insert(Node node, Entry entry, String low, String high, int depth) {
+        if(depth == low.length() || (allDigits(low, depth, '0') && allDigits(high, depth, '9'))) {
+            node.mark(entry);
+            return;
+        }
+
+        int first = low.charAt(depth) - '0';
+        int last = high.charAt(depth) - '0';
+        if(first == last) {
+            insert(node.child(first), entry, low, high, depth + 1);
+            return;
+        }
+
+        String prefix = low.substring(0, depth);
+        insert(node.child(first), entry, low, fill(prefix, first, '9', low.length()), depth + 1);
+        for(int digit = first + 1; digit < last; digit++) {
+            node.child(digit).mark(entry);
+        }
+        insert(node.child(last), entry, fill(prefix, last, '0', low.length()), high, depth + 1);
+    }
+
+    private static boolean allDigits(String value, int from, char digit) {
+        for(int i = from; i < value.length(); i++) {
+            if(value.charAt(i) != digit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String fill(String prefix, int digit, char fill, int length) {
+        StringBuilder sb = new StringBuilder(length).append(prefix).append((char) ('0' + digit));
+        while(sb.length() < length) {
+            sb.append(fill);
+        }
+        return sb.toString();
+    }
+
+    private static class Entry {
+        private final String kind;
+        private final String cardType;
+        private final String low;
+        private final String high;
+        // digits a PAN needs to match, the range bounds are this long
+        private final int length;
+
+        private Entry(String kind, String cardType, String low, String high) {
+            if(low == null || high == null || low.length() == 0 || low.length() != high.length()) {
+                throw new IllegalArgumentException("The range bounds must have the same number of digits.");
+            }
+            for(int i = 0; i < low.length(); i++) {
+                if(low.charAt(i) < '0' || low.charAt(i) > '9' || high.charAt(i) < '0' || high.charAt(i) > '9') {
+                    throw new IllegalArgumentException("The range bounds must be numeric.");
+                }
+            }
+            if(low.compareTo(high) > 0) {
+                throw new IllegalArgumentException("The lower bound is greater than the upper bound.");
+            }
+
+            this.kind = kind;
+            this.cardType = cardType;
+            this.low = low;
+            this.high = high;
+            this.length = low.length();
+        }
+    }
+
+    private static class Node {
+        private final Node[] children = new Node[10];
+        private Entry brand;
+        private Entry readyLink;
+        private List<Entry> fleet;
+
+        private Node child(int digit) {
+            if(children[digit] == null) {
+                children[digit] = new Node();
+            }
+            return children[digit];
+        }
+
+        private void mark(Entry entry) {
+            if(entry.kind.equals(BRAND)) {
+                brand = entry;
+            }
+            else if(entry.kind.equals(READY_LINK)) {
+                readyLink = entry;
+            }
+            else {
+                if(fleet == null) {
+                    fleet = new ArrayList<Entry>(1);
+                }
+                fleet.add(entry);
+            }
+        }
+    }
+}
@@ -1,160 +1,155 @@
 package com.global.api.utils;
 
-import com.global.api.entities.enums.TrackNumber;
+import com.global.api.entities.exceptions.ConfigurationException;
 import com.global.api.paymentMethods.GiftCard;
 import com.global.api.paymentMethods.ITrackData;
 import lombok.var;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 public class CardUtils {
-    private static final Pattern AmexRegex = Pattern.compile("^3[47]");
-    private static final Pattern MasterCardRegex = Pattern.compile("^(?:5[1-6]|222[1-9]|22[3-9][0-9]|2[3-6][0-9]{2}|27[01][0-9]|2720)");
-    private static final Pattern VisaRegex = Pattern.compile("^4");
-    private static final Pattern DinersClubRegex = Pattern.compile("^3(?:0[0-5]|[68][0-9])");
-    private static final Pattern RouteClubRegex = Pattern.compile("^(2014|2149)");
-    private static final Pattern DiscoverRegex = Pattern.compile("^6(?:011|5[0-9]{2})");
-    private static final Pattern JcbRegex = Pattern.compile("^(?:2131|1800|35\\d{3})");
-    private static final Pattern VoyagerRegex = Pattern.compile("^70888[5-9]");
-    private static final Pattern WexRegex = Pattern.compile("^(?:690046|707138)");
-    private static final Pattern FuelmanRegex = Pattern.compile("^707649[0-9]");
-    private static final Pattern FleetwideRegex = Pattern.compile("^707685[0-9]");
-    private static final Pattern StoredValueRegex = Pattern.compile("^(?:600649|603261|603571|627600|639470)");
-    private static final Pattern ValueLinkRegex = Pattern.compile("^(?:601056|603225)");
-    private static final Pattern HeartlandGiftRegex = Pattern.compile("^(?:502244|627720|708355)");
-
-    private static final Pattern trackOnePattern = Pattern.compile("%?[B0]?([\\d]+)\\^[^\\^]+\\^([\\d]{4})([^?]+)?/?");
-    private static final Pattern trackTwoPattern = Pattern.compile(";?([\\d]+)[=|[dD]](\\d{4})([^?]+)?/?");
-
-    private static Map<String, Map<String, String>> fleetBinMap;
-    private static Map<String,Pattern> regexMap;
-    private static ArrayList<String> readyLinkBinMap;
-
-    static {
-        regexMap = new HashMap<String, Pattern>();
-        regexMap.put("Amex", AmexRegex);
-        regexMap.put("MC", MasterCardRegex);
-        regexMap.put("Visa", VisaRegex);
-        regexMap.put("DinersClub", DinersClubRegex);
-        regexMap.put("EnRoute", RouteClubRegex);
-        regexMap.put("Discover", DiscoverRegex);
-        regexMap.put("Jcb", JcbRegex);
-        regexMap.put("Voyager", VoyagerRegex);
-        regexMap.put("Wex", WexRegex);
-        regexMap.put("Fuelman", FuelmanRegex);
-        regexMap.put("FleetWide", FleetwideRegex);
-        regexMap.put("StoredValue", StoredValueRegex);
-        regexMap.put("ValueLink", ValueLinkRegex);
-        regexMap.put("HeartlandGift", HeartlandGiftRegex);
-
-        // ReadyLink
-        readyLinkBinMap = new ArrayList<String>();
-        readyLinkBinMap.add("462766");
-        readyLinkBinMap.add("406498");
-        readyLinkBinMap.add("440230");
-        readyLinkBinMap.add("485932");
-        readyLinkBinMap.add("434249");
-        readyLinkBinMap.add("487093");
-        readyLinkBinMap.add("411338");
-        readyLinkBinMap.add("438968");
-        readyLinkBinMap.add("444083");
-        readyLinkBinMap.add("417021");
-        readyLinkBinMap.add("400421");
-        readyLinkBinMap.add("426938");
-        readyLinkBinMap.add("478499");
-        readyLinkBinMap.add("446053");
-        readyLinkBinMap.add("459440");
-        readyLinkBinMap.add("421783");
-        readyLinkBinMap.add("422799");
-        readyLinkBinMap.add("473517");
-        readyLinkBinMap.add("493478");
-        readyLinkBinMap.add("453037");
-        readyLinkBinMap.add("443613");
-        readyLinkBinMap.add("401658");
-        readyLinkBinMap.add("439331");
-        readyLinkBinMap.add("407216");
-        readyLinkBinMap.add("400123");
-        readyLinkBinMap.add("402407");
-        readyLinkBinMap.add("405551");
-        readyLinkBinMap.add("404206");
-        readyLinkBinMap.add("422803");
-        readyLinkBinMap.add("407635");
-        readyLinkBinMap.add("447904");
-        readyLinkBinMap.add("439461");
-
-        // fleet bin ranges
-        fleetBinMap = new HashMap<String, Map<String, String>>();
-
-        // visa fleet mappings
-        Map<String, String> visaFleetMap = new HashMap<String, String>();
-        visaFleetMap.put("448460", "448611");
-        visaFleetMap.put("448613", "448615");
-        visaFleetMap.put("448617", "448674");
-        visaFleetMap.put("448676", "448686");
-        visaFleetMap.put("448688", "448699");
-        visaFleetMap.put("461400", "461421");
-        visaFleetMap.put("461423", "461499");
-        visaFleetMap.put("480700", "480899");
-        fleetBinMap.put("Visa", visaFleetMap);
-
-        // mastercard fleet mappings
-        Map<String, String> mcFleetMap = new HashMap<String, String>();
-        mcFleetMap.put("553231", "553380");
-        mcFleetMap.put("556083", "556099");
-        mcFleetMap.put("556100", "556599");
-        mcFleetMap.put("556700", "556999");
-        fleetBinMap.put("MC", mcFleetMap);
-
-        // wright express fleet mappings
-        Map<String, String> wexFleetMap = new HashMap<String, String>();
-        wexFleetMap.put("690046", "690046");
-        wexFleetMap.put("707138", "707138");
-        fleetBinMap.put("Wex", wexFleetMap);
-
-        // voyager fleet
-        Map<String, String> voyagerFleetMap = new HashMap<String, String>();
-        voyagerFleetMap.put("708885", "708889");
-        fleetBinMap.put("Voyager", voyagerFleetMap);
-
-        //Fuelman fleet
-        Map<String, String> fuelmanFleetMap = new HashMap<String, String>();
-        fuelmanFleetMap.put("707649", "707649");
-        fleetBinMap.put("Fuelman", fuelmanFleetMap);
-
-        //FleetWide
-        Map<String, String> fleetWideMap = new HashMap<String, String>();
-        fleetWideMap.put("707685", "707685");
-        fleetBinMap.put("FleetWide", fleetWideMap);
+    // replaced as a whole when a supplementary table is loaded
+    private static volatile BinTable binTable = new BinTable()
+            // brands, a range needs as many digits as its bounds have
+            .withBrand("Amex", "34", "34")
+            .withBrand("Amex", "37", "37")
+            .withBrand("MC", "51", "56")
+            .withBrand("MC", "2221", "2229")
+            .withBrand("MC", "2230", "2299")
+            .withBrand("MC", "2300", "2699")
+            .withBrand("MC", "2700", "2719")
+            .withBrand("MC", "2720", "2720")
+            .withBrand("Visa", "4", "4")
+            .withBrand("DinersClub", "300", "305")
+            .withBrand("DinersClub", "360", "369")
+            .withBrand("DinersClub", "380", "389")
+            .withBrand("EnRoute", "2014", "2014")
+            .withBrand("EnRoute", "2149", "2149")
+            .withBrand("Discover", "6011", "6011")
+            .withBrand("Discover", "6500", "6599")
+            .withBrand("Jcb", "2131", "2131")
+            .withBrand("Jcb", "1800", "1800")
+            .withBrand("Jcb", "35000", "35999")
+            .withBrand("Voyager", "708885", "708889")
+            .withBrand("Wex", "690046", "690046")
+            .withBrand("Wex", "707138", "707138")
+            .withBrand("Fuelman", "7076490", "7076499")
+            .withBrand("FleetWide", "7076850", "7076859")
+            .withBrand("StoredValue", "600649", "600649")
+            .withBrand("StoredValue", "603261", "603261")
+            .withBrand("StoredValue", "603571", "603571")
+            .withBrand("StoredValue", "627600", "627600")
+            .withBrand("StoredValue", "639470", "639470")
+            .withBrand("ValueLink", "601056", "601056")
+            .withBrand("ValueLink", "603225", "603225")
+            .withBrand("HeartlandGift", "502244", "502244")
+            .withBrand("HeartlandGift", "627720", "627720")
+            .withBrand("HeartlandGift", "708355", "708355")
+
+            // ReadyLink
+            .withReadyLink("462766", "462766")
+            .withReadyLink("406498", "406498")
+            .withReadyLink("440230", "440230")
+            .withReadyLink("485932", "485932")
+            .withReadyLink("434249", "434249")
+            .withReadyLink("487093", "487093")
+            .withReadyLink("411338", "411338")
+            .withReadyLink("438968", "438968")
+            .withReadyLink("444083", "444083")
+            .withReadyLink("417021", "417021")
+            .withReadyLink("400421", "400421")
+            .withReadyLink("426938", "426938")
+            .withReadyLink("478499", "478499")
+            .withReadyLink("446053", "446053")
+            .withReadyLink("459440", "459440")
+            .withReadyLink("421783", "421783")
+            .withReadyLink("422799", "422799")
+            .withReadyLink("473517", "473517")
+            .withReadyLink("493478", "493478")
+            .withReadyLink("453037", "453037")
+            .withReadyLink("443613", "443613")
+            .withReadyLink("401658", "401658")
+            .withReadyLink("439331", "439331")
+            .withReadyLink("407216", "407216")
+            .withReadyLink("400123", "400123")
+            .withReadyLink("402407", "402407")
+            .withReadyLink("405551", "405551")
+            .withReadyLink("404206", "404206")
+            .withReadyLink("422803", "422803")
+            .withReadyLink("407635", "407635")
+            .withReadyLink("447904", "447904")
+            .withReadyLink("439461", "439461")
+
+            // visa fleet mappings
+            .withFleetRange("Visa", "448460", "448611")
+            .withFleetRange("Visa", "448613", "448615")
+            .withFleetRange("Visa", "448617", "448674")
+            .withFleetRange("Visa", "448676", "448686")
+            .withFleetRange("Visa", "448688", "448699")
+            .withFleetRange("Visa", "461400", "461421")
+            .withFleetRange("Visa", "461423", "461499")
+            .withFleetRange("Visa", "480700", "480899")
+
+            // mastercard fleet mappings
+            .withFleetRange("MC", "553231", "553380")
+            .withFleetRange("MC", "556083", "556099")
+            .withFleetRange("MC", "556100", "556599")
+            .withFleetRange("MC", "556700", "556999")
+
+            // wright express fleet mappings
+            .withFleetRange("Wex", "690046", "690046")
+            .withFleetRange("Wex", "707138", "707138")
+
+            // voyager fleet
+            .withFleetRange("Voyager", "708885", "708889")
+
+            //Fuelman fleet
+            .withFleetRange("Fuelman", "707649", "707649")
+
+            //FleetWide
+            .withFleetRange("FleetWide", "707685", "707685");
+
+    // adds the entries of a supplementary BIN table, see BinTable for the format
+    public static void loadBinTable(String filePath) throws ConfigurationException {
+        Reader reader = null;
+        try {
+            reader = new InputStreamReader(new FileInputStream(filePath), StandardCharsets.UTF_8);
+            loadBinTable(reader);
+        }
+        catch(IOException exc) {
+            throw new ConfigurationException(String.format("Failed to read the BIN table %s.", filePath), exc);
+        }
+        finally {
+            if(reader != null) {
+                try {
+                    reader.close();
+                }
+                catch(IOException exc) {
+                    // Eating the close exception
+                }
+            }
+        }
+    }
+
+    public static synchronized void loadBinTable(Reader reader) throws ConfigurationException {
+        binTable = binTable.load(reader);
     }
 
     public static boolean isFleet(String cardType, String pan) {
         if (!StringUtils.isNullOrEmpty(pan)) {
-            int compareValue = Integer.parseInt(pan.substring(0, 6));
             String baseCardType = StringUtils.trimEnd(cardType, "Fleet");
-
-            if (fleetBinMap.containsKey(baseCardType)) {
-                Map<String, String> binRanges = fleetBinMap.get(baseCardType);
-                for (String key : binRanges.keySet()) {
-                    int lowerRange = Integer.parseInt(key);
-                    int upperRange = Integer.parseInt(binRanges.get(key));
-
-                    if (compareValue >= lowerRange && compareValue <= upperRange) {
-                        return true;
-                    }
-                }
-            }
+            return binTable.isFleet(baseCardType, pan);
         }
         return false;
     }
 
     public static boolean isReadyLink(String pan) {
         if(!StringUtils.isNullOrEmpty(pan)) {
-            String compareValue = pan.substring(0, 6);
-            return readyLinkBinMap.contains(compareValue);
+            return binTable.isReadyLink(pan);
         }
         return false;
     }
@@ -162,21 +157,17 @@ public class CardUtils {
     public static String mapCardType(String pan) {
         String rvalue = "Unknown";
         if(!StringUtils.isNullOrEmpty(pan)) {
-            pan = pan.replace(" ", "").replace("-", "");
+            BinTable bins = binTable;
 
-            for (Map.Entry<String, Pattern> kvp : regexMap.entrySet()) {
-                if (kvp.getValue().matcher(pan).find()) {
-                    rvalue = kvp.getKey();
-                }
-            }
+            String cardType = bins.findCardType(pan);
+            if(cardType != null) {
+                rvalue = cardType;
 
-            // we have a card type, check if it's a fleet card
-            if(!rvalue.equals("Unknown")) {
-               // if(isFleet(rvalue, pan)){
-                if(isFleet(rvalue, pan)&&(!rvalue.equals("FleetWide"))) {
+                // we have a card type, check if it's a fleet card
+                if(bins.isFleet(rvalue, pan) && (!rvalue.equals("FleetWide"))) {
                     rvalue += "Fleet";
                 }
-                else if(isReadyLink(pan)) {
+                else if(bins.isReadyLink(pan)) {
                     rvalue += "ReadyLink";
                 }
             }
@@ -186,7 +177,7 @@ public class CardUtils {
 
     public static String getBaseCardType(String cardType) {
         var resultCardType = cardType;
-        for (String cardTypeKey : regexMap.keySet()) {
+        for (String cardTypeKey : binTable.getCardTypes()) {
             if (cardType.toUpperCase().startsWith(cardTypeKey.toUpperCase())) {
                 return cardTypeKey;
             }
@@ -195,55 +186,24 @@ public class CardUtils {
     }
 
     public static GiftCard parseTrackData(GiftCard paymentMethod) {
-        String trackData = paymentMethod.getValue();
-        Matcher matcher = trackTwoPattern.matcher(trackData);
-        if(matcher.find()) {
-            paymentMethod.setTrackNumber(TrackNumber.TrackTwo);
-            paymentMethod.setPan(matcher.group(1));
-            paymentMethod.setExpiry(matcher.group(2));
-            paymentMethod.setTrackData(StringUtils.trimStart(matcher.group(), ";"));
-        }
-        else {
-            matcher = trackOnePattern.matcher(trackData);
-            if(matcher.find()) {
-                paymentMethod.setTrackNumber(TrackNumber.TrackOne);
-                paymentMethod.setPan(matcher.group(1));
-                paymentMethod.setExpiry(matcher.group(2));
-                paymentMethod.setTrackData(StringUtils.trimStart(matcher.group(), "%"));
-            }
+        TrackDataParser parser = new TrackDataParser();
+        if(parser.parse(paymentMethod.getValue())) {
+            paymentMethod.setTrackNumber(parser.getTrackNumber());
+            paymentMethod.setPan(parser.getPan());
+            paymentMethod.setExpiry(parser.getExpiry());
+            paymentMethod.setTrackData(parser.getRawTrackData());
         }
 
         return paymentMethod;
     }
     public static <T extends ITrackData> T parseTrackData(T paymentMethod) {
-        String trackData = paymentMethod.getValue();
-        Matcher matcher = trackTwoPattern.matcher(trackData);
-        if(matcher.find()) {
-            String pan = matcher.group(1);
-            String expiry = matcher.group(2);
-            String discretionary = matcher.group(3);
-
-            if(!StringUtils.isNullOrEmpty(discretionary)) {
-                if(pan.concat(expiry).concat(discretionary).length() == 37 && discretionary.toLowerCase().endsWith("f")) {
-                    discretionary = discretionary.substring(0, discretionary.length() - 1);
-                }
-            }
-
-            paymentMethod.setTrackNumber(TrackNumber.TrackTwo);
-            paymentMethod.setPan(pan);
-            paymentMethod.setExpiry(expiry);
-            paymentMethod.setDiscretionaryData(discretionary);
-            paymentMethod.setTrackData(String.format("%s=%s%s", pan, expiry, discretionary != null ? discretionary : ""));
-        }
-        else {
-            matcher = trackOnePattern.matcher(trackData);
-            if(matcher.find()) {
-                paymentMethod.setTrackNumber(TrackNumber.TrackOne);
-                paymentMethod.setPan(matcher.group(1));
-                paymentMethod.setExpiry(matcher.group(2));
-                paymentMethod.setDiscretionaryData(matcher.group(3));
-                paymentMethod.setTrackData(StringUtils.trimStart(matcher.group(), "%"));
-            }
+        TrackDataParser parser = new TrackDataParser();
+        if(parser.parse(paymentMethod.getValue())) {
+            paymentMethod.setTrackNumber(parser.getTrackNumber());
+            paymentMethod.setPan(parser.getPan());
+            paymentMethod.setExpiry(parser.getExpiry());
+            paymentMethod.setDiscretionaryData(parser.getDiscretionaryData());
+            paymentMethod.setTrackData(parser.getTrackData());
         }
 
         return paymentMethod;
@@ -2,6 +2,7 @@ package com.global.api.utils;
 
 import com.global.api.entities.Address;
 
+import java.text.Normalizer;
 import java.util.*;
 
 public class CountryUtils {
@@ -9,9 +10,25 @@ public class CountryUtils {
     private static Map<String, String> countryMapByCountryCode;
     private static Map<String, String> countryCodeMapByNumericCode;
     private static Map<String, String> numericCodeMapByCountryCode;
+    private static Map<String, String> countryCodeMapByAlpha3Code;
+    private static Map<String, String> countryCodeMapByAlias;
+    private static Map<String, String> countryCodeIndex;
+    private static String[] fuzzyCountryNames;
+    private static String[] fuzzyCountryCodes;
+    private static Map<Integer, int[]> countryNamesByPair;
     private static final int significantCountryMatch = 6;
     private static final int significantCodeMatch = 3;
 
+    // recent fuzzy results, people type the same misspellings over and over
+    private static final int fuzzyCacheSize = 512;
+    private static final String noMatch = "";
+    private static final Map<String, String> fuzzyCache = Collections.synchronizedMap(new LinkedHashMap<String, String>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > fuzzyCacheSize;
+        }
+    });
+
     static {
         // build country code map
         countryCodeMapByCountry = new HashMap<>();
@@ -529,6 +546,336 @@ public class CountryUtils {
         for(String numericCode : countryCodeMapByNumericCode.keySet()) {
             numericCodeMapByCountryCode.put(countryCodeMapByNumericCode.get(numericCode), numericCode);
         }
+
+        countryCodeMapByAlpha3Code = new HashMap<>();
+        countryCodeMapByAlpha3Code.put("ABW", "AW");
+        countryCodeMapByAlpha3Code.put("AFG", "AF");
+        countryCodeMapByAlpha3Code.put("AGO", "AO");
+        countryCodeMapByAlpha3Code.put("AIA", "AI");
+        countryCodeMapByAlpha3Code.put("ALA", "AX");
+        countryCodeMapByAlpha3Code.put("ALB", "AL");
+        countryCodeMapByAlpha3Code.put("AND", "AD");
+        countryCodeMapByAlpha3Code.put("ANT", "AN");
+        countryCodeMapByAlpha3Code.put("ARE", "AE");
+        countryCodeMapByAlpha3Code.put("ARG", "AR");
+        countryCodeMapByAlpha3Code.put("ARM", "AM");
+        countryCodeMapByAlpha3Code.put("ASM", "AS");
+        countryCodeMapByAlpha3Code.put("ATA", "AQ");
+        countryCodeMapByAlpha3Code.put("ATF", "TF");
+        countryCodeMapByAlpha3Code.put("ATG", "AG");
+        countryCodeMapByAlpha3Code.put("AUS", "AU");
+        countryCodeMapByAlpha3Code.put("AUT", "AT");
+        countryCodeMapByAlpha3Code.put("AZE", "AZ");
+        countryCodeMapByAlpha3Code.put("BDI", "BI");
+        countryCodeMapByAlpha3Code.put("BEL", "BE");
+        countryCodeMapByAlpha3Code.put("BEN", "BJ");
+        countryCodeMapByAlpha3Code.put("BES", "BQ");
+        countryCodeMapByAlpha3Code.put("BFA", "BF");
+        countryCodeMapByAlpha3Code.put("BGD", "BD");
+        countryCodeMapByAlpha3Code.put("BGR", "BG");
+        countryCodeMapByAlpha3Code.put("BHR", "BH");
+        countryCodeMapByAlpha3Code.put("BHS", "BS");
+        countryCodeMapByAlpha3Code.put("BIH", "BA");
+        countryCodeMapByAlpha3Code.put("BLM", "BL");
+        countryCodeMapByAlpha3Code.put("BLR", "BY");
+        countryCodeMapByAlpha3Code.put("BLZ", "BZ");
+        countryCodeMapByAlpha3Code.put("BMU", "BM");
+        countryCodeMapByAlpha3Code.put("BOL", "BO");
+        countryCodeMapByAlpha3Code.put("BRA", "BR");
+        countryCodeMapByAlpha3Code.put("BRB", "BB");
+        countryCodeMapByAlpha3Code.put("BRN", "BN");
+        countryCodeMapByAlpha3Code.put("BTN", "BT");
+        countryCodeMapByAlpha3Code.put("BVT", "BV");
+        countryCodeMapByAlpha3Code.put("BWA", "BW");
+        countryCodeMapByAlpha3Code.put("CAF", "CF");
+        countryCodeMapByAlpha3Code.put("CAN", "CA");
+        countryCodeMapByAlpha3Code.put("CCK", "CC");
+        countryCodeMapByAlpha3Code.put("CHE", "CH");
+        countryCodeMapByAlpha3Code.put("CHL", "CL");
+        countryCodeMapByAlpha3Code.put("CHN", "CN");
+        countryCodeMapByAlpha3Code.put("CIV", "CI");
+        countryCodeMapByAlpha3Code.put("CMR", "CM");
+        countryCodeMapByAlpha3Code.put("COD", "CD");
+        countryCodeMapByAlpha3Code.put("COG", "CG");
+        countryCodeMapByAlpha3Code.put("COK", "CK");
+        countryCodeMapByAlpha3Code.put("COL", "CO");
+        countryCodeMapByAlpha3Code.put("COM", "KM");
+        countryCodeMapByAlpha3Code.put("CPV", "CV");
+        countryCodeMapByAlpha3Code.put("CRI", "CR");
+        countryCodeMapByAlpha3Code.put("CUB", "CU");
+        countryCodeMapByAlpha3Code.put("CUW", "CW");
+        countryCodeMapByAlpha3Code.put("CXR", "CX");
+        countryCodeMapByAlpha3Code.put("CYM", "KY");
+        countryCodeMapByAlpha3Code.put("CYP", "CY");
+        countryCodeMapByAlpha3Code.put("CZE", "CZ");
+        countryCodeMapByAlpha3Code.put("DEU", "DE");
+        countryCodeMapByAlpha3Code.put("DJI", "DJ");
+        countryCodeMapByAlpha3Code.put("DMA", "DM");
+        countryCodeMapByAlpha3Code.put("DNK", "DK");
+        countryCodeMapByAlpha3Code.put("DOM", "DO");
+        countryCodeMapByAlpha3Code.put("DZA", "DZ");
+        countryCodeMapByAlpha3Code.put("ECU", "EC");
+        countryCodeMapByAlpha3Code.put("EGY", "EG");
+        countryCodeMapByAlpha3Code.put("ERI", "ER");
+        countryCodeMapByAlpha3Code.put("ESH", "EH");
+        countryCodeMapByAlpha3Code.put("ESP", "ES");
+        countryCodeMapByAlpha3Code.put("EST", "EE");
+        countryCodeMapByAlpha3Code.put("ETH", "ET");
+        countryCodeMapByAlpha3Code.put("FIN", "FI");
+        countryCodeMapByAlpha3Code.put("FJI", "FJ");
+        countryCodeMapByAlpha3Code.put("FLK", "FK");
+        countryCodeMapByAlpha3Code.put("FRA", "FR");
+        countryCodeMapByAlpha3Code.put("FRO", "FO");
+        countryCodeMapByAlpha3Code.put("FSM", "FM");
+        countryCodeMapByAlpha3Code.put("GAB", "GA");
+        countryCodeMapByAlpha3Code.put("GBR", "GB");
+        countryCodeMapByAlpha3Code.put("GEO", "GE");
+        countryCodeMapByAlpha3Code.put("GGY", "GG");
+        countryCodeMapByAlpha3Code.put("GHA", "GH");
+        countryCodeMapByAlpha3Code.put("GIB", "GI");
+        countryCodeMapByAlpha3Code.put("GIN", "GN");
+        countryCodeMapByAlpha3Code.put("GLP", "GP");
+        countryCodeMapByAlpha3Code.put("GMB", "GM");
+        countryCodeMapByAlpha3Code.put("GNB", "GW");
+        countryCodeMapByAlpha3Code.put("GNQ", "GQ");
+        countryCodeMapByAlpha3Code.put("GRC", "GR");
+        countryCodeMapByAlpha3Code.put("GRD", "GD");
+        countryCodeMapByAlpha3Code.put("GRL", "GL");
+        countryCodeMapByAlpha3Code.put("GTM", "GT");
+        countryCodeMapByAlpha3Code.put("GUF", "GF");
+        countryCodeMapByAlpha3Code.put("GUM", "GU");
+        countryCodeMapByAlpha3Code.put("GUY", "GY");
+        countryCodeMapByAlpha3Code.put("HKG", "HK");
+        countryCodeMapByAlpha3Code.put("HMD", "HM");
+        countryCodeMapByAlpha3Code.put("HND", "HN");
+        countryCodeMapByAlpha3Code.put("HRV", "HR");
+        countryCodeMapByAlpha3Code.put("HTI", "HT");
+        countryCodeMapByAlpha3Code.put("HUN", "HU");
+        countryCodeMapByAlpha3Code.put("IDN", "ID");
+        countryCodeMapByAlpha3Code.put("IMN", "IM");
+        countryCodeMapByAlpha3Code.put("IND", "IN");
+        countryCodeMapByAlpha3Code.put("IOT", "IO");
+        countryCodeMapByAlpha3Code.put("IRL", "IE");
+        countryCodeMapByAlpha3Code.put("IRN", "IR");
+        countryCodeMapByAlpha3Code.put("IRQ", "IQ");
+        countryCodeMapByAlpha3Code.put("ISL", "IS");
+        countryCodeMapByAlpha3Code.put("ISR", "IL");
+        countryCodeMapByAlpha3Code.put("ITA", "IT");
+        countryCodeMapByAlpha3Code.put("JAM", "JM");
+        countryCodeMapByAlpha3Code.put("JEY", "JE");
+        countryCodeMapByAlpha3Code.put("JOR", "JO");
+        countryCodeMapByAlpha3Code.put("JPN", "JP");
+        countryCodeMapByAlpha3Code.put("KAZ", "KZ");
+        countryCodeMapByAlpha3Code.put("KEN", "KE");
+        countryCodeMapByAlpha3Code.put("KGZ", "KG");
+        countryCodeMapByAlpha3Code.put("KHM", "KH");
+        countryCodeMapByAlpha3Code.put("KIR", "KI");
+        countryCodeMapByAlpha3Code.put("KNA", "KN");
+        countryCodeMapByAlpha3Code.put("KOR", "KR");
+        countryCodeMapByAlpha3Code.put("KWT", "KW");
+        countryCodeMapByAlpha3Code.put("LAO", "LA");
+        countryCodeMapByAlpha3Code.put("LBN", "LB");
+        countryCodeMapByAlpha3Code.put("LBR", "LR");
+        countryCodeMapByAlpha3Code.put("LBY", "LY");
+        countryCodeMapByAlpha3Code.put("LCA", "LC");
+        countryCodeMapByAlpha3Code.put("LIE", "LI");
+        countryCodeMapByAlpha3Code.put("LKA", "LK");
+        countryCodeMapByAlpha3Code.put("LSO", "LS");
+        countryCodeMapByAlpha3Code.put("LTU", "LT");
+        countryCodeMapByAlpha3Code.put("LUX", "LU");
+        countryCodeMapByAlpha3Code.put("LVA", "LV");
+        countryCodeMapByAlpha3Code.put("MAC", "MO");
+        countryCodeMapByAlpha3Code.put("MAF", "MF");
+        countryCodeMapByAlpha3Code.put("MAR", "MA");
+        countryCodeMapByAlpha3Code.put("MCO", "MC");
+        countryCodeMapByAlpha3Code.put("MDA", "MD");
+        countryCodeMapByAlpha3Code.put("MDG", "MG");
+        countryCodeMapByAlpha3Code.put("MDV", "MV");
+        countryCodeMapByAlpha3Code.put("MEX", "MX");
+        countryCodeMapByAlpha3Code.put("MHL", "MH");
+        countryCodeMapByAlpha3Code.put("MKD", "MK");
+        countryCodeMapByAlpha3Code.put("MLI", "ML");
+        countryCodeMapByAlpha3Code.put("MLT", "MT");
+        countryCodeMapByAlpha3Code.put("MMR", "MM");
+        countryCodeMapByAlpha3Code.put("MNE", "ME");
+        countryCodeMapByAlpha3Code.put("MNG", "MN");
+        countryCodeMapByAlpha3Code.put("MNP", "MP");
+        countryCodeMapByAlpha3Code.put("MOZ", "MZ");
+        countryCodeMapByAlpha3Code.put("MRT", "MR");
+        countryCodeMapByAlpha3Code.put("MSR", "MS");
+        countryCodeMapByAlpha3Code.put("MTQ", "MQ");
+        countryCodeMapByAlpha3Code.put("MUS", "MU");
+        countryCodeMapByAlpha3Code.put("MWI", "MW");
+        countryCodeMapByAlpha3Code.put("MYS", "MY");
+        countryCodeMapByAlpha3Code.put("MYT", "YT");
+        countryCodeMapByAlpha3Code.put("NAM", "NA");
+        countryCodeMapByAlpha3Code.put("NCL", "NC");
+        countryCodeMapByAlpha3Code.put("NER", "NE");
+        countryCodeMapByAlpha3Code.put("NFK", "NF");
+        countryCodeMapByAlpha3Code.put("NGA", "NG");
+        countryCodeMapByAlpha3Code.put("NIC", "NI");
+        countryCodeMapByAlpha3Code.put("NIU", "NU");
+        countryCodeMapByAlpha3Code.put("NLD", "NL");
+        countryCodeMapByAlpha3Code.put("NOR", "NO");
+        countryCodeMapByAlpha3Code.put("NPL", "NP");
+        countryCodeMapByAlpha3Code.put("NRU", "NR");
+        countryCodeMapByAlpha3Code.put("NZL", "NZ");
+        countryCodeMapByAlpha3Code.put("OMN", "OM");
+        countryCodeMapByAlpha3Code.put("PAK", "PK");
+        countryCodeMapByAlpha3Code.put("PAN", "PA");
+        countryCodeMapByAlpha3Code.put("PCN", "PN");
+        countryCodeMapByAlpha3Code.put("PER", "PE");
+        countryCodeMapByAlpha3Code.put("PHL", "PH");
+        countryCodeMapByAlpha3Code.put("PLW", "PW");
+        countryCodeMapByAlpha3Code.put("PNG", "PG");
+        countryCodeMapByAlpha3Code.put("POL", "PL");
+        countryCodeMapByAlpha3Code.put("PRI", "PR");
+        countryCodeMapByAlpha3Code.put("PRK", "KP");
+        countryCodeMapByAlpha3Code.put("PRT", "PT");
+        countryCodeMapByAlpha3Code.put("PRY", "PY");
+        countryCodeMapByAlpha3Code.put("PSE", "PS");
+        countryCodeMapByAlpha3Code.put("PYF", "PF");
+        countryCodeMapByAlpha3Code.put("QAT", "QA");
+        countryCodeMapByAlpha3Code.put("REU", "RE");
+        countryCodeMapByAlpha3Code.put("ROU", "RO");
+        countryCodeMapByAlpha3Code.put("RUS", "RU");
+        countryCodeMapByAlpha3Code.put("RWA", "RW");
+        countryCodeMapByAlpha3Code.put("SAU", "SA");
+        countryCodeMapByAlpha3Code.put("SDN", "SD");
+        countryCodeMapByAlpha3Code.put("SEN", "SN");
+        countryCodeMapByAlpha3Code.put("SGP", "SG");
+        countryCodeMapByAlpha3Code.put("SGS", "GS");
+        countryCodeMapByAlpha3Code.put("SHN", "SH");
+        countryCodeMapByAlpha3Code.put("SJM", "SJ");
+        countryCodeMapByAlpha3Code.put("SLB", "SB");
+        countryCodeMapByAlpha3Code.put("SLE", "SL");
+        countryCodeMapByAlpha3Code.put("SLV", "SV");
+        countryCodeMapByAlpha3Code.put("SMR", "SM");
+        countryCodeMapByAlpha3Code.put("SOM", "SO");
+        countryCodeMapByAlpha3Code.put("SPM", "PM");
+        countryCodeMapByAlpha3Code.put("SRB", "RS");
+        countryCodeMapByAlpha3Code.put("SSD", "SS");
+        countryCodeMapByAlpha3Code.put("STP", "ST");
+        countryCodeMapByAlpha3Code.put("SUR", "SR");
+        countryCodeMapByAlpha3Code.put("SVK", "SK");
+        countryCodeMapByAlpha3Code.put("SVN", "SI");
+        countryCodeMapByAlpha3Code.put("SWE", "SE");
+        countryCodeMapByAlpha3Code.put("SWZ", "SZ");
+        countryCodeMapByAlpha3Code.put("SXM", "SX");
+        countryCodeMapByAlpha3Code.put("SYC", "SC");
+        countryCodeMapByAlpha3Code.put("SYR", "SY");
+        countryCodeMapByAlpha3Code.put("TCA", "TC");
+        countryCodeMapByAlpha3Code.put("TCD", "TD");
+        countryCodeMapByAlpha3Code.put("TGO", "TG");
+        countryCodeMapByAlpha3Code.put("THA", "TH");
+        countryCodeMapByAlpha3Code.put("TJK", "TJ");
+        countryCodeMapByAlpha3Code.put("TKL", "TK");
+        countryCodeMapByAlpha3Code.put("TKM", "TM");
+        countryCodeMapByAlpha3Code.put("TLS", "TL");
+        countryCodeMapByAlpha3Code.put("TON", "TO");
+        countryCodeMapByAlpha3Code.put("TTO", "TT");
+        countryCodeMapByAlpha3Code.put("TUN", "TN");
+        countryCodeMapByAlpha3Code.put("TUR", "TR");
+        countryCodeMapByAlpha3Code.put("TUV", "TV");
+        countryCodeMapByAlpha3Code.put("TWN", "TW");
+        countryCodeMapByAlpha3Code.put("TZA", "TZ");
+        countryCodeMapByAlpha3Code.put("UGA", "UG");
+        countryCodeMapByAlpha3Code.put("UKR", "UA");
+        countryCodeMapByAlpha3Code.put("UMI", "UM");
+        countryCodeMapByAlpha3Code.put("URY", "UY");
+        countryCodeMapByAlpha3Code.put("USA", "US");
+        countryCodeMapByAlpha3Code.put("UZB", "UZ");
+        countryCodeMapByAlpha3Code.put("VAT", "VA");
+        countryCodeMapByAlpha3Code.put("VCT", "VC");
+        countryCodeMapByAlpha3Code.put("VEN", "VE");
+        countryCodeMapByAlpha3Code.put("VGB", "VG");
+        countryCodeMapByAlpha3Code.put("VIR", "VI");
+        countryCodeMapByAlpha3Code.put("VNM", "VN");
+        countryCodeMapByAlpha3Code.put("VUT", "VU");
+        countryCodeMapByAlpha3Code.put("WLF", "WF");
+        countryCodeMapByAlpha3Code.put("WSM", "WS");
+        countryCodeMapByAlpha3Code.put("YEM", "YE");
+        countryCodeMapByAlpha3Code.put("ZAF", "ZA");
+        countryCodeMapByAlpha3Code.put("ZMB", "ZM");
+        countryCodeMapByAlpha3Code.put("ZWE", "ZW");
+
+        // common names that differ from the ISO short names
+        countryCodeMapByAlias = new HashMap<>();
+        countryCodeMapByAlias.put("United States", "US");
+        countryCodeMapByAlias.put("United Kingdom", "GB");
+        countryCodeMapByAlias.put("Great Britain", "GB");
+        countryCodeMapByAlias.put("UK", "GB");
+        countryCodeMapByAlias.put("Bolivia", "BO");
+        countryCodeMapByAlias.put("Brunei", "BN");
+        countryCodeMapByAlias.put("Cape Verde", "CV");
+        countryCodeMapByAlias.put("Ivory Coast", "CI");
+        countryCodeMapByAlias.put("Czech Republic", "CZ");
+        countryCodeMapByAlias.put("Democratic Republic of the Congo", "CD");
+        countryCodeMapByAlias.put("DR Congo", "CD");
+        countryCodeMapByAlias.put("East Timor", "TL");
+        countryCodeMapByAlias.put("Holland", "NL");
+        countryCodeMapByAlias.put("Iran", "IR");
+        countryCodeMapByAlias.put("Laos", "LA");
+        countryCodeMapByAlias.put("Macedonia", "MK");
+        countryCodeMapByAlias.put("Micronesia", "FM");
+        countryCodeMapByAlias.put("Moldova", "MD");
+        countryCodeMapByAlias.put("Burma", "MM");
+        countryCodeMapByAlias.put("North Korea", "KP");
+        countryCodeMapByAlias.put("South Korea", "KR");
+        countryCodeMapByAlias.put("Palestine", "PS");
+        countryCodeMapByAlias.put("Russia", "RU");
+        countryCodeMapByAlias.put("Swaziland", "SZ");
+        countryCodeMapByAlias.put("Syria", "SY");
+        countryCodeMapByAlias.put("Taiwan", "TW");
+        countryCodeMapByAlias.put("Tanzania", "TZ");
+        countryCodeMapByAlias.put("Türkiye", "TR");
+        countryCodeMapByAlias.put("Vatican City", "VA");
+        countryCodeMapByAlias.put("Venezuela", "VE");
+        countryCodeMapByAlias.put("Vietnam", "VN");
+
+        // one lookup for names, aliases and codes, ignoring case, accents and punctuation
+        countryCodeIndex = new HashMap<>();
+        addToIndex(countryCodeMapByNumericCode);
+        addToIndex(countryCodeMapByAlpha3Code);
+        for(String countryCode : countryMapByCountryCode.keySet()) {
+            countryCodeIndex.put(normalize(countryCode), countryCode);
+        }
+        addToIndex(countryCodeMapByAlias);
+        addToIndex(countryCodeMapByCountry);
+
+        // character pairs of the names, used to narrow down the fuzzy matches
+        fuzzyCountryNames = new String[countryCodeMapByCountry.size()];
+        fuzzyCountryCodes = new String[fuzzyCountryNames.length];
+        Map<Integer, List<Integer>> pairs = new HashMap<>();
+        int entry = 0;
+        for(Map.Entry<String, String> country : countryCodeMapByCountry.entrySet()) {
+            String name = fold(country.getKey());
+            fuzzyCountryNames[entry] = name;
+            fuzzyCountryCodes[entry] = country.getValue();
+
+            Set<Integer> seen = new HashSet<>();
+            for(int i = 0; i + 1 < name.length(); i++) {
+                Integer pair = pair(name, i);
+                if(seen.add(pair)) {
+                    List<Integer> entries = pairs.get(pair);
+                    if(entries == null) {
+                        entries = new ArrayList<>();
+                        pairs.put(pair, entries);
+                    }
+                    entries.add(entry);
+                }
+            }
+            entry++;
+        }
+
+        countryNamesByPair = new HashMap<>();
+        for(Map.Entry<Integer, List<Integer>> pair : pairs.entrySet()) {
+            int[] entries = new int[pair.getValue().size()];
+            for(int i = 0; i < entries.length; i++) {
+                entries[i] = pair.getValue().get(i);
+            }
+            countryNamesByPair.put(pair.getKey(), entries);
+        }
     }
 
     // These getters will be used in the Android SDK to avoid duplicating these maps
@@ -571,7 +918,12 @@ public class CountryUtils {
             if(countryCode.length() > 3)
                 return null;
 
-            return fuzzyMatch(countryMapByCountryCode, countryCode, significantCodeMatch);
+            String alpha3Match = countryCodeMapByAlpha3Code.get(countryCode.toUpperCase());
+            if(alpha3Match != null)
+                return countryMapByCountryCode.get(alpha3Match);
+
+            String fuzzyCodeMatch = fuzzyMatchCode(countryCode);
+            return fuzzyCodeMatch != null ? countryMapByCountryCode.get(fuzzyCodeMatch) : null;
         }
     }
 
@@ -579,84 +931,115 @@ public class CountryUtils {
         if(country == null)
             return null;
 
-        // These can be tricky... first check for direct match
-        if(countryCodeMapByCountry.containsKey(country)) {
-            return countryCodeMapByCountry.get(country);
-        }
-        else {
-            // check the inverse, in case we have a countryCode in the country field
-            if (countryMapByCountryCode.containsKey(country)) {
-                return country;
-            }
-            else {
-                // check for codes in case we have a numericCode in the country field
-                if (countryCodeMapByNumericCode.containsKey(country)) {
-                    return countryCodeMapByNumericCode.get(country);
-                }
-                else {
-                    // it's not a country match or a countryCode match so let's get fuzzy
-                    String fuzzyCountryMatch = fuzzyMatch(countryCodeMapByCountry, country, significantCountryMatch);
-                    if (fuzzyCountryMatch != null)
-                        return fuzzyCountryMatch;
-                    else {
-                        // assume if it's > 3 it's not a code and do not do fuzzy code matching
-                        if (country.length() > 3)
-                            return null;
-
-                        // 3 or less, let's fuzzy match
-                        String fuzzyCodeMatch = fuzzyMatch(countryMapByCountryCode, country, significantCodeMatch);
-                        if (fuzzyCodeMatch != null)
-                            return countryCodeMapByCountry.get(fuzzyCodeMatch);
-                        return null;
-                    }
+        // These can be tricky... first check for a direct match on the names, aliases and codes
+        String countryCode = countryCodeIndex.get(normalize(country));
+        if(countryCode != null)
+            return countryCode;
+
+        // it's not a country match or a countryCode match so let's get fuzzy
+        String fuzzyCountryMatch = fuzzyMatchCountry(country);
+        if (fuzzyCountryMatch != null)
+            return fuzzyCountryMatch;
+
+        // assume if it's > 3 it's not a code and do not do fuzzy code matching
+        if (country.length() > 3)
+            return null;
+
+        // 3 or less, let's fuzzy match
+        return fuzzyMatchCode(country);
+    }
+
+    private static String fuzzyMatchCountry(String country) {
+        String query = fold(country);
+        String key = "country:" + query;
+        String cached = fuzzyCache.get(key);
+        if(cached != null)
+            return cached == noMatch ? null : cached;
+
+        // a name scores at most one per matching character plus two per character pair it shares with the query,
+        // so only names whose bound can reach the best score so far need to be scored
+        int[] sharedPairs = new int[fuzzyCountryNames.length];
+        for(int i = 0; i + 1 < query.length(); i++) {
+            int[] entries = countryNamesByPair.get(pair(query, i));
+            if(entries != null) {
+                for(int entry : entries) {
+                    sharedPairs[entry]++;
                 }
             }
         }
-    }
 
-    private static String fuzzyMatch(Map<String, String> dict, String query, int significantMatch) {
-        String rvalue = null;
-        Map<String, String> matches = new HashMap<>();
+        int[] candidates = new int[fuzzyCountryNames.length];
+        int candidateCount = 0;
+        for(int entry = 0; entry < fuzzyCountryNames.length; entry++) {
+            int bound = Math.min(query.length(), fuzzyCountryNames[entry].length()) + 2 * sharedPairs[entry];
+            if(bound > significantCountryMatch) {
+                candidates[candidateCount++] = (bound << 16) | entry;
+            }
+        }
+        Arrays.sort(candidates, 0, candidateCount);
 
-        // now we can loop
+        String rvalue = null;
         int highScore = -1;
-        for(String key : dict.keySet()) {
-            int score = fuzzyScore(key, query);
-            if(score > significantMatch && score > highScore) {
-                matches = new HashMap<>();
-
+        boolean tied = false;
+        for(int i = candidateCount - 1; i >= 0 && (candidates[i] >>> 16) >= highScore; i--) {
+            int entry = candidates[i] & 0xFFFF;
+            int score = fuzzyScore(fuzzyCountryNames[entry], query);
+            if(score > significantCountryMatch && score > highScore) {
                 highScore = score;
-                rvalue = dict.get(key);
-                matches.put(key, rvalue);
+                rvalue = fuzzyCountryCodes[entry];
+                tied = false;
             }
             else if(score == highScore) {
-                matches.put(key, dict.get(key));
+                tied = true;
             }
         }
 
-        if(matches.size() > 1)
-            return null;
+        if(tied)
+            rvalue = null;
+        fuzzyCache.put(key, rvalue != null ? rvalue : noMatch);
         return rvalue;
     }
 
-    private static Integer fuzzyScore(final CharSequence term, final CharSequence query) {
-        if(term == null || query == null) {
-            throw new IllegalArgumentException("Strings must not be null");
+    private static String fuzzyMatchCode(String countryCode) {
+        String query = fold(countryCode);
+        String key = "code:" + query;
+        String cached = fuzzyCache.get(key);
+        if(cached != null)
+            return cached == noMatch ? null : cached;
+
+        String rvalue = null;
+        int highScore = -1;
+        boolean tied = false;
+        for(String code : countryMapByCountryCode.keySet()) {
+            int score = fuzzyScore(code.toLowerCase(), query);
+            if(score > significantCodeMatch && score > highScore) {
+                highScore = score;
+                rvalue = code;
+                tied = false;
+            }
+            else if(score == highScore) {
+                tied = true;
+            }
         }
 
-        final String termLowerCase = term.toString().toLowerCase();
-        final String queryLowerCase = query.toString().toLowerCase();
+        if(tied)
+            rvalue = null;
+        fuzzyCache.put(key, rvalue != null ? rvalue : noMatch);
+        return rvalue;
+    }
 
+    // both values are expected to be folded already
+    private static int fuzzyScore(final String term, final String query) {
         int score = 0;
         int termIndex = 0;
         int previousMatchingCharacterIndex = Integer.MIN_VALUE;
 
-        for(int queryIndex = 0; queryIndex < queryLowerCase.length(); queryIndex++) {
-            final char queryChar = queryLowerCase.charAt(queryIndex);
+        for(int queryIndex = 0; queryIndex < query.length(); queryIndex++) {
+            final char queryChar = query.charAt(queryIndex);
 
             boolean termCharacterMatchFound = false;
-            for(; termIndex < termLowerCase.length() && !termCharacterMatchFound; termIndex++) {
-                final char termChar = termLowerCase.charAt(termIndex);
+            for(; termIndex < term.length() && !termCharacterMatchFound; termIndex++) {
+                final char termChar = term.charAt(termIndex);
 
                 if(queryChar == termChar) {
                     score++;
@@ -672,6 +1055,50 @@ public class CountryUtils {
         return score;
     }
 
+    private static void addToIndex(Map<String, String> countryCodes) {
+        for(Map.Entry<String, String> countryCode : countryCodes.entrySet()) {
+            countryCodeIndex.put(normalize(countryCode.getKey()), countryCode.getValue());
+        }
+    }
+
+    private static Integer pair(String value, int index) {
+        return (value.charAt(index) << 16) | value.charAt(index + 1);
+    }
+
+    // lower case without accents, the length and punctuation are kept for the fuzzy score
+    private static String fold(String value) {
+        String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        for(int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if(Character.getType(c) != Character.NON_SPACING_MARK) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    // folded, with anything other than letters and digits reduced to single spaces
+    private static String normalize(String value) {
+        String folded = fold(value);
+        StringBuilder sb = new StringBuilder(folded.length());
+        for(int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if(Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            }
+            else if(sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+                sb.append(' ');
+            }
+        }
+
+        int length = sb.length();
+        if(length > 0 && sb.charAt(length - 1) == ' ') {
+            sb.setLength(length - 1);
+        }
+        return sb.toString();
+    }
+
     public static String getNumericCodeByCountry(String country) {
         if (countryCodeMapByNumericCode.containsKey(country)) {
             return country;
@@ -4,25 +4,53 @@ import com.global.api.entities.enums.IFlag;
 import com.global.api.entities.enums.IMappedConstant;
 import com.global.api.entities.enums.IStringConstant;
 import com.global.api.entities.exceptions.ApiException;
+import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
+import org.w3c.dom.NodeList;
 
+import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import java.io.IOException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.Map;
 
 public class ElementTree {
+    // the stax factories are thread safe once configured, document builders are not so each thread keeps one
+    private static final XMLInputFactory inputFactory;
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private static final DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+    private static final ThreadLocal<DocumentBuilder> documentBuilder = new ThreadLocal<DocumentBuilder>() {
+        @Override
+        protected DocumentBuilder initialValue() {
+            try {
+                synchronized (documentBuilderFactory) {
+                    return documentBuilderFactory.newDocumentBuilder();
+                }
+            } catch (ParserConfigurationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+    static {
+        inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
     private Document doc;
     private HashMap<String, String> namespaces;
 
@@ -108,24 +136,78 @@ public class ElementTree {
     }
 
     public String toString(Element root) {
-        doc.appendChild(root.getElement());
+        StringWriter buffer = new StringWriter();
+        buffer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
 
         try {
-            TransformerFactory tFact = TransformerFactory.newInstance();
-            Transformer trans = tFact.newTransformer();
-
-            StringWriter writer = new StringWriter();
-            StreamResult result = new StreamResult(writer);
-            DOMSource source = new DOMSource(doc);
-            trans.transform(source, result);
-            return writer.toString();
-        } catch (TransformerException e) {
+            XMLStreamWriter writer = outputFactory.createXMLStreamWriter(buffer);
+            writeElement(writer, root.getElement(), new HashMap<String, String>());
+            writer.close();
+            return buffer.toString();
+        } catch (XMLStreamException e) {
             return e.getMessage();
-        } finally {
-            doc.removeChild(root.getElement());
         }
     }
 
+    private static void writeElement(XMLStreamWriter writer, org.w3c.dom.Element element, Map<String, String> inScope) throws XMLStreamException {
+        NodeList children = element.getChildNodes();
+        if(children.getLength() == 0) {
+            writer.writeEmptyElement(element.getTagName());
+        }
+        else writer.writeStartElement(element.getTagName());
+
+        // attributes first, then a declaration for the element's namespace if it is not in scope yet
+        Map<String, String> scope = inScope;
+        NamedNodeMap attributes = element.getAttributes();
+        for(int i = 0; i < attributes.getLength(); i++) {
+            Attr attribute = (Attr) attributes.item(i);
+            String name = attribute.getName();
+            if(name.equals("xmlns") || name.startsWith("xmlns:")) {
+                scope = declare(scope, inScope, name.equals("xmlns") ? "" : name.substring(6), attribute.getValue());
+            }
+            writer.writeAttribute(name, attribute.getValue());
+        }
+
+        String namespaceUri = element.getNamespaceURI();
+        if(namespaceUri != null) {
+            String prefix = element.getPrefix() == null ? "" : element.getPrefix();
+            if(!namespaceUri.equals(scope.get(prefix))) {
+                writer.writeAttribute(prefix.equals("") ? "xmlns" : "xmlns:" + prefix, namespaceUri);
+                scope = declare(scope, inScope, prefix, namespaceUri);
+            }
+        }
+
+        for(int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            switch (child.getNodeType()) {
+                case Node.ELEMENT_NODE:
+                    writeElement(writer, (org.w3c.dom.Element) child, scope);
+                    break;
+                case Node.TEXT_NODE:
+                    writer.writeCharacters(child.getNodeValue());
+                    break;
+                case Node.CDATA_SECTION_NODE:
+                    writer.writeCData(child.getNodeValue());
+                    break;
+                case Node.COMMENT_NODE:
+                    writer.writeComment(child.getNodeValue());
+                    break;
+            }
+        }
+
+        if(children.getLength() > 0) {
+            writer.writeEndElement();
+        }
+    }
+
+    private static Map<String, String> declare(Map<String, String> scope, Map<String, String> inScope, String prefix, String namespaceUri) {
+        if(scope == inScope) {
+            scope = new HashMap<String, String>(inScope);
+        }
+        scope.put(prefix, namespaceUri);
+        return scope;
+    }
+
     public Element get(String tagName) {
         Node node;
 
@@ -144,11 +226,7 @@ public class ElementTree {
     }
 
     public static ElementTree parse(byte[] buffer) throws ApiException {
-        String xmlString = "";
-        for(byte b: buffer) {
-            xmlString += (char)b;
-        }
-        return parse(xmlString);
+        return parse(new String(buffer, StandardCharsets.ISO_8859_1));
     }
 
     public static ElementTree parse(String xml) throws ApiException {
@@ -156,28 +234,68 @@ public class ElementTree {
     }
 
     public static ElementTree parse(String xml, HashMap<String, String> namespaces) throws ApiException{
-        try {
-            InputSource is = new InputSource(new StringReader(xml));
+        return parse(new StringReader(xml), namespaces);
+    }
 
+    public static ElementTree parse(Reader reader, HashMap<String, String> namespaces) throws ApiException {
+        try {
             ElementTree rvalue = new ElementTree(namespaces);
-            rvalue.setDocument(DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(is));
+            rvalue.setDocument(readDocument(reader));
             return rvalue;
-        } catch(ParserConfigurationException e) {
-            throw new ApiException(e.getMessage());
-        } catch(SAXException e) {
-            throw new ApiException(e.getMessage());
-        } catch(IOException e) {
+        } catch(XMLStreamException e) {
             throw new ApiException(e.getMessage());
         }
     }
 
-    private void init(HashMap<String, String> namespaces) {
+    // builds the same tree a non namespace aware DOM parser would, from a single pass over the stream
+    private static Document readDocument(Reader reader) throws XMLStreamException {
+        Document doc = documentBuilder.get().newDocument();
+
+        XMLStreamReader xr = inputFactory.createXMLStreamReader(reader);
         try {
-            this.namespaces = namespaces;
-            this.doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            Node current = doc;
+            while(xr.hasNext()) {
+                switch (xr.next()) {
+                    case XMLStreamConstants.START_ELEMENT: {
+                        org.w3c.dom.Element element = doc.createElement(qualifiedName(xr.getPrefix(), xr.getLocalName()));
+                        for(int i = 0; i < xr.getNamespaceCount(); i++) {
+                            String prefix = xr.getNamespacePrefix(i);
+                            element.setAttribute(StringUtils.isNullOrEmpty(prefix) ? "xmlns" : "xmlns:" + prefix, xr.getNamespaceURI(i));
+                        }
+                        for(int i = 0; i < xr.getAttributeCount(); i++) {
+                            element.setAttribute(qualifiedName(xr.getAttributePrefix(i), xr.getAttributeLocalName(i)), xr.getAttributeValue(i));
+                        }
+                        current.appendChild(element);
+                        current = element;
+                    } break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        current = current.getParentNode();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        if(current != doc) {
+                            current.appendChild(doc.createTextNode(xr.getText()));
+                        }
+                        break;
+                }
+            }
+        }
+        finally {
+            xr.close();
+        }
+        return doc;
+    }
 
-        } catch (ParserConfigurationException e) {
-            System.out.println(e.getMessage());
+    private static String qualifiedName(String prefix, String localName) {
+        if(StringUtils.isNullOrEmpty(prefix)) {
+            return localName;
         }
+        return prefix + ":" + localName;
+    }
+
+    private void init(HashMap<String, String> namespaces) {
+        this.namespaces = namespaces;
+        this.doc = documentBuilder.get().newDocument();
     }
-}
\ No newline at end of file
+}
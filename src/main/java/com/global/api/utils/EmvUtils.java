@@ -4,6 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class EmvUtils {
+    private static final int TAG_ISSUER_COUNTRY_CODE = 0x5F28;
+    private static final int TAG_TVR = 0x95;
+    private static final int TAG_TSI = 0x9B;
+    // TVR bits that rule out stand-in, and the TSI bits that must all be set
+    private static final byte[] TVR_MASK = { (byte) 0xFC, 0x50, (byte) 0xFC, 0x20, 0x00 };
+    private static final byte[] TSI_MASK = { (byte) 0xE8, 0x00 };
+
     private static Map<String, String> knownTags;
     private static Map<String, String> blackList;
     private static Map<String, String> dataTypes;
@@ -204,63 +211,46 @@ public class EmvUtils {
         if(StringUtils.isNullOrEmpty(tagData)) {
             return null;
         }
-
-        tagData = tagData.toUpperCase();
+        return parseTagData(decodeHex(tagData), verbose);
+    }
+    public static EmvData parseTagData(byte[] tagData, boolean verbose) {
+        if(tagData == null || tagData.length == 0) {
+            return null;
+        }
 
         EmvData rvalue = new EmvData();
 
-        for(int i = 0; i < tagData.length();) {
-            try {
-                String tagName = tagData.substring(i, i = i + 2);
-                if((Integer.parseInt(tagName, 16) & 0x1F) == 0x1F) {
-                    tagName += tagData.substring(i, i = i + 2);
-                }
-
-                String lengthStr = tagData.substring(i, i = i + 2);
-                int length = Integer.parseInt(lengthStr, 16);
-                if(length > 127) {
-                    int bytesLength = length - 128;
-                    lengthStr = tagData.substring(i, i = i + (bytesLength * 2));
-                    length = Integer.parseInt(lengthStr, 16);
-                }
-                length *= 2;
-
-                String value = tagData.substring(i, i = i + length);
-
-                if(!blackList.containsKey(tagName)) {
-                    TlvData approvedTag = new TlvData(tagName, lengthStr, value, knownTags.get(tagName));
-                    if(tagName.equals("5F28") && !value.equals("840")) {
-                        rvalue.setStandInStatus(false, "Card is not domestically issued");
-                    }
-                    else if(tagName.equals("95")) {
-                        byte[] valueBuffer = StringUtils.bytesFromHex(value);
-                        byte[] maskBuffer = StringUtils.bytesFromHex("FC50FC2000");
-
-                        for(int idx = 0; idx < valueBuffer.length; idx++) {
-                            if((valueBuffer[idx] & maskBuffer[idx]) != 0x00) {
+        TlvBuffer tags = TlvBuffer.parse(tagData);
+        for(int i = 0; i < tags.size(); i++) {
+            String tagName = tags.getTagName(i);
+            if(!blackList.containsKey(tagName)) {
+                switch(tags.getTag(i)) {
+                    case TAG_ISSUER_COUNTRY_CODE:
+                        if(tags.getValueLength(i) != 2 || tags.getValueByte(i, 0) != 0x08 || tags.getValueByte(i, 1) != 0x40) {
+                            rvalue.setStandInStatus(false, "Card is not domestically issued");
+                        }
+                        break;
+                    case TAG_TVR:
+                        for(int idx = 0; idx < Math.min(tags.getValueLength(i), TVR_MASK.length); idx++) {
+                            if((tags.getValueByte(i, idx) & TVR_MASK[idx]) != 0x00) {
                                 rvalue.setStandInStatus(false, String.format("Invalid TVR status in byte %s of tag 95", idx + 1));
                             }
                         }
-                    }
-                    else if(tagName.equals("9B")) {
-                        byte[] valueBuffer = StringUtils.bytesFromHex(value);
-                        byte[] maskBuffer = StringUtils.bytesFromHex("E800");
-
-                        for(int idx = 0; idx < valueBuffer.length; idx++) {
-                            if((valueBuffer[idx] & maskBuffer[idx]) != maskBuffer[idx]) {
+                        break;
+                    case TAG_TSI:
+                        for(int idx = 0; idx < Math.min(tags.getValueLength(i), TSI_MASK.length); idx++) {
+                            if((tags.getValueByte(i, idx) & TSI_MASK[idx]) != TSI_MASK[idx]) {
                                 rvalue.setStandInStatus(false, String.format("Invalid TSI status in byte %s of tag 9B", idx + 1));
                             }
                         }
-                    }
-
-                    rvalue.addTag(approvedTag);
-                }
-                else {
-                    rvalue.addRemovedTag(tagName, lengthStr, value, blackList.get(tagName));
+                        break;
                 }
+
+                rvalue.addTag(new TlvData(tags, i, tagName, knownTags.get(tagName)));
+            }
+            else {
+                rvalue.addRemovedTag(new TlvData(tags, i, tagName, blackList.get(tagName)));
             }
-            catch(NumberFormatException exc) {}
-            catch(IndexOutOfBoundsException exc) {}
         }
 
         if(verbose) {
@@ -283,4 +273,25 @@ public class EmvUtils {
 
         return rvalue;
     }
+
+    // decodes up to the first character that is not hex, the tags before it are still parsed
+    private static byte[] decodeHex(String hex) {
+        byte[] buffer = new byte[hex.length() / 2];
+        int length = 0;
+        for(; length < buffer.length; length++) {
+            int high = Character.digit(hex.charAt(length * 2), 16);
+            int low = Character.digit(hex.charAt(length * 2 + 1), 16);
+            if(high < 0 || low < 0) {
+                break;
+            }
+            buffer[length] = (byte) ((high << 4) | low);
+        }
+
+        if(length == buffer.length) {
+            return buffer;
+        }
+        byte[] rvalue = new byte[length];
+        System.arraycopy(buffer, 0, rvalue, 0, length);
+        return rvalue;
+    }
 }
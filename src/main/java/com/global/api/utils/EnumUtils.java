@@ -8,18 +8,15 @@ public class EnumUtils {
     }
 
     public static <V extends Enum<V> & IByteConstant> V parse(Class<V> valueType, byte value) {
-        ReverseByteEnumMap<V> map = new ReverseByteEnumMap<V>(valueType);
-        return map.get(value);
+        return ReverseByteEnumMap.forType(valueType).get(value);
     }
 
     public static <V extends Enum<V> & IStringConstant> V parse(Class<V> valueType, String value) {
-        ReverseStringEnumMap<V> map = new ReverseStringEnumMap<V>(valueType);
-        return map.get(value);
+        return ReverseStringEnumMap.forType(valueType).get(value);
     }
 
     public static <V extends Enum<V> & INumericConstant> V parse(Class<V> valueType, int value) {
-        ReverseIntEnumMap<V> map = new ReverseIntEnumMap<V>(valueType);
-        return map.get(value);
+        return ReverseIntEnumMap.forType(valueType).get(value);
     }
 
     public static String getMapping(Target target, IMappedConstant value) {
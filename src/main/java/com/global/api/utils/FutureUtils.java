@@ -0,0 +1,21 @@
+package com.global.api.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+public class FutureUtils {
+    public static <T> CompletableFuture<T> failed(Throwable exc) {
+        CompletableFuture<T> rvalue = new CompletableFuture<>();
+        rvalue.completeExceptionally(exc);
+        return rvalue;
+    }
+
+    // the exception a stage failed with, without the wrappers CompletableFuture adds
+    public static Throwable unwrap(Throwable exc) {
+        while ((exc instanceof CompletionException || exc instanceof ExecutionException) && exc.getCause() != null) {
+            exc = exc.getCause();
+        }
+        return exc;
+    }
+}
@@ -0,0 +1,134 @@
+package com.global.api.utils;
+
+import com.global.api.entities.exceptions.GatewayException;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+/**
+ * Parses the date and date time values returned by GP-API in one pass over the string, without trying a list of
+ * formatters in turn. Date times are yyyy-MM-dd'T'HH:mm with optional seconds, milliseconds and a trailing 'Z',
+ * read in the default time zone like the GP-API date time patterns. Stateless and safe to share between threads.
+ */
+public final class GpApiDateParser {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormat.forPattern("yyyy-MM-dd");
+
+    private GpApiDateParser() {}
+
+    public static DateTime parseDateTime(String value) throws GatewayException {
+        if (StringUtils.isNullOrEmpty(value)) {
+            return null;
+        }
+
+        Cursor cursor = new Cursor(value);
+        if (!cursor.readDate() || !cursor.skip('T') || !cursor.readTime()) {
+            throw new GatewayException("DateTime format is not supported.");
+        }
+
+        try {
+            return new DateTime(cursor.year, cursor.month, cursor.day, cursor.hour, cursor.minute, cursor.second, cursor.millis);
+        } catch (IllegalArgumentException exc) {
+            // out of range fields or a local time skipped by a daylight saving change
+            throw new GatewayException("DateTime format is not supported.", exc);
+        }
+    }
+
+    public static Date parseDate(String value) throws GatewayException {
+        if (StringUtils.isNullOrEmpty(value)) {
+            return null;
+        }
+
+        // anything after the date is ignored and out of range fields roll over, as with a lenient yyyy-MM-dd parse
+        Cursor cursor = new Cursor(value);
+        if (!cursor.readLenientDate()) {
+            throw new GatewayException("Date format is not supported.");
+        }
+        return new GregorianCalendar(cursor.year, cursor.month - 1, cursor.day).getTime();
+    }
+
+    public static String formatDate(Date value) {
+        return DATE_FORMATTER.print(value.getTime());
+    }
+
+    private static final class Cursor {
+        private final String value;
+        private int position;
+
+        private int year;
+        private int month;
+        private int day;
+        private int hour;
+        private int minute;
+        private int second;
+        private int millis;
+
+        private Cursor(String value) {
+            this.value = value;
+        }
+
+        private boolean readDate() {
+            return (year = readNumber(1, 9)) >= 0
+                    && skip('-') && (month = readNumber(1, 2)) >= 0
+                    && skip('-') && (day = readNumber(1, 2)) >= 0;
+        }
+
+        private boolean readLenientDate() {
+            return (year = readNumber(1, 9)) >= 0
+                    && skip('-') && (month = readNumber(1, 9)) >= 0
+                    && skip('-') && (day = readNumber(1, 9)) >= 0;
+        }
+
+        // HH:mm, HH:mm:ss, HH:mm:ssZ, HH:mm:ss.SSS or HH:mm:ss.SSSZ
+        private boolean readTime() {
+            if ((hour = readNumber(1, 2)) < 0 || !skip(':') || (minute = readNumber(1, 2)) < 0) {
+                return false;
+            }
+            if (position == value.length()) {
+                return true;
+            }
+
+            if (!skip(':') || (second = readNumber(1, 2)) < 0) {
+                return false;
+            }
+            if (skip('.')) {
+                int start = position;
+                int fraction = readNumber(1, 3);
+                if (fraction < 0) {
+                    return false;
+                }
+                for (int digits = position - start; digits < 3; digits++) {
+                    fraction *= 10;
+                }
+                millis = fraction;
+            }
+            skip('Z');
+            return position == value.length();
+        }
+
+        private boolean skip(char expected) {
+            if (position < value.length() && Character.toUpperCase(value.charAt(position)) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        // reads between min and max digits, -1 when there are fewer than min
+        private int readNumber(int minDigits, int maxDigits) {
+            int start = position;
+            int result = 0;
+            while (position < value.length() && position - start < maxDigits) {
+                char c = value.charAt(position);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                result = result * 10 + (c - '0');
+                position++;
+            }
+            return position - start >= minDigits ? result : -1;
+        }
+    }
+}
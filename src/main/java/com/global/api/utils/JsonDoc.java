@@ -3,15 +3,19 @@ package com.global.api.utils;
 import com.global.api.entities.enums.IStringConstant;
 import com.global.api.entities.exceptions.GatewayException;
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
 import org.joda.time.DateTime;
 
+import java.io.*;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 
-import static com.global.api.gateways.GpApiConnector.parseGpApiDateTime;
-
 public class JsonDoc {
     private HashMap<String, Object> dict;
     private IRequestEncoder encoder;
@@ -131,19 +135,63 @@ public class JsonDoc {
     }
 
     public String toString() {
-        HashMap<String, Object> _final = finish();
-        return gson.toJson(_final);
+        StringWriter writer = new StringWriter();
+        try {
+            writeTo(writer);
+        }
+        catch(IOException exc) {
+            throw new JsonIOException(exc);
+        }
+        return writer.toString();
     }
 
-    private HashMap<String, Object> finish() {
-        HashMap<String, Object> _final = new HashMap<String, Object>();
-        for(String key: dict.keySet()) {
-            Object value = dict.get(key);
-            if(value instanceof JsonDoc)
-                _final.put(key, ((JsonDoc)value).finish());
-            else _final.put(key, value);
+    // serializes straight from the values, nested documents included, without building a Gson tree first
+    public void writeTo(Writer writer) throws IOException {
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setLenient(true);
+        jsonWriter.setHtmlSafe(false);
+        jsonWriter.setSerializeNulls(false);
+
+        writeObject(jsonWriter);
+        jsonWriter.flush();
+    }
+    public void writeTo(OutputStream stream) throws IOException {
+        Writer writer = new OutputStreamWriter(stream, StandardCharsets.UTF_8);
+        writeTo(writer);
+        writer.flush();
+    }
+
+    private void writeObject(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        for(Map.Entry<String, Object> entry: dict.entrySet()) {
+            // null values are left out, as Gson does for maps
+            if(entry.getValue() != null) {
+                writer.name(entry.getKey());
+                writeValue(writer, entry.getValue());
+            }
         }
-        return _final;
+        writer.endObject();
+    }
+
+    private static void writeValue(JsonWriter writer, Object value) throws IOException {
+        if(value == null)
+            writer.nullValue();
+        else if(value instanceof String)
+            writer.value((String)value);
+        else if(value instanceof JsonDoc)
+            ((JsonDoc)value).writeObject(writer);
+        else if(value instanceof Boolean)
+            writer.value((Boolean)value);
+        else if(value instanceof Number)
+            writer.value((Number)value);
+        else if(value instanceof Collection) {
+            writer.beginArray();
+            for(Object item: (Collection<?>)value) {
+                writeValue(writer, item);
+            }
+            writer.endArray();
+        }
+        else gson.toJson(value, value.getClass(), writer);
     }
 
     // response stuff
@@ -225,7 +273,7 @@ public class JsonDoc {
         return null;
     }
     public DateTime getDateTime(String name) throws GatewayException {
-        return parseGpApiDateTime(getString(name));
+        return GpApiDateParser.parseDateTime(getString(name));
     }
     public BigDecimal getAmount(String name) {
         String value = getString(name);
@@ -265,11 +313,47 @@ public class JsonDoc {
         return parse(json, null);
     }
     public static JsonDoc parse(String json, IRequestEncoder encoder) {
-        JsonElement parsed = new JsonParser().parse(json);
-        if(parsed.isJsonObject()) {
-            return parseObject(parsed.getAsJsonObject(), encoder);
+        return parse(new StringReader(json), encoder);
+    }
+    public static JsonDoc parse(InputStream stream) {
+        return parse(new InputStreamReader(stream, StandardCharsets.UTF_8), null);
+    }
+    public static JsonDoc parse(Reader json, IRequestEncoder encoder) {
+        // same leniency and errors as Gson's JsonParser, but the documents are filled in while reading
+        JsonReader reader = new JsonReader(json);
+        reader.setLenient(true);
+        try {
+            JsonToken token;
+            try {
+                token = reader.peek();
+            }
+            catch(EOFException exc) {
+                return null;
+            }
+
+            JsonDoc doc = null;
+            if(token == JsonToken.BEGIN_OBJECT) {
+                doc = readObject(reader, encoder);
+            }
+            else if(token == JsonToken.NULL) {
+                return null;
+            }
+            else reader.skipValue();
+
+            if(reader.peek() != JsonToken.END_DOCUMENT) {
+                throw new JsonSyntaxException("Did not consume the entire document.");
+            }
+            return doc;
+        }
+        catch(MalformedJsonException | EOFException | NumberFormatException exc) {
+            throw new JsonSyntaxException(exc);
+        }
+        catch(IOException exc) {
+            throw new JsonIOException(exc);
+        }
+        catch(StackOverflowError exc) {
+            throw new JsonParseException("Failed parsing JSON source to Json", exc);
         }
-        return null;
     }
 
     public static String parseSingleValue(String json, String name) {
@@ -280,29 +364,80 @@ public class JsonDoc {
         return doc.getString("name");
     }
 
-    private static JsonDoc parseObject(JsonObject obj, IRequestEncoder encoder) {
+    private static JsonDoc readObject(JsonReader reader, IRequestEncoder encoder) throws IOException {
         HashMap<String, Object> values = new HashMap<String, Object>();
-        for(Map.Entry<String, JsonElement> child: obj.entrySet()) {
-            if(child.getValue().isJsonArray()) {
-                if( (child.getValue().getAsJsonArray().size() > 0) && (child.getValue().getAsJsonArray().get(0) instanceof JsonObject) ) {
-                    List<JsonDoc> objs = parseArray(child.getValue().getAsJsonArray(), encoder);
-                    values.put(child.getKey(), objs);
-                } else {
-                    ArrayList<String> objs = parseStringArrayList(child.getValue().getAsJsonArray(), encoder);
-                    values.put(child.getKey(), objs);
-                }
+        reader.beginObject();
+        while(reader.hasNext()) {
+            String name = reader.nextName();
+            switch(reader.peek()) {
+                case BEGIN_OBJECT:
+                    values.put(name, readObject(reader, encoder));
+                    break;
+                case BEGIN_ARRAY:
+                    values.put(name, readArray(reader, encoder));
+                    break;
+                case NULL:
+                    // nulls are left out, a repeated key still replaces the earlier value
+                    reader.nextNull();
+                    values.remove(name);
+                    break;
+                default:
+                    values.put(name, readPrimitive(reader));
             }
-            else if(child.getValue().isJsonObject()){
-                values.put(child.getKey(), parseObject(child.getValue().getAsJsonObject(), encoder));
+        }
+        reader.endObject();
+        return new JsonDoc(values, encoder);
+    }
+
+    // an array starting with an object is a list of documents, anything else is a list of strings
+    private static Object readArray(JsonReader reader, IRequestEncoder encoder) throws IOException {
+        reader.beginArray();
+        if(reader.hasNext() && reader.peek() == JsonToken.BEGIN_OBJECT) {
+            List<JsonDoc> docs = new ArrayList<JsonDoc>();
+            while(reader.hasNext()) {
+                if(reader.peek() == JsonToken.BEGIN_OBJECT)
+                    docs.add(readObject(reader, encoder));
+                else reader.skipValue();
             }
-            else {
-                JsonElement childValue = child.getValue();
-                if(!childValue.isJsonNull())
-                    values.put(child.getKey(), childValue.getAsString());
-                //else values.put(child.getKey(), null);
+            reader.endArray();
+            return docs;
+        }
+
+        ArrayList<String> strings = new ArrayList<String>();
+        while(reader.hasNext()) {
+            strings.add(readAsString(reader));
+        }
+        reader.endArray();
+        return strings;
+    }
+
+    // the string form of an array item, following JsonElement.getAsString
+    private static String readAsString(JsonReader reader) throws IOException {
+        switch(reader.peek()) {
+            case BEGIN_ARRAY: {
+                reader.beginArray();
+                String value = reader.hasNext() ? readAsString(reader) : null;
+                if(value == null || reader.hasNext()) {
+                    throw new IllegalStateException();
+                }
+                reader.endArray();
+                return value;
             }
+            case BEGIN_OBJECT:
+                throw new UnsupportedOperationException("JsonObject");
+            case NULL:
+                throw new UnsupportedOperationException("JsonNull");
+            default:
+                return readPrimitive(reader);
         }
-        return new JsonDoc(values, encoder);
+    }
+
+    private static String readPrimitive(JsonReader reader) throws IOException {
+        if(reader.peek() == JsonToken.BOOLEAN) {
+            return String.valueOf(reader.nextBoolean());
+        }
+        // numbers keep their original text
+        return reader.nextString();
     }
 
     public static ArrayList<String> parseStringArrayList(JsonArray objs, IRequestEncoder encoder) {
@@ -312,13 +447,4 @@ public class JsonDoc {
         }
         return response;
     }
-
-    private static List<JsonDoc> parseArray(JsonArray objs, IRequestEncoder encoder) {
-        List<JsonDoc> responses = new ArrayList<JsonDoc>();
-        for (JsonElement obj: objs) {
-            if(obj.isJsonObject())
-                responses.add(parseObject(obj.getAsJsonObject(), encoder));
-        }
-        return responses;
-    }
 }
@@ -0,0 +1,126 @@
+package com.global.api.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Incrementally decodes frames that start with an unsigned big-endian length field, e.g. the 2 byte
+ * total transaction length of VAPS and NTS messages. Bytes are read into one reusable buffer which grows
+ * to fit the largest frame seen, so partial reads and several frames per read are handled without copying
+ * the data more than once.
+ */
+public class LengthPrefixedFrameDecoder {
+    private final int lengthFieldSize;
+    private final boolean lengthIncludesField;
+    private ByteBuffer buffer;
+
+    public LengthPrefixedFrameDecoder() {
+        this(2, true);
+    }
+
+    /**
+     * @param lengthFieldSize size in bytes of the length field (1 to 4)
+     * @param lengthIncludesField whether the length value counts the length field itself
+     */
+    public LengthPrefixedFrameDecoder(int lengthFieldSize, boolean lengthIncludesField) {
+        if (lengthFieldSize < 1 || lengthFieldSize > 4) {
+            throw new IllegalArgumentException("The length field must be between 1 and 4 bytes.");
+        }
+        this.lengthFieldSize = lengthFieldSize;
+        this.lengthIncludesField = lengthIncludesField;
+        this.buffer = ByteBuffer.allocate(2048);
+    }
+
+    /**
+     * Returns the payload of the next complete frame (without the length field), or null if more bytes are needed.
+     */
+    public byte[] nextFrame() throws IOException {
+        int available = buffer.position();
+        if (available < lengthFieldSize) {
+            return null;
+        }
+
+        long length = 0;
+        for (int i = 0; i < lengthFieldSize; i++) {
+            length = (length << 8) | (buffer.get(i) & 0xFF);
+        }
+        long frameLength = lengthIncludesField ? length : length + lengthFieldSize;
+        if (frameLength < lengthFieldSize || frameLength > Integer.MAX_VALUE - 8) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+
+        if (available < frameLength) {
+            ensureCapacity((int) frameLength);
+            return null;
+        }
+
+        byte[] frame = new byte[(int) frameLength - lengthFieldSize];
+        System.arraycopy(buffer.array(), lengthFieldSize, frame, 0, frame.length);
+
+        // drop the frame, keeping any bytes of the next one
+        buffer.flip();
+        buffer.position((int) frameLength);
+        buffer.compact();
+        return frame;
+    }
+
+    /**
+     * Reads whatever the stream has (blocking for at least one byte) into the buffer.
+     *
+     * @return the number of bytes read, or -1 at the end of the stream
+     */
+    public int readFrom(InputStream in) throws IOException {
+        ensureFreeSpace();
+        int read = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        if (read > 0) {
+            buffer.position(buffer.position() + read);
+        }
+        return read;
+    }
+
+    /**
+     * Reads whatever the channel has into the buffer; a non-blocking channel may return 0.
+     *
+     * @return the number of bytes read, or -1 at the end of the stream
+     */
+    public int readFrom(ReadableByteChannel channel) throws IOException {
+        ensureFreeSpace();
+        return channel.read(buffer);
+    }
+
+    public void feed(byte[] bytes, int offset, int length) {
+        ensureCapacity(buffer.position() + length);
+        buffer.put(bytes, offset, length);
+    }
+
+    public void feed(ByteBuffer source) {
+        ensureCapacity(buffer.position() + source.remaining());
+        buffer.put(source);
+    }
+
+    // bytes received that do not form a complete frame yet
+    public int getBufferedLength() {
+        return buffer.position();
+    }
+
+    public void reset() {
+        buffer.clear();
+    }
+
+    private void ensureFreeSpace() {
+        if (!buffer.hasRemaining()) {
+            ensureCapacity(buffer.capacity() * 2);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.capacity() < capacity) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+        }
+    }
+}
@@ -3,23 +3,43 @@ package com.global.api.utils;
 import com.global.api.entities.enums.ControlCodes;
 import com.global.api.entities.enums.IByteConstant;
 
+import java.nio.ByteBuffer;
+
 public class MessageReader {
     byte[] buffer;
+    // position and end are absolute indexes into buffer, a slice shares the buffer of its parent
     int position = 0;
+    int end = 0;
     long length = 0;
 
     public long getLength() { return length; }
 
     public MessageReader(byte[] bytes){
+        this(bytes, 0, bytes.length);
+    }
+
+    public MessageReader(byte[] bytes, int offset, int length) {
+        if(offset < 0 || length < 0 || offset + length > bytes.length) {
+            throw new IndexOutOfBoundsException(String.format("Invalid range %d+%d for a buffer of %d bytes.", offset, length, bytes.length));
+        }
         buffer = bytes;
-        length = bytes.length;
+        position = offset;
+        end = offset + length;
+        this.length = length;
     }
 
     public boolean canRead(){
-        return position < length;
+        return position < end;
+    }
+
+    public int remaining() {
+        return Math.max(end - position, 0);
     }
 
     public byte peek() {
+        if(position >= end) {
+            throw new ArrayIndexOutOfBoundsException(position);
+        }
         return buffer[position];
     }
 
@@ -28,60 +48,78 @@ public class MessageReader {
     }
 
     public <T extends Enum<T> & IByteConstant> T readEnum(Class<T> enumType){
-        ReverseByteEnumMap<T> map = new ReverseByteEnumMap<T>(enumType);
-        return map.get(buffer[position++]);
+        return ReverseByteEnumMap.forType(enumType).get(readByte());
     }
 
     public byte readByte() {
+        if(position >= end) {
+            throw new ArrayIndexOutOfBoundsException(position);
+        }
         return buffer[position++];
     }
 
     public byte[] readBytes(int length){
         byte[] rvalue = new byte[length];
 
-        try {
-            for (int i = 0; i < length; i++)
-                rvalue[i] = buffer[position++];
-        }
-        catch(ArrayIndexOutOfBoundsException e) {
-            // eat this exception and return what we have
-        }
+        // a short read returns what we have, the rest stays zeroed
+        int available = Math.min(length, remaining());
+        System.arraycopy(buffer, position, rvalue, 0, available);
+        position += available;
 
         return rvalue;
     }
 
     public byte[] readRemainingBytes(){
-        byte[] rvalue = new byte[(int) (length-position)];
+        return readBytes(remaining());
+    }
 
-        try {
-            for (int i = 0; i < length; i++)
-                rvalue[i] = buffer[position++];
+    // the next length bytes as a reader over the same buffer, no copy is made
+    public MessageReader slice(int length) {
+        if(length > remaining()) {
+            throw new ArrayIndexOutOfBoundsException(String.format("Cannot slice %d bytes, %d remaining.", length, remaining()));
         }
-        catch(ArrayIndexOutOfBoundsException e) {
-            // eat this exception and return what we have
+
+        MessageReader slice = new MessageReader(buffer, position, length);
+        position += length;
+        return slice;
+    }
+
+    public MessageReader sliceRemaining() {
+        return slice(remaining());
+    }
+
+    // read only view over the next length bytes, no copy is made
+    public ByteBuffer readBuffer(int length) {
+        if(length > remaining()) {
+            throw new ArrayIndexOutOfBoundsException(String.format("Cannot read %d bytes, %d remaining.", length, remaining()));
         }
 
+        ByteBuffer rvalue = ByteBuffer.wrap(buffer, position, length).slice().asReadOnlyBuffer();
+        position += length;
         return rvalue;
     }
 
     public char readChar(){
-        return (char)buffer[position++];
+        return (char)readByte();
     }
 
     public String readString(int length){
-        String rvalue = "";
+        if(length > remaining()) {
+            throw new ArrayIndexOutOfBoundsException(position + remaining());
+        }
 
+        char[] rvalue = new char[length];
         for(int i = 0; i < length; i++)
-            rvalue += (char)buffer[position++];
+            rvalue[i] = (char)buffer[position++];
 
-        return rvalue;
+        return new String(rvalue);
     }
 
     public String readToCode(ControlCodes code) {
         return readToCode(code, true);
     }
     public String readToCode(ControlCodes code, boolean removeCode){
-        String rvalue = "";
+        StringBuilder rvalue = new StringBuilder();
 
         try {
             byte value;
@@ -90,8 +128,8 @@ public class MessageReader {
                     ControlCodes byteCode = EnumUtils.parse(ControlCodes.class, buffer[position++]);
                     if(byteCode == ControlCodes.ETX)
                         break;
-                    else rvalue += byteCode.toString();
-                } else rvalue += (char)buffer[position++];
+                    else rvalue.append(byteCode.toString());
+                } else rvalue.append((char)buffer[position++]);
             }
         } catch (ArrayIndexOutOfBoundsException e) {
             removeCode = false;
@@ -101,11 +139,13 @@ public class MessageReader {
         if(removeCode)
             readByte();
 
-        return rvalue;
+        return rvalue.toString();
     }
 
     public void purge(){
         buffer = new byte[0];
+        position = 0;
+        end = 0;
         length = 0;
     }
-}
\ No newline at end of file
+}
@@ -2,11 +2,18 @@ package com.global.api.utils;
 
 import com.global.api.entities.enums.IByteConstant;
 import com.global.api.entities.enums.IStringConstant;
-import java.util.ArrayList;
-import java.util.List;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public class MessageWriter {
-    List<Byte> buffer;
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+    byte[] buffer;
+    int count;
     StringBuilder messageRequest;
     static final char ZERO_CHAR = '0';
     public StringBuilder getMessageRequest() {
@@ -18,49 +25,73 @@ public class MessageWriter {
     }
 
     public MessageWriter() {
-        buffer = new ArrayList<>();
-        messageRequest=new StringBuilder();
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MessageWriter(int initialCapacity) {
+        buffer = new byte[Math.max(initialCapacity, 1)];
+        messageRequest = new StringBuilder();
     }
 
     public MessageWriter(byte[] bytes){
-        buffer = new ArrayList<>();
-        for(byte b: bytes)
-            buffer.add(b);
+        this(bytes.length);
+        addRange(bytes);
     }
 
-    public void add(Byte b) { buffer.add(b); }
+    public void add(byte b) {
+        ensureCapacity(count + 1);
+        buffer[count++] = b;
+    }
+
+    public void add(Byte b) { add(b.byteValue()); }
 
     public void add(IByteConstant constant){
-        buffer.add(constant.getByte());
+        add(constant.getByte());
     }
 
     public void add(IStringConstant constant) {
-        for(byte b: constant.getBytes())
-            buffer.add(b);
+        addRange(constant.getBytes());
     }
 
     public void addRange(Byte[] bytes) {
-        for(byte b: bytes)
-            buffer.add(b);
+        ensureCapacity(count + bytes.length);
+        for(Byte b: bytes)
+            buffer[count++] = b;
     }
 
     public void addRange(byte[] bytes){
-        for(byte b: bytes)
-            buffer.add(b);
+        addRange(bytes, 0, bytes.length);
+    }
+
+    public void addRange(byte[] bytes, int offset, int length) {
+        ensureCapacity(count + length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
     }
 
     public void pop(){
-        buffer.remove(buffer.size() - 1);
+        if(count == 0) {
+            throw new IndexOutOfBoundsException("The message is empty.");
+        }
+        count--;
+    }
+
+    // clears the content but keeps the allocated buffer for the next message
+    public void reset() {
+        count = 0;
     }
 
     public byte[] toArray(){
-        byte[] b = new byte[buffer.size()];
+        return Arrays.copyOf(buffer, count);
+    }
 
-        Object[] b2 = buffer.toArray();
-        for(int i = 0; i < buffer.size(); i++)
-            b[i] = (Byte)b2[i];
+    // read only view over the current content, no copy is made
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, count).asReadOnlyBuffer();
+    }
 
-        return b;
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
     }
 
     public void add(Integer value) {
@@ -77,13 +108,10 @@ public class MessageWriter {
         addRange(value.getBytes());
     }
 
-    private static byte[] intToBytes(int data) {
-        return new byte[] {
-                (byte)((data >> 24) & 0xff),
-                (byte)((data >> 16) & 0xff),
-                (byte)((data >> 8) & 0xff),
-                (byte)((data >> 0) & 0xff),
-        };
+    private void ensureCapacity(int capacity) {
+        if(capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, buffer.length << 1));
+        }
     }
 
     private byte[] formatInteger(Long value, Integer length) {
@@ -97,16 +125,11 @@ public class MessageWriter {
             int baseLength = byteCount * 2;
             if(baseLength > length) { baseLength = length; }
 
-            MessageWriter inputBuffer = new MessageWriter();
+            byte[] output = new byte[length];
             for (int i = 0; i < baseLength; i++) {
                 int offset = offsets[baseLength - 1 - i];
-                inputBuffer.add((byte) (value >>> offset));
+                output[length - baseLength + i] = (byte) (value >>> offset);
             }
-            byte[] input = inputBuffer.toArray();
-
-            byte[] output = new byte[length];
-            System.arraycopy(input, 0, output, length - baseLength, baseLength);
-
             return output;
         }
     }
@@ -130,16 +153,15 @@ public class MessageWriter {
     }
 
     public String toString() {
-        char[] HEX_CHARS = "0123456789abcdef".toCharArray();
-        char[] chars = new char[2 * buffer.size()];
-        for (int i = 0; i < buffer.size(); ++i) {
-            chars[2 * i] = HEX_CHARS[(buffer.get(i) & 0xF0) >>> 4];
-            chars[2 * i + 1] = HEX_CHARS[buffer.get(i) & 0x0F];
+        char[] chars = new char[2 * count];
+        for (int i = 0; i < count; ++i) {
+            chars[2 * i] = HEX_CHARS[(buffer[i] & 0xF0) >>> 4];
+            chars[2 * i + 1] = HEX_CHARS[buffer[i] & 0x0F];
         }
         return new String(chars);
     }
 
     public int length() {
-        return buffer.size();
+        return count;
     }
 }
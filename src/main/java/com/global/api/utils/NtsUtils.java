@@ -69,7 +69,7 @@ public class NtsUtils {
      */
     public static void log(String fieldName, String value) {
         if (isEnableLogging) {
-            System.out.println(fieldName + " : " + value);
+            System.out.println(fieldName + " : " + StringUtils.mask(value));
         }
     }
 
@@ -0,0 +1,213 @@
+package com.global.api.utils;
+
+/**
+ * Masks card numbers in text bound for a log in a single pass, keeping the first six and last four digits. A card
+ * number is a run of 13 to 19 digits, optionally broken up by spaces or dashes, with a known brand prefix. Runs of the
+ * brand's usual length are always masked, other lengths only when the check digit is valid. A number carrying an ISO
+ * 8583 style two digit length prefix is found as well. Every occurrence is masked, wherever it sits in XML, JSON or a
+ * terminal frame.
+ */
+public class PanMasker {
+    private static final int MIN_LENGTH = 13;
+    private static final int MAX_LENGTH = 19;
+    // room for a two digit length prefix in front of the longest number
+    private static final int MAX_DIGITS = MAX_LENGTH + 2;
+
+    public static String mask(CharSequence value) {
+        if(value == null) {
+            return null;
+        }
+
+        StringBuilder sb = new StringBuilder(value.length());
+        mask(value, 0, value.length(), true, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Appends value[start, end) to out with the card numbers masked and returns where it stopped. Unless endOfInput is
+     * set a run of digits reaching the end is not written, the caller passes it in again with the text that follows.
+     */
+    public static int mask(CharSequence value, int start, int end, boolean endOfInput, StringBuilder out) {
+        char[] digits = null;
+        int[] positions = null;
+
+        int copied = start;
+        int i = start;
+        while(i < end) {
+            if(!isDigit(value.charAt(i))) {
+                i++;
+                continue;
+            }
+
+            int runStart = i;
+            int runEnd = i + 1;
+            int j = i + 1;
+            while(j < end) {
+                char c = value.charAt(j);
+                if(isDigit(c)) {
+                    runEnd = ++j;
+                }
+                else if(isSeparator(c)) {
+                    j++;
+                }
+                else break;
+            }
+
+            if(j == end && !endOfInput) {
+                out.append(value, copied, runStart);
+                return runStart;
+            }
+
+            if(runEnd - runStart >= MIN_LENGTH) {
+                if(digits == null) {
+                    digits = new char[MAX_DIGITS];
+                    positions = new int[MAX_DIGITS];
+                }
+                copied = maskRun(value, runStart, runEnd, copied, digits, positions, out);
+            }
+            i = runEnd;
+        }
+
+        out.append(value, copied, end);
+        return end;
+    }
+
+    // a run is digits and separators, a number may start at any group of digits in it and must end at one
+    private static int maskRun(CharSequence value, int start, int end, int copied, char[] digits, int[] positions, StringBuilder out) {
+        int p = start;
+        while(p < end) {
+            int count = 0;
+            for(int k = p; k < end && count < MAX_DIGITS; k++) {
+                char c = value.charAt(k);
+                if(isDigit(c)) {
+                    digits[count] = c;
+                    positions[count++] = k;
+                }
+            }
+
+            int next;
+            int offset = 0;
+            int length = findNumber(value, end, digits, positions, 0, count, false);
+            if(length == 0 && count > 2 && positions[2] == p + 2) {
+                // an ISO 8583 LLVAR field puts the length right in front of the number
+                offset = 2;
+                length = findNumber(value, end, digits, positions, 2, count, true);
+            }
+
+            if(length > 0) {
+                out.append(value, copied, positions[offset]);
+                appendMasked(digits, offset, length, out);
+                copied = next = positions[offset + length - 1] + 1;
+            }
+            else {
+                next = p;
+                while(next < end && isDigit(value.charAt(next))) {
+                    next++;
+                }
+            }
+
+            // on to the start of the next group
+            while(next < end && !isDigit(value.charAt(next))) {
+                next++;
+            }
+            p = next;
+        }
+        return copied;
+    }
+
+    // the length of the longest card number starting at digits[offset], 0 when there is none
+    private static int findNumber(CharSequence value, int end, char[] digits, int[] positions, int offset, int count, boolean lengthPrefixed) {
+        if(count - offset < MIN_LENGTH) {
+            return 0;
+        }
+
+        int standardLength = getStandardLength(digits, offset);
+        if(standardLength == 0) {
+            return 0;
+        }
+
+        int prefixLength = lengthPrefixed ? (digits[0] - '0') * 10 + (digits[1] - '0') : 0;
+        for(int length = Math.min(count - offset, MAX_LENGTH); length >= MIN_LENGTH; length--) {
+            int last = positions[offset + length - 1];
+            boolean groupEnd = last + 1 == end || !isDigit(value.charAt(last + 1));
+            if(!groupEnd && length != prefixLength) {
+                continue;
+            }
+
+            // behind a length prefix the check digit has to agree, the split is only a guess
+            if((!lengthPrefixed && (length == standardLength || (digits[offset] == '4' && length == 13))) || isLuhnValid(digits, offset, length)) {
+                return length;
+            }
+        }
+        return 0;
+    }
+
+    // the usual length for the brand the number starts with, 0 for numbers that are not card numbers
+    private static int getStandardLength(char[] digits, int offset) {
+        char first = digits[offset];
+        char second = digits[offset + 1];
+        int prefix = (first - '0') * 1000 + (second - '0') * 100 + (digits[offset + 2] - '0') * 10 + (digits[offset + 3] - '0');
+
+        switch(first) {
+            case '1':
+                return prefix == 1800 ? 15 : 0;
+            case '2':
+                if(prefix == 2131) {
+                    return 15;
+                }
+                return prefix >= 2221 && prefix <= 2720 ? 16 : 0;
+            case '3':
+                if(second == '4' || second == '7') {
+                    return 15;
+                }
+                if(second == '5') {
+                    return 16;
+                }
+                if((second == '0' && prefix <= 3059) || second == '6' || second == '8') {
+                    return 14;
+                }
+                return 0;
+            case '4':
+                return 16;
+            case '5':
+                return second >= '1' && second <= '5' ? 16 : 0;
+            case '6':
+                return prefix == 6011 || second == '5' ? 16 : 0;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isLuhnValid(char[] digits, int offset, int length) {
+        int sum = 0;
+        boolean doubled = false;
+        for(int i = offset + length - 1; i >= offset; i--) {
+            int digit = digits[i] - '0';
+            if(doubled) {
+                digit *= 2;
+                if(digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0;
+    }
+
+    private static void appendMasked(char[] digits, int offset, int length, StringBuilder out) {
+        out.append(digits, offset, 6);
+        for(int i = 6; i < length - 4; i++) {
+            out.append('X');
+        }
+        out.append(digits, offset + length - 4, 4);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '-';
+    }
+}
@@ -0,0 +1,64 @@
+package com.global.api.utils;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Masks card numbers in text as it is written through to the underlying writer. Digits at the end of a write are held
+ * back until the text after them shows whether they finish a card number, flush leaves them held so half a number is
+ * never written out unmasked. They are written on close.
+ */
+public class PanMaskingWriter extends FilterWriter {
+    // a run of digits this long is written out even if it is not finished
+    private static final int MAX_PENDING = 4096;
+
+    private final StringBuilder pending = new StringBuilder();
+    private final StringBuilder masked = new StringBuilder();
+
+    public PanMaskingWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        synchronized (lock) {
+            pending.append((char) c);
+            process(false);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        synchronized (lock) {
+            pending.append(cbuf, off, len);
+            process(false);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        synchronized (lock) {
+            pending.append(str, off, off + len);
+            process(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            process(true);
+            out.close();
+        }
+    }
+
+    private void process(boolean endOfInput) throws IOException {
+        masked.setLength(0);
+        int consumed = PanMasker.mask(pending, 0, pending.length(), endOfInput || pending.length() > MAX_PENDING, masked);
+        pending.delete(0, consumed);
+
+        if(masked.length() > 0) {
+            out.append(masked);
+        }
+    }
+}
@@ -17,7 +17,7 @@ public class RequestFileLogger implements IRequestLogger {
         long currentMillis = System.currentTimeMillis();
         Timestamp t = new Timestamp(currentMillis);
 
-        try (BufferedWriter pw = new BufferedWriter(new FileWriter(outputToFile, true))) {
+        try (Writer pw = new PanMaskingWriter(new BufferedWriter(new FileWriter(outputToFile, true)))) {
             pw.append(t + " Sent:\n" + request);
         }
     }
@@ -27,7 +27,7 @@ public class RequestFileLogger implements IRequestLogger {
         long currentMillis = System.currentTimeMillis();
         Timestamp t = new Timestamp(currentMillis);
 
-        try (BufferedWriter pw = new BufferedWriter(new FileWriter(outputToFile, true))) {
+        try (Writer pw = new PanMaskingWriter(new BufferedWriter(new FileWriter(outputToFile, true)))) {
             pw.append(t + " Response:\n" + response + "\n");
         }
     }
@@ -2,24 +2,40 @@ package com.global.api.utils;
 
 import com.global.api.entities.enums.IByteConstant;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReverseByteEnumMap<V extends Enum<V> & IByteConstant> {
-    private Map<Byte, V> map = new HashMap<Byte, V>();
+    private static final ConcurrentHashMap<Class<?>, ReverseByteEnumMap<?>> maps = new ConcurrentHashMap<>();
+
+    // indexed by the unsigned byte value, never modified after construction
+    private final Object[] values = new Object[256];
 
     ReverseByteEnumMap(Class<V> valueType) {
         for(V v: valueType.getEnumConstants()) {
-            map.put(v.getByte(), v);
+            values[v.getByte() & 0xFF] = v;
+        }
+    }
+
+    // one shared map per enum type, built on first use
+    @SuppressWarnings("unchecked")
+    public static <V extends Enum<V> & IByteConstant> ReverseByteEnumMap<V> forType(Class<V> valueType) {
+        ReverseByteEnumMap<?> map = maps.get(valueType);
+        if(map == null) {
+            map = new ReverseByteEnumMap<V>(valueType);
+            ReverseByteEnumMap<?> existing = maps.putIfAbsent(valueType, map);
+            if(existing != null) {
+                map = existing;
+            }
         }
+        return (ReverseByteEnumMap<V>) map;
     }
 
+    @SuppressWarnings("unchecked")
     public V get(byte value) {
-        return map.get(value);
+        return (V) values[value & 0xFF];
     }
 
     public static <TResult extends Enum<TResult> & IByteConstant> TResult parse(byte value, Class<TResult> clazz) {
-        ReverseByteEnumMap<TResult> mapper = new ReverseByteEnumMap<TResult>(clazz);
-        return mapper.get(value);
+        return forType(clazz).get(value);
     }
-}
\ No newline at end of file
+}
@@ -4,17 +4,64 @@ import com.global.api.entities.enums.INumericConstant;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReverseIntEnumMap<V extends Enum<V> & INumericConstant> {
-    private Map<Integer, V> map = new HashMap<Integer, V>();
+    private static final ConcurrentHashMap<Class<?>, ReverseIntEnumMap<?>> maps = new ConcurrentHashMap<>();
+    private static final int MAX_INDEXED_VALUE = 1024;
+
+    // small non-negative values are looked up by index, anything else falls back to the map
+    private final Object[] values;
+    private final Map<Integer, V> map;
 
     public ReverseIntEnumMap(Class<V> valueType) {
-        for(V v: valueType.getEnumConstants()) {
-            map.put(v.getValue(), v);
+        V[] constants = valueType.getEnumConstants();
+
+        int maxValue = -1;
+        boolean indexed = true;
+        for(V v: constants) {
+            if(v.getValue() < 0 || v.getValue() >= MAX_INDEXED_VALUE) {
+                indexed = false;
+                break;
+            }
+            maxValue = Math.max(maxValue, v.getValue());
+        }
+
+        if(indexed) {
+            values = new Object[maxValue + 1];
+            map = null;
+            for(V v: constants) {
+                values[v.getValue()] = v;
+            }
+        }
+        else {
+            values = null;
+            map = new HashMap<Integer, V>();
+            for(V v: constants) {
+                map.put(v.getValue(), v);
+            }
         }
     }
 
+    // one shared map per enum type, built on first use
+    @SuppressWarnings("unchecked")
+    public static <V extends Enum<V> & INumericConstant> ReverseIntEnumMap<V> forType(Class<V> valueType) {
+        ReverseIntEnumMap<?> map = maps.get(valueType);
+        if(map == null) {
+            map = new ReverseIntEnumMap<V>(valueType);
+            ReverseIntEnumMap<?> existing = maps.putIfAbsent(valueType, map);
+            if(existing != null) {
+                map = existing;
+            }
+        }
+        return (ReverseIntEnumMap<V>) map;
+    }
+
+    @SuppressWarnings("unchecked")
     public V get(int value) {
+        if(values != null) {
+            return value >= 0 && value < values.length ? (V) values[value] : null;
+        }
         return map.get(value);
     }
-}
\ No newline at end of file
+}
@@ -4,9 +4,13 @@ import com.global.api.entities.enums.IStringConstant;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ReverseStringEnumMap<V extends Enum<V> & IStringConstant> {
-    private Map<String, V> map = new HashMap<String, V>();
+    private static final ConcurrentHashMap<Class<?>, ReverseStringEnumMap<?>> maps = new ConcurrentHashMap<>();
+
+    // never modified after construction
+    private final Map<String, V> map = new HashMap<String, V>();
 
     public ReverseStringEnumMap(Class<V> valueType) {
         for(V v: valueType.getEnumConstants()) {
@@ -14,12 +18,25 @@ public class ReverseStringEnumMap<V extends Enum<V> & IStringConstant> {
         }
     }
 
+    // one shared map per enum type, built on first use
+    @SuppressWarnings("unchecked")
+    public static <V extends Enum<V> & IStringConstant> ReverseStringEnumMap<V> forType(Class<V> valueType) {
+        ReverseStringEnumMap<?> map = maps.get(valueType);
+        if(map == null) {
+            map = new ReverseStringEnumMap<V>(valueType);
+            ReverseStringEnumMap<?> existing = maps.putIfAbsent(valueType, map);
+            if(existing != null) {
+                map = existing;
+            }
+        }
+        return (ReverseStringEnumMap<V>) map;
+    }
+
     public V get(String value) {
         return map.get(value);
     }
 
     public static <TResult extends Enum<TResult> & IStringConstant> TResult parse(String value, Class<TResult> clazz) {
-        ReverseStringEnumMap<TResult> mapper = new ReverseStringEnumMap<TResult>(clazz);
-        return mapper.get(value);
+        return forType(clazz).get(value);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,226 @@
+package com.global.api.utils;
+
+/**
+ * Index over BER-TLV encoded bytes, such as EMV tag data. Parsing records where each element's tag, length and value
+ * sit in the buffer, values are only copied or converted to hex when asked for. Tags and long form lengths of any
+ * number of bytes are read, the elements inside a constructed tag are indexed the first time they are asked for.
+ *
+ * <p>Parsing stops at the first element that does not fit the buffer, {@link #isComplete()} reports whether the whole
+ * buffer was read.</p>
+ */
+public class TlvBuffer {
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final byte[] buffer;
+    private final int start;
+    private final int end;
+
+    private int count;
+    private int[] tags = new int[16];
+    private int[] tagOffsets = new int[16];
+    private int[] valueOffsets = new int[16];
+    private int[] valueLengths = new int[16];
+    private TlvBuffer[] children;
+    private boolean complete;
+
+    public static TlvBuffer parse(byte[] buffer) {
+        return parse(buffer, 0, buffer.length);
+    }
+
+    public static TlvBuffer parse(byte[] buffer, int offset, int length) {
+        if(offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IndexOutOfBoundsException(String.format("Range %d+%d is outside the buffer.", offset, length));
+        }
+
+        TlvBuffer rvalue = new TlvBuffer(buffer, offset, offset + length);
+        rvalue.index();
+        return rvalue;
+    }
+
+    private TlvBuffer(byte[] buffer, int start, int end) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // the tag bytes as a number, 9F34 is 0x9F34
+    public int getTag(int index) {
+        checkIndex(index);
+        return tags[index];
+    }
+
+    public int indexOf(int tag) {
+        for(int i = 0; i < count; i++) {
+            if(tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isConstructed(int index) {
+        checkIndex(index);
+        return (buffer[tagOffsets[index]] & 0x20) != 0;
+    }
+
+    // offsets are into the buffer that was parsed
+    public int getTagOffset(int index) {
+        checkIndex(index);
+        return tagOffsets[index];
+    }
+
+    public int getValueOffset(int index) {
+        checkIndex(index);
+        return valueOffsets[index];
+    }
+
+    public int getValueLength(int index) {
+        checkIndex(index);
+        return valueLengths[index];
+    }
+
+    public byte getValueByte(int index, int position) {
+        checkIndex(index);
+        if(position < 0 || position >= valueLengths[index]) {
+            throw new IndexOutOfBoundsException(String.format("Position %d is outside the value.", position));
+        }
+        return buffer[valueOffsets[index] + position];
+    }
+
+    public byte[] getValue(int index) {
+        checkIndex(index);
+        byte[] rvalue = new byte[valueLengths[index]];
+        System.arraycopy(buffer, valueOffsets[index], rvalue, 0, rvalue.length);
+        return rvalue;
+    }
+
+    // the elements inside a constructed tag, null for a primitive one
+    public TlvBuffer getChildren(int index) {
+        if(!isConstructed(index)) {
+            return null;
+        }
+
+        if(children == null) {
+            children = new TlvBuffer[count];
+        }
+        if(children[index] == null) {
+            children[index] = parse(buffer, valueOffsets[index], valueLengths[index]);
+        }
+        return children[index];
+    }
+
+    public String getTagName(int index) {
+        checkIndex(index);
+        return hex(tagOffsets[index], getLengthOffset(index));
+    }
+
+    // the length exactly as encoded, including the long form prefix byte
+    public String getLengthHex(int index) {
+        checkIndex(index);
+        return hex(getLengthOffset(index), valueOffsets[index]);
+    }
+
+    public String getValueHex(int index) {
+        checkIndex(index);
+        return hex(valueOffsets[index], valueOffsets[index] + valueLengths[index]);
+    }
+
+    private int getLengthOffset(int index) {
+        int i = tagOffsets[index];
+        if((buffer[i++] & 0x1F) == 0x1F) {
+            while((buffer[i++] & 0x80) != 0) {
+                // subsequent tag bytes carry a continuation bit
+            }
+        }
+        return i;
+    }
+
+    private void index() {
+        int i = start;
+        while(i < end) {
+            int tagOffset = i;
+            int tag = buffer[i++] & 0xFF;
+            if((tag & 0x1F) == 0x1F) {
+                int b;
+                do {
+                    // a tag that does not fit an int is not one we could look up anyway
+                    if(i == end || tag > 0xFFFFFF) {
+                        return;
+                    }
+                    b = buffer[i++] & 0xFF;
+                    tag = (tag << 8) | b;
+                }
+                while((b & 0x80) != 0);
+            }
+
+            if(i == end) {
+                return;
+            }
+            int length = buffer[i++] & 0xFF;
+            if(length > 0x7F) {
+                // long form, the low bits give the number of length bytes; the indefinite form is not used by EMV
+                int lengthBytes = length & 0x7F;
+                if(lengthBytes == 0 || lengthBytes > 3 || end - i < lengthBytes) {
+                    return;
+                }
+                length = 0;
+                for(int n = 0; n < lengthBytes; n++) {
+                    length = (length << 8) | (buffer[i++] & 0xFF);
+                }
+            }
+
+            if(end - i < length) {
+                return;
+            }
+            add(tag, tagOffset, i, length);
+            i += length;
+        }
+        complete = true;
+    }
+
+    private void add(int tag, int tagOffset, int valueOffset, int valueLength) {
+        if(count == tags.length) {
+            int size = count * 2;
+            tags = copyOf(tags, size);
+            tagOffsets = copyOf(tagOffsets, size);
+            valueOffsets = copyOf(valueOffsets, size);
+            valueLengths = copyOf(valueLengths, size);
+        }
+
+        tags[count] = tag;
+        tagOffsets[count] = tagOffset;
+        valueOffsets[count] = valueOffset;
+        valueLengths[count] = valueLength;
+        count++;
+    }
+
+    private String hex(int from, int to) {
+        char[] chars = new char[(to - from) * 2];
+        for(int i = from, j = 0; i < to; i++) {
+            int v = buffer[i] & 0xFF;
+            chars[j++] = HEX[v >>> 4];
+            chars[j++] = HEX[v & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    private void checkIndex(int index) {
+        if(index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(String.format("Element %d of %d.", index, count));
+        }
+    }
+
+    private static int[] copyOf(int[] values, int size) {
+        int[] rvalue = new int[size];
+        System.arraycopy(values, 0, rvalue, 0, values.length);
+        return rvalue;
+    }
+}
@@ -5,29 +5,40 @@ public class TlvData {
     private String length;
     private String value;
     private String description;
+    // set when the length and value are read from the parsed tag data on first use
+    private TlvBuffer source;
+    private int index;
 
     public String getTag() {
         return tag;
     }
     public String getLength() {
+        if(length == null && source != null) {
+            length = source.getLengthHex(index);
+        }
         return length;
     }
     public String getValue() {
+        if(value == null && source != null) {
+            value = source.getValueHex(index);
+        }
         return value;
     }
     public String getBinaryValue() {
-        StringBuilder sb = new StringBuilder();
-        for(byte b: StringUtils.bytesFromHex(value)) {
-            sb.append(Integer.toBinaryString((b & 0xFF) + 0x100).substring(1));
+        byte[] buffer = source != null ? source.getValue(index) : StringUtils.bytesFromHex(value);
+
+        char[] bits = new char[buffer.length * 8];
+        for(int i = 0; i < bits.length; i++) {
+            bits[i] = (buffer[i >> 3] & (0x80 >>> (i & 7))) != 0 ? '1' : '0';
         }
-        return sb.toString();
+        return new String(bits);
     }
     public String getDescription() {
         return description;
     }
 
     public String getFullValue() {
-        return String.format("%s%s%s", tag, length, value);
+        return tag + getLength() + getValue();
     }
 
     public TlvData(String tag, String length, String value) {
@@ -39,4 +50,10 @@ public class TlvData {
         this.value = value;
         this.description = description;
     }
+    TlvData(TlvBuffer source, int index, String tag, String description) {
+        this.source = source;
+        this.index = index;
+        this.tag = tag;
+        this.description = description;
+    }
 }
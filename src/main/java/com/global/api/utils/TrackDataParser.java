@@ -0,0 +1,288 @@
+package com.global.api.utils;
+
+import com.global.api.entities.enums.TrackNumber;
+
+/**
+ * Finds the first track 2 or, failing that, track 1 in swiped card data with a single scan. A parse only records
+ * offsets into the input, strings are created when a getter asks for them, so one parser can be reused for every
+ * swipe on a lane.
+ *
+ * <p>Track 2 is {@code [;]PAN=YYMM[discretionary][?]} where the separator may also be d, D or |, track 1 is
+ * {@code [%][B|0]PAN^NAME^YYMM[discretionary][?]}. Input can be text or the raw ASCII bytes read from a terminal.</p>
+ */
+public class TrackDataParser {
+    private static final int TRACK_TWO_LENGTH = 37;
+
+    private CharSequence text;
+    private byte[] bytes;
+    private int offset;
+    private int length;
+
+    private TrackNumber trackNumber;
+    private int trackStart;
+    private int trackEnd;
+    private int panStart;
+    private int panEnd;
+    private int expiryStart;
+    private int discretionaryEnd;
+
+    public boolean parse(CharSequence value) {
+        text = value;
+        bytes = null;
+        offset = 0;
+        length = value == null ? 0 : value.length();
+        return parse();
+    }
+
+    public boolean parse(byte[] value, int offset, int length) {
+        text = null;
+        bytes = value;
+        this.offset = offset;
+        this.length = length;
+        return parse();
+    }
+
+    // null when nothing was found
+    public TrackNumber getTrackNumber() {
+        return trackNumber;
+    }
+
+    // offsets are relative to the start of the parsed input, ends are exclusive
+    public int getTrackStart() {
+        return trackStart;
+    }
+
+    public int getTrackEnd() {
+        return trackEnd;
+    }
+
+    public int getPanStart() {
+        return panStart;
+    }
+
+    public int getPanEnd() {
+        return panEnd;
+    }
+
+    public int getExpiryStart() {
+        return expiryStart;
+    }
+
+    public int getDiscretionaryStart() {
+        return expiryStart + 4;
+    }
+
+    public int getDiscretionaryEnd() {
+        return discretionaryEnd;
+    }
+
+    public String getPan() {
+        return trackNumber == null ? null : substring(panStart, panEnd);
+    }
+
+    public String getExpiry() {
+        return trackNumber == null ? null : substring(expiryStart, expiryStart + 4);
+    }
+
+    // a full length track 2 padded with a trailing F loses the pad
+    public String getDiscretionaryData() {
+        if(trackNumber == null || discretionaryEnd == getDiscretionaryStart()) {
+            return null;
+        }
+        return substring(getDiscretionaryStart(), trimmedDiscretionaryEnd());
+    }
+
+    // the track as sent to the gateway, track 2 always uses = as the separator
+    public String getTrackData() {
+        if(trackNumber == null) {
+            return null;
+        }
+        if(trackNumber == TrackNumber.TrackOne) {
+            return getRawTrackData();
+        }
+
+        StringBuilder sb = new StringBuilder(discretionaryEnd - panStart);
+        append(sb, panStart, panEnd);
+        sb.append('=');
+        append(sb, expiryStart, trimmedDiscretionaryEnd());
+        return sb.toString();
+    }
+
+    // the matched track without the start sentinel, exactly as read
+    public String getRawTrackData() {
+        if(trackNumber == null) {
+            return null;
+        }
+        int start = trackStart;
+        if(charAt(start) == ';' || charAt(start) == '%') {
+            start++;
+        }
+        return substring(start, trackEnd);
+    }
+
+    private boolean parse() {
+        trackNumber = null;
+        if(length == 0) {
+            return false;
+        }
+
+        int firstTrackOne = -1;
+        int i = 0;
+        while(i < length) {
+            char c = charAt(i);
+            int start = i;
+            if(c == ';') {
+                i++;
+            }
+
+            int digitsEnd = skipDigits(i);
+            if(digitsEnd > i) {
+                // track 1 is only used when there is no track 2, remember where the first one was seen
+                if(firstTrackOne < 0 && matchTrackOne(i)) {
+                    firstTrackOne = i;
+                }
+                if(matchTrackTwo(start, i, digitsEnd)) {
+                    return true;
+                }
+                // no shorter run of the same digits can match either
+                i = digitsEnd;
+                continue;
+            }
+
+            if(firstTrackOne < 0 && (c == '%' || c == 'B') && matchTrackOne(start)) {
+                firstTrackOne = start;
+            }
+            i = start + 1;
+        }
+
+        if(firstTrackOne >= 0) {
+            matchTrackOne(firstTrackOne);
+            trackNumber = TrackNumber.TrackOne;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean matchTrackTwo(int start, int digitsStart, int digitsEnd) {
+        if(digitsEnd >= length || !isSeparator(charAt(digitsEnd)) || !isExpiry(digitsEnd + 1)) {
+            return false;
+        }
+
+        trackNumber = TrackNumber.TrackTwo;
+        trackStart = start;
+        panStart = digitsStart;
+        panEnd = digitsEnd;
+        expiryStart = digitsEnd + 1;
+        trackEnd = discretionaryEnd = skipToEndSentinel(expiryStart + 4);
+        return true;
+    }
+
+    private boolean matchTrackOne(int start) {
+        int i = start;
+        if(i < length && charAt(i) == '%') {
+            i++;
+        }
+        if(i < length && charAt(i) == 'B') {
+            i++;
+        }
+        // a leading 0 is the format code unless it is the only digit
+        else if(i + 1 < length && charAt(i) == '0' && isDigit(charAt(i + 1))) {
+            i++;
+        }
+
+        int digitsEnd = skipDigits(i);
+        if(digitsEnd == i || digitsEnd >= length || charAt(digitsEnd) != '^') {
+            return false;
+        }
+
+        int nameEnd = digitsEnd + 1;
+        while(nameEnd < length && charAt(nameEnd) != '^') {
+            nameEnd++;
+        }
+        if(nameEnd == digitsEnd + 1 || nameEnd >= length || !isExpiry(nameEnd + 1)) {
+            return false;
+        }
+
+        trackStart = start;
+        panStart = i;
+        panEnd = digitsEnd;
+        expiryStart = nameEnd + 1;
+        trackEnd = discretionaryEnd = skipToEndSentinel(expiryStart + 4);
+        return true;
+    }
+
+    private int trimmedDiscretionaryEnd() {
+        int end = discretionaryEnd;
+        if(trackNumber == TrackNumber.TrackTwo && end > getDiscretionaryStart()) {
+            int trackLength = (panEnd - panStart) + (end - expiryStart);
+            char last = charAt(end - 1);
+            if(trackLength == TRACK_TWO_LENGTH && (last == 'F' || last == 'f')) {
+                end--;
+            }
+        }
+        return end;
+    }
+
+    private boolean isExpiry(int start) {
+        if(start + 4 > length) {
+            return false;
+        }
+        for(int i = start; i < start + 4; i++) {
+            if(!isDigit(charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int skipDigits(int i) {
+        while(i < length && isDigit(charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int skipToEndSentinel(int i) {
+        while(i < length && charAt(i) != '?') {
+            i++;
+        }
+        return i;
+    }
+
+    private char charAt(int index) {
+        if(bytes != null) {
+            return (char) (bytes[offset + index] & 0xFF);
+        }
+        return text.charAt(index);
+    }
+
+    private String substring(int start, int end) {
+        if(bytes != null) {
+            char[] chars = new char[end - start];
+            for(int i = 0; i < chars.length; i++) {
+                chars[i] = charAt(start + i);
+            }
+            return new String(chars);
+        }
+        return text.subSequence(start, end).toString();
+    }
+
+    private void append(StringBuilder sb, int start, int end) {
+        if(bytes != null) {
+            for(int i = start; i < end; i++) {
+                sb.append(charAt(i));
+            }
+        }
+        else {
+            sb.append(text, start, end);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '=' || c == 'd' || c == 'D' || c == '|';
+    }
+}
@@ -0,0 +1,97 @@
+package com.global.api.tests;
+
+import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.utils.BinTable;
+import com.global.api.utils.CardUtils;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class BinTableTests {
+    @Test
+    public void mapsBuiltinBrands() {
+        assertEquals("Visa", CardUtils.mapCardType("4012002000060016"));
+        assertEquals("MC", CardUtils.mapCardType("2223000010005780"));
+        assertEquals("MC", CardUtils.mapCardType("5473 5000 0000 0014"));
+        assertEquals("Amex", CardUtils.mapCardType("372700699251018"));
+        assertEquals("Discover", CardUtils.mapCardType("6011-0000-0000-0012"));
+        assertEquals("Jcb", CardUtils.mapCardType("3566007770007321"));
+        assertEquals("VisaFleet", CardUtils.mapCardType("4484600000000000"));
+        assertEquals("VisaReadyLink", CardUtils.mapCardType("4627660000000000"));
+        assertEquals("Unknown", CardUtils.mapCardType("9999999999999999"));
+    }
+
+    @Test
+    public void shortNumbersDoNotThrow() {
+        assertEquals("Visa", CardUtils.mapCardType("4"));
+        assertFalse(CardUtils.isFleet("Visa", "44"));
+        assertFalse(CardUtils.isReadyLink("4627"));
+    }
+
+    @Test
+    public void longestPrefixWins() {
+        BinTable table = new BinTable()
+                .withBrand("Visa", "4", "4")
+                .withBrand("Private", "41234", "41240");
+
+        assertEquals("Private", table.findCardType("4123500000000000"));
+        assertEquals("Private", table.findCardType("4124000000000000"));
+        assertEquals("Visa", table.findCardType("4124100000000000"));
+        // too few digits to reach the longer range
+        assertEquals("Visa", table.findCardType("4123"));
+        assertNull(table.findCardType("5123500000000000"));
+    }
+
+    @Test
+    public void rangesWithDifferentLeadingDigits() {
+        BinTable table = new BinTable().withBrand("MC", "2221", "2720");
+
+        assertEquals("MC", table.findCardType("2221000000000000"));
+        assertEquals("MC", table.findCardType("2500000000000000"));
+        assertEquals("MC", table.findCardType("2720990000000000"));
+        assertNull(table.findCardType("2220990000000000"));
+        assertNull(table.findCardType("2721000000000000"));
+    }
+
+    @Test
+    public void loadsSupplementaryEntries() throws ConfigurationException {
+        BinTable table = new BinTable().withBrand("Visa", "4", "4").load(new StringReader(
+                "# private label ranges\n" +
+                "\n" +
+                "brand, StoreCard, 604646\n" +
+                "fleet,Visa,448460,448611\n" +
+                "readylink,462766\n"));
+
+        assertEquals("StoreCard", table.findCardType("6046460000000000"));
+        assertTrue(table.isFleet("Visa", "4485000000000000"));
+        assertFalse(table.isFleet("MC", "4485000000000000"));
+        assertTrue(table.isReadyLink("4627660000000000"));
+        assertFalse(table.isReadyLink("4627670000000000"));
+        assertArrayEquals(new String[] { "Visa", "StoreCard" }, table.getCardTypes().toArray());
+    }
+
+    @Test
+    public void loadingLeavesOriginalUnchanged() throws ConfigurationException {
+        BinTable table = new BinTable().withBrand("Visa", "4", "4");
+        table.load(new StringReader("brand,StoreCard,604646"));
+
+        assertNull(table.findCardType("6046460000000000"));
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void rejectsUnevenRange() throws ConfigurationException {
+        new BinTable().load(new StringReader("brand,Visa,4,499"));
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void rejectsUnknownKind() throws ConfigurationException {
+        new BinTable().load(new StringReader("issuer,Visa,4"));
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void rejectsNonNumericBin() throws ConfigurationException {
+        new BinTable().load(new StringReader("readylink,46A766"));
+    }
+}
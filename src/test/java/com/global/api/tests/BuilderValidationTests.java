@@ -13,6 +13,7 @@ import org.junit.Test;
 
 import java.math.BigDecimal;
 import java.util.Date;
+import java.util.concurrent.CompletionException;
 
 public class BuilderValidationTests {
     CreditCardData card;
@@ -47,6 +48,15 @@ public class BuilderValidationTests {
         card.authorize(new BigDecimal(14)).withCurrency("USD").withPaymentMethod(null).execute();
     }
 
+    @Test(expected = BuilderException.class)
+    public void creditAuthNoAmountAsync() throws Throwable {
+        try {
+            card.authorize().executeAsync(Runnable::run).join();
+        } catch (CompletionException exc) {
+            throw exc.getCause();
+        }
+    }
+
     @Test(expected = BuilderException.class)
     public void creditSaleNoAmount() throws ApiException {
         card.charge().execute();
@@ -201,4 +201,47 @@ public class CountryUtilTests {
         address.setCountry("Afganistan");
         assertFalse(address.isCountry("GB"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getCountryCodeIgnoresCaseAndPunctuation() {
+        assertEquals("IE", CountryUtils.getCountryCodeByCountry("  IRELAND "));
+        assertEquals("GS", CountryUtils.getCountryCodeByCountry("south georgia and the south-sandwich islands."));
+        assertEquals("IE", CountryUtils.getCountryCodeByCountry("ie"));
+    }
+
+    @Test
+    public void getCountryCodeIgnoresAccents() {
+        assertEquals("AX", CountryUtils.getCountryCodeByCountry("Aland Islands"));
+        assertEquals("CW", CountryUtils.getCountryCodeByCountry("Curacao"));
+        assertEquals("RE", CountryUtils.getCountryCodeByCountry("R\u00e9union"));
+    }
+
+    @Test
+    public void getCountryCodeByAlpha3Code() {
+        assertEquals("GB", CountryUtils.getCountryCodeByCountry("GBR"));
+        assertEquals("US", CountryUtils.getCountryCodeByCountry("usa"));
+        assertEquals("DE", CountryUtils.getCountryCodeByCountry("DEU"));
+    }
+
+    @Test
+    public void getCountryByAlpha3Code() {
+        assertEquals("Germany", CountryUtils.getCountryByCode("DEU"));
+        assertEquals("Ireland", CountryUtils.getCountryByCode("irl"));
+    }
+
+    @Test
+    public void getCountryCodeByCommonName() {
+        assertEquals("GB", CountryUtils.getCountryCodeByCountry("United Kingdom"));
+        assertEquals("RU", CountryUtils.getCountryCodeByCountry("Russia"));
+        assertEquals("KR", CountryUtils.getCountryCodeByCountry("South Korea"));
+        assertEquals("CI", CountryUtils.getCountryCodeByCountry("Ivory Coast"));
+    }
+
+    @Test
+    public void getCountryCodeFuzzyRepeated() {
+        for(int i = 0; i < 3; i++) {
+            assertEquals("AF", CountryUtils.getCountryCodeByCountry("Afganistan"));
+            assertNull(CountryUtils.getCountryCodeByCountry("Fakeistan"));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.global.api.tests;
+
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.utils.Element;
+import com.global.api.utils.ElementTree;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ElementTreeTests {
+    @Test
+    public void writeRequest() {
+        ElementTree et = new ElementTree();
+        Element request = et.element("request").set("type", "auth");
+        et.subElement(request, "merchantid", "merchant");
+        et.subElement(request, "comment", "Fish & <Chips>");
+        et.subElement(request, "autosettle").set("flag", "1");
+
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?><request type=\"auth\"><merchantid>merchant</merchantid><comment>Fish &amp; &lt;Chips&gt;</comment><autosettle flag=\"1\"/></request>", et.toString(request));
+    }
+
+    @Test
+    public void writeNamespacedRequest() {
+        ElementTree et = new ElementTree();
+        et.addNamespace("soapenv", "http://schemas.xmlsoap.org/soap/envelope/");
+        et.addNamespace("bil", "https://example.com/billing");
+
+        Element envelope = et.element("soapenv:Envelope");
+        Element body = et.subElement(envelope, "soapenv:Body");
+        Element payment = et.subElement(body, "bil:MakePayment");
+        et.subElement(payment, "bil:Amount", "10.00");
+
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" +
+                "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><soapenv:Body>" +
+                "<bil:MakePayment xmlns:bil=\"https://example.com/billing\"><bil:Amount>10.00</bil:Amount></bil:MakePayment>" +
+                "</soapenv:Body></soapenv:Envelope>", et.toString(envelope));
+    }
+
+    @Test
+    public void parseResponse() throws ApiException {
+        String xml = "<?xml version=\"1.0\" encoding=\"utf-8\"?><soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>" +
+                "<PosResponse rootUrl=\"https://example.com\" xmlns=\"http://Hps.Exchange.PosGateway\"><Ver1.0><Header><GatewayRspCode>0</GatewayRspCode>" +
+                "<GatewayRspMsg>Success &amp; more</GatewayRspMsg></Header><Transaction><CreditSale><RspCode>00</RspCode><RspText><![CDATA[<APPROVAL>]]></RspText>" +
+                "</CreditSale></Transaction></Ver1.0></PosResponse></soap:Body></soap:Envelope>";
+
+        Element root = ElementTree.parse(xml).get("PosResponse");
+        assertNotNull(root);
+        assertEquals("https://example.com", root.getAttributeString("rootUrl"));
+        assertEquals(Integer.valueOf(0), root.getInt("GatewayRspCode"));
+        assertEquals("Success & more", root.getString("GatewayRspMsg"));
+        assertEquals("00", root.getString("RspCode"));
+        assertEquals("<APPROVAL>", root.getString("RspText"));
+        assertTrue(root.has("CreditSale"));
+        assertEquals("CreditSale", root.get("Transaction").firstChild().tag());
+    }
+
+    @Test
+    public void parseBytes() throws ApiException {
+        Element root = ElementTree.parse("<SIP><Version>1.0</Version><Result>0</Result></SIP>".getBytes()).get("SIP");
+        assertEquals("1.0", root.getString("Version"));
+        assertEquals("0", root.getString("Result"));
+    }
+
+    @Test(expected = ApiException.class)
+    public void parseMalformed() throws ApiException {
+        ElementTree.parse("<response><result>00</response>");
+    }
+
+    @Test
+    public void parseConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 200; i++) {
+                final String orderId = "order" + i;
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        ElementTree et = new ElementTree();
+                        Element request = et.element("response");
+                        et.subElement(request, "orderid", orderId);
+                        return ElementTree.parse(et.toString(request)).get("response").getString("orderid");
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals("order" + i, results.get(i).get());
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+}
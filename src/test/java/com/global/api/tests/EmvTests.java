@@ -2,6 +2,7 @@ package com.global.api.tests;
 
 import com.global.api.utils.EmvData;
 import com.global.api.utils.EmvUtils;
+import com.global.api.utils.StringUtils;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -60,4 +61,32 @@ public class EmvTests {
         EmvData data = EmvUtils.parseTagData(tagData, true);
         assertEquals(tagData, data.getAcceptedTagData());
     }
+
+    @Test
+    public void standInChecks() {
+        EmvData domestic = EmvUtils.parseTagData("5F280208409505000000000095020000", false);
+        assertNull(domestic.getStandInStatusReason());
+
+        EmvData foreign = EmvUtils.parseTagData("5F28020826", false);
+        assertEquals("Card is not domestically issued", foreign.getStandInStatusReason());
+
+        EmvData tvr = EmvUtils.parseTagData("95050000800000", false);
+        assertEquals("Invalid TVR status in byte 3 of tag 95", tvr.getStandInStatusReason());
+
+        EmvData tsi = EmvUtils.parseTagData("9B026800", false);
+        assertEquals("Invalid TSI status in byte 1 of tag 9B", tsi.getStandInStatusReason());
+    }
+
+    @Test
+    public void parseBinaryTagData() {
+        byte[] tagData = StringUtils.bytesFromHex("5A0841111111111111119B02E8009F1081800102030405060708090A0B0C0D0E0F101112131415161718191A1B1C1D1E1F202122232425262728292A2B2C2D2E2F303132333435363738393A3B3C3D3E3F404142434445464748494A4B4C4D4E4F505152535455565758595A5B5C5D5E5F606162636465666768696A6B6C6D6E6F707172737475767778797A7B7C7D7E7F80");
+
+        EmvData emvData = EmvUtils.parseTagData(tagData, false);
+        assertNull(emvData.getTag("5A"));
+        assertEquals("4111111111111111", emvData.getRemovedTags().get("5A").getValue());
+        assertEquals("1110100000000000", emvData.getTag("9B").getBinaryValue());
+        // the long form length is kept so the accepted data can be sent on as is
+        assertEquals("8180", emvData.getTag("9F10").getLength());
+        assertEquals(StringUtils.hexFromBytes(tagData).substring(20), emvData.getAcceptedTagData());
+    }
 }
@@ -0,0 +1,76 @@
+package com.global.api.tests;
+
+import com.global.api.entities.enums.Channel;
+import com.global.api.entities.enums.ControlCodes;
+import com.global.api.entities.enums.PayGroupFrequency;
+import com.global.api.network.enums.DataElementId;
+import com.global.api.utils.EnumUtils;
+import com.global.api.utils.ReverseByteEnumMap;
+import com.global.api.utils.ReverseIntEnumMap;
+import com.global.api.utils.ReverseStringEnumMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class EnumUtilsTests {
+    @Test
+    public void parsesByteConstants() {
+        for (ControlCodes code : ControlCodes.values()) {
+            assertEquals(code, EnumUtils.parse(ControlCodes.class, code.getByte()));
+        }
+        assertTrue(EnumUtils.isDefined(ControlCodes.class, (byte) 0x1C));
+        assertFalse(EnumUtils.isDefined(ControlCodes.class, (byte) 0x41));
+        assertNull(EnumUtils.parse(ControlCodes.class, (byte) 0xFF));
+    }
+
+    @Test
+    public void parsesNumericConstants() {
+        for (DataElementId id : DataElementId.values()) {
+            assertEquals(id, EnumUtils.parse(DataElementId.class, id.getValue()));
+        }
+        assertEquals(PayGroupFrequency.Monthly, EnumUtils.parse(PayGroupFrequency.class, 12));
+        assertNull(EnumUtils.parse(PayGroupFrequency.class, -1));
+        assertNull(EnumUtils.parse(PayGroupFrequency.class, 100000));
+    }
+
+    @Test
+    public void parsesStringConstants() {
+        for (Channel channel : Channel.values()) {
+            assertEquals(channel, EnumUtils.parse(Channel.class, channel.getValue()));
+        }
+        assertNull(EnumUtils.parse(Channel.class, "unknown"));
+        assertNull(EnumUtils.parse(Channel.class, (String) null));
+    }
+
+    @Test
+    public void sharesOneMapPerType() throws Exception {
+        assertSame(ReverseByteEnumMap.forType(ControlCodes.class), ReverseByteEnumMap.forType(ControlCodes.class));
+        assertSame(ReverseIntEnumMap.forType(DataElementId.class), ReverseIntEnumMap.forType(DataElementId.class));
+        assertSame(ReverseStringEnumMap.forType(Channel.class), ReverseStringEnumMap.forType(Channel.class));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() {
+                        return EnumUtils.parse(ControlCodes.class, (byte) 0x06) == ControlCodes.ACK
+                                && EnumUtils.parse(DataElementId.class, DataElementId.DE_048.getValue()) == DataElementId.DE_048;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.global.api.tests;
+
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.utils.GpApiDateParser;
+import com.global.api.utils.JsonDoc;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class GpApiDateParserTests {
+    @Test
+    public void parsesEveryDateTimeVariant() throws GatewayException {
+        assertEquals(new DateTime(2021, 3, 22, 10, 11, 12, 123), GpApiDateParser.parseDateTime("2021-03-22T10:11:12.123Z"));
+        assertEquals(new DateTime(2021, 3, 22, 10, 11, 12, 123), GpApiDateParser.parseDateTime("2021-03-22T10:11:12.123"));
+        assertEquals(new DateTime(2021, 3, 22, 10, 11, 12, 0), GpApiDateParser.parseDateTime("2021-03-22T10:11:12Z"));
+        assertEquals(new DateTime(2021, 3, 22, 10, 11, 12, 0), GpApiDateParser.parseDateTime("2021-03-22T10:11:12"));
+        assertEquals(new DateTime(2021, 3, 22, 10, 11, 0, 0), GpApiDateParser.parseDateTime("2021-03-22T10:11"));
+    }
+
+    @Test
+    public void parsesShortFields() throws GatewayException {
+        assertEquals(new DateTime(2021, 3, 22, 10, 11, 12, 500), GpApiDateParser.parseDateTime("2021-03-22T10:11:12.5Z"));
+        assertEquals(new DateTime(2021, 3, 2, 1, 2, 3, 0), GpApiDateParser.parseDateTime("2021-3-2T1:2:3"));
+        assertEquals(new DateTime(2021, 3, 22, 10, 11, 12, 0), GpApiDateParser.parseDateTime("2021-03-22t10:11:12z"));
+    }
+
+    @Test
+    public void rejectsUnsupportedDateTimes() {
+        String[] values = {
+                "2021-03-22", "2021-03-22T10:11Z", "2021-03-22T10:11:12.", "2021-03-22T10:11:12.123456Z",
+                "2021-03-22T10:11:12.123+01:00", "2021-03-22T24:00:00", "2021-02-30T10:00:00", "not a date"
+        };
+        for (String value : values) {
+            try {
+                GpApiDateParser.parseDateTime(value);
+                fail("Expected " + value + " to be rejected.");
+            } catch (GatewayException exc) {
+                assertEquals("DateTime format is not supported.", exc.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void parsesDates() throws GatewayException {
+        assertEquals(new GregorianCalendar(2021, 2, 22).getTime(), GpApiDateParser.parseDate("2021-03-22"));
+        assertEquals(new GregorianCalendar(2021, 2, 22).getTime(), GpApiDateParser.parseDate("2021-03-22T10:11:12.123Z"));
+        assertEquals(new GregorianCalendar(2022, 0, 1).getTime(), GpApiDateParser.parseDate("2021-13-01"));
+        assertNull(GpApiDateParser.parseDate(""));
+        assertNull(GpApiDateParser.parseDateTime(null));
+        assertEquals("2021-03-22", GpApiDateParser.formatDate(new GregorianCalendar(2021, 2, 22).getTime()));
+    }
+
+    @Test(expected = GatewayException.class)
+    public void rejectsUnsupportedDate() throws GatewayException {
+        GpApiDateParser.parseDate("22/03/2021");
+    }
+
+    @Test
+    public void readsJsonDateTimes() throws GatewayException {
+        JsonDoc doc = JsonDoc.parse("{\"time_created\":\"2021-03-22T10:11:12.123Z\"}");
+        assertEquals(new DateTime(2021, 3, 22, 10, 11, 12, 123), doc.getDateTime("time_created"));
+        assertNull(doc.getDateTime("missing"));
+    }
+
+    @Test
+    public void parsesConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 200; i++) {
+                final String date = String.format("2021-%02d-%02d", i % 12 + 1, i % 28 + 1);
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        return GpApiDateParser.formatDate(GpApiDateParser.parseDate(date));
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(String.format("2021-%02d-%02d", i % 12 + 1, i % 28 + 1), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
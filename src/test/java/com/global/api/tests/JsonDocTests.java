@@ -0,0 +1,85 @@
+package com.global.api.tests;
+
+import com.global.api.utils.JsonDoc;
+import com.google.gson.JsonSyntaxException;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JsonDocTests {
+    private static final String RESPONSE = "{\"id\":\"TRN_1\",\"amount\":1.50,\"approved\":true,\"reference\":null," +
+            "\"payment_method\":{\"result\":\"00\",\"card\":{\"brand\":\"VISA\"}}," +
+            "\"actions\":[{\"id\":\"ACT_1\"},{\"id\":\"ACT_2\"}],\"tags\":[\"a\",1,false]}";
+
+    @Test
+    public void parsesResponse() {
+        JsonDoc doc = JsonDoc.parse(RESPONSE);
+
+        assertEquals("TRN_1", doc.getString("id"));
+        assertEquals("1.50", doc.getString("amount"));
+        assertTrue(doc.getBool("approved"));
+        assertFalse(doc.has("reference"));
+        assertEquals("VISA", doc.get("payment_method").get("card").getString("brand"));
+
+        List<JsonDoc> actions = doc.getEnumerator("actions");
+        assertEquals(2, actions.size());
+        assertEquals("ACT_2", actions.get(1).getString("id"));
+        assertEquals("[a, 1, false]", doc.getStringArrayList("tags").toString());
+    }
+
+    @Test
+    public void parsesFromStream() {
+        JsonDoc doc = JsonDoc.parse(new ByteArrayInputStream("{\"message\":\"d\u00e9j\u00e0 vu\"}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("d\u00e9j\u00e0 vu", doc.getString("message"));
+    }
+
+    @Test
+    public void ignoresNonObjectDocuments() {
+        assertNull(JsonDoc.parse(""));
+        assertNull(JsonDoc.parse("null"));
+        assertNull(JsonDoc.parse("[{\"id\":1}]"));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void rejectsTruncatedDocument() {
+        JsonDoc.parse("{\"id\":");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void rejectsTrailingContent() {
+        JsonDoc.parse("{\"id\":1} {\"id\":2}");
+    }
+
+    @Test
+    public void writesRequest() throws Exception {
+        JsonDoc request = new JsonDoc()
+                .set("reference", "<ref> & 'more'")
+                .set("amount", 100)
+                .set("missing", (String) null, true)
+                .set("usage", new String[] { "SINGLE" });
+        request.subElement("card").set("number", "4263970000005262");
+
+        JsonDoc written = JsonDoc.parse(request.toString());
+        assertEquals("<ref> & 'more'", written.getString("reference"));
+        assertEquals("100", written.getString("amount"));
+        assertFalse(written.has("missing"));
+        assertEquals("[SINGLE]", written.getStringArrayList("usage").toString());
+        assertEquals("4263970000005262", written.get("card").getString("number"));
+        assertTrue(request.toString().contains("\"<ref> & 'more'\""));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        request.writeTo(out);
+        assertEquals(request.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void roundTripsParsedArrays() {
+        JsonDoc doc = JsonDoc.parse(JsonDoc.parse(RESPONSE).toString());
+        assertEquals("ACT_1", doc.getEnumerator("actions").get(0).getString("id"));
+    }
+}
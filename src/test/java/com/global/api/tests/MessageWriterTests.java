@@ -0,0 +1,101 @@
+package com.global.api.tests;
+
+import com.global.api.entities.enums.ControlCodes;
+import com.global.api.terminals.TerminalUtilities;
+import com.global.api.terminals.abstractions.IDeviceMessage;
+import com.global.api.utils.MessageReader;
+import com.global.api.utils.MessageWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class MessageWriterTests {
+    @Test
+    public void writesAndGrows() throws Exception {
+        MessageWriter mw = new MessageWriter(2);
+        mw.add(ControlCodes.STX);
+        mw.add((byte) 0x41);
+        mw.add(Byte.valueOf((byte) 0x42));
+        mw.addRange(new Byte[] { 0x43, 0x44 });
+        mw.add("EF");
+        mw.add(5, 4);
+        mw.add(ControlCodes.ETX);
+
+        assertEquals(12, mw.length());
+        assertEquals("02414243444546000000050" + "3", mw.toString());
+
+        mw.pop();
+        assertEquals(11, mw.length());
+        assertArrayEquals(new byte[] { 0x02, 0x41, 0x42, 0x43, 0x44, 0x45, 0x46, 0, 0, 0, 5 }, mw.toArray());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mw.writeTo(out);
+        assertArrayEquals(mw.toArray(), out.toByteArray());
+
+        ByteBuffer view = mw.toByteBuffer();
+        assertTrue(view.isReadOnly());
+        assertEquals(11, view.remaining());
+        assertEquals(0x41, view.get(1));
+
+        mw.reset();
+        assertEquals(0, mw.length());
+        assertArrayEquals(new byte[0], mw.toArray());
+    }
+
+    @Test
+    public void framesTerminalMessage() {
+        IDeviceMessage message = TerminalUtilities.buildRequest("ABC".getBytes());
+        byte[] buffer = message.getSendBuffer();
+
+        assertEquals(6, buffer.length);
+        assertEquals(ControlCodes.STX.getByte(), buffer[0]);
+        assertEquals(ControlCodes.ETX.getByte(), buffer[4]);
+        assertEquals((byte) ('A' ^ 'B' ^ 'C' ^ ControlCodes.ETX.getByte()), buffer[5]);
+    }
+
+    @Test
+    public void slicesWithoutCopying() {
+        byte[] buffer = "0200HEADERBODY".getBytes();
+        MessageReader mr = new MessageReader(buffer);
+
+        assertEquals("0200", mr.readString(4));
+        MessageReader header = mr.slice(6);
+        assertEquals(4, mr.remaining());
+
+        assertEquals(6, header.getLength());
+        assertEquals("HEAD", header.readString(4));
+        assertArrayEquals("ER".getBytes(), header.readRemainingBytes());
+        assertFalse(header.canRead());
+
+        ByteBuffer body = mr.readBuffer(4);
+        assertTrue(body.isReadOnly());
+        assertEquals(4, body.remaining());
+        assertEquals('B', body.get(0));
+        assertFalse(mr.canRead());
+
+        // a slice reads through to the shared buffer
+        buffer[4] = 'h';
+        assertEquals("hEADER", new MessageReader(buffer, 4, 6).readString(6));
+    }
+
+    @Test
+    public void readsPastEndLikeBefore() {
+        MessageReader mr = new MessageReader(new byte[] { 0x02, 0x41, 0x42 });
+
+        assertEquals(ControlCodes.STX, mr.readCode());
+        assertEquals("AB", mr.readToCode(ControlCodes.ETX));
+        assertFalse(mr.canRead());
+
+        mr = new MessageReader(new byte[] { 1, 2 });
+        assertArrayEquals(new byte[] { 1, 2, 0, 0 }, mr.readBytes(4));
+        assertEquals(0, mr.remaining());
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void sliceBeyondEnd() {
+        new MessageReader(new byte[4]).slice(5);
+    }
+}
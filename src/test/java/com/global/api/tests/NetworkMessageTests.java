@@ -89,6 +89,39 @@ public class NetworkMessageTests {
         assertTrue(bitmap.isPresent(DataElementId.DE_096));
     }
 
+    @Test
+    public void bitmap_iterate_tests() {
+        String original = "b230450008c90024";
+        Iso8583Bitmap bitmap = new Iso8583Bitmap(byteFromHex(original));
+        assertArrayEquals(byteFromHex(original), bitmap.toByteArray());
+
+        DataElementId[] expected = new DataElementId[] {
+                DataElementId.DE_001, DataElementId.DE_003, DataElementId.DE_004, DataElementId.DE_007,
+                DataElementId.DE_011, DataElementId.DE_012, DataElementId.DE_018, DataElementId.DE_022,
+                DataElementId.DE_024, DataElementId.DE_037, DataElementId.DE_041, DataElementId.DE_042,
+                DataElementId.DE_045, DataElementId.DE_048, DataElementId.DE_059, DataElementId.DE_062
+        };
+        for(DataElementId id: expected) {
+            assertEquals(id, bitmap.getNextDataElement());
+        }
+        assertNull(bitmap.getNextDataElement());
+        assertNull(bitmap.getNextDataElement());
+
+        // secondary bitmap
+        original = "0200000100000002";
+        bitmap = new Iso8583Bitmap(byteFromHex(original), 64);
+        assertArrayEquals(byteFromHex(original), bitmap.toByteArray());
+        assertEquals(DataElementId.DE_071, bitmap.getNextDataElement());
+        assertEquals(DataElementId.DE_096, bitmap.getNextDataElement());
+        assertEquals(DataElementId.DE_127, bitmap.getNextDataElement());
+        assertNull(bitmap.getNextDataElement());
+        assertFalse(bitmap.isPresent(DataElementId.DE_003));
+
+        bitmap = new Iso8583Bitmap(new byte[8]);
+        assertNull(bitmap.getNextDataElement());
+        assertEquals("0000000000000000", bitmap.toHexString());
+    }
+
     @Test
     public void bitmap_build_test() {
         NetworkMessage doc = new NetworkMessage();
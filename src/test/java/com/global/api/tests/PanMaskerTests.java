@@ -0,0 +1,67 @@
+package com.global.api.tests;
+
+import com.global.api.utils.PanMasker;
+import com.global.api.utils.PanMaskingWriter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+public class PanMaskerTests {
+    @Test
+    public void masksEveryOccurrence() {
+        String result = PanMasker.mask("<card>4111111111111111</card><card2>5425 2300 0000 4415</card2><card3>4111111111111111</card3>");
+
+        assertEquals("<card>411111XXXXXX1111</card><card2>542523XXXXXX4415</card2><card3>411111XXXXXX1111</card3>", result);
+    }
+
+    @Test
+    public void masksTrackOneInsideFrame() {
+        String result = PanMasker.mask("\u0002T00\u001c%B4012000000000016^VI TEST CREDIT^251200000000000000000000?\u0003");
+
+        assertEquals("\u0002T00\u001c%B401200XXXXXX0016^VI TEST CREDIT^251200000000000000000000?\u0003", result);
+    }
+
+    @Test
+    public void masksOtherLengthsWithValidCheckDigit() {
+        assertEquals("{\"pan\":\"401200XXXXXXXXX0001\"}", PanMasker.mask("{\"pan\":\"4012000000000000001\"}"));
+        // not a 19 digit card number
+        assertEquals("{\"pan\":\"4012000000000000004\"}", PanMasker.mask("{\"pan\":\"4012000000000000004\"}"));
+    }
+
+    @Test
+    public void masksLengthPrefixedNumber() {
+        assertEquals("DE_002: 16401200XXXXXX0016\r\n", PanMasker.mask("DE_002: 164012000000000016\r\n"));
+        assertEquals("DE_035: 37401200XXXXXX0016=2512", PanMasker.mask("DE_035: 374012000000000016=2512"));
+        // the field after the number is left alone
+        assertEquals("16401200XXXXXX0016000000", PanMasker.mask("164012000000000016000000"));
+    }
+
+    @Test
+    public void leavesOtherNumbersAlone() {
+        String value = "<timestamp>20180523030836</timestamp><amount>1500</amount><id>9999999999999999</id><ref>12345678901234567890123</ref>";
+
+        assertEquals(value, PanMasker.mask(value));
+        assertNull(PanMasker.mask(null));
+    }
+
+    @Test
+    public void maskingWriterHoldsDigitsUntilComplete() throws IOException {
+        StringWriter target = new StringWriter();
+        PanMaskingWriter writer = new PanMaskingWriter(target);
+
+        writer.write("<number>4111 1111");
+        writer.flush();
+        assertEquals("<number>", target.toString());
+
+        writer.write(" 1111 1111");
+        writer.write("</number> 4012");
+        assertEquals("<number>411111XXXXXX1111</number> ", target.toString());
+
+        writer.write("000000000016");
+        writer.close();
+        assertEquals("<number>411111XXXXXX1111</number> 401200XXXXXX0016", target.toString());
+    }
+}
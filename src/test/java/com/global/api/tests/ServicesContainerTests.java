@@ -0,0 +1,121 @@
+package com.global.api.tests;
+
+import com.global.api.ConfiguredServices;
+import com.global.api.ServicesContainer;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.gateways.IPaymentGateway;
+import com.global.api.gateways.IRecurringGateway;
+import com.global.api.serviceConfigs.Configuration;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class ServicesContainerTests {
+    private static final String CONFIG_NAME = "servicesContainerTests";
+
+    @After
+    public void removeConfiguration() throws ConfigurationException {
+        ServicesContainer.configureService(null, CONFIG_NAME);
+    }
+
+    @Test
+    public void reconfiguresWithoutDroppingReaders() throws Exception {
+        ServicesContainer.configureService(new TestConfig(stub(IPaymentGateway.class), stub(IRecurringGateway.class)), CONFIG_NAME);
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> readers = new ArrayList<Future<Integer>>();
+            for(int i = 0; i < 8; i++) {
+                readers.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        start.await();
+                        int reads = 0;
+                        while(running.get()) {
+                            // the pair is always configured together
+                            assertNotNull(ServicesContainer.getInstance().getGateway(CONFIG_NAME));
+                            assertNotNull(ServicesContainer.getInstance().getRecurring(CONFIG_NAME));
+                            reads++;
+                        }
+                        return reads;
+                    }
+                }));
+            }
+
+            start.countDown();
+            for(int i = 0; i < 2000; i++) {
+                ServicesContainer.configureService(new TestConfig(stub(IPaymentGateway.class), stub(IRecurringGateway.class)), CONFIG_NAME);
+            }
+            running.set(false);
+
+            for(Future<Integer> reader : readers) {
+                assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void keepsOtherServicesWhenReconfiguring() throws Exception {
+        IPaymentGateway gateway = stub(IPaymentGateway.class);
+        IRecurringGateway recurring = stub(IRecurringGateway.class);
+        ServicesContainer.configureService(new TestConfig(gateway, recurring), CONFIG_NAME);
+
+        IPaymentGateway replacement = stub(IPaymentGateway.class);
+        ServicesContainer.configureService(new TestConfig(replacement, null), CONFIG_NAME);
+
+        assertSame(replacement, ServicesContainer.getInstance().getGateway(CONFIG_NAME));
+        assertSame(recurring, ServicesContainer.getInstance().getRecurring(CONFIG_NAME));
+    }
+
+    @Test(expected = ApiException.class)
+    public void removesConfiguration() throws Exception {
+        ServicesContainer.configureService(new TestConfig(stub(IPaymentGateway.class), null), CONFIG_NAME);
+        ServicesContainer.configureService(null, CONFIG_NAME);
+
+        ServicesContainer.getInstance().getGateway(CONFIG_NAME);
+    }
+
+    private static <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                return method.getName().equals("equals") ? proxy == args[0] : null;
+            }
+        }));
+    }
+
+    private static class TestConfig extends Configuration {
+        private final IPaymentGateway gateway;
+        private final IRecurringGateway recurring;
+
+        private TestConfig(IPaymentGateway gateway, IRecurringGateway recurring) {
+            this.gateway = gateway;
+            this.recurring = recurring;
+        }
+
+        public void configureContainer(ConfiguredServices services) {
+            services.setGatewayConnector(gateway);
+            if(recurring != null) {
+                services.setRecurringConnector(recurring);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.global.api.tests;
+
+import com.global.api.utils.StringUtils;
+import com.global.api.utils.TlvBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TlvBufferTests {
+    @Test
+    public void indexesTopLevelTags() {
+        TlvBuffer tags = TlvBuffer.parse(StringUtils.bytesFromHex("9F3403010302950500008080009B02E800"));
+
+        assertTrue(tags.isComplete());
+        assertEquals(3, tags.size());
+        assertEquals(0x9F34, tags.getTag(0));
+        assertEquals("9F34", tags.getTagName(0));
+        assertEquals("03", tags.getLengthHex(0));
+        assertEquals("010302", tags.getValueHex(0));
+        assertEquals(3, tags.getValueOffset(0));
+        assertEquals(1, tags.indexOf(0x95));
+        assertEquals(-1, tags.indexOf(0x5A));
+        assertEquals((byte) 0xE8, tags.getValueByte(2, 0));
+    }
+
+    @Test
+    public void readsMultiByteTagsAndLengths() {
+        byte[] value = new byte[200];
+        value[199] = 0x7F;
+        String hex = "DF810103AABBCC" + "9F1081C8" + StringUtils.hexFromBytes(value);
+
+        TlvBuffer tags = TlvBuffer.parse(StringUtils.bytesFromHex(hex));
+        assertEquals(2, tags.size());
+        assertEquals(0xDF8101, tags.getTag(0));
+        assertEquals("DF8101", tags.getTagName(0));
+        assertEquals("AABBCC", tags.getValueHex(0));
+        assertEquals("81C8", tags.getLengthHex(1));
+        assertEquals(200, tags.getValueLength(1));
+        assertEquals(0x7F, tags.getValue(1)[199]);
+    }
+
+    @Test
+    public void indexesConstructedTags() {
+        TlvBuffer tags = TlvBuffer.parse(StringUtils.bytesFromHex("7207860500112233449F1A020840"));
+
+        assertTrue(tags.isConstructed(0));
+        assertFalse(tags.isConstructed(1));
+        assertNull(tags.getChildren(1));
+
+        TlvBuffer script = tags.getChildren(0);
+        assertSame(script, tags.getChildren(0));
+        assertEquals(1, script.size());
+        assertEquals(0x86, script.getTag(0));
+        assertEquals("0011223344", script.getValueHex(0));
+        assertEquals(4, script.getValueOffset(0));
+    }
+
+    @Test
+    public void stopsAtTruncatedTag() {
+        TlvBuffer tags = TlvBuffer.parse(StringUtils.bytesFromHex("9A031901099F0206000000"));
+
+        assertFalse(tags.isComplete());
+        assertEquals(1, tags.size());
+        assertEquals("190109", tags.getValueHex(0));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void rejectsElementOutOfRange() {
+        TlvBuffer.parse(StringUtils.bytesFromHex("9A03190109")).getTag(1);
+    }
+}
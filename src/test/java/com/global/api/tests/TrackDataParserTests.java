@@ -0,0 +1,125 @@
+package com.global.api.tests;
+
+import com.global.api.entities.enums.TrackNumber;
+import com.global.api.paymentMethods.CreditTrackData;
+import com.global.api.paymentMethods.GiftCard;
+import com.global.api.utils.TrackDataParser;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class TrackDataParserTests {
+    @Test
+    public void trackTwoOffsets() {
+        String swipe = ";4012002000060016=25121011803939600000?";
+        TrackDataParser parser = new TrackDataParser();
+
+        assertTrue(parser.parse(swipe));
+        assertEquals(TrackNumber.TrackTwo, parser.getTrackNumber());
+        assertEquals(0, parser.getTrackStart());
+        assertEquals(swipe.length() - 1, parser.getTrackEnd());
+        assertEquals(1, parser.getPanStart());
+        assertEquals(17, parser.getPanEnd());
+        assertEquals(18, parser.getExpiryStart());
+        assertEquals("4012002000060016", parser.getPan());
+        assertEquals("2512", parser.getExpiry());
+        assertEquals("1011803939600000", parser.getDiscretionaryData());
+        assertEquals("4012002000060016=25121011803939600000", parser.getTrackData());
+    }
+
+    @Test
+    public void trackTwoPreferredOverTrackOne() {
+        TrackDataParser parser = new TrackDataParser();
+
+        assertTrue(parser.parse("%B4012002000060016^VI TEST CREDIT^251210118039000000000396?;4012002000060016=25121011803939600000?"));
+        assertEquals(TrackNumber.TrackTwo, parser.getTrackNumber());
+        assertEquals(59, parser.getTrackStart());
+    }
+
+    @Test
+    public void trackOne() {
+        TrackDataParser parser = new TrackDataParser();
+
+        assertTrue(parser.parse("%B5473500000000014^MC TEST CARD^251210199998888777766665555444433332?"));
+        assertEquals(TrackNumber.TrackOne, parser.getTrackNumber());
+        assertEquals("5473500000000014", parser.getPan());
+        assertEquals("2512", parser.getExpiry());
+        assertEquals("10199998888777766665555444433332", parser.getDiscretionaryData());
+        assertEquals("B5473500000000014^MC TEST CARD^251210199998888777766665555444433332", parser.getTrackData());
+    }
+
+    @Test
+    public void trackOneFormatCodeZero() {
+        TrackDataParser parser = new TrackDataParser();
+
+        assertTrue(parser.parse("%05473500000000014^MC TEST CARD^2512"));
+        assertEquals("5473500000000014", parser.getPan());
+        assertNull(parser.getDiscretionaryData());
+    }
+
+    @Test
+    public void alternateSeparatorIsNormalised() {
+        TrackDataParser parser = new TrackDataParser();
+
+        assertTrue(parser.parse("4012002000060016D2512101"));
+        assertEquals("4012002000060016=2512101", parser.getTrackData());
+        assertEquals("4012002000060016D2512101", parser.getRawTrackData());
+    }
+
+    @Test
+    public void fullLengthTrackTwoDropsPad() {
+        TrackDataParser parser = new TrackDataParser();
+
+        assertTrue(parser.parse("4012002000060016=25121011803939600000F"));
+        assertEquals("1011803939600000", parser.getDiscretionaryData());
+        assertEquals("4012002000060016=25121011803939600000", parser.getTrackData());
+
+        // shorter tracks keep it
+        assertTrue(parser.parse("4012002000060016=2512101180393960000F"));
+        assertEquals("101180393960000F", parser.getDiscretionaryData());
+    }
+
+    @Test
+    public void parsesBytes() {
+        byte[] buffer = "xx;5473500000000014=25121019999888877776?xx".getBytes(StandardCharsets.US_ASCII);
+        TrackDataParser parser = new TrackDataParser();
+
+        assertTrue(parser.parse(buffer, 2, buffer.length - 4));
+        assertEquals(TrackNumber.TrackTwo, parser.getTrackNumber());
+        assertEquals(1, parser.getPanStart());
+        assertEquals("5473500000000014", parser.getPan());
+        assertEquals("5473500000000014=25121019999888877776", parser.getTrackData());
+    }
+
+    @Test
+    public void noTrack() {
+        TrackDataParser parser = new TrackDataParser();
+
+        assertFalse(parser.parse("5473500000000014"));
+        assertNull(parser.getTrackNumber());
+        assertNull(parser.getPan());
+        assertFalse(parser.parse("B5473500000000014^^2512"));
+        assertFalse(parser.parse((CharSequence) null));
+    }
+
+    @Test
+    public void giftCardKeepsTrackAsRead() {
+        GiftCard card = new GiftCard();
+        card.setValue(";6010560000001113d20121019999888877712?");
+
+        assertEquals("6010560000001113", card.getPan());
+        assertEquals("6010560000001113d20121019999888877712", card.getTrackData());
+    }
+
+    @Test
+    public void creditTrackUsesParser() {
+        CreditTrackData track = new CreditTrackData();
+        track.setValue(";4012002000060016=25121011803939600000F?");
+
+        assertEquals(TrackNumber.TrackTwo, track.getTrackNumber());
+        assertEquals("1011803939600000", track.getDiscretionaryData());
+        assertEquals("4012002000060016=25121011803939600000", track.getTrackData());
+    }
+}
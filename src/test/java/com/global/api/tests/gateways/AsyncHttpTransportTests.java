@@ -0,0 +1,405 @@
+package com.global.api.tests.gateways;
+
+import com.global.api.ServicesContainer;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.enums.Environment;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.entities.gpApi.entities.AccessTokenInfo;
+import com.global.api.gateways.AsyncHttpTransport;
+import com.global.api.gateways.HttpTransportRequest;
+import com.global.api.gateways.HttpTransportResponse;
+import com.global.api.gateways.RestGateway;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.serviceConfigs.GpApiConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsParameters;
+import com.sun.net.httpserver.HttpsServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class AsyncHttpTransportTests {
+    private static final int IN_FLIGHT = 200;
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService executor;
+    private AsyncHttpTransport transport;
+    private String serviceUrl;
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+    private final AtomicInteger requests = new AtomicInteger();
+    // requests held until this many have arrived at the same time
+    private volatile CountDownLatch arrived = new CountDownLatch(0);
+    private final AtomicBoolean heldTogether = new AtomicBoolean(true);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void startServer() throws IOException {
+        serverExecutor = Executors.newFixedThreadPool(IN_FLIGHT + 16);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), IN_FLIGHT * 2);
+        server.setExecutor(serverExecutor);
+        addContexts(server);
+        server.start();
+        serviceUrl = "http://localhost:" + server.getAddress().getPort();
+
+        // a single thread to run everything done with the responses
+        executor = Executors.newSingleThreadExecutor();
+        transport = new AsyncHttpTransport().setMaxConnectionsPerRoute(IN_FLIGHT);
+    }
+
+    @After
+    public void stopServer() {
+        release.countDown();
+        transport.shutdown();
+        executor.shutdown();
+        server.stop(0);
+        serverExecutor.shutdown();
+    }
+
+    @Test
+    public void keepsManyRequestsInFlightOnOneThread() throws Exception {
+        arrived = new CountDownLatch(IN_FLIGHT);
+
+        RestGateway gateway = new RestGateway();
+        gateway.setServiceUrl(serviceUrl);
+        gateway.setHttpTransport(transport);
+
+        List<CompletableFuture<String>> responses = new ArrayList<CompletableFuture<String>>();
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            responses.add(gateway.doTransactionAsync("POST", "/held", "{\"id\":" + i + "}", null, null, executor));
+        }
+
+        for (int i = 0; i < IN_FLIGHT; i++) {
+            assertEquals("{\"id\":" + i + "}", responses.get(i).get(30, TimeUnit.SECONDS));
+        }
+        assertTrue("Requests were not in flight at the same time.", heldTogether.get());
+        assertEquals(1, countThreads("HTTP event loop"));
+    }
+
+    @Test
+    public void executesAuthorizationsWithoutHoldingThreads() throws Exception {
+        arrived = new CountDownLatch(IN_FLIGHT);
+
+        AccessTokenInfo accessTokenInfo = new AccessTokenInfo();
+        accessTokenInfo.setAccessToken("TOKEN");
+
+        GpApiConfig config = new GpApiConfig();
+        config.setEnvironment(Environment.TEST);
+        config.setAccessTokenInfo(accessTokenInfo);
+        config.setServiceUrl(serviceUrl + "/held");
+        config.setHttpTransport(transport);
+        ServicesContainer.configureService(config, "async");
+
+        CreditCardData card = new CreditCardData();
+        card.setNumber("4263970000005262");
+        card.setExpMonth(5);
+        card.setExpYear(2030);
+        card.setCvn("123");
+
+        try {
+            List<CompletableFuture<Transaction>> responses = new ArrayList<CompletableFuture<Transaction>>();
+            for (int i = 0; i < IN_FLIGHT; i++) {
+                responses.add(card.charge(new BigDecimal(10)).withCurrency("USD").executeAsync("async", executor));
+            }
+
+            for (CompletableFuture<Transaction> response : responses) {
+                Transaction transaction = response.get(30, TimeUnit.SECONDS);
+                assertEquals("SUCCESS", transaction.getResponseCode());
+                assertEquals("CAPTURED", transaction.getResponseMessage());
+            }
+            assertTrue("Authorizations were not in flight at the same time.", heldTogether.get());
+        } finally {
+            ServicesContainer.configureService((GpApiConfig) null, "async");
+        }
+    }
+
+    @Test
+    public void reusesConnections() throws Exception {
+        HttpTransportRequest request = new HttpTransportRequest()
+                .setVerb("GET")
+                .setUrl(new URL(serviceUrl + "/chunked"));
+
+        HttpTransportResponse response = transport.sendAsync(request).get(10, TimeUnit.SECONDS);
+        assertEquals(200, response.getStatusCode());
+        assertEquals(1000, response.getBody().length);
+
+        // the connection must still be usable after a chunked body
+        for (int i = 0; i < 10; i++) {
+            response = transport.send(request.setUrl(new URL(serviceUrl + "/echo")).setVerb("POST").setBody(("" + i).getBytes(StandardCharsets.UTF_8)));
+            assertEquals(String.valueOf(i), new String(response.getBody(), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, clientPorts.size());
+        assertEquals(1, transport.getOpenConnectionCount());
+    }
+
+    @Test
+    public void queuesRequestsBeyondMaxConnections() throws Exception {
+        transport.setMaxConnectionsPerRoute(2);
+
+        List<CompletableFuture<HttpTransportResponse>> responses = new ArrayList<CompletableFuture<HttpTransportResponse>>();
+        for (int i = 0; i < 50; i++) {
+            responses.add(transport.sendAsync(new HttpTransportRequest()
+                    .setVerb("POST")
+                    .setUrl(new URL(serviceUrl + "/echo"))
+                    .setBody(("" + i).getBytes(StandardCharsets.UTF_8))));
+        }
+
+        for (int i = 0; i < 50; i++) {
+            assertEquals(String.valueOf(i), new String(responses.get(i).get(10, TimeUnit.SECONDS).getBody(), StandardCharsets.UTF_8));
+        }
+        assertTrue(clientPorts.size() <= 2);
+    }
+
+    @Test
+    public void failsRequestsWaitingTooLongForAConnection() throws Exception {
+        transport.setMaxConnectionsPerRoute(1).setConnectionRequestTimeout(200);
+
+        HttpTransportRequest request = new HttpTransportRequest()
+                .setVerb("GET")
+                .setUrl(new URL(serviceUrl + "/stalled"));
+        CompletableFuture<HttpTransportResponse> stalled = transport.sendAsync(request);
+
+        try {
+            transport.sendAsync(request).get(10, TimeUnit.SECONDS);
+            fail("Expected the request to time out waiting for a connection.");
+        } catch (ExecutionException exc) {
+            assertTrue(exc.getCause() instanceof IOException);
+            assertTrue(exc.getCause().getMessage().startsWith("Timeout waiting for a connection"));
+        }
+        assertFalse(stalled.isDone());
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void timedOutRequestIsNotSentAgain() throws Exception {
+        transport.setReadTimeout(200);
+
+        try {
+            transport.send(new HttpTransportRequest()
+                    .setVerb("POST")
+                    .setUrl(new URL(serviceUrl + "/stalled"))
+                    .setBody("{}".getBytes(StandardCharsets.UTF_8)));
+            fail("Expected the request to time out.");
+        } catch (SocketTimeoutException exc) {
+            // expected
+        }
+
+        Thread.sleep(500);
+        assertEquals(1, requests.get());
+        assertEquals(0, transport.getOpenConnectionCount());
+    }
+
+    @Test
+    public void surfacesErrorResponses() throws Exception {
+        RestGateway gateway = new RestGateway();
+        gateway.setServiceUrl(serviceUrl);
+        gateway.setHttpTransport(transport);
+
+        try {
+            gateway.doTransactionAsync("POST", "/error", "{}", null, null, executor).get(10, TimeUnit.SECONDS);
+            fail("Expected a GatewayException.");
+        } catch (ExecutionException exc) {
+            GatewayException cause = (GatewayException) exc.getCause();
+            assertEquals("400", cause.getResponseCode());
+            assertEquals("{\"error\":{\"message\":\"Bad request\"}}", cause.getResponseText());
+        }
+    }
+
+    @Test
+    public void sendsOverTls() throws Exception {
+        SSLContext context = createContext();
+        HttpsServer httpsServer = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpsServer.setHttpsConfigurator(new HttpsConfigurator(context));
+        httpsServer.setExecutor(serverExecutor);
+        addContexts(httpsServer);
+        httpsServer.start();
+
+        try {
+            transport.setSslContext(context);
+            String url = "https://localhost:" + httpsServer.getAddress().getPort();
+
+            for (int i = 0; i < 5; i++) {
+                HttpTransportResponse response = transport.send(new HttpTransportRequest()
+                        .setVerb("POST")
+                        .setUrl(new URL(url + "/echo"))
+                        .setBody(("" + i).getBytes(StandardCharsets.UTF_8)));
+                assertEquals(String.valueOf(i), new String(response.getBody(), StandardCharsets.UTF_8));
+            }
+            HttpTransportResponse response = transport.send(new HttpTransportRequest()
+                    .setVerb("GET")
+                    .setUrl(new URL(url + "/chunked")));
+            assertEquals(1000, response.getBody().length);
+            assertEquals(1, clientPorts.size());
+        } finally {
+            httpsServer.stop(0);
+        }
+    }
+
+    @Test
+    public void limitsTlsToSocketFactoryCipherSuites() throws Exception {
+        SSLContext context = createContext();
+        HttpsServer httpsServer = HttpsServer.create(new InetSocketAddress("localhost", 0), 0);
+        httpsServer.setHttpsConfigurator(new HttpsConfigurator(context) {
+            public void configure(HttpsParameters params) {
+                // a suite the JDK enables by default but SSLSocketFactoryEx leaves out
+                params.setProtocols(new String[] { "TLSv1.2" });
+                params.setCipherSuites(new String[] { "TLS_ECDHE_RSA_WITH_AES_256_CBC_SHA" });
+            }
+        });
+        httpsServer.setExecutor(serverExecutor);
+        addContexts(httpsServer);
+        httpsServer.start();
+
+        try {
+            transport.setSslContext(context);
+            transport.send(new HttpTransportRequest()
+                    .setVerb("GET")
+                    .setUrl(new URL("https://localhost:" + httpsServer.getAddress().getPort() + "/echo")));
+            fail("The handshake should not agree on a cipher suite.");
+        } catch (IOException exc) {
+            // the server drops the connection once the handshake fails
+            assertEquals(0, requests.get());
+        } finally {
+            httpsServer.stop(0);
+        }
+    }
+
+    private void addContexts(HttpServer target) {
+        target.createContext("/echo", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            requests.incrementAndGet();
+            respond(exchange, 200, readAll(exchange.getRequestBody()));
+        });
+        target.createContext("/held", exchange -> {
+            byte[] body = readAll(exchange.getRequestBody());
+            arrived.countDown();
+            try {
+                if (!arrived.await(20, TimeUnit.SECONDS)) {
+                    heldTogether.set(false);
+                }
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (exchange.getRequestURI().getPath().endsWith("/transactions")) {
+                body = "{\"id\":\"TRN_1\",\"status\":\"CAPTURED\",\"action\":{\"type\":\"AUTHORIZE\",\"result_code\":\"SUCCESS\"}}".getBytes(StandardCharsets.UTF_8);
+            }
+            respond(exchange, 200, body);
+        });
+        target.createContext("/stalled", exchange -> {
+            requests.incrementAndGet();
+            readAll(exchange.getRequestBody());
+            try {
+                release.await(20, TimeUnit.SECONDS);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, new byte[0]);
+        });
+        target.createContext("/chunked", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 100; i++) {
+                    out.write("0123456789".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        });
+        target.createContext("/error", exchange -> {
+            readAll(exchange.getRequestBody());
+            respond(exchange, 400, "{\"error\":{\"message\":\"Bad request\"}}".getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int read;
+        while ((read = in.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static int countThreads(String name) {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (name.equals(thread.getName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // a throwaway self signed certificate for localhost, trusted by the transport under test
+    private static SSLContext createContext() throws Exception {
+        File keyStoreFile = File.createTempFile("async-transport", ".jks");
+        keyStoreFile.delete();
+        keyStoreFile.deleteOnExit();
+
+        File keytool = new File(System.getProperty("java.home"), "bin/keytool");
+        Process process = new ProcessBuilder(keytool.getPath(), "-genkeypair", "-alias", "stub", "-keyalg", "RSA",
+                "-keysize", "2048", "-dname", "CN=localhost", "-ext", "SAN=dns:localhost", "-validity", "1",
+                "-keystore", keyStoreFile.getPath(), "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+                .redirectErrorStream(true).start();
+        readAll(process.getInputStream());
+        assertEquals(0, process.waitFor());
+
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        try (FileInputStream in = new FileInputStream(keyStoreFile)) {
+            keyStore.load(in, PASSWORD);
+        }
+
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+        return context;
+    }
+}
@@ -0,0 +1,226 @@
+package com.global.api.tests.gateways;
+
+import com.global.api.builders.Secure3dBuilder;
+import com.global.api.entities.ThreeDSecure;
+import com.global.api.entities.enums.Environment;
+import com.global.api.entities.enums.TransactionType;
+import com.global.api.entities.gpApi.entities.AccessTokenInfo;
+import com.global.api.entities.gpApi.GpApiRequest;
+import com.global.api.gateways.Gp3DSProvider;
+import com.global.api.gateways.GpApiConnector;
+import com.global.api.gateways.PooledHttpTransport;
+import com.global.api.logging.IRequestLogger;
+import com.global.api.paymentMethods.CreditCardData;
+import com.global.api.serviceConfigs.GpApiConfig;
+import com.global.api.utils.GenerationUtils;
+import com.global.api.utils.JsonDoc;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class GatewayConcurrencyTests {
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 25;
+    private static final String SHARED_SECRET = "secret";
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private GpApiConnector connector;
+    private final List<String> loggedRequests = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> loggedResponses = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void startServer() throws IOException {
+        serverExecutor = Executors.newFixedThreadPool(THREADS);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/echo", exchange -> {
+            String reference = JsonDoc.parse(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8)).getString("reference");
+            String idempotencyKey = exchange.getRequestHeaders().getFirst("x-gp-idempotency");
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                gzip.write(String.format("{\"reference\":\"%s\",\"idempotency\":\"%s\",\"authorization\":\"%s\"}", reference, idempotencyKey, authorization).getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] response = buffer.toByteArray();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.createContext("/protocol-versions", exchange -> {
+            JsonDoc request = JsonDoc.parse(new String(readAll(exchange.getRequestBody()), StandardCharsets.UTF_8));
+            String number = request.getString("number");
+            String expected = "securehash " + GenerationUtils.generateHash(SHARED_SECRET, request.getString("request_timestamp"), request.getString("merchant_id"), number);
+            String hashStatus = expected.equals(exchange.getRequestHeaders().getFirst("Authorization")) ? "VALID" : "INVALID";
+
+            byte[] response = String.format("{\"server_trans_id\":\"%s\",\"status\":\"%s\"}", number, hashStatus).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+
+        AccessTokenInfo accessTokenInfo = new AccessTokenInfo();
+        accessTokenInfo.setAccessToken("TOKEN");
+
+        GpApiConfig config = new GpApiConfig();
+        config.setEnvironment(Environment.TEST);
+        config.setAccessTokenInfo(accessTokenInfo);
+        config.setHttpTransport(new PooledHttpTransport());
+
+        connector = new GpApiConnector(config);
+        connector.setServiceUrl("http://localhost:" + server.getAddress().getPort());
+        connector.setRequestLogger(new IRequestLogger() {
+            public void RequestSent(String request) {
+                loggedRequests.add(request);
+            }
+            public void ResponseReceived(String response) {
+                loggedResponses.add(response);
+            }
+        });
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdown();
+    }
+
+    @Test
+    public void keepsRequestStateSeparate() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                results.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        start.await();
+                        for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                            String reference = thread + "-" + i;
+                            // every other request goes without an idempotency key, it must not inherit one
+                            String idempotencyKey = i % 2 == 0 ? "KEY-" + reference : null;
+
+                            String response = connector.doTransaction(GpApiRequest.HttpMethod.Post, "/echo", "{\"reference\":\"" + reference + "\"}", null, idempotencyKey);
+
+                            JsonDoc doc = JsonDoc.parse(response);
+                            assertEquals(reference, doc.getString("reference"));
+                            assertEquals(String.valueOf(idempotencyKey), doc.getString("idempotency"));
+                            assertEquals("Bearer TOKEN", doc.getString("authorization"));
+                        }
+                        return REQUESTS_PER_THREAD;
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(REQUESTS_PER_THREAD), result.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(THREADS * REQUESTS_PER_THREAD, loggedRequests.size());
+        assertEquals(THREADS * REQUESTS_PER_THREAD, loggedResponses.size());
+        for (String entry : loggedRequests) {
+            assertEquals(1, occurrences(entry, "Endpoint:"));
+        }
+        for (String entry : loggedResponses) {
+            assertEquals(1, occurrences(entry, "Response:"));
+            assertEquals(0, occurrences(entry, "Endpoint:"));
+        }
+        assertNull(connector.getHeaders().get("x-gp-idempotency"));
+        // the token goes with each request instead
+        assertNull(connector.getHeaders().get("Authorization"));
+    }
+
+    @Test
+    public void keepsSecure3dHashesSeparate() throws Exception {
+        final Gp3DSProvider provider = new Gp3DSProvider();
+        provider.setMerchantId("merchant");
+        provider.setAccountId("internet");
+        provider.setSharedSecret(SHARED_SECRET);
+        provider.setServiceUrl("http://localhost:" + server.getAddress().getPort() + "/");
+        provider.setHttpTransport(new PooledHttpTransport());
+
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+            for (int t = 0; t < THREADS; t++) {
+                final int thread = t;
+                results.add(executor.submit(new Callable<Integer>() {
+                    public Integer call() throws Exception {
+                        start.await();
+                        for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                            CreditCardData card = new CreditCardData();
+                            card.setNumber(String.format("4263970%04d%05d", thread, i));
+
+                            Secure3dBuilder builder = new Secure3dBuilder(TransactionType.VerifyEnrolled).withPaymentMethod(card);
+                            ThreeDSecure secureEcom = provider.processSecure3d(builder).getThreeDsecure();
+
+                            assertEquals(card.getNumber(), secureEcom.getServerTransactionId());
+                            assertEquals("VALID", secureEcom.getStatus());
+                        }
+                        return REQUESTS_PER_THREAD;
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(REQUESTS_PER_THREAD), result.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertNull(provider.getHeaders().get("Authorization"));
+    }
+
+    private static int occurrences(String text, String value) {
+        int count = 0;
+        for (int index = text.indexOf(value); index >= 0; index = text.indexOf(value, index + value.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    private static byte[] readAll(InputStream stream) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1024];
+        int read;
+        while ((read = stream.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+}
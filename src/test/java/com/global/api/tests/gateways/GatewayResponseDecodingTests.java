@@ -0,0 +1,149 @@
+package com.global.api.tests.gateways;
+
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.gateways.HttpsUrlConnectionTransport;
+import com.global.api.gateways.IHttpTransport;
+import com.global.api.gateways.PooledHttpTransport;
+import com.global.api.gateways.RestGateway;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class GatewayResponseDecodingTests {
+    private static final String BODY = "{\n  \"message\": \"caf\u00e9 cr\u00e8me\",\n  \"lines\": 3\n}";
+
+    private HttpServer server;
+    private String serviceUrl;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/gzip", respond("gzip", gzip(BODY.getBytes(StandardCharsets.UTF_8)), "application/json; charset=UTF-8"));
+        server.createContext("/deflate", respond("deflate", deflate(BODY.getBytes(StandardCharsets.UTF_8), false), "application/json"));
+        server.createContext("/raw-deflate", respond("deflate", deflate(BODY.getBytes(StandardCharsets.UTF_8), true), "application/json"));
+        server.createContext("/unlabelled-gzip", respond(null, gzip(BODY.getBytes(StandardCharsets.UTF_8)), "application/json"));
+        server.createContext("/latin1", respond(null, BODY.getBytes(StandardCharsets.ISO_8859_1), "text/xml; charset=\"ISO-8859-1\""));
+        server.createContext("/plain", respond(null, BODY.getBytes(StandardCharsets.UTF_8), "application/json"));
+        server.createContext("/brotli", respond("br", new byte[] { 1, 2, 3 }, "application/json"));
+        server.start();
+
+        serviceUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void decodesContentEncodings() throws GatewayException {
+        for (IHttpTransport transport : new IHttpTransport[] { HttpsUrlConnectionTransport.getDefault(), new PooledHttpTransport() }) {
+            RestGateway gateway = gateway(transport);
+
+            assertEquals(BODY, gateway.doTransaction("GET", "/gzip"));
+            assertEquals(BODY, gateway.doTransaction("GET", "/deflate"));
+            assertEquals(BODY, gateway.doTransaction("GET", "/raw-deflate"));
+            assertEquals(BODY, gateway.doTransaction("GET", "/unlabelled-gzip"));
+            assertEquals(BODY, gateway.doTransaction("GET", "/latin1"));
+            assertEquals(BODY, gateway.doTransaction("GET", "/plain"));
+        }
+    }
+
+    @Test
+    public void rejectsUnknownEncoding() {
+        try {
+            gateway(new PooledHttpTransport()).doTransaction("GET", "/brotli");
+            fail("Expected a GatewayException.");
+        } catch (GatewayException exc) {
+            assertTrue(exc.getCause().getMessage().contains("Unsupported Content-Encoding"));
+        }
+    }
+
+    @Test
+    public void limitsResponseSize() throws GatewayException {
+        for (IHttpTransport transport : new IHttpTransport[] { HttpsUrlConnectionTransport.getDefault(), new PooledHttpTransport() }) {
+            RestGateway gateway = gateway(transport);
+            gateway.setMaxResponseSize(BODY.length() / 2);
+
+            for (String endpoint : new String[] { "/plain", "/gzip" }) {
+                try {
+                    gateway.doTransaction("GET", endpoint);
+                    fail("Expected " + endpoint + " to exceed the limit.");
+                } catch (GatewayException exc) {
+                    assertTrue(exc.getCause().getMessage().startsWith("Response body exceeds the maximum"));
+                }
+            }
+
+            gateway.setMaxResponseSize(0);
+            assertEquals(BODY, gateway.doTransaction("GET", "/plain"));
+        }
+    }
+
+    @Test
+    public void readsRawStreams() throws IOException {
+        RestGateway gateway = new RestGateway();
+        assertEquals(BODY, gateway.getRawResponse(new ByteArrayInputStream(gzip(BODY.getBytes(StandardCharsets.UTF_8)))));
+        assertEquals(BODY, gateway.getRawResponse(new ByteArrayInputStream(BODY.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private RestGateway gateway(IHttpTransport transport) {
+        RestGateway gateway = new RestGateway();
+        gateway.setServiceUrl(serviceUrl);
+        gateway.setHttpTransport(transport);
+        return gateway;
+    }
+
+    private static HttpHandler respond(final String contentEncoding, final byte[] body, final String contentType) {
+        return new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                if (contentEncoding != null) {
+                    exchange.getResponseHeaders().add("Content-Encoding", contentEncoding);
+                }
+                exchange.getResponseHeaders().add("Content-Type", contentType);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        };
+    }
+
+    private static byte[] gzip(byte[] content) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(content);
+            }
+            return buffer.toByteArray();
+        } catch (IOException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    private static byte[] deflate(byte[] content, boolean raw) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (DeflaterOutputStream out = new DeflaterOutputStream(buffer, new Deflater(Deflater.DEFAULT_COMPRESSION, raw))) {
+                out.write(content);
+            }
+            return buffer.toByteArray();
+        } catch (IOException exc) {
+            throw new IllegalStateException(exc);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.global.api.tests.gateways;
+
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.entities.gpApi.GpApiTokenResponse;
+import com.global.api.gateways.GpApiTokenCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class GpApiTokenCacheTests {
+    private final AtomicInteger issued = new AtomicInteger();
+
+    private GpApiTokenCache.TokenLoader loader(final int secondsToExpire) {
+        return new GpApiTokenCache.TokenLoader() {
+            public GpApiTokenResponse load() {
+                return token("TOKEN_" + issued.incrementAndGet(), secondsToExpire);
+            }
+        };
+    }
+
+    private static GpApiTokenResponse token(String token, int secondsToExpire) {
+        return new GpApiTokenResponse(String.format("{\"token\":\"%s\",\"type\":\"Bearer\",\"seconds_to_expire\":%d}", token, secondsToExpire));
+    }
+
+    @Test
+    public void reusesTokenPerKey() throws GatewayException {
+        GpApiTokenCache cache = new GpApiTokenCache();
+
+        assertEquals("TOKEN_1", cache.getToken("merchant1", loader(3600)).getToken());
+        assertEquals("TOKEN_1", cache.getToken("merchant1", loader(3600)).getToken());
+        assertEquals("TOKEN_2", cache.getToken("merchant2", loader(3600)).getToken());
+
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getRefreshCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void coalescesConcurrentSignIns() throws Exception {
+        final GpApiTokenCache cache = new GpApiTokenCache();
+        final CountDownLatch release = new CountDownLatch(1);
+        final GpApiTokenCache.TokenLoader slowLoader = new GpApiTokenCache.TokenLoader() {
+            public GpApiTokenResponse load() throws GatewayException {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new GatewayException("interrupted");
+                }
+                return token("TOKEN_" + issued.incrementAndGet(), 3600);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> tokens = new ArrayList<Future<String>>();
+            for (int i = 0; i < 8; i++) {
+                tokens.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        return cache.getToken("merchant", slowLoader).getToken();
+                    }
+                }));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> token : tokens) {
+                assertEquals("TOKEN_1", token.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, issued.get());
+            assertEquals(1, cache.getRefreshCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void refreshesAheadOfExpiry() throws Exception {
+        GpApiTokenCache cache = new GpApiTokenCache();
+
+        // a 2 second token enters its refresh window after 1 second
+        assertEquals("TOKEN_1", cache.getToken("merchant", loader(2)).getToken());
+        Thread.sleep(1100);
+        assertEquals("TOKEN_1", cache.getToken("merchant", loader(2)).getToken());
+
+        for (int i = 0; i < 50 && cache.getRefreshCount() < 2; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, cache.getRefreshCount());
+        assertEquals("TOKEN_2", cache.getToken("merchant", loader(2)).getToken());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void invalidatesRejectedToken() throws GatewayException {
+        GpApiTokenCache cache = new GpApiTokenCache();
+
+        String first = cache.getToken("merchant", loader(3600)).getToken();
+        cache.invalidate("merchant", "SOME_OTHER_TOKEN");
+        assertEquals(first, cache.getToken("merchant", loader(3600)).getToken());
+
+        cache.invalidate("merchant", first);
+        assertEquals("TOKEN_2", cache.getToken("merchant", loader(3600)).getToken());
+    }
+
+    @Test
+    public void surfacesSignInFailure() {
+        GpApiTokenCache cache = new GpApiTokenCache();
+
+        try {
+            cache.getToken("merchant", new GpApiTokenCache.TokenLoader() {
+                public GpApiTokenResponse load() throws GatewayException {
+                    throw new GatewayException("Status Code: 403 - Credentials not recognized", "ACTION_NOT_AUTHORIZED", "40004");
+                }
+            });
+            fail("Expected the sign in failure.");
+        } catch (GatewayException exc) {
+            assertEquals("ACTION_NOT_AUTHORIZED", exc.getResponseCode());
+        }
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getRefreshFailureCount());
+    }
+}
@@ -0,0 +1,155 @@
+package com.global.api.tests.gateways;
+
+import com.global.api.ConfiguredServices;
+import com.global.api.ServicesContainer;
+import com.global.api.builders.AuthorizationBuilder;
+import com.global.api.builders.ManagementBuilder;
+import com.global.api.builders.ReportBuilder;
+import com.global.api.builders.TransactionReportBuilder;
+import com.global.api.entities.Transaction;
+import com.global.api.entities.TransactionSummary;
+import com.global.api.entities.enums.ReportType;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.entities.exceptions.ConfigurationException;
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.entities.reporting.TransactionSummaryPaged;
+import com.global.api.gateways.IPaymentGateway;
+import com.global.api.gateways.IReportingService;
+import com.global.api.network.NetworkMessageHeader;
+import com.global.api.serviceConfigs.Configuration;
+import com.global.api.services.ReportingService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PagedResultIterableTests {
+    private static final String CONFIG_NAME = "pagedReport";
+    private final FakeReportingGateway gateway = new FakeReportingGateway();
+
+    @Before
+    public void configure() throws ConfigurationException {
+        ServicesContainer.configureService(new Configuration() {
+            public void configureContainer(ConfiguredServices services) {
+                services.setGatewayConnector(gateway);
+            }
+        }, CONFIG_NAME);
+    }
+
+    @Test
+    public void iteratesEveryPage() {
+        gateway.totalRecords = 23;
+
+        List<String> ids = new ArrayList<String>();
+        for (TransactionSummary summary : ReportingService.findTransactionsPaged(1, 5).<TransactionSummary>iteratePages(CONFIG_NAME)) {
+            ids.add(summary.getTransactionId());
+        }
+
+        assertEquals(23, ids.size());
+        assertEquals("TRN_0", ids.get(0));
+        assertEquals("TRN_22", ids.get(22));
+        assertEquals(5, gateway.requestedPages.size());
+    }
+
+    @Test
+    public void stopsAfterEmptyPage() {
+        gateway.totalRecords = 10;
+
+        long count = ReportingService.findTransactionsPaged(1, 5).<TransactionSummary>iteratePages(CONFIG_NAME).stream().count();
+
+        assertEquals(10, count);
+        assertEquals(3, gateway.requestedPages.size());
+    }
+
+    @Test
+    public void startsAtBuilderPage() {
+        gateway.totalRecords = 12;
+
+        List<String> ids = ReportingService.findTransactionsPaged(2, 5).<TransactionSummary>iteratePages(CONFIG_NAME).stream()
+                .map(TransactionSummary::getTransactionId)
+                .collect(Collectors.toList());
+
+        assertEquals(7, ids.size());
+        assertEquals("TRN_5", ids.get(0));
+    }
+
+    @Test
+    public void leavesBuilderPageUnchanged() {
+        gateway.totalRecords = 23;
+
+        TransactionReportBuilder<TransactionSummaryPaged> builder = ReportingService.findTransactionsPaged(2, 5);
+        long count = builder.<TransactionSummary>iteratePages(CONFIG_NAME).stream().count();
+
+        assertEquals(18, count);
+        assertEquals(2, builder.getPage());
+    }
+
+    @Test
+    public void surfacesGatewayErrors() {
+        gateway.totalRecords = 20;
+        gateway.failOnPage = 2;
+
+        Iterator<TransactionSummary> iterator = ReportingService.findTransactionsPaged(1, 5).<TransactionSummary>iteratePages(CONFIG_NAME).iterator();
+        for (int i = 0; i < 5; i++) {
+            assertNotNull(iterator.next());
+        }
+
+        try {
+            iterator.hasNext();
+            fail("Expected the failed page to surface.");
+        } catch (CompletionException exc) {
+            assertTrue(exc.getCause() instanceof GatewayException);
+        }
+    }
+
+    private static class FakeReportingGateway implements IPaymentGateway, IReportingService {
+        int totalRecords;
+        int failOnPage;
+        final List<Integer> requestedPages = new ArrayList<Integer>();
+
+        @SuppressWarnings("unchecked")
+        public <T> T processReport(ReportBuilder<T> builder, Class<T> clazz) throws ApiException {
+            TransactionReportBuilder<T> reportBuilder = (TransactionReportBuilder<T>) builder;
+            assertEquals(ReportType.FindTransactionsPaged, reportBuilder.getReportType());
+
+            int page = reportBuilder.getPage();
+            requestedPages.add(page);
+            if (page == failOnPage) {
+                throw new GatewayException("Unexpected response");
+            }
+
+            TransactionSummaryPaged result = new TransactionSummaryPaged();
+            result.setPage(page);
+            result.setPageSize(reportBuilder.getPageSize());
+            result.setTotalRecordCount(totalRecords);
+            for (int i = (page - 1) * reportBuilder.getPageSize(); i < Math.min(totalRecords, page * reportBuilder.getPageSize()); i++) {
+                TransactionSummary summary = new TransactionSummary();
+                summary.setTransactionId("TRN_" + i);
+                result.add(summary);
+            }
+            return (T) result;
+        }
+
+        public Transaction processAuthorization(AuthorizationBuilder builder) {
+            return null;
+        }
+        public Transaction manageTransaction(ManagementBuilder builder) {
+            return null;
+        }
+        public String serializeRequest(AuthorizationBuilder builder) {
+            return null;
+        }
+        public NetworkMessageHeader sendKeepAlive() {
+            return null;
+        }
+        public boolean supportsHostedPayments() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.global.api.tests.gateways;
+
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.gateways.HttpTransportRequest;
+import com.global.api.gateways.HttpTransportResponse;
+import com.global.api.gateways.PooledHttpTransport;
+import com.global.api.gateways.RestGateway;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class PooledHttpTransportTests {
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String serviceUrl;
+    private final CountDownLatch held = new CountDownLatch(2);
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+
+    @Before
+    public void startServer() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/echo", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+
+            byte[] response = ("{\"verb\":\"" + exchange.getRequestMethod() + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.createContext("/chunked", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 100; i++) {
+                    out.write("0123456789".getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        });
+        server.createContext("/error", exchange -> {
+            byte[] response = "{\"error\":{\"message\":\"Bad request\"}}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(400, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.createContext("/held", exchange -> {
+            // answers once two requests are in flight together
+            held.countDown();
+            int status = 200;
+            try {
+                if (!held.await(5, TimeUnit.SECONDS)) {
+                    status = 504;
+                }
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+
+        serviceUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+        serverExecutor.shutdown();
+    }
+
+    @Test
+    public void reusesConnections() throws Exception {
+        PooledHttpTransport transport = new PooledHttpTransport();
+
+        RestGateway gateway = new RestGateway();
+        gateway.setServiceUrl(serviceUrl);
+        gateway.setHttpTransport(transport);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("{\"verb\":\"POST\"}", gateway.doTransaction("POST", "/echo", "{}"));
+            assertEquals("{\"verb\":\"GET\"}", gateway.doTransaction("GET", "/echo"));
+        }
+
+        assertEquals(1, clientPorts.size());
+        assertEquals(1, transport.getIdleConnectionCount());
+
+        transport.shutdown();
+        assertEquals(0, transport.getIdleConnectionCount());
+    }
+
+    @Test
+    public void readsChunkedResponses() throws Exception {
+        PooledHttpTransport transport = new PooledHttpTransport();
+
+        HttpTransportRequest request = new HttpTransportRequest()
+                .setVerb("GET")
+                .setUrl(new URL(serviceUrl + "/chunked"));
+
+        HttpTransportResponse response = transport.send(request);
+        assertEquals(200, response.getStatusCode());
+        assertEquals(1000, response.getBody().length);
+
+        // the connection must still be usable after a chunked body
+        response = transport.send(request.setUrl(new URL(serviceUrl + "/echo")));
+        assertEquals("{\"verb\":\"GET\"}", new String(response.getBody(), StandardCharsets.UTF_8));
+        assertEquals(1, transport.getIdleConnectionCount());
+    }
+
+    @Test
+    public void evictsExpiredConnections() throws Exception {
+        PooledHttpTransport transport = new PooledHttpTransport().setMaxIdleTime(0);
+
+        RestGateway gateway = new RestGateway();
+        gateway.setServiceUrl(serviceUrl);
+        gateway.setHttpTransport(transport);
+
+        gateway.doTransaction("GET", "/echo");
+        gateway.doTransaction("GET", "/echo");
+        assertEquals(2, clientPorts.size());
+
+        transport.closeExpiredConnections();
+        assertEquals(0, transport.getIdleConnectionCount());
+    }
+
+    @Test
+    public void surfacesErrorResponses() {
+        RestGateway gateway = new RestGateway();
+        gateway.setServiceUrl(serviceUrl);
+        gateway.setHttpTransport(new PooledHttpTransport());
+
+        try {
+            gateway.doTransaction("POST", "/error", "{}");
+            fail("Expected a GatewayException.");
+        } catch (GatewayException exc) {
+            assertEquals("400", exc.getResponseCode());
+            assertEquals("{\"error\":{\"message\":\"Bad request\"}}", exc.getResponseText());
+        }
+    }
+
+    @Test
+    public void resizesRoutesAlreadyInUse() throws Exception {
+        final PooledHttpTransport transport = new PooledHttpTransport().setMaxConnectionsPerRoute(1);
+        transport.send(new HttpTransportRequest().setVerb("GET").setUrl(new URL(serviceUrl + "/echo")));
+
+        transport.setMaxConnectionsPerRoute(2);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<HttpTransportResponse>> results = new ArrayList<Future<HttpTransportResponse>>();
+            for (int i = 0; i < 2; i++) {
+                results.add(executor.submit(new Callable<HttpTransportResponse>() {
+                    public HttpTransportResponse call() throws Exception {
+                        return transport.send(new HttpTransportRequest().setVerb("GET").setUrl(new URL(serviceUrl + "/held")));
+                    }
+                }));
+            }
+            for (Future<HttpTransportResponse> result : results) {
+                assertEquals(200, result.get(10, TimeUnit.SECONDS).getStatusCode());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void rejectsInvalidContentLength() throws Exception {
+        final ServerSocket badServer = new ServerSocket(0);
+        Thread serverThread = new Thread() {
+            public void run() {
+                try (Socket socket = badServer.accept()) {
+                    socket.getInputStream().read(new byte[1024]);
+                    socket.getOutputStream().write("HTTP/1.1 200 OK\r\nContent-Length: twelve\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+                    socket.getOutputStream().flush();
+                } catch (IOException exc) {
+                    // the client gave up
+                }
+            }
+        };
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        PooledHttpTransport transport = new PooledHttpTransport();
+        try {
+            transport.send(new HttpTransportRequest().setVerb("GET").setUrl(new URL("http://localhost:" + badServer.getLocalPort() + "/")));
+            fail("Expected an IOException.");
+        } catch (IOException exc) {
+            assertEquals("Invalid Content-Length: twelve", exc.getMessage());
+        } finally {
+            badServer.close();
+        }
+        assertEquals(0, transport.getIdleConnectionCount());
+    }
+}
@@ -0,0 +1,75 @@
+package com.global.api.tests.network;
+
+import com.global.api.utils.LengthPrefixedFrameDecoder;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class FrameDecoderTests {
+    private static byte[] frame(int payloadLength, byte fill) {
+        ByteBuffer buffer = ByteBuffer.allocate(payloadLength + 2);
+        buffer.putShort((short) (payloadLength + 2));
+        for (int i = 0; i < payloadLength; i++) {
+            buffer.put(fill);
+        }
+        return buffer.array();
+    }
+
+    @Test
+    public void decodesPartialFrames() throws IOException {
+        LengthPrefixedFrameDecoder decoder = new LengthPrefixedFrameDecoder();
+        byte[] frame = frame(10, (byte) 'A');
+
+        decoder.feed(frame, 0, 1);
+        assertNull(decoder.nextFrame());
+        decoder.feed(frame, 1, 5);
+        assertNull(decoder.nextFrame());
+        decoder.feed(frame, 6, frame.length - 6);
+
+        byte[] payload = decoder.nextFrame();
+        assertNotNull(payload);
+        assertEquals(10, payload.length);
+        assertEquals('A', payload[9]);
+        assertEquals(0, decoder.getBufferedLength());
+    }
+
+    @Test
+    public void decodesSeveralFramesFromOneRead() throws IOException {
+        LengthPrefixedFrameDecoder decoder = new LengthPrefixedFrameDecoder();
+        byte[] first = frame(3, (byte) 1);
+        byte[] second = frame(4, (byte) 2);
+
+        ByteBuffer both = ByteBuffer.allocate(first.length + second.length);
+        both.put(first).put(second).flip();
+        decoder.feed(both);
+
+        assertEquals(3, decoder.nextFrame().length);
+        assertEquals(4, decoder.nextFrame().length);
+        assertNull(decoder.nextFrame());
+    }
+
+    @Test
+    public void decodesFramesLargerThanTheInitialBuffer() throws IOException {
+        // lengths above 32767 used to be read as negative values
+        LengthPrefixedFrameDecoder decoder = new LengthPrefixedFrameDecoder();
+        ByteArrayInputStream in = new ByteArrayInputStream(frame(40000, (byte) 'Z'));
+
+        byte[] payload;
+        while ((payload = decoder.nextFrame()) == null) {
+            assertTrue(decoder.readFrom(in) > 0);
+        }
+        assertEquals(40000, payload.length);
+        assertEquals('Z', payload[39999]);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsInvalidLength() throws IOException {
+        LengthPrefixedFrameDecoder decoder = new LengthPrefixedFrameDecoder();
+        decoder.feed(new byte[] { 0, 1 }, 0, 2);
+        decoder.nextFrame();
+    }
+}
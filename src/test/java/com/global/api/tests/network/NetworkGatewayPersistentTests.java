@@ -0,0 +1,244 @@
+package com.global.api.tests.network;
+
+import com.global.api.entities.exceptions.GatewayException;
+import com.global.api.entities.exceptions.GatewayTimeoutException;
+import com.global.api.gateways.NetworkGateway;
+import com.global.api.terminals.DeviceMessage;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class NetworkGatewayPersistentTests {
+    private static final char[] PASSWORD = "changeit".toCharArray();
+    private static SSLContext context;
+
+    private final List<StubHost> hosts = new ArrayList<StubHost>();
+    private NetworkGateway gateway;
+
+    // a throwaway self signed certificate for the stub hosts, trusted by the gateway under test
+    @BeforeClass
+    public static void createCertificate() throws Exception {
+        File keyStoreFile = File.createTempFile("stub-host", ".jks");
+        keyStoreFile.delete();
+        keyStoreFile.deleteOnExit();
+
+        File keytool = new File(System.getProperty("java.home"), "bin/keytool");
+        Process process = new ProcessBuilder(keytool.getPath(), "-genkeypair", "-alias", "stub", "-keyalg", "RSA",
+                "-keysize", "2048", "-dname", "CN=localhost", "-validity", "1", "-keystore", keyStoreFile.getPath(),
+                "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD)).redirectErrorStream(true).start();
+        drain(process.getInputStream());
+        assertEquals(0, process.waitFor());
+
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        FileInputStream in = new FileInputStream(keyStoreFile);
+        try {
+            keyStore.load(in, PASSWORD);
+        }
+        finally {
+            in.close();
+        }
+
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+
+        context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+    }
+
+    @After
+    public void stopHosts() throws IOException {
+        if(gateway != null) {
+            gateway.dispose();
+        }
+        for(StubHost host : hosts) {
+            host.close();
+        }
+    }
+
+    @Test
+    public void returnsResponsesOverOneConnection() throws GatewayException, IOException {
+        StubHost primary = startHost(true);
+        gateway = createGateway(primary, null);
+
+        for(int i = 0; i < 3; i++) {
+            byte[] response = gateway.send(message("000" + i));
+            assertEquals("000" + i + "payload", new String(response, StandardCharsets.US_ASCII));
+        }
+
+        assertEquals(1, primary.connections.get());
+        assertEquals(3, primary.requests.get());
+    }
+
+    @Test
+    public void timedOutRequestIsNotSentAgain() throws Exception {
+        StubHost primary = startHost(false);
+        gateway = createGateway(primary, null);
+
+        try {
+            gateway.send(message("0001"));
+            fail("Expected the request to time out.");
+        }
+        catch(GatewayTimeoutException exc) {
+            // expected
+        }
+
+        // give a second write time to arrive
+        Thread.sleep(500);
+        assertEquals(1, primary.requests.get());
+    }
+
+    @Test
+    public void timedOutRequestIsNotSentToSecondary() throws Exception {
+        StubHost primary = startHost(false);
+        StubHost secondary = startHost(true);
+        gateway = createGateway(primary, secondary);
+
+        try {
+            gateway.send(message("0001"));
+            fail("Expected the request to time out.");
+        }
+        catch(GatewayTimeoutException exc) {
+            // expected
+        }
+
+        Thread.sleep(500);
+        assertEquals(1, primary.requests.get());
+        assertEquals(0, secondary.requests.get());
+    }
+
+    private NetworkGateway createGateway(StubHost primary, StubHost secondary) {
+        NetworkGateway rvalue = new NetworkGateway() {
+            @Override
+            protected int getResponseTimeout() {
+                return 1000;
+            }
+
+            @Override
+            protected SSLSocketFactory getSocketFactory() {
+                return context.getSocketFactory();
+            }
+
+            // the first four bytes of the message identify the request
+            @Override
+            protected String getCorrelationId(byte[] buffer, int offset) {
+                return new String(buffer, offset, 4, StandardCharsets.US_ASCII);
+            }
+        };
+        rvalue.setPrimaryEndpoint("localhost");
+        rvalue.setPrimaryPort(primary.getPort());
+        if(secondary != null) {
+            rvalue.setSecondaryEndpoint("127.0.0.1");
+            rvalue.setSecondaryPort(secondary.getPort());
+        }
+        rvalue.setPersistentConnection(true);
+        return rvalue;
+    }
+
+    private StubHost startHost(boolean respond) throws IOException {
+        StubHost host = new StubHost(respond);
+        hosts.add(host);
+        host.start();
+        return host;
+    }
+
+    private static DeviceMessage message(String correlationId) {
+        byte[] payload = (correlationId + "payload").getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buffer = ByteBuffer.allocate(payload.length + 2);
+        buffer.putShort((short) (payload.length + 2));
+        buffer.put(payload);
+        return new DeviceMessage(buffer.array());
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[1024];
+        while(in.read(buffer) != -1) {
+            // keytool output is not needed
+        }
+    }
+
+    // counts every request written to it and echoes them back when asked to respond
+    private static class StubHost extends Thread {
+        private final SSLServerSocket server;
+        private final boolean respond;
+        private final AtomicInteger connections = new AtomicInteger();
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private StubHost(boolean respond) throws IOException {
+            this.server = (SSLServerSocket) context.getServerSocketFactory().createServerSocket(0);
+            this.respond = respond;
+            setDaemon(true);
+        }
+
+        private int getPort() {
+            return server.getLocalPort();
+        }
+
+        public void run() {
+            while(!server.isClosed()) {
+                try {
+                    final Socket socket = server.accept();
+                    connections.incrementAndGet();
+                    Thread connection = new Thread() {
+                        public void run() {
+                            serve(socket);
+                        }
+                    };
+                    connection.setDaemon(true);
+                    connection.start();
+                }
+                catch(IOException exc) {
+                    // closed by the test
+                }
+            }
+        }
+
+        private void serve(Socket socket) {
+            try {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                while(true) {
+                    int length = in.readUnsignedShort();
+                    byte[] payload = new byte[length - 2];
+                    in.readFully(payload);
+                    requests.incrementAndGet();
+
+                    if(respond) {
+                        out.writeShort(length);
+                        out.write(payload);
+                        out.flush();
+                    }
+                }
+            }
+            catch(IOException exc) {
+                // the gateway closed the connection
+            }
+        }
+
+        private void close() throws IOException {
+            server.close();
+        }
+    }
+}
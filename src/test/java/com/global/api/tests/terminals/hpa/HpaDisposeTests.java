@@ -0,0 +1,106 @@
+package com.global.api.tests.terminals.hpa;
+
+import com.global.api.entities.enums.ConnectionModes;
+import com.global.api.entities.enums.DeviceType;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.hpa.HpaController;
+import com.global.api.terminals.hpa.interfaces.HpaEventLoop;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HpaDisposeTests {
+    private ServerSocket server;
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void startDevice() throws IOException {
+        server = new ServerSocket(0);
+        Thread serverThread = new Thread() {
+            public void run() {
+                while(!server.isClosed()) {
+                    try {
+                        serve(server.accept());
+                    } catch (IOException e) {
+                        // closed by the test
+                    }
+                }
+            }
+        };
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @After
+    public void stopDevice() throws IOException {
+        HpaEventLoop.getShared().dispose();
+        server.close();
+    }
+
+    @Test
+    public void disposingInterfaceClosesLaneOnce() throws Exception {
+        HpaController controller = createController();
+        controller.configureInterface().dispose();
+
+        assertEquals(1, Collections.frequency(requests, "LaneClose"));
+        assertEquals(0, HpaEventLoop.getShared().getConnectionCount());
+    }
+
+    @Test
+    public void disposingControllerClosesLaneOnce() throws Exception {
+        HpaController controller = createController();
+        controller.configureInterface();
+        controller.dispose();
+
+        assertEquals(1, Collections.frequency(requests, "LaneClose"));
+        assertEquals(0, HpaEventLoop.getShared().getConnectionCount());
+    }
+
+    private HpaController createController() throws Exception {
+        ConnectionConfig config = new ConnectionConfig();
+        config.setPort(server.getLocalPort());
+        config.setIpAddress("localhost");
+        config.setTimeout(5000);
+        config.setDeviceType(DeviceType.HPA_ISC250);
+        config.setConnectionMode(ConnectionModes.TCP_IP);
+
+        return new HpaController(config);
+    }
+
+    private void serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+        try {
+            while(true) {
+                byte[] request = new byte[in.readUnsignedShort()];
+                in.readFully(request);
+
+                String message = new String(request, StandardCharsets.UTF_8);
+                String name = message.substring(message.indexOf("<Request>") + 9, message.indexOf("</Request>"));
+                requests.add(name);
+
+                byte[] response = String.format("<SIP><Version>1.0</Version><ECRId>1004</ECRId><Response>%s</Response><MultipleMessage>0</MultipleMessage><Result>0</Result><ResultText>Success</ResultText></SIP>", name).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(response.length);
+                out.write(response);
+                out.flush();
+            }
+        } catch(IOException exc) {
+            // the controller disconnected
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.global.api.tests.terminals.hpa;
+
+import com.global.api.entities.enums.ConnectionModes;
+import com.global.api.entities.enums.DeviceType;
+import com.global.api.entities.enums.MessageFormat;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.TerminalUtilities;
+import com.global.api.terminals.abstractions.IDeviceMessage;
+import com.global.api.terminals.hpa.interfaces.HpaEventLoop;
+import com.global.api.terminals.hpa.interfaces.HpaTcpInterface;
+import com.global.api.terminals.messaging.IMessageReceivedInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class HpaEventLoopTests {
+    private static final int DEVICES = 20;
+
+    private ServerSocket server;
+    private ExecutorService serverExecutor;
+
+    @Before
+    public void startDevices() throws IOException {
+        server = new ServerSocket(0);
+        serverExecutor = Executors.newCachedThreadPool();
+        serverExecutor.submit(new Callable<Void>() {
+            public Void call() throws Exception {
+                while(!server.isClosed()) {
+                    final Socket socket = server.accept();
+                    serverExecutor.submit(new Callable<Void>() {
+                        public Void call() throws Exception {
+                            serve(socket);
+                            return null;
+                        }
+                    });
+                }
+                return null;
+            }
+        });
+    }
+
+    @After
+    public void stopDevices() throws IOException {
+        HpaEventLoop.getShared().dispose();
+        server.close();
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    public void devicesShareOneReaderThread() throws Exception {
+        List<HpaTcpInterface> devices = new ArrayList<HpaTcpInterface>();
+        for(int i = 0; i < DEVICES; i++) {
+            HpaTcpInterface device = createInterface();
+            device.connect();
+            devices.add(device);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(DEVICES);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for(int i = 0; i < DEVICES; i++) {
+                final HpaTcpInterface device = devices.get(i);
+                final int requestId = i;
+                results.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        return new String(device.send(request(requestId)), StandardCharsets.UTF_8);
+                    }
+                }));
+            }
+
+            for(int i = 0; i < DEVICES; i++) {
+                assertTrue(results.get(i).get(10, TimeUnit.SECONDS).contains("<RequestId>" + i + "</RequestId>"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(DEVICES, HpaEventLoop.getShared().getConnectionCount());
+        assertEquals(1, countLoopThreads());
+
+        for(HpaTcpInterface device: devices) {
+            device.disconnect();
+        }
+        assertEquals(0, HpaEventLoop.getShared().getConnectionCount());
+
+        // the loop stops once the last device is gone
+        for(int i = 0; i < 50 && countLoopThreads() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, countLoopThreads());
+    }
+
+    @Test
+    public void reassemblesLargeSplitMessage() throws Exception {
+        HpaTcpInterface device = createInterface();
+
+        String response = new String(device.send(request(-1)), StandardCharsets.UTF_8);
+        assertTrue(response.endsWith("</SIP>"));
+        assertTrue(response.length() > 20000);
+
+        device.disconnect();
+    }
+
+    @Test
+    public void waitsForSlowWriteWithoutTimeout() throws Exception {
+        final ServerSocket slowDevice = new ServerSocket(0);
+        try {
+            Future<Integer> received = serverExecutor.submit(new Callable<Integer>() {
+                public Integer call() throws Exception {
+                    try (Socket socket = slowDevice.accept()) {
+                        // let the socket buffers fill before reading anything
+                        Thread.sleep(500);
+                        InputStream in = socket.getInputStream();
+                        byte[] chunk = new byte[8192];
+                        int total = 0;
+                        for(int read = in.read(chunk); read != -1; read = in.read(chunk)) {
+                            total += read;
+                        }
+                        return total;
+                    }
+                }
+            });
+
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", slowDevice.getLocalPort()));
+            HpaEventLoop.Connection connection = HpaEventLoop.getShared().register(channel, new IMessageReceivedInterface() {
+                public void messageReceived(byte[] message) { }
+            }, 0);
+
+            byte[] message = new byte[8 * 1024 * 1024];
+            connection.write(message);
+            connection.close();
+
+            assertEquals(Integer.valueOf(message.length), received.get(10, TimeUnit.SECONDS));
+        } finally {
+            slowDevice.close();
+        }
+    }
+
+    private HpaTcpInterface createInterface() {
+        ConnectionConfig config = new ConnectionConfig();
+        config.setPort(server.getLocalPort());
+        config.setIpAddress("localhost");
+        config.setTimeout(5000);
+        config.setDeviceType(DeviceType.HPA_ISC250);
+        config.setConnectionMode(ConnectionModes.TCP_IP);
+
+        return new HpaTcpInterface(config);
+    }
+
+    private static IDeviceMessage request(int requestId) {
+        String message = String.format("<SIP><Version>1.0</Version><ECRId>1004</ECRId><Request>Ping</Request><RequestId>%d</RequestId></SIP>", requestId);
+        IDeviceMessage deviceMessage = TerminalUtilities.buildRequest(message, MessageFormat.HPA);
+        deviceMessage.setAwaitResponse(true);
+        return deviceMessage;
+    }
+
+    private static void serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+        try {
+            while(true) {
+                byte[] request = new byte[in.readUnsignedShort()];
+                in.readFully(request);
+
+                String requestXml = new String(request, StandardCharsets.UTF_8);
+                String requestId = requestXml.substring(requestXml.indexOf("<RequestId>") + 11, requestXml.indexOf("</RequestId>"));
+
+                StringBuilder padding = new StringBuilder();
+                if("-1".equals(requestId)) {
+                    for(int i = 0; i < 2500; i++) {
+                        padding.append("<Line>0123456789</Line>");
+                    }
+                }
+
+                byte[] response = String.format("<SIP><Response>Ping</Response><RequestId>%s</RequestId><MultipleMessage>0</MultipleMessage><Result>0</Result>%s</SIP>", requestId, padding).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(response.length);
+                // split the message so the reader has to put it back together
+                out.write(response, 0, response.length / 2);
+                out.flush();
+                out.write(response, response.length / 2, response.length - response.length / 2);
+                out.flush();
+            }
+        } catch(IOException exc) {
+            // the device was disconnected
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static int countLoopThreads() {
+        int count = 0;
+        for(Thread thread: Thread.getAllStackTraces().keySet()) {
+            if("HPA event loop".equals(thread.getName()) && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
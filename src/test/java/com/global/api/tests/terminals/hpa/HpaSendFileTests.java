@@ -0,0 +1,164 @@
+package com.global.api.tests.terminals.hpa;
+
+import com.global.api.entities.enums.ConnectionModes;
+import com.global.api.entities.enums.DeviceType;
+import com.global.api.entities.enums.SendFileType;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.abstractions.IDeviceResponse;
+import com.global.api.terminals.hpa.HpaController;
+import com.global.api.terminals.hpa.HpaInterface;
+import com.global.api.terminals.hpa.interfaces.HpaEventLoop;
+import com.global.api.terminals.messaging.IFileUploadProgressInterface;
+import org.apache.commons.codec.binary.Hex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HpaSendFileTests {
+    private static final int MAX_DATA_SIZE = 500;
+
+    private ServerSocket server;
+    private File directory;
+    private final StringBuilder receivedData = new StringBuilder();
+    private final List<String> multipleMessages = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void startDevice() throws IOException {
+        server = new ServerSocket(0);
+        Thread serverThread = new Thread() {
+            public void run() {
+                // the upload reconnects for each part, one connection at a time keeps the parts in order
+                while(!server.isClosed()) {
+                    try {
+                        serve(server.accept());
+                    } catch (IOException e) {
+                        // closed by the test
+                    }
+                }
+            }
+        };
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        directory = new File(System.getProperty("java.io.tmpdir"), "hpa-send-file-" + System.nanoTime());
+        assertTrue(directory.mkdirs());
+    }
+
+    @After
+    public void stopDevice() throws IOException {
+        HpaEventLoop.getShared().dispose();
+        server.close();
+
+        File[] files = directory.listFiles();
+        if(files != null) {
+            for(File file: files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void streamsFileInParts() throws Exception {
+        byte[] content = new byte[1234];
+        new Random(42).nextBytes(content);
+        File banner = new File(directory, "banner.jpg");
+        FileOutputStream out = new FileOutputStream(banner);
+        try {
+            out.write(content);
+        } finally {
+            out.close();
+        }
+
+        final List<Integer> progress = new ArrayList<Integer>();
+        IDeviceResponse response = createDevice().sendFile(SendFileType.Banner, banner.getPath(), new IFileUploadProgressInterface() {
+            public void progress(int bytesSent, int fileSize) {
+                assertEquals(1234, fileSize);
+                progress.add(bytesSent);
+            }
+        });
+
+        assertEquals("00", response.getDeviceResponseCode());
+        assertEquals(Hex.encodeHexString(content).toUpperCase(), receivedData.toString());
+
+        // 100 hex characters, 50 bytes, per part
+        int parts = (1234 + 49) / 50;
+        assertEquals(parts, progress.size());
+        assertEquals(Integer.valueOf(50), progress.get(0));
+        assertEquals(Integer.valueOf(1234), progress.get(parts - 1));
+
+        // the file name message and every part but the last announce more to come
+        assertEquals(parts + 1, multipleMessages.size());
+        assertEquals(1, Collections.frequency(multipleMessages, "0"));
+        assertEquals("0", multipleMessages.get(parts));
+    }
+
+    private HpaInterface createDevice() throws Exception {
+        ConnectionConfig config = new ConnectionConfig();
+        config.setPort(server.getLocalPort());
+        config.setIpAddress("localhost");
+        config.setTimeout(5000);
+        config.setDeviceType(DeviceType.HPA_ISC250);
+        config.setConnectionMode(ConnectionModes.TCP_IP);
+
+        return (HpaInterface) new HpaController(config).configureInterface();
+    }
+
+    private void serve(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+
+        try {
+            while(true) {
+                byte[] request = new byte[in.readUnsignedShort()];
+                in.readFully(request);
+
+                String message = new String(request, StandardCharsets.UTF_8);
+                String multipleMessage = between(message, "MultipleMessage");
+                multipleMessages.add(multipleMessage);
+
+                String fileData = between(message, "FileData");
+                if(fileData != null) {
+                    receivedData.append(fileData);
+                    if("1".equals(multipleMessage)) {
+                        continue;
+                    }
+                }
+
+                byte[] response = String.format("<SIP><Version>1.0</Version><ECRId>1004</ECRId><Response>SendFile</Response><MultipleMessage>0</MultipleMessage><Result>0</Result><ResultText>Success</ResultText><MaxDataSize>%d</MaxDataSize></SIP>", MAX_DATA_SIZE).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(response.length);
+                out.write(response);
+                out.flush();
+            }
+        } catch(EOFException exc) {
+            // the part was sent and the connection closed
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static String between(String message, String element) {
+        int start = message.indexOf("<" + element + ">");
+        if(start < 0) {
+            return null;
+        }
+        start += element.length() + 2;
+        return message.substring(start, message.indexOf("</" + element + ">", start));
+    }
+}
@@ -0,0 +1,204 @@
+package com.global.api.tests.terminals.pax;
+
+import com.global.api.entities.enums.ConnectionModes;
+import com.global.api.entities.enums.ControlCodes;
+import com.global.api.entities.enums.DeviceType;
+import com.global.api.entities.exceptions.MessageException;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.TerminalUtilities;
+import com.global.api.terminals.pax.interfaces.PaxTcpInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PaxTcpInterfaceTests {
+    private static final byte[] RESPONSE = TerminalUtilities.buildRequest("0\u001cA01\u001c1.35\u001c000000\u001cOK".getBytes()).getSendBuffer();
+
+    private ServerSocket server;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<Byte> controlCodes = Collections.synchronizedList(new ArrayList<Byte>());
+
+    // set by the tests to change how the stub terminal answers
+    private volatile int corruptResponses;
+    private volatile boolean silent;
+    private volatile boolean dropAfterResponse;
+
+    private PaxTcpInterface pax;
+
+    @Before
+    public void startTerminal() throws IOException {
+        server = new ServerSocket(0);
+        Thread serverThread = new Thread() {
+            public void run() {
+                while(!server.isClosed()) {
+                    try {
+                        Socket socket = server.accept();
+                        connections.incrementAndGet();
+                        serve(socket);
+                    } catch (IOException e) {
+                        // closed by the test
+                    }
+                }
+            }
+        };
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @After
+    public void stopTerminal() throws IOException {
+        if(pax != null) {
+            pax.disconnect();
+        }
+        server.close();
+    }
+
+    @Test
+    public void reassemblesSplitResponse() throws Exception {
+        pax = createInterface(false);
+
+        assertArrayEquals(RESPONSE, pax.send(TerminalUtilities.buildRequest("A00".getBytes())));
+        assertEquals(1, connections.get());
+        Thread.sleep(100);
+        assertEquals(Byte.valueOf(ControlCodes.ACK.getByte()), controlCodes.get(0));
+    }
+
+    @Test
+    public void naksCorruptResponse() throws Exception {
+        pax = createInterface(false);
+        corruptResponses = 1;
+
+        assertArrayEquals(RESPONSE, pax.send(TerminalUtilities.buildRequest("A00".getBytes())));
+        Thread.sleep(100);
+        assertEquals(2, controlCodes.size());
+        assertEquals(Byte.valueOf(ControlCodes.NAK.getByte()), controlCodes.get(0));
+        assertEquals(Byte.valueOf(ControlCodes.ACK.getByte()), controlCodes.get(1));
+    }
+
+    @Test
+    public void sendsEotAfterThreeCorruptResponses() throws Exception {
+        pax = createInterface(false);
+        corruptResponses = 3;
+
+        try {
+            pax.send(TerminalUtilities.buildRequest("A00".getBytes()));
+            fail("Expected the LRC check to fail.");
+        } catch(MessageException exc) {
+            assertEquals("Terminal response failed the LRC check.", exc.getMessage());
+        }
+        Thread.sleep(100);
+        assertEquals(Byte.valueOf(ControlCodes.EOT.getByte()), controlCodes.get(controlCodes.size() - 1));
+    }
+
+    @Test
+    public void persistentSessionReusesConnection() throws Exception {
+        pax = createInterface(true);
+
+        for(int i = 0; i < 3; i++) {
+            assertArrayEquals(RESPONSE, pax.send(TerminalUtilities.buildRequest("A00".getBytes())));
+        }
+        assertEquals(1, connections.get());
+    }
+
+    @Test
+    public void reconnectsWhenDeviceDropsSession() throws Exception {
+        pax = createInterface(true);
+        dropAfterResponse = true;
+
+        for(int i = 0; i < 3; i++) {
+            assertArrayEquals(RESPONSE, pax.send(TerminalUtilities.buildRequest("A00".getBytes())));
+            // let the device close the idle session
+            Thread.sleep(100);
+        }
+        assertEquals(3, connections.get());
+    }
+
+    @Test
+    public void timesOutWithoutResponse() throws Exception {
+        pax = createInterface(false);
+        silent = true;
+
+        long start = System.currentTimeMillis();
+        try {
+            pax.send(TerminalUtilities.buildRequest("A00".getBytes()));
+            fail("Expected a timeout.");
+        } catch(MessageException exc) {
+            assertEquals("Terminal did not respond in the given timeout.", exc.getMessage());
+        }
+        assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+
+    private PaxTcpInterface createInterface(boolean persistentSession) {
+        ConnectionConfig config = new ConnectionConfig();
+        config.setPort(server.getLocalPort());
+        config.setIpAddress("localhost");
+        config.setTimeout(500);
+        config.setDeviceType(DeviceType.PAX_S300);
+        config.setConnectionMode(ConnectionModes.TCP_IP);
+        config.setPersistentSession(persistentSession);
+
+        return new PaxTcpInterface(config);
+    }
+
+    private void serve(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        OutputStream out = socket.getOutputStream();
+
+        try {
+            int b;
+            while((b = in.read()) != -1) {
+                if(b != ControlCodes.STX.getByte()) {
+                    controlCodes.add((byte) b);
+                    continue;
+                }
+
+                // read the rest of the request and its LRC
+                while(in.read() != ControlCodes.ETX.getByte()) { }
+                in.read();
+
+                if(silent) {
+                    continue;
+                }
+
+                out.write(ControlCodes.ACK.getByte());
+                while(true) {
+                    byte[] response = RESPONSE.clone();
+                    if(corruptResponses > 0) {
+                        corruptResponses--;
+                        response[response.length - 1] ^= 0x7F;
+                    }
+
+                    // split the response over two writes
+                    out.write(response, 0, 5);
+                    out.flush();
+                    out.write(response, 5, response.length - 5);
+                    out.flush();
+
+                    int code = in.read();
+                    controlCodes.add((byte) code);
+                    if(code != ControlCodes.NAK.getByte()) {
+                        break;
+                    }
+                }
+
+                if(dropAfterResponse) {
+                    break;
+                }
+            }
+        } finally {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.global.api.tests.terminals.upa;
+
+import com.global.api.entities.enums.ConnectionModes;
+import com.global.api.entities.enums.DeviceType;
+import com.global.api.entities.exceptions.ApiException;
+import com.global.api.terminals.ConnectionConfig;
+import com.global.api.terminals.TerminalUtilities;
+import com.global.api.terminals.abstractions.IDeviceInterface;
+import com.global.api.terminals.abstractions.IDeviceResponse;
+import com.global.api.terminals.upa.UpaController;
+import com.global.api.tests.terminals.hpa.RandomIdProvider;
+import com.global.api.utils.JsonDoc;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class UpaSessionTests {
+    private ServerSocket server;
+    private Thread serverThread;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+
+    // set by the tests to change how the stub terminal answers
+    private volatile boolean sendStaleResponse;
+    private volatile boolean dropAfterResponse;
+
+    private IDeviceInterface device;
+
+    @Before
+    public void startTerminal() throws IOException {
+        server = new ServerSocket(0);
+        serverThread = new Thread() {
+            public void run() {
+                while(!server.isClosed()) {
+                    try {
+                        Socket socket = server.accept();
+                        connections.incrementAndGet();
+                        serve(socket);
+                    } catch (IOException e) {
+                        // closed by the test
+                    }
+                }
+            }
+        };
+        serverThread.setDaemon(true);
+        serverThread.start();
+    }
+
+    @After
+    public void stopTerminal() throws IOException {
+        if(device != null) {
+            device.dispose();
+        }
+        server.close();
+    }
+
+    @Test
+    public void persistentSessionReusesConnection() throws ApiException {
+        device = createDevice(true);
+
+        for(int i = 0; i < 5; i++) {
+            IDeviceResponse response = device.ping();
+            assertEquals("00", response.getDeviceResponseCode());
+        }
+
+        assertEquals(1, connections.get());
+        // every response was acknowledged
+        assertEquals(5, count("\"ACK\""));
+    }
+
+    @Test
+    public void ignoresResponsesForOtherRequests() throws ApiException {
+        device = createDevice(true);
+        sendStaleResponse = true;
+
+        IDeviceResponse response = device.ping();
+        assertEquals("00", response.getDeviceResponseCode());
+        assertEquals(2, count("\"ACK\""));
+    }
+
+    @Test
+    public void reconnectsWhenDeviceDropsSession() throws Exception {
+        device = createDevice(true);
+        dropAfterResponse = true;
+
+        assertEquals("00", device.ping().getDeviceResponseCode());
+        // let the reader see the connection close
+        Thread.sleep(100);
+        assertEquals("00", device.ping().getDeviceResponseCode());
+
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    public void connectsForEachCommandByDefault() throws ApiException {
+        device = createDevice(false);
+
+        assertEquals("00", device.ping().getDeviceResponseCode());
+        assertEquals("00", device.ping().getDeviceResponseCode());
+
+        assertEquals(2, connections.get());
+    }
+
+    private IDeviceInterface createDevice(boolean persistentSession) throws ApiException {
+        ConnectionConfig config = new ConnectionConfig();
+        config.setPort(server.getLocalPort());
+        config.setIpAddress("localhost");
+        config.setTimeout(5000);
+        config.setRequestIdProvider(new RandomIdProvider());
+        config.setDeviceType(DeviceType.UPA_VERIFONE_T650P);
+        config.setConnectionMode(ConnectionModes.TCP_IP);
+        config.setPersistentSession(persistentSession);
+
+        return new UpaController(config).configureInterface();
+    }
+
+    private void serve(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        OutputStream out = socket.getOutputStream();
+
+        try {
+            String frame;
+            while((frame = readFrame(in)) != null) {
+                received.add(frame);
+                JsonDoc request = JsonDoc.parse(frame);
+                if(!"MSG".equals(request.getString("message"))) {
+                    continue;
+                }
+
+                String requestId = request.get("data").getString("requestId");
+                String command = request.get("data").getString("command");
+
+                write(out, "{\"data\":\"\",\"message\":\"ACK\"}");
+                if(sendStaleResponse) {
+                    write(out, response(command, "1"));
+                    awaitAck(in);
+                    write(out, "{\"data\":\"\",\"message\":\"READY\"}");
+                }
+
+                // split the response over two writes
+                byte[] response = TerminalUtilities.compileMessage(response(command, requestId)).getSendBuffer();
+                out.write(response, 0, 10);
+                out.flush();
+                out.write(response, 10, response.length - 10);
+                out.flush();
+
+                // the device waits for the response to be acknowledged before it is ready again
+                awaitAck(in);
+                write(out, "{\"data\":\"\",\"message\":\"READY\"}");
+                if(dropAfterResponse) {
+                    dropAfterResponse = false;
+                    break;
+                }
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    private void awaitAck(InputStream in) throws IOException {
+        String frame;
+        while((frame = readFrame(in)) != null) {
+            received.add(frame);
+            if(frame.contains("\"ACK\"")) {
+                return;
+            }
+        }
+    }
+
+    private static String response(String command, String requestId) {
+        String result = "1".equals(requestId) ? "Failed" : "Success";
+        return String.format("{\"data\":{\"response\":\"%s\",\"EcrId\":\"13\",\"requestId\":\"%s\",\"cmdResult\":{\"result\":\"%s\"}},\"message\":\"MSG\"}", command, requestId, result);
+    }
+
+    private static void write(OutputStream out, String body) throws IOException {
+        out.write(TerminalUtilities.compileMessage(body).getSendBuffer());
+        out.flush();
+    }
+
+    private static String readFrame(InputStream in) throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        int b;
+        while((b = in.read()) != -1) {
+            if(b == 0x03) {
+                return new String(frame.toByteArray(), StandardCharsets.UTF_8).trim();
+            }
+            if(b != 0x02) {
+                frame.write(b);
+            }
+        }
+        return null;
+    }
+
+    private int count(String value) {
+        int count = 0;
+        synchronized (received) {
+            for(String frame : received) {
+                if(frame.contains(value)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}